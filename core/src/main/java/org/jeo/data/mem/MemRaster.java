@@ -66,7 +66,7 @@ public class MemRaster implements RasterDataset {
             }
         }
 
-        bands.add(new MemBand(name, color, datatype, array));
+        bands.add(new MemBand(this, bands.size(), name, color, datatype, array));
     }
 
     @Override
@@ -170,8 +170,11 @@ public class MemRaster implements RasterDataset {
             }
         }
 
-        if (!size.equals(r.size())) {
-            buf = DataBuffer.resample(buf, r.size(), size);
+        if (size.width() != r.width() || size.height() != r.height()) {
+            NoData nodata = bands.size() == 1 ? NoData.create(bands.get(0).nodata()) : NoData.NONE;
+            buf = new Resampler(query.resample()).nodata(nodata)
+                .bands(bands.size() <= dataType.size() ? bands.size() : 1)
+                .resample(buf, r.size(), size);
         }
 
         return raster.data(buf.rewind());
@@ -204,12 +207,17 @@ public class MemRaster implements RasterDataset {
 
     static class MemBand implements Band {
 
+        MemRaster raster;
+        int index;
         Array2D<Number> data;
         Color color;
         DataType datatype;
         String name;
 
-        MemBand(String name, Color color, DataType datatype, Array2D<Number> data) {
+        MemBand(MemRaster raster, int index, String name, Color color, DataType datatype, 
+            Array2D<Number> data) {
+            this.raster = raster;
+            this.index = index;
             this.name = name;
             this.color = color;
             this.datatype = datatype;
@@ -238,35 +246,7 @@ public class MemRaster implements RasterDataset {
 
         @Override
         public Stats stats() throws IOException {
-            Stats stats = new Stats(Double.MAX_VALUE, -Double.MAX_VALUE, 0d, 0d);
-
-            int n = data.length() * data.length(0);
-
-            for (int i = 0; i < data.length(); i++) {
-                for (int j = 0; j < data.length(i); j++) {
-                    double val = data.get(i,j).doubleValue();
-                    stats.max(Math.max(val, stats.max()));
-                    stats.min(Math.min(val, stats.min()));
-                    stats.mean(stats.mean()+val);
-                }
-            }
-
-            //TODO: use a streaming algorithm to calculate stdev
-            double mean = stats.mean() / ((double)n);
-            stats.mean(mean);
-
-            double stdev = 0;
-            for (int i = 0; i < data.length(); i++) {
-                for (int j = 0; j < data.length(i); j++) {
-                    double val = data.get(i,j).doubleValue();
-                    double diff = mean - val;
-                    stdev += diff * diff;
-                }
-            }
-
-            stats.stdev(Math.sqrt(stdev / ((double)n)));
-
-            return stats;
+            return StatsCalculator.stats(raster, index, false);
         }
     }
 }
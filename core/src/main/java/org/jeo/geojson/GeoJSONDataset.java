@@ -15,13 +15,14 @@
 package org.jeo.geojson;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Map;
 
@@ -39,6 +40,7 @@ import org.jeo.vector.Schema;
 import org.jeo.vector.SchemaBuilder;
 import org.jeo.geojson.parser.CRSFinder;
 import org.jeo.geojson.parser.RootHandler;
+import org.jeo.json.encoder.Utf8Writer;
 import org.jeo.json.parser.JSONParser;
 import org.jeo.json.parser.ParseException;
 import org.jeo.proj.Proj;
@@ -174,10 +176,11 @@ public class GeoJSONDataset implements VectorDataset, FileData {
     }
 
     Reader reader() throws IOException {
-        return new BufferedReader(new FileReader(file));
+        return new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8")));
     }
 
     Writer writer() throws IOException {
-        return new BufferedWriter(new FileWriter(file));
+        return new Utf8Writer(new FileOutputStream(file));
     }
 }
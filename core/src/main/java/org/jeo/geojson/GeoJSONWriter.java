@@ -15,6 +15,7 @@
 package org.jeo.geojson;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Map;
@@ -52,6 +53,13 @@ import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
  * writer.endObject();
  * </code></pre>
  * </p>
+ * <p>
+ * Coordinates are written directly to the underlying writer rather than through the generic
+ * {@link #array()} and {@link #value(double)} calls, and may be rounded to a fixed number of
+ * decimal places with {@link #precision(int)}. For large exports prefer the 
+ * {@link #GeoJSONWriter(OutputStream)} constructor which encodes UTF-8 directly without an 
+ * intermediate charset encoder.
+ * </p>
  * @author Justin Deoliveira, OpenGeo
  */
 public class GeoJSONWriter extends JSONEncoder {
@@ -128,6 +136,25 @@ public class GeoJSONWriter extends JSONEncoder {
         super(out, indentSize);
     }
 
+    /**
+     * Creates a new writer that encodes UTF-8 directly to an output stream.
+     * 
+     * @param out The stream to encode to.
+     */
+    public GeoJSONWriter(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Creates a new writer with formatting that encodes UTF-8 directly to an output stream.
+     * 
+     * @param out The stream to encode to.
+     * @param indentSize The number of spaces to use when indenting.
+     */
+    public GeoJSONWriter(OutputStream out, int indentSize) {
+        super(out, indentSize);
+    }
+
     
     /**
      * Encodes a bounding box as a 4 element array.
@@ -210,17 +237,22 @@ public class GeoJSONWriter extends JSONEncoder {
 
         object()
           .key("type").value("Point")
-          .key("coordinates").array()
-              .value(p.getX())
-              .value(p.getY());
-        
-        if (!Double.isNaN(p.getCoordinate().z)) {
-            value(p.getCoordinate().z);
-        }
+          .key("coordinates");
 
-        endArray().endObject();
+        Coordinate c = p.getCoordinate();
+        if (isFormatted()) {
+            array().value(c.x).value(c.y);
+            if (!Double.isNaN(c.z)) {
+                value(c.z);
+            }
+            endArray();
+        }
+        else {
+            startValue();
+            coordinate(c.x, c.y, c.z);
+        }
 
-        return this;
+        return endObject();
     }
 
     /**
@@ -480,6 +512,16 @@ public class GeoJSONWriter extends JSONEncoder {
         return (GeoJSONWriter) super.value(value);
     }
 
+    @Override
+    public GeoJSONWriter value(double value) throws IOException {
+        return (GeoJSONWriter) super.value(value);
+    }
+
+    @Override
+    public GeoJSONWriter value(long value) throws IOException {
+        return (GeoJSONWriter) super.value(value);
+    }
+
     @Override
     public GeoJSONWriter nul() throws IOException {
         return (GeoJSONWriter) super.nul();
@@ -505,11 +547,36 @@ public class GeoJSONWriter extends JSONEncoder {
         return (GeoJSONWriter) super.flush();
     }
 
+    @Override
+    public GeoJSONWriter precision(int precision) {
+        return (GeoJSONWriter) super.precision(precision);
+    }
+
     GeoJSONWriter array(Coordinate[] coords) throws IOException {
         return array(new CoordinateArraySequence(coords));
     }
 
     GeoJSONWriter array(CoordinateSequence coordseq) throws IOException {
+        if (!isFormatted()) {
+            // fast path, write the sequence straight out 
+            startValue();
+
+            Writer out = getWriter();
+            out.write('[');
+
+            boolean z = coordseq.getDimension() > 2;
+            for (int i = 0; i < coordseq.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                coordinate(coordseq.getOrdinate(i, 0), coordseq.getOrdinate(i, 1),
+                    z ? coordseq.getOrdinate(i, 2) : Double.NaN);
+            }
+
+            out.write(']');
+            return this;
+        }
+
         array();
         
         int dim = coordseq.getDimension();
@@ -531,6 +598,22 @@ public class GeoJSONWriter extends JSONEncoder {
         return this;
     }
 
+    /*
+     * Writes a single coordinate array directly to the output, omitting z when NaN.
+     */
+    void coordinate(double x, double y, double z) throws IOException {
+        Writer out = getWriter();
+        out.write('[');
+        number(x);
+        out.write(',');
+        number(y);
+        if (!Double.isNaN(z)) {
+            out.write(',');
+            number(z);
+        }
+        out.write(']');
+    }
+
     GeoJSONWriter array(Polygon p) throws IOException {
         array();
         array(p.getExteriorRing().getCoordinateSequence());
@@ -30,6 +30,7 @@ import org.jeo.vector.VectorDataset;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Map;
 
@@ -70,6 +71,25 @@ public class JeoJSONWriter extends GeoJSONWriter {
         super(out, indentSize);
     }
 
+    /**
+     * Creates a new writer that encodes UTF-8 directly to an output stream.
+     *
+     * @param out The stream to encode to.
+     */
+    public JeoJSONWriter(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Creates a new writer with formatting that encodes UTF-8 directly to an output stream.
+     *
+     * @param out The stream to encode to.
+     * @param indentSize The number of spaces to use when indenting.
+     */
+    public JeoJSONWriter(OutputStream out, int indentSize) {
+        super(out, indentSize);
+    }
+
     /**
      * Encodes a workspace object.
      */
@@ -343,4 +363,9 @@ public class JeoJSONWriter extends GeoJSONWriter {
         return (JeoJSONWriter) super.flush();
     }
 
+    @Override
+    public JeoJSONWriter precision(int precision) {
+        return (JeoJSONWriter) super.precision(precision);
+    }
+
 }
@@ -15,6 +15,7 @@
 package org.jeo.json.encoder;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.ArrayDeque;
 
@@ -22,6 +23,22 @@ import org.jeo.json.JSONValue;
 
 public class JSONEncoder {
 
+    /**
+     * powers of ten used when rounding to a fixed precision
+     */
+    static final long[] POW10 = new long[16];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i-1] * 10;
+        }
+    }
+
+    /**
+     * upper bound on scaled values that can be rounded exactly through a long
+     */
+    static final double MAX_SCALED = 1e15;
+
     /**
      * output
      */
@@ -36,6 +53,16 @@ public class JSONEncoder {
     String space;
     String newline;
 
+    /**
+     * number of decimal places for floating point values, -1 for full precision
+     */
+    int precision = -1;
+
+    /**
+     * scratch buffer for number formatting
+     */
+    final char[] buf = new char[32];
+
     /**
      * Creates a new encoder.
      * 
@@ -59,6 +86,26 @@ public class JSONEncoder {
         newline = indentSize > 0 ? "\n" : "";
     }
 
+    /**
+     * Creates a new encoder that writes UTF-8 encoded output directly to a stream.
+     * 
+     * @param out Stream to output to.
+     */
+    public JSONEncoder(OutputStream out) {
+        this(out, 0);
+    }
+
+    /**
+     * Creates a new encoder with formatting that writes UTF-8 encoded output directly to a
+     * stream.
+     * 
+     * @param out Stream to output to.
+     * @param indentSize The number of spaces to use when indenting.
+     */
+    public JSONEncoder(OutputStream out, int indentSize) {
+        this(new Utf8Writer(out), indentSize);
+    }
+
     /**
      * The underlying writer.
      */
@@ -66,6 +113,41 @@ public class JSONEncoder {
         return out;
     }
 
+    /**
+     * Sets the number of decimal places used when encoding floating point values.
+     * <p>
+     * Values are rounded half up and trailing zeros are dropped, so <tt>1.50</tt> is encoded as
+     * <tt>1.5</tt> and <tt>2.0</tt> as <tt>2</tt>. A value of <tt>-1</tt> (the default) encodes
+     * values at full precision.
+     * </p>
+     * @param precision Number of decimal places, between 0 and 15, or -1.
+     * 
+     * @return This encoder.
+     */
+    public JSONEncoder precision(int precision) {
+        if (precision < -1 || precision >= POW10.length) {
+            throw new IllegalArgumentException("precision must be between 0 and "
+                + (POW10.length-1) + ", or -1");
+        }
+        this.precision = precision;
+        return this;
+    }
+
+    /**
+     * The number of decimal places used when encoding floating point values, -1 meaning full
+     * precision.
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the encoder formats output with newlines and indentation.
+     */
+    protected boolean isFormatted() {
+        return !"".equals(newline);
+    }
+
     /*
      * Helper to generate an indentation chunk.
      */
@@ -162,9 +244,8 @@ public class JSONEncoder {
         }
 
         newline();
-        out.write("\"");
-        out.write(JSONValue.escape(key));
-        out.write("\":");
+        string(key);
+        out.write(':');
         out.write(space);
         return this;
     }
@@ -179,13 +260,15 @@ public class JSONEncoder {
      */
     public JSONEncoder value(Number value) throws IOException {
 
-        if (value != null) {
-            // check for double nan/infinte
-            if (value instanceof Double || value instanceof Float) {
-                Double val = value.doubleValue();
-                if (val.isInfinite() || val.isNaN()) {
-                    value = null;
-                }
+        if (value instanceof Double || (value instanceof Float && precision > -1)) {
+            return value(value.doubleValue());
+        }
+
+        if (value instanceof Float) {
+            // check for float nan/infinite
+            Float val = (Float) value;
+            if (val.isInfinite() || val.isNaN()) {
+                value = null;
             }
         }
 
@@ -193,10 +276,31 @@ public class JSONEncoder {
 
     }
 
+    /**
+     * Specifies a floating point value for an object property.
+     * <p>
+     * The value is rounded to the configured {@link #precision(int)}. NaN and infinite values are 
+     * encoded as <tt>null</tt>.
+     * </p>
+     * @param value The value.
+     * @return This encoder.
+     */
     public JSONEncoder value(double value) throws IOException {
-        return doValue(Double.toString(value));
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nul();
+        }
+
+        startValue();
+        number(value);
+        return this;
     }
 
+    /**
+     * Specifies an integral value for an object property.
+     * 
+     * @param value The value.
+     * @return This encoder.
+     */
     public JSONEncoder value(long value) throws IOException {
         return doValue(Long.toString(value));
     }
@@ -237,13 +341,37 @@ public class JSONEncoder {
      * @return This encoder.
      */
     public JSONEncoder value(String value) throws IOException {
-        return doValue(value != null ? "\""+JSONValue.escape(value)+"\"" : null);
+        if (value == null) {
+            return doValue(null);
+        }
+
+        startValue();
+        string(value);
+        return this;
     }
 
     /*
      * Helper to write out an already encoded value.
      */
     JSONEncoder doValue(String encoded) throws IOException {
+        startValue();
+
+        if (encoded == null) {
+            encoded = "null";
+        }
+
+        out.write(encoded);
+        return this;
+    }
+
+    /**
+     * Prepares the encoder for a value, writing any separator and updating the state of the 
+     * enclosing object or array.
+     * <p>
+     * Subclasses call this before writing a value directly to {@link #getWriter()}.
+     * </p>
+     */
+    protected void startValue() throws IOException {
         Thing t = peek();
         if (t == null) {
             throw new IllegalStateException("no object");
@@ -266,13 +394,90 @@ public class JSONEncoder {
             o.key = false;
             o.size++;
         }
+    }
 
-        if (encoded == null) {
-            encoded = "null";
+    /**
+     * Writes a floating point number directly to the output, rounded to the configured precision.
+     * <p>
+     * No separator or state handling is done, see {@link #startValue()}.
+     * </p>
+     */
+    protected void number(double value) throws IOException {
+        if (precision < 0) {
+            out.write(Double.toString(value));
+            return;
         }
 
-        out.write(encoded);
-        return this;
+        double abs = Math.abs(value);
+        double scaled = abs * POW10[precision];
+        if (!(scaled < MAX_SCALED)) {
+            // too large to round through a long, or nan/infinite
+            out.write(Double.toString(value));
+            return;
+        }
+
+        long n = Math.round(scaled);
+        if (n == 0) {
+            out.write('0');
+            return;
+        }
+
+        // drop trailing zeros from the fraction
+        int digits = precision;
+        while (digits > 0 && n % 10 == 0) {
+            n /= 10;
+            digits--;
+        }
+
+        // fill the buffer from the end
+        int pos = buf.length;
+        for (int i = 0; i < digits; i++) {
+            buf[--pos] = (char) ('0' + (n % 10));
+            n /= 10;
+        }
+        if (digits > 0) {
+            buf[--pos] = '.';
+        }
+        do {
+            buf[--pos] = (char) ('0' + (n % 10));
+            n /= 10;
+        }
+        while (n > 0);
+
+        if (value < 0) {
+            buf[--pos] = '-';
+        }
+
+        out.write(buf, pos, buf.length - pos);
+    }
+
+    /*
+     * Writes a quoted string, only going through the escaping routine when the string contains
+     * characters that need escaping.
+     */
+    void string(String s) throws IOException {
+        out.write('"');
+        if (needsEscape(s)) {
+            out.write(JSONValue.escape(s));
+        }
+        else {
+            out.write(s);
+        }
+        out.write('"');
+    }
+
+    /*
+     * Determines if a string contains any character escaped by JSONValue#escape.
+     */
+    static boolean needsEscape(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch < 0x20 || ch == '"' || ch == '\\' || ch == '/' || (ch >= 0x7F && ch <= 0x9F)
+                || (ch >= 0x2000 && ch <= 0x20FF)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -351,6 +556,10 @@ public class JSONEncoder {
      * Moves output to the next line and indents. A no-op if formatting not active. 
      */
     void newline() throws IOException {
+        if ("".equals(newline)) {
+            return;
+        }
+
         out.write(newline);
         if (!"".equals(indent)) {
             for (int i = 0; i < stack.size(); i++) {
@@ -0,0 +1,172 @@
+/* Copyright 2013 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.json.encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Buffered writer that encodes characters as UTF-8 directly into a byte buffer.
+ * <p>
+ * Unlike an {@link java.io.OutputStreamWriter} wrapped in a {@link java.io.BufferedWriter} this
+ * writer does not go through a charset encoder and is cheap to call with single characters, which
+ * is the common case for {@link JSONEncoder}. The writer is not thread safe.
+ * </p>
+ */
+public class Utf8Writer extends Writer {
+
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    final OutputStream out;
+    final byte[] buf;
+    int pos = 0;
+
+    /**
+     * pending high surrogate from a previous write call
+     */
+    char high = 0;
+
+    /**
+     * Creates a new writer with the default buffer size.
+     *
+     * @param out The stream to write to.
+     */
+    public Utf8Writer(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new writer.
+     *
+     * @param out The stream to write to.
+     * @param bufferSize Size of the byte buffer, must be at least 4.
+     */
+    public Utf8Writer(OutputStream out, int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("buffer size must be at least 4");
+        }
+        this.out = out;
+        this.buf = new byte[bufferSize];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            char c = cbuf[i];
+            if (c < 0x80 && high == 0) {
+                if (pos == buf.length) {
+                    drain();
+                }
+                buf[pos++] = (byte) c;
+            }
+            else {
+                encode(c);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80 && high == 0) {
+                if (pos == buf.length) {
+                    drain();
+                }
+                buf[pos++] = (byte) c;
+            }
+            else {
+                encode(c);
+            }
+        }
+    }
+
+    void encode(char c) throws IOException {
+        if (buf.length - pos < 4) {
+            drain();
+        }
+
+        if (high != 0) {
+            char h = high;
+            high = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(h, c);
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                return;
+            }
+
+            // unpaired surrogate
+            buf[pos++] = '?';
+            if (buf.length - pos < 4) {
+                drain();
+            }
+        }
+
+        if (c < 0x80) {
+            buf[pos++] = (byte) c;
+        }
+        else if (c < 0x800) {
+            buf[pos++] = (byte) (0xC0 | (c >> 6));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if (Character.isHighSurrogate(c)) {
+            high = c;
+        }
+        else if (Character.isLowSurrogate(c)) {
+            // unpaired surrogate
+            buf[pos++] = '?';
+        }
+        else {
+            buf[pos++] = (byte) (0xE0 | (c >> 12));
+            buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /*
+     * Writes out the contents of the buffer to the underlying stream.
+     */
+    void drain() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (high != 0) {
+            high = 0;
+            encode('?');
+        }
+        drain();
+        out.close();
+    }
+}
@@ -17,6 +17,9 @@ package org.jeo.raster;
 import org.jeo.util.Dimension;
 
 import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
 /**
  * Wrapper around a {@link java.nio.ByteBuffer} that abstracts away data type of values
@@ -25,6 +28,14 @@ import java.nio.ByteBuffer;
  * The buffer wrapper maintains a native {@link #datatype()}. Values returned from {@link #get()}
  * are of this native type. Values of any type may be put into the buffer via {@link #put(Object)}
  * </p>
+ * <p>
+ * The primitive accessors such as {@link #getDouble(int)} and {@link #putDouble(int, double)}, and
+ * the bulk methods such as {@link #get(int, double[], int, int)}, avoid boxing values and convert
+ * between the primitive type and the native type with the usual Java casts. They use absolute
+ * positions and never modify the position of the underlying buffer, so any number of threads
+ * may read from a buffer concurrently, and write to disjoint regions of it, as long as no thread
+ * uses the relative methods at the same time.
+ * </p>
  */
 public abstract class DataBuffer<T> {
     /**
@@ -116,6 +127,8 @@ public abstract class DataBuffer<T> {
      * @param <T> Buffer type.
      *
      * @return The resampled buffer.
+     *
+     * @see Resampler
      */
     public static <T> DataBuffer<T> resample(DataBuffer<T> buffer, Dimension from, Dimension to) {
         DataBuffer resampled = create(to.width()*to.height(), buffer.datatype());
@@ -123,13 +136,25 @@ public abstract class DataBuffer<T> {
 
         double xratio = from.width() / (double)to.width();
         double yratio = from.height() / (double)to.height();
-        int px, py ;
+
+        int[] px = new int[to.width()];
+        for (int i = 0; i < to.width(); i++) {
+            px[i] = (int) Math.floor(i*xratio);
+        }
+
+        // copy values as raw bytes, no need to decode them
+        ByteBuffer src = buffer.buffer();
+        ByteBuffer dst = resampled.buffer();
+        int n = buffer.datatype().size();
         for (int j = 0; j < to.height(); j++) {
             int offset = j*to.width();
+            int row = ((int) Math.floor(j*yratio))*from.width();
             for (int i = 0; i < to.width(); i++ ) {
-                px = (int) Math.floor(i*xratio);
-                py = (int) Math.floor(j*yratio);
-                resampled.put(offset+i, buffer.get(py*from.width()+px));
+                int s = (row+px[i])*n;
+                int d = (offset+i)*n;
+                for (int k = 0; k < n; k++) {
+                    dst.put(d+k, src.get(s+k));
+                }
             }
         }
         return resampled.rewind();
@@ -236,6 +261,372 @@ public abstract class DataBuffer<T> {
         return this;
     }
 
+    /**
+     * Retrieves the value at the specified position as a byte, see {@link #getInt(int)}.
+     */
+    public byte getByte(int i) {
+        return (byte) getInt(i);
+    }
+
+    /**
+     * Retrieves the value at the specified position as a short, see {@link #getInt(int)}.
+     */
+    public short getShort(int i) {
+        return (short) getInt(i);
+    }
+
+    /**
+     * Retrieves the value at the specified position as an int.
+     * <p>
+     * The position <tt>i</tt> is relative to the datatype size, as with {@link #get(int)}. Unlike
+     * {@link #get(int)} this method does not change the position of the buffer. Values of other
+     * types are cast to an int.
+     * </p>
+     */
+    public int getInt(int i) {
+        switch(datatype) {
+            case BYTE:
+                return buffer.get(i);
+            case SHORT:
+                return buffer.getShort(i*2);
+            case CHAR:
+                return buffer.getChar(i*2);
+            case INT:
+                return buffer.getInt(i*4);
+            case LONG:
+                return (int) buffer.getLong(i*8);
+            case FLOAT:
+                return (int) buffer.getFloat(i*4);
+            case DOUBLE:
+                return (int) buffer.getDouble(i*8);
+            default:
+                throw new IllegalStateException("unsupported data type: " + datatype);
+        }
+    }
+
+    /**
+     * Retrieves the value at the specified position as a long, see {@link #getInt(int)}.
+     */
+    public long getLong(int i) {
+        switch(datatype) {
+            case LONG:
+                return buffer.getLong(i*8);
+            case FLOAT:
+                return (long) buffer.getFloat(i*4);
+            case DOUBLE:
+                return (long) buffer.getDouble(i*8);
+            default:
+                return getInt(i);
+        }
+    }
+
+    /**
+     * Retrieves the value at the specified position as a float, see {@link #getInt(int)}.
+     */
+    public float getFloat(int i) {
+        switch(datatype) {
+            case FLOAT:
+                return buffer.getFloat(i*4);
+            case DOUBLE:
+                return (float) buffer.getDouble(i*8);
+            case LONG:
+                return buffer.getLong(i*8);
+            default:
+                return getInt(i);
+        }
+    }
+
+    /**
+     * Retrieves the value at the specified position as a double, see {@link #getInt(int)}.
+     */
+    public double getDouble(int i) {
+        switch(datatype) {
+            case FLOAT:
+                return buffer.getFloat(i*4);
+            case DOUBLE:
+                return buffer.getDouble(i*8);
+            case LONG:
+                return buffer.getLong(i*8);
+            default:
+                return getInt(i);
+        }
+    }
+
+    /**
+     * Puts a byte value at the specified position, see {@link #putInt(int, int)}.
+     */
+    public DataBuffer<T> putByte(int i, byte val) {
+        return putInt(i, val);
+    }
+
+    /**
+     * Puts a short value at the specified position, see {@link #putInt(int, int)}.
+     */
+    public DataBuffer<T> putShort(int i, short val) {
+        return putInt(i, val);
+    }
+
+    /**
+     * Puts an int value at the specified position.
+     * <p>
+     * The position <tt>i</tt> is relative to the datatype size, as with {@link #put(int, Object)}.
+     * Unlike {@link #put(int, Object)} this method does not change the position of the buffer.
+     * The value is cast to the native type of the buffer.
+     * </p>
+     */
+    public DataBuffer<T> putInt(int i, int val) {
+        switch(datatype) {
+            case BYTE:
+                buffer.put(i, (byte) val);
+                break;
+            case SHORT:
+                buffer.putShort(i*2, (short) val);
+                break;
+            case CHAR:
+                buffer.putChar(i*2, (char) val);
+                break;
+            case INT:
+                buffer.putInt(i*4, val);
+                break;
+            case LONG:
+                buffer.putLong(i*8, val);
+                break;
+            case FLOAT:
+                buffer.putFloat(i*4, val);
+                break;
+            case DOUBLE:
+                buffer.putDouble(i*8, val);
+                break;
+            default:
+                throw new IllegalStateException("unsupported data type: " + datatype);
+        }
+        return this;
+    }
+
+    /**
+     * Puts a long value at the specified position, see {@link #putInt(int, int)}.
+     */
+    public DataBuffer<T> putLong(int i, long val) {
+        switch(datatype) {
+            case LONG:
+                buffer.putLong(i*8, val);
+                return this;
+            case FLOAT:
+                buffer.putFloat(i*4, val);
+                return this;
+            case DOUBLE:
+                buffer.putDouble(i*8, val);
+                return this;
+            default:
+                return putInt(i, (int) val);
+        }
+    }
+
+    /**
+     * Puts a float value at the specified position, see {@link #putInt(int, int)}.
+     */
+    public DataBuffer<T> putFloat(int i, float val) {
+        switch(datatype) {
+            case LONG:
+                buffer.putLong(i*8, (long) val);
+                return this;
+            case FLOAT:
+                buffer.putFloat(i*4, val);
+                return this;
+            case DOUBLE:
+                buffer.putDouble(i*8, val);
+                return this;
+            default:
+                return putInt(i, (int) val);
+        }
+    }
+
+    /**
+     * Puts a double value at the specified position, see {@link #putInt(int, int)}.
+     */
+    public DataBuffer<T> putDouble(int i, double val) {
+        switch(datatype) {
+            case LONG:
+                buffer.putLong(i*8, (long) val);
+                return this;
+            case FLOAT:
+                buffer.putFloat(i*4, (float) val);
+                return this;
+            case DOUBLE:
+                buffer.putDouble(i*8, val);
+                return this;
+            default:
+                return putInt(i, (int) val);
+        }
+    }
+
+    /**
+     * Reads <tt>len</tt> values starting at position <tt>i</tt> into an array.
+     * <p>
+     * Values are converted as with {@link #getInt(int)}. The position of the buffer is not
+     * changed.
+     * </p>
+     */
+    public DataBuffer<T> get(int i, int[] dst, int off, int len) {
+        if (datatype == DataType.INT) {
+            IntBuffer view = view().asIntBuffer();
+            view.position(i);
+            view.get(dst, off, len);
+        }
+        else {
+            for (int j = 0; j < len; j++) {
+                dst[off+j] = getInt(i+j);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Reads <tt>len</tt> values starting at position <tt>i</tt> into an array, see
+     * {@link #get(int, int[], int, int)}.
+     */
+    public DataBuffer<T> get(int i, float[] dst, int off, int len) {
+        if (datatype == DataType.FLOAT) {
+            FloatBuffer view = view().asFloatBuffer();
+            view.position(i);
+            view.get(dst, off, len);
+        }
+        else {
+            for (int j = 0; j < len; j++) {
+                dst[off+j] = getFloat(i+j);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Reads <tt>len</tt> values starting at position <tt>i</tt> into an array, see
+     * {@link #get(int, int[], int, int)}.
+     */
+    public DataBuffer<T> get(int i, double[] dst, int off, int len) {
+        if (datatype == DataType.DOUBLE) {
+            DoubleBuffer view = view().asDoubleBuffer();
+            view.position(i);
+            view.get(dst, off, len);
+        }
+        else {
+            for (int j = 0; j < len; j++) {
+                dst[off+j] = getDouble(i+j);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes <tt>len</tt> values from an array starting at position <tt>i</tt>.
+     * <p>
+     * Values are converted as with {@link #putInt(int, int)}. The position of the buffer is not
+     * changed.
+     * </p>
+     */
+    public DataBuffer<T> put(int i, int[] src, int off, int len) {
+        if (datatype == DataType.INT) {
+            IntBuffer view = view().asIntBuffer();
+            view.position(i);
+            view.put(src, off, len);
+        }
+        else {
+            for (int j = 0; j < len; j++) {
+                putInt(i+j, src[off+j]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes <tt>len</tt> values from an array starting at position <tt>i</tt>, see
+     * {@link #put(int, int[], int, int)}.
+     */
+    public DataBuffer<T> put(int i, float[] src, int off, int len) {
+        if (datatype == DataType.FLOAT) {
+            FloatBuffer view = view().asFloatBuffer();
+            view.position(i);
+            view.put(src, off, len);
+        }
+        else {
+            for (int j = 0; j < len; j++) {
+                putFloat(i+j, src[off+j]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes <tt>len</tt> values from an array starting at position <tt>i</tt>, see
+     * {@link #put(int, int[], int, int)}.
+     */
+    public DataBuffer<T> put(int i, double[] src, int off, int len) {
+        if (datatype == DataType.DOUBLE) {
+            DoubleBuffer view = view().asDoubleBuffer();
+            view.position(i);
+            view.put(src, off, len);
+        }
+        else {
+            for (int j = 0; j < len; j++) {
+                putDouble(i+j, src[off+j]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Reads a row of an image stored in the buffer row by row.
+     *
+     * @param y The row.
+     * @param size The image dimensions.
+     * @param dst Array of at least <tt>size.width()</tt> values to read into.
+     */
+    public DataBuffer<T> getRow(int y, Dimension size, double[] dst) {
+        return get(y*size.width(), dst, 0, size.width());
+    }
+
+    /**
+     * Writes a row of an image stored in the buffer row by row, see
+     * {@link #getRow(int, Dimension, double[])}.
+     */
+    public DataBuffer<T> putRow(int y, Dimension size, double[] src) {
+        return put(y*size.width(), src, 0, size.width());
+    }
+
+    /**
+     * Reads a column of an image stored in the buffer row by row.
+     *
+     * @param x The column.
+     * @param size The image dimensions.
+     * @param dst Array of at least <tt>size.height()</tt> values to read into.
+     */
+    public DataBuffer<T> getColumn(int x, Dimension size, double[] dst) {
+        for (int y = 0; y < size.height(); y++) {
+            dst[y] = getDouble(y*size.width()+x);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a column of an image stored in the buffer row by row, see
+     * {@link #getColumn(int, Dimension, double[])}.
+     */
+    public DataBuffer<T> putColumn(int x, Dimension size, double[] src) {
+        for (int y = 0; y < size.height(); y++) {
+            putDouble(y*size.width()+x, src[y]);
+        }
+        return this;
+    }
+
+    /**
+     * View of the entire buffer with the same byte order, leaves the buffer position untouched.
+     */
+    ByteBuffer view() {
+        ByteBuffer view = buffer.duplicate();
+        view.clear();
+        return view.order(buffer.order());
+    }
+
     /**
      * Flips the buffer.
      *
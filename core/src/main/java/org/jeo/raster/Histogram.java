@@ -0,0 +1,121 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of the values of a raster band, made up of bins of equal width.
+ * <p>
+ * Bin <tt>i</tt> counts the values in the range <tt>[min() + i*width(), min() + (i+1)*width())</tt>.
+ * </p>
+ *
+ * @see StatsCalculator
+ */
+public class Histogram {
+
+    final double min;
+    final double width;
+    final long[] counts;
+
+    public Histogram(double min, double width, long[] counts) {
+        this.min = min;
+        this.width = width;
+        this.counts = counts;
+    }
+
+    /**
+     * The lower bound of the first bin.
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * The upper bound of the last bin.
+     */
+    public double max() {
+        return min + width * counts.length;
+    }
+
+    /**
+     * The width of each bin.
+     */
+    public double width() {
+        return width;
+    }
+
+    /**
+     * The number of bins.
+     */
+    public int bins() {
+        return counts.length;
+    }
+
+    /**
+     * The number of values in a bin.
+     */
+    public long count(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * The number of values in each bin.
+     */
+    public long[] counts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+
+    /**
+     * The total number of values.
+     */
+    public long total() {
+        long n = 0;
+        for (long c : counts) {
+            n += c;
+        }
+        return n;
+    }
+
+    /**
+     * Estimates a percentile of the values, interpolating linearly within the bin it falls in.
+     * <p>
+     * The estimate is within one bin width of the exact value.
+     * </p>
+     * @param p The percentile, between 0 and 100.
+     *
+     * @return The value, or <tt>NaN</tt> if the histogram is empty.
+     */
+    public double percentile(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + p);
+        }
+
+        long total = total();
+        if (total == 0) {
+            return Double.NaN;
+        }
+
+        double rank = p / 100d * total;
+        long n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && n + counts[i] >= rank) {
+                return min + width * (i + (rank - n) / counts[i]);
+            }
+            n += counts[i];
+        }
+        return max();
+    }
+}
@@ -32,6 +32,11 @@ public class NoData {
         public Double valueOrNull(Double val) {
             return val;
         }
+
+        @Override
+        public boolean matches(double val) {
+            return false;
+        }
     };
 
     /**
@@ -77,4 +82,18 @@ public class NoData {
         return val == null || Math.abs(val - value) <= tol ? null : val;
     }
 
+    /**
+     * Determines if the specified value matches the nodata value, without boxing.
+     */
+    public boolean matches(double val) {
+        return Math.abs(val - value) <= tol;
+    }
+
+    /**
+     * The nodata value, <tt>NaN</tt> if there is none.
+     */
+    public double value() {
+        return this == NONE ? Double.NaN : value;
+    }
+
 }
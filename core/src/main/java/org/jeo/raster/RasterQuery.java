@@ -50,6 +50,11 @@ public class RasterQuery {
      */
     DataType datatype;
 
+    /**
+     * Resampling method.
+     */
+    Resample resample;
+
     /**
      * Sets the bands to read from the raster dataset.
      * <p>
@@ -193,4 +198,26 @@ public class RasterQuery {
     public DataType datatype() {
         return datatype;
     }
+
+    /**
+     * Sets the method used to resample the raster when the target size differs from the native
+     * resolution.
+     *
+     * @param resample The resampling method, <tt>null</tt> means {@link Resample#NEAREST}.
+     *
+     * @return This object.
+     */
+    public RasterQuery resample(Resample resample) {
+        this.resample = resample;
+        return this;
+    }
+
+    /**
+     * The resampling method, may be <code>null</code> meaning nearest neighbour.
+     *
+     * @see #resample(Resample)
+     */
+    public Resample resample() {
+        return resample;
+    }
 }
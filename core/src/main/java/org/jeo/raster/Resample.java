@@ -0,0 +1,50 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+/**
+ * Resampling method enumeration, used when a raster is read at a size other than its native
+ * resolution.
+ *
+ * @see Resampler
+ */
+public enum Resample {
+
+    /**
+     * Value of the nearest pixel, the only method suitable for categorical data.
+     */
+    NEAREST,
+
+    /**
+     * Distance weighted average of the 4 nearest pixels.
+     */
+    BILINEAR,
+
+    /**
+     * Cubic convolution of the 16 nearest pixels, sharper than bilinear.
+     */
+    BICUBIC,
+
+    /**
+     * Average of all pixels covered by the output pixel, intended for downsampling.
+     */
+    AVERAGE,
+
+    /**
+     * Most frequent value of all pixels covered by the output pixel, intended for downsampling
+     * categorical data.
+     */
+    MODE;
+}
@@ -0,0 +1,532 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.jeo.util.Dimension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resamples raster data to a different size.
+ * <p>
+ * Pixels are mapped by their centres. {@link Resample#BILINEAR} and {@link Resample#BICUBIC}
+ * interpolate between the source pixels around the centre of each output pixel and are intended
+ * for upsampling continuous data, when downsampling {@link Resample#AVERAGE} takes every covered
+ * pixel into account. Pixels matching the {@link #nodata(NoData)} value, and <tt>NaN</tt> values,
+ * are left out of interpolations and averages. Output pixels with no valid source pixel are set to
+ * the nodata value.
+ * </p>
+ * <p>
+ * Values of {@link DataType#BYTE} buffers are treated as unsigned, and interpolated values of
+ * integral types are rounded and clamped to the range of the type. Buffers packing several bands
+ * into each value, one byte per band, are resampled band by band, see {@link #bands(int)}.
+ * </p>
+ * <p>
+ * Large images are resampled in chunks of rows on multiple threads, by default on a pool shared
+ * by all resamplers. Images too large to hold in memory can be resampled one strip of rows at a
+ * time, see {@link #rows(Dimension, Dimension, int, int)}.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre><code>
+ * DataBuffer resampled = new Resampler(Resample.BILINEAR).nodata(raster.nodata())
+ *     .resample(raster.data(), raster.size(), new Dimension(1024, 1024));
+ * </code></pre>
+ * </p>
+ */
+public class Resampler {
+
+    static Logger LOG = LoggerFactory.getLogger(Resampler.class);
+
+    /**
+     * Images with fewer output pixels are resampled on the calling thread.
+     */
+    static final int MIN_PARALLEL = 64 * 1024;
+
+    static ExecutorService POOL;
+
+    final Resample method;
+
+    NoData nodata = NoData.NONE;
+    int bands = 1;
+    int threads = Runtime.getRuntime().availableProcessors();
+    ExecutorService executor;
+
+    public Resampler(Resample method) {
+        this.method = method != null ? method : Resample.NEAREST;
+    }
+
+    /**
+     * The resampling method.
+     */
+    public Resample method() {
+        return method;
+    }
+
+    /**
+     * Sets the nodata value of the data being resampled.
+     */
+    public Resampler nodata(NoData nodata) {
+        this.nodata = nodata != null ? nodata : NoData.NONE;
+        return this;
+    }
+
+    /**
+     * Sets the number of bands packed into each value, defaults to 1.
+     * <p>
+     * When greater than 1 each value is made up of one unsigned byte per band, the layout of
+     * multi band rasters read as a single buffer.
+     * </p>
+     */
+    public Resampler bands(int bands) {
+        if (bands < 1) {
+            throw new IllegalArgumentException("number of bands must be positive");
+        }
+        this.bands = bands;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads to resample with, defaults to the number of processors.
+     */
+    public Resampler threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the executor to resample with, rather than the shared pool.
+     */
+    public Resampler executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Resamples a buffer.
+     *
+     * @param buffer The buffer to resample.
+     * @param from The image dimensions of the buffer.
+     * @param to The image dimensions of the resampled buffer.
+     *
+     * @return The resampled buffer, with the same data type and byte order.
+     */
+    public <T> DataBuffer<T> resample(DataBuffer<T> buffer, Dimension from, Dimension to)
+        throws IOException {
+        DataType datatype = buffer.datatype();
+        if (bands > 1 && bands > datatype.size()) {
+            throw new IllegalArgumentException(String.format(
+                "%d bands can't be packed into values of type %s", bands, datatype));
+        }
+
+        DataBuffer<T> resampled = DataBuffer.create(to.width()*to.height(), datatype);
+        resampled.buffer().order(buffer.buffer().order());
+        if (to.width() == 0 || to.height() == 0 || from.width() == 0 || from.height() == 0) {
+            return resampled;
+        }
+
+        long t = System.currentTimeMillis();
+
+        run(new Job(buffer, from, 0, resampled, to), 0, to.height());
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Resampled %dx%d to %dx%d (%s) in %d ms", from.width(),
+                from.height(), to.width(), to.height(), method, System.currentTimeMillis() - t));
+        }
+
+        return resampled.rewind();
+    }
+
+    /**
+     * The rows of the source image needed to compute rows of the resampled image.
+     *
+     * @param from The image dimensions of the source.
+     * @param to The image dimensions of the resampled image.
+     * @param top The first row of the resampled image.
+     * @param bottom The row after the last row of the resampled image.
+     *
+     * @return The first source row and the row after the last.
+     */
+    public int[] rows(Dimension from, Dimension to, int top, int bottom) {
+        int sh = from.height();
+        double fy = sh / (double) to.height();
+
+        switch(method) {
+        case NEAREST:
+            return new int[]{Math.min(sh - 1, (int) ((top + 0.5) * fy)), 
+                Math.min(sh - 1, (int) ((bottom - 0.5) * fy)) + 1};
+        case BILINEAR:
+        case BICUBIC:
+            // rows around the centre of the pixel, bicubic also those around them
+            int m = method == Resample.BICUBIC ? 1 : 0;
+            return new int[]{clamp((int) Math.floor((top + 0.5) * fy - 0.5) - m, sh), 
+                clamp((int) Math.floor((bottom - 0.5) * fy - 0.5) + 1 + m, sh) + 1};
+        default:
+            // rows covered by the pixels
+            int last = Math.min(sh - 1, (int) ((bottom - 1) * fy));
+            return new int[]{Math.min(sh - 1, (int) (top * fy)), 
+                Math.max(last + 1, Math.min(sh, (int) Math.ceil(bottom * fy - 1e-9)))};
+        }
+    }
+
+    /**
+     * Resamples a strip of rows of an image.
+     * <p>
+     * The strip must contain the source rows returned by 
+     * {@link #rows(Dimension, Dimension, int, int)} for the rows being resampled, the result is 
+     * the same as resampling the whole image at once.
+     * </p>
+     * @param strip The buffer of the source rows.
+     * @param stripTop The source row the strip starts at.
+     * @param from The image dimensions of the source.
+     * @param dst The buffer of the whole resampled image, rows are written in place.
+     * @param to The image dimensions of the resampled image.
+     * @param top The first row to resample.
+     * @param bottom The row after the last row to resample.
+     */
+    public void resample(DataBuffer<?> strip, int stripTop, Dimension from, DataBuffer<?> dst, 
+        Dimension to, int top, int bottom) throws IOException {
+        if (to.width() == 0 || from.width() == 0 || top >= bottom) {
+            return;
+        }
+        run(new Job(strip, from, stripTop, dst, to), top, bottom);
+    }
+
+    void run(final Job job, int top, int bottom) throws IOException {
+        int h = bottom - top;
+        int n = (long) job.dw * h < MIN_PARALLEL ? 1 : Math.min(threads * 4, h);
+        if (threads == 1 || n == 1) {
+            job.run(top, bottom);
+        }
+        else {
+            ExecutorService exec = executor != null ? executor : pool();
+            List<Future<?>> futures = new ArrayList<Future<?>>(n);
+            try {
+                int rows = (h + n - 1) / n;
+                for (int y = top; y < bottom; y += rows) {
+                    final int t = y;
+                    final int b = Math.min(bottom, y + rows);
+                    futures.add(exec.submit(new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            job.run(t, b);
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted resampling", e);
+            }
+            catch(ExecutionException e) {
+                throw new IOException("Error resampling", e.getCause());
+            }
+            finally {
+                for (Future<?> f : futures) {
+                    f.cancel(true);
+                }
+            }
+        }
+    }
+
+    static synchronized ExecutorService pool() {
+        if (POOL == null) {
+            POOL = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    int count = 0;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "jeo-resampler-" + (++count));
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        }
+        return POOL;
+    }
+
+    /**
+     * Resamples rows of a single buffer, shared by all threads working on it.
+     */
+    class Job {
+        final DataBuffer<?> src;
+        final DataBuffer<?> dst;
+        final ByteBuffer srcBytes;
+        final ByteBuffer dstBytes;
+        final DataType datatype;
+        final int sw, sh, dw;
+        final double fx, fy;
+
+        /** source row the buffer starts at */
+        final int srcTop;
+
+        Job(DataBuffer<?> src, Dimension from, int srcTop, DataBuffer<?> dst, Dimension to) {
+            this.src = src;
+            this.srcTop = srcTop;
+            this.dst = dst;
+            this.srcBytes = src.buffer();
+            this.dstBytes = dst.buffer();
+            this.datatype = src.datatype();
+            this.sw = from.width();
+            this.sh = from.height();
+            this.dw = to.width();
+            this.fx = from.width() / (double) to.width();
+            this.fy = from.height() / (double) to.height();
+        }
+
+        void run(int top, int bottom) {
+            // scratch space for the mode of a window
+            double[] window = method == Resample.MODE ?
+                new double[(int) (Math.ceil(fx) + 1) * (int) (Math.ceil(fy) + 1)] : null;
+
+            for (int y = top; y < bottom; y++) {
+                for (int x = 0; x < dw; x++) {
+                    int i = y*dw + x;
+                    if (method == Resample.NEAREST) {
+                        nearest(x, y, i);
+                        continue;
+                    }
+                    for (int b = 0; b < bands; b++) {
+                        double v;
+                        switch(method) {
+                            case BILINEAR:
+                                v = bilinear(x, y, b);
+                                break;
+                            case BICUBIC:
+                                v = bicubic(x, y, b);
+                                break;
+                            case AVERAGE:
+                                v = average(x, y, b);
+                                break;
+                            case MODE:
+                                v = mode(x, y, b, window);
+                                break;
+                            default:
+                                throw new IllegalStateException("unsupported method: " + method);
+                        }
+                        put(i, b, v);
+                    }
+                }
+            }
+        }
+
+        void nearest(int x, int y, int i) {
+            int sx = Math.min(sw - 1, (int) ((x + 0.5) * fx));
+            int sy = Math.min(sh - 1, (int) ((y + 0.5) * fy));
+
+            // copy the raw value, all bands at once
+            int n = datatype.size();
+            int s = ((sy - srcTop)*sw + sx)*n;
+            int d = i*n;
+            for (int k = 0; k < n; k++) {
+                dstBytes.put(d+k, srcBytes.get(s+k));
+            }
+        }
+
+        double bilinear(int x, int y, int b) {
+            double sx = (x + 0.5) * fx - 0.5;
+            double sy = (y + 0.5) * fy - 0.5;
+            int x0 = (int) Math.floor(sx);
+            int y0 = (int) Math.floor(sy);
+            double tx = sx - x0;
+            double ty = sy - y0;
+
+            double sum = 0, weight = 0;
+            for (int j = 0; j < 2; j++) {
+                double wy = j == 0 ? 1 - ty : ty;
+                int yy = clamp(y0 + j, sh);
+                for (int k = 0; k < 2; k++) {
+                    double w = wy * (k == 0 ? 1 - tx : tx);
+                    double v = get(clamp(x0 + k, sw), yy, b);
+                    if (w > 0 && valid(v)) {
+                        sum += w * v;
+                        weight += w;
+                    }
+                }
+            }
+            return weight > 0 ? sum / weight : Double.NaN;
+        }
+
+        double bicubic(int x, int y, int b) {
+            double sx = (x + 0.5) * fx - 0.5;
+            double sy = (y + 0.5) * fy - 0.5;
+            int x0 = (int) Math.floor(sx);
+            int y0 = (int) Math.floor(sy);
+
+            double wx0 = cubic(sx - x0 + 1), wx1 = cubic(sx - x0);
+            double wx2 = cubic(sx - x0 - 1), wx3 = cubic(sx - x0 - 2);
+            int xx0 = clamp(x0 - 1, sw), xx1 = clamp(x0, sw);
+            int xx2 = clamp(x0 + 1, sw), xx3 = clamp(x0 + 2, sw);
+
+            double sum = 0;
+            for (int j = -1; j < 3; j++) {
+                int yy = clamp(y0 + j, sh);
+                double v0 = get(xx0, yy, b), v1 = get(xx1, yy, b);
+                double v2 = get(xx2, yy, b), v3 = get(xx3, yy, b);
+                if (!valid(v0) || !valid(v1) || !valid(v2) || !valid(v3)) {
+                    // weights can be negative, fall back rather than renormalize
+                    return bilinear(x, y, b);
+                }
+                sum += cubic(sy - (y0 + j)) * (wx0*v0 + wx1*v1 + wx2*v2 + wx3*v3);
+            }
+            return sum;
+        }
+
+        double average(int x, int y, int b) {
+            int x0 = Math.min(sw - 1, (int) (x * fx));
+            int y0 = Math.min(sh - 1, (int) (y * fy));
+            int x1 = Math.max(x0 + 1, Math.min(sw, (int) Math.ceil((x + 1) * fx - 1e-9)));
+            int y1 = Math.max(y0 + 1, Math.min(sh, (int) Math.ceil((y + 1) * fy - 1e-9)));
+
+            double sum = 0;
+            int n = 0;
+            for (int yy = y0; yy < y1; yy++) {
+                for (int xx = x0; xx < x1; xx++) {
+                    double v = get(xx, yy, b);
+                    if (valid(v)) {
+                        sum += v;
+                        n++;
+                    }
+                }
+            }
+            return n > 0 ? sum / n : Double.NaN;
+        }
+
+        double mode(int x, int y, int b, double[] window) {
+            int x0 = Math.min(sw - 1, (int) (x * fx));
+            int y0 = Math.min(sh - 1, (int) (y * fy));
+            int x1 = Math.max(x0 + 1, Math.min(sw, (int) Math.ceil((x + 1) * fx - 1e-9)));
+            int y1 = Math.max(y0 + 1, Math.min(sh, (int) Math.ceil((y + 1) * fy - 1e-9)));
+
+            int n = 0;
+            for (int yy = y0; yy < y1; yy++) {
+                for (int xx = x0; xx < x1; xx++) {
+                    double v = get(xx, yy, b);
+                    if (valid(v) && n < window.length) {
+                        window[n++] = v;
+                    }
+                }
+            }
+            if (n == 0) {
+                return Double.NaN;
+            }
+
+            // longest run of sorted values, the smallest value wins ties
+            Arrays.sort(window, 0, n);
+            double mode = window[0];
+            int best = 0;
+            for (int i = 0, j; i < n; i = j) {
+                for (j = i + 1; j < n && window[j] == window[i]; j++);
+                if (j - i > best) {
+                    best = j - i;
+                    mode = window[i];
+                }
+            }
+            return mode;
+        }
+
+        double get(int x, int y, int b) {
+            int i = (y - srcTop)*sw + x;
+            if (bands > 1) {
+                return srcBytes.get(i*datatype.size() + b) & 0xff;
+            }
+            return datatype == DataType.BYTE ? src.getInt(i) & 0xff : src.getDouble(i);
+        }
+
+        boolean valid(double v) {
+            return !Double.isNaN(v) && !nodata.matches(v);
+        }
+
+        void put(int i, int b, double v) {
+            if (Double.isNaN(v)) {
+                v = nodata.value();
+                if (Double.isNaN(v)) {
+                    if (datatype == DataType.FLOAT || datatype == DataType.DOUBLE) {
+                        dst.putDouble(i, v);
+                    }
+                    // no nodata value for integral types, leave as 0
+                    return;
+                }
+            }
+
+            if (bands > 1) {
+                dstBytes.put(i*datatype.size() + b, (byte) clamp(Math.round(v), 0, 255));
+                return;
+            }
+            switch(datatype) {
+                case BYTE:
+                    dst.putInt(i, (int) clamp(Math.round(v), 0, 255));
+                    break;
+                case SHORT:
+                    dst.putInt(i, (int) clamp(Math.round(v), Short.MIN_VALUE, Short.MAX_VALUE));
+                    break;
+                case CHAR:
+                    dst.putInt(i, (int) clamp(Math.round(v), Character.MIN_VALUE,
+                        Character.MAX_VALUE));
+                    break;
+                case INT:
+                    dst.putInt(i, (int) clamp(Math.round(v), Integer.MIN_VALUE, Integer.MAX_VALUE));
+                    break;
+                case LONG:
+                    dst.putLong(i, Math.round(v));
+                    break;
+                default:
+                    dst.putDouble(i, v);
+            }
+        }
+    }
+
+    /**
+     * Cubic convolution kernel, with <tt>a = -0.5</tt>.
+     */
+    static double cubic(double t) {
+        t = Math.abs(t);
+        if (t <= 1) {
+            return (1.5 * t - 2.5) * t * t + 1;
+        }
+        if (t < 2) {
+            return ((-0.5 * t + 2.5) * t - 4) * t + 2;
+        }
+        return 0;
+    }
+
+    static int clamp(int i, int n) {
+        return i < 0 ? 0 : i >= n ? n - 1 : i;
+    }
+
+    static long clamp(long v, long min, long max) {
+        return v < min ? min : v > max ? max : v;
+    }
+}
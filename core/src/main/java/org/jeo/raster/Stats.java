@@ -16,9 +16,15 @@ package org.jeo.raster;
 
 /**
  * Statistics for a raster band including mean, standard deviation, and extrema (min/max).
+ * <p>
+ * Statistics computed by {@link StatsCalculator} also include the number of valid and nodata
+ * values, and a histogram from which percentiles are estimated.
+ * </p>
  */
 public class Stats {
     double min, max, stdev, mean;
+    long count = -1, nodata = -1;
+    Histogram histogram;
 
     public Stats() {
         this(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
@@ -90,4 +96,66 @@ public class Stats {
         this.mean = mean;
         return this;
     }
+
+    /**
+     * The number of valid values the statistics were computed from, <tt>-1</tt> if unknown.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Sets the number of valid values.
+     */
+    public Stats count(long count) {
+        this.count = count;
+        return this;
+    }
+
+    /**
+     * The number of nodata values, <tt>-1</tt> if unknown.
+     */
+    public long nodata() {
+        return nodata;
+    }
+
+    /**
+     * Sets the number of nodata values.
+     */
+    public Stats nodata(long nodata) {
+        this.nodata = nodata;
+        return this;
+    }
+
+    /**
+     * The histogram of the band, may be <code>null</code>.
+     */
+    public Histogram histogram() {
+        return histogram;
+    }
+
+    /**
+     * Sets the histogram of the band.
+     */
+    public Stats histogram(Histogram histogram) {
+        this.histogram = histogram;
+        return this;
+    }
+
+    /**
+     * Estimates a percentile of the band from the histogram, see
+     * {@link Histogram#percentile(double)}.
+     *
+     * @return The value, or <tt>NaN</tt> if there is no histogram.
+     */
+    public double percentile(double p) {
+        return histogram != null ? histogram.percentile(p) : Double.NaN;
+    }
+
+    /**
+     * Estimates the median of the band from the histogram.
+     */
+    public double median() {
+        return percentile(50);
+    }
 }
@@ -0,0 +1,330 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.jeo.util.Dimension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Computes raster band statistics in a single pass over the values of one or more buffers.
+ * <p>
+ * The calculator tracks the extrema, the number of valid and nodata values, the mean and standard
+ * deviation, computed with Welford's method, and a histogram. Values matching the
+ * {@link #nodata(NoData)} value, <tt>NaN</tt> and infinite values are counted as nodata. Values of
+ * {@link DataType#BYTE} buffers are treated as unsigned.
+ * </p>
+ * <p>
+ * The range of the values is not known up front, so the histogram starts with narrow bins, one
+ * per integer for integral types, and doubles the bin width whenever a value falls outside of it.
+ * Integral bands with no more distinct values than bins get an exact histogram.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre><code>
+ * StatsCalculator calc = new StatsCalculator().nodata(raster.nodata());
+ * calc.accumulate(raster.data());
+ * Stats stats = calc.stats();
+ * </code></pre>
+ * </p>
+ * <p>
+ * The {@link #stats(RasterDataset, int, boolean)} method computes, and caches, statistics of a
+ * band of a dataset.
+ * </p>
+ */
+public class StatsCalculator {
+
+    static Logger LOG = LoggerFactory.getLogger(StatsCalculator.class);
+
+    /**
+     * Maximum number of pixels read at once when computing exact statistics of a dataset.
+     */
+    static int STRIP_PIXELS = 1024 * 1024;
+
+    /**
+     * Number of pixels sampled when computing approximate statistics of a dataset.
+     */
+    static int SAMPLE_PIXELS = 1024 * 1024;
+
+    /**
+     * Statistics of datasets, keyed by band index and whether they are approximate.
+     */
+    static final Map<RasterDataset, Map<Integer, Stats>> CACHE =
+        new WeakHashMap<RasterDataset, Map<Integer, Stats>>();
+
+    /**
+     * Statistics of a band of a dataset.
+     * <p>
+     * Results are cached per dataset and band, an exact result is also returned for approximate
+     * requests. The returned object is shared and must not be modified.
+     * </p>
+     * @param data The dataset.
+     * @param band The band index (0 based).
+     * @param approximate Whether to compute the statistics from a sample of the pixels, read at
+     *   a reduced resolution, rather than all of them.
+     */
+    public static Stats stats(RasterDataset data, int band, boolean approximate)
+        throws IOException {
+        synchronized (CACHE) {
+            Map<Integer, Stats> cached = CACHE.get(data);
+            if (cached != null) {
+                Stats stats = cached.get(key(band, false));
+                if (stats == null && approximate) {
+                    stats = cached.get(key(band, true));
+                }
+                if (stats != null) {
+                    return stats;
+                }
+            }
+        }
+
+        Stats stats = compute(data, band, approximate);
+        synchronized (CACHE) {
+            Map<Integer, Stats> cached = CACHE.get(data);
+            if (cached == null) {
+                cached = new HashMap<Integer, Stats>();
+                CACHE.put(data, cached);
+            }
+            cached.put(key(band, approximate), stats);
+        }
+        return stats;
+    }
+
+    static Integer key(int band, boolean approximate) {
+        return band * 2 + (approximate ? 1 : 0);
+    }
+
+    /**
+     * Clears the cached statistics of a dataset.
+     */
+    public static void clearCache(RasterDataset data) {
+        synchronized (CACHE) {
+            CACHE.remove(data);
+        }
+    }
+
+    /**
+     * Computes statistics of a band of a dataset, without caching.
+     * <p>
+     * Exact statistics are computed from strips of rows read one at a time, approximate ones
+     * from a single read of the band at a reduced resolution, which formats may serve from
+     * overviews.
+     * </p>
+     * @see #stats(RasterDataset, int, boolean)
+     */
+    public static Stats compute(RasterDataset data, int band, boolean approximate)
+        throws IOException {
+        long t = System.currentTimeMillis();
+
+        Dimension size = data.size();
+        int w = size.width();
+        int h = size.height();
+
+        StatsCalculator calc = new StatsCalculator()
+            .nodata(NoData.create(data.bands().get(band).nodata()));
+
+        if (w == 0 || h == 0) {
+            return calc.stats();
+        }
+
+        long pixels = (long) w * h;
+        if (approximate && pixels > SAMPLE_PIXELS) {
+            double f = Math.sqrt(SAMPLE_PIXELS / (double) pixels);
+            Dimension s = new Dimension(Math.max(1, (int) (w * f)), Math.max(1, (int) (h * f)));
+            calc.accumulate(data.read(new RasterQuery().bands(band).size(s)).data());
+        }
+        else {
+            Envelope bbox = data.bounds();
+            double dy = bbox.getHeight() / h;
+
+            int rows = Math.max(1, STRIP_PIXELS / w);
+            for (int y = 0; y < h; y += rows) {
+                int bottom = Math.min(h, y + rows);
+                Envelope e = new Envelope(bbox.getMinX(), bbox.getMaxX(),
+                    bbox.getMaxY() - bottom * dy, bbox.getMaxY() - y * dy);
+
+                calc.accumulate(data.read(
+                    new RasterQuery().bands(band).bounds(e).size(w, bottom - y)).data());
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Computed %s statistics of band %d of %s from %d values in %d ms",
+                approximate ? "approximate" : "exact", band, data.name(),
+                calc.count + calc.nodataCount, System.currentTimeMillis() - t));
+        }
+        return calc.stats();
+    }
+
+    NoData nodata = NoData.NONE;
+    int bins = 256;
+
+    long count = 0;
+    long nodataCount = 0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double mean = 0;
+    double m2 = 0;
+
+    long[] counts;
+    double lo;
+    double width;
+
+    /**
+     * Sets the nodata value of the data.
+     */
+    public StatsCalculator nodata(NoData nodata) {
+        this.nodata = nodata != null ? nodata : NoData.NONE;
+        return this;
+    }
+
+    /**
+     * Sets the number of histogram bins, defaults to 256. Must be called before any values are
+     * accumulated.
+     */
+    public StatsCalculator bins(int bins) {
+        if (bins < 2) {
+            throw new IllegalArgumentException("number of bins must be at least 2");
+        }
+        if (counts != null) {
+            throw new IllegalStateException("values already accumulated");
+        }
+        // keep even so that bins can be merged in pairs
+        this.bins = bins + bins % 2;
+        return this;
+    }
+
+    /**
+     * Accumulates all values of a buffer.
+     */
+    public StatsCalculator accumulate(DataBuffer<?> buffer) {
+        return accumulate(buffer, 0, buffer.size());
+    }
+
+    /**
+     * Accumulates <tt>len</tt> values of a buffer starting at position <tt>off</tt>.
+     * <p>
+     * The position of the buffer is not changed.
+     * </p>
+     */
+    public StatsCalculator accumulate(DataBuffer<?> buffer, int off, int len) {
+        DataType datatype = buffer.datatype();
+        boolean integral = isIntegral(datatype);
+        if (datatype == DataType.BYTE) {
+            for (int i = off; i < off + len; i++) {
+                add(buffer.getInt(i) & 0xff, true);
+            }
+        }
+        else {
+            for (int i = off; i < off + len; i++) {
+                add(buffer.getDouble(i), integral);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Accumulates a single value.
+     */
+    public StatsCalculator accumulate(double value) {
+        add(value, false);
+        return this;
+    }
+
+    void add(double v, boolean integral) {
+        if (Double.isNaN(v) || Double.isInfinite(v) || nodata.matches(v)) {
+            nodataCount++;
+            return;
+        }
+
+        count++;
+        if (v < min) {
+            min = v;
+        }
+        if (v > max) {
+            max = v;
+        }
+
+        double d = v - mean;
+        mean += d / count;
+        m2 += d * (v - mean);
+
+        bin(v, integral);
+    }
+
+    void bin(double v, boolean integral) {
+        if (counts == null) {
+            counts = new long[bins];
+            if (integral) {
+                lo = Math.floor(v);
+                width = 1;
+            }
+            else {
+                lo = v;
+                width = Math.max(Math.abs(v), 1) * 1e-6;
+            }
+        }
+
+        while (v < lo) {
+            // grow to the left, old bins make up the upper half
+            long[] merged = new long[bins];
+            for (int i = 0; i < bins; i++) {
+                merged[bins / 2 + i / 2] += counts[i];
+            }
+            counts = merged;
+            lo -= width * bins;
+            width *= 2;
+        }
+        while (v >= lo + width * bins) {
+            // grow to the right, old bins make up the lower half
+            long[] merged = new long[bins];
+            for (int i = 0; i < bins; i++) {
+                merged[i / 2] += counts[i];
+            }
+            counts = merged;
+            width *= 2;
+        }
+
+        counts[Math.min(bins - 1, (int) ((v - lo) / width))]++;
+    }
+
+    static boolean isIntegral(DataType datatype) {
+        return datatype != DataType.FLOAT && datatype != DataType.DOUBLE;
+    }
+
+    /**
+     * The statistics of the values accumulated so far.
+     * <p>
+     * The extrema, mean and standard deviation are <tt>NaN</tt> if no valid values have been
+     * accumulated. The standard deviation is that of the population.
+     * </p>
+     */
+    public Stats stats() {
+        Stats stats = count > 0 ? new Stats(min, max, Math.sqrt(m2 / count), mean) : new Stats();
+        stats.count(count).nodata(nodataCount);
+        if (counts != null) {
+            stats.histogram(new Histogram(lo, width, Arrays.copyOf(counts, counts.length)));
+        }
+        return stats;
+    }
+}
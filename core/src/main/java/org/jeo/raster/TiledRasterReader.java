@@ -0,0 +1,316 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import org.jeo.proj.Proj;
+import org.jeo.util.Dimension;
+import org.jeo.util.Rect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Reads large rasters by splitting a query into tiles that are read concurrently.
+ * <p>
+ * The output raster of the query is divided into square tiles of {@link #tileSize(int)} pixels.
+ * Each tile is read, and resampled, by the dataset with a query of its own on a thread pool, and
+ * copied into its place in a single output buffer. Tiles are submitted in row order and the
+ * result does not depend on the order tiles complete in. The number of tiles held in memory at
+ * once, read but not yet copied, is limited by {@link #maxMemory(long)}.
+ * </p>
+ * <p>
+ * The dataset must support concurrent reads, as {@link org.jeo.data.mem.MemRaster} and the GDAL
+ * dataset do. Queries that reproject are read as a whole, since tiles of a reprojected raster
+ * would not line up exactly. When the output size is not a multiple of the source resolution each
+ * tile is resampled on its own, so values along tile edges may differ slightly from those of a
+ * single read.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre><code>
+ * TiledRasterReader reader = new TiledRasterReader(dataset).threads(4);
+ * try {
+ *     Raster raster = reader.read(new RasterQuery().bounds(bbox).size(4096, 4096));
+ * }
+ * finally {
+ *     reader.close();
+ * }
+ * </code></pre>
+ * </p>
+ */
+public class TiledRasterReader implements Closeable {
+
+    static Logger LOG = LoggerFactory.getLogger(TiledRasterReader.class);
+
+    final RasterDataset dataset;
+
+    int tileSize = 512;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long maxMemory = 64L * 1024 * 1024;
+
+    ExecutorService executor;
+    boolean ownsExecutor;
+
+    public TiledRasterReader(RasterDataset dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * Sets the width and height of tiles in pixels of the output raster, defaults to 512.
+     */
+    public TiledRasterReader tileSize(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tile size must be positive");
+        }
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads reading tiles, defaults to the number of processors. Ignored if
+     * an executor is specified.
+     */
+    public TiledRasterReader threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of tile data held at once, not counting the output buffer,
+     * defaults to 64 MB. At least one tile per thread is always allowed.
+     */
+    public TiledRasterReader maxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+        return this;
+    }
+
+    /**
+     * Sets the executor to read tiles with. The executor is not shut down when the reader is
+     * closed.
+     */
+    public TiledRasterReader executor(ExecutorService executor) {
+        this.executor = executor;
+        this.ownsExecutor = false;
+        return this;
+    }
+
+    /**
+     * Reads a raster, see {@link RasterDataset#read(RasterQuery)}.
+     */
+    public Raster read(RasterQuery query) throws IOException {
+        if (query.crs() != null && !Proj.equal(query.crs(), dataset.crs())) {
+            return dataset.read(query);
+        }
+
+        Envelope bbox = dataset.bounds();
+        if (query.bounds() != null) {
+            bbox = bbox.intersection(query.bounds());
+        }
+
+        Dimension size = query.size() != null ? query.size() : dataset.size();
+        if (bbox.isNull() || (size.width() <= tileSize && size.height() <= tileSize)) {
+            return dataset.read(query);
+        }
+
+        long t = System.currentTimeMillis();
+
+        // tiles in row order
+        List<Rect> tiles = new ArrayList<Rect>();
+        for (int y = 0; y < size.height(); y += tileSize) {
+            for (int x = 0; x < size.width(); x += tileSize) {
+                tiles.add(new Rect(x, y, Math.min(x + tileSize, size.width()),
+                    Math.min(y + tileSize, size.height())));
+            }
+        }
+
+        // read the first tile up front to learn the layout of the data
+        Raster first = dataset.read(query(query, tiles.get(0), bbox, size));
+        ByteBuffer firstData = first.data().buffer();
+        int pixelSize = pixelSize(firstData, tiles.get(0));
+
+        ByteBuffer buffer = ByteBuffer.allocate(size.width() * size.height() * pixelSize);
+        buffer.order(firstData.order());
+        final Output out = new Output(buffer.array(), size.width(), pixelSize);
+        out.copy(firstData, tiles.get(0));
+
+        long tileBytes = (long) tileSize * tileSize * pixelSize;
+        int permits = (int) Math.max(threads, Math.min(Integer.MAX_VALUE, maxMemory / tileBytes));
+        final Semaphore memory = new Semaphore(permits);
+
+        ExecutorService exec = executor();
+        List<Future<?>> futures = new ArrayList<Future<?>>(tiles.size());
+        try {
+            for (int i = 1; i < tiles.size(); i++) {
+                final Rect tile = tiles.get(i);
+                final RasterQuery q = query(query, tile, bbox, size);
+
+                memory.acquire();
+                try {
+                    futures.add(exec.submit(new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            try {
+                                Raster r = dataset.read(q);
+                                out.copy(r.data().buffer(), tile);
+                                return null;
+                            }
+                            finally {
+                                memory.release();
+                            }
+                        }
+                    }));
+                }
+                catch(RuntimeException e) {
+                    memory.release();
+                    throw e;
+                }
+            }
+
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted reading tiles", e);
+        }
+        catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Error reading tile", cause);
+        }
+        finally {
+            for (Future<?> f : futures) {
+                f.cancel(true);
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Read %dx%d raster as %d tiles in %d ms",
+                size.width(), size.height(), tiles.size(), System.currentTimeMillis() - t));
+        }
+
+        return new Raster().bounds(bbox).crs(first.crs()).size(size).bands(first.bands())
+            .nodata(first.nodata()).data(DataBuffer.create(buffer, first.data().datatype()));
+    }
+
+    RasterQuery query(RasterQuery query, Rect tile, Envelope bbox, Dimension size) {
+        double dx = bbox.getWidth() / size.width();
+        double dy = bbox.getHeight() / size.height();
+
+        Envelope e = new Envelope(bbox.getMinX() + tile.left * dx, bbox.getMinX() + tile.right * dx,
+            bbox.getMaxY() - tile.bottom * dy, bbox.getMaxY() - tile.top * dy);
+
+        RasterQuery q = new RasterQuery().bounds(e).size(tile.size()).crs(query.crs())
+            .datatype(query.datatype()).resample(query.resample());
+        int[] bands = query.bands();
+        if (bands != null && bands.length > 0) {
+            Integer[] b = new Integer[bands.length];
+            for (int i = 0; i < bands.length; i++) {
+                b[i] = bands[i];
+            }
+            q.bands(b);
+        }
+        return q;
+    }
+
+    int pixelSize(ByteBuffer data, Rect tile) throws IOException {
+        int n = tile.area();
+        if (data.remaining() % n != 0) {
+            throw new IOException(String.format(
+                "Tile data of %d bytes does not match tile size %dx%d", data.remaining(),
+                tile.width(), tile.height()));
+        }
+        return data.remaining() / n;
+    }
+
+    synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                int count = 0;
+
+                @Override
+                public synchronized Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "jeo-raster-reader-" + (++count));
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            ownsExecutor = true;
+        }
+        return executor;
+    }
+
+    /**
+     * Shuts down the thread pool of the reader, unless the executor was specified.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null && ownsExecutor) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Output buffer tiles are copied into, tiles cover disjoint regions so they are copied
+     * concurrently.
+     */
+    static class Output {
+        final byte[] data;
+        final int width;
+        final int pixelSize;
+
+        Output(byte[] data, int width, int pixelSize) {
+            this.data = data;
+            this.width = width;
+            this.pixelSize = pixelSize;
+        }
+
+        void copy(ByteBuffer tile, Rect r) throws IOException {
+            int row = r.width() * pixelSize;
+            if (tile.remaining() != row * r.height()) {
+                throw new IOException(String.format(
+                    "Tile data of %d bytes does not match tile size %dx%d", tile.remaining(),
+                    r.width(), r.height()));
+            }
+
+            // don't disturb the position of the tile buffer
+            ByteBuffer src = tile.duplicate();
+            for (int y = r.top; y < r.bottom; y++) {
+                src.get(data, (y * width + r.left) * pixelSize, row);
+            }
+        }
+    }
+}
@@ -135,14 +135,23 @@ public class Rect {
      * @return The rectangle corresponding to other.
      */
     public Rect map(Envelope bbox, Envelope other) {
-        int l = (int)((bbox.getMinX() - other.getMinX())/other.getWidth() * width());
-        int t = (int)((other.getMaxY() - bbox.getMaxY())/other.getHeight() * height());
-        int w = (int)(bbox.getWidth() / other.getWidth() * width());
-        int h = (int)(bbox.getHeight() / other.getHeight() * height());
+        int l = floor((bbox.getMinX() - other.getMinX())/other.getWidth() * width());
+        int t = floor((other.getMaxY() - bbox.getMaxY())/other.getHeight() * height());
+        int w = floor(bbox.getWidth() / other.getWidth() * width());
+        int h = floor(bbox.getHeight() / other.getHeight() * height());
 
         return new Rect(l, t, l+w, t+h);
     }
 
+    /**
+     * Truncates a pixel coordinate, treating values within rounding error of the next integer 
+     * as that integer so that envelopes aligned with pixel edges map to those edges.
+     */
+    static int floor(double d) {
+        int i = (int) d;
+        return Math.abs(d - (i + 1)) < 1e-6 ? i + 1 : i;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -16,6 +16,7 @@ package org.jeo.geojson;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 
@@ -121,6 +122,42 @@ public class GeoJSONWriterTest {
         assertEquals(0, ((JSONObject)obj.get("bar")).size());
     }
 
+    @Test
+    public void testCoordinates() throws Exception {
+        w.lineString(Geom.lineString(1, 2, 3.5, 4));
+        assertEquals("{\"type\":\"LineString\",\"coordinates\":[[1.0,2.0],[3.5,4.0]]}", string());
+    }
+
+    @Test
+    public void testPrecision() throws Exception {
+        w.precision(2);
+        w.array();
+        w.point(Geom.point(1.006, -2.3449)).value(100.0).value(-0.001).value(Double.NaN);
+        w.endArray();
+
+        assertEquals("[{\"type\":\"Point\",\"coordinates\":[1.01,-2.34]},100,0,null]", string());
+    }
+
+    @Test
+    public void testPrecisionRoundTrip() throws Exception {
+        w.precision(7);
+        w.point(Geom.point(-123.4567891, 49.1234567));
+
+        JSONObject obj = (JSONObject) JSONValue.parse(string());
+        JSONArray coords = (JSONArray) obj.get("coordinates");
+        assertEquals(-123.4567891, ((Number)coords.get(0)).doubleValue(), 0);
+        assertEquals(49.1234567, ((Number)coords.get(1)).doubleValue(), 0);
+    }
+
+    @Test
+    public void testOutputStream() throws Exception {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        GeoJSONWriter w = new GeoJSONWriter(bout);
+        w.object().key("name").value("caf\u00e9 \u20ac \ud83d\ude00").endObject().flush();
+
+        assertEquals("{\"name\":\"caf\u00e9 \\u20AC \ud83d\ude00\"}", bout.toString("UTF-8"));
+    }
+
     String string() {
         return w.getWriter().toString();
     }
@@ -19,8 +19,10 @@ import org.junit.Test;
 
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -119,4 +121,62 @@ public class DataBufferTest {
         catch(BufferUnderflowException e) {
         }
     }
+    @Test
+    public void testPrimitive() {
+        DataBuffer<Float> fbuf = DataBuffer.create(4, DataType.FLOAT);
+        fbuf.putDouble(0, 1.5).putInt(1, 2).putFloat(2, -3.25f).putLong(3, 4);
+
+        assertEquals(0, fbuf.buffer().position());
+        assertEquals(1.5, fbuf.getDouble(0), 0);
+        assertEquals(2f, fbuf.getFloat(1), 0);
+        assertEquals(-3, fbuf.getInt(2));
+        assertEquals(4L, fbuf.getLong(3));
+        assertEquals((byte) 1, fbuf.getByte(0));
+        assertEquals(-3.25f, fbuf.get(2).floatValue(), 0);
+
+        DataBuffer<Short> sbuf = DataBuffer.create(2, DataType.SHORT);
+        sbuf.putDouble(0, 7.9).putShort(1, (short) -2);
+        assertEquals(7, sbuf.getShort(0));
+        assertEquals(-2.0, sbuf.getDouble(1), 0);
+        assertEquals(0, sbuf.buffer().position());
+    }
+
+    @Test
+    public void testBulk() {
+        for (DataType dt : new DataType[]{DataType.BYTE, DataType.INT, DataType.FLOAT, DataType.DOUBLE}) {
+            DataBuffer buf = DataBuffer.create(6, dt);
+            buf.buffer().order(ByteOrder.LITTLE_ENDIAN);
+            buf.put(1, new double[]{1, 2, 3, 4}, 0, 4);
+
+            double[] d = new double[6];
+            buf.get(0, d, 0, 6);
+            assertArrayEquals(new double[]{0, 1, 2, 3, 4, 0}, d, 0);
+
+            float[] f = new float[2];
+            buf.get(2, f, 0, 2);
+            assertArrayEquals(new float[]{2, 3}, f, 0);
+
+            int[] i = new int[3];
+            buf.put(3, new int[]{9, 8}, 0, 2).get(3, i, 1, 2);
+            assertArrayEquals(new int[]{0, 9, 8}, i);
+
+            assertEquals(0, buf.buffer().position());
+        }
+    }
+
+    @Test
+    public void testRowColumn() {
+        Dimension size = new Dimension(3, 2);
+        DataBuffer<Integer> buf = DataBuffer.create(6, DataType.INT);
+        buf.putRow(0, size, new double[]{1, 2, 3}).putRow(1, size, new double[]{4, 5, 6});
+
+        double[] col = new double[2];
+        buf.getColumn(1, size, col);
+        assertArrayEquals(new double[]{2, 5}, col, 0);
+
+        buf.putColumn(2, size, new double[]{0, 0});
+        double[] row = new double[3];
+        buf.getRow(1, size, row);
+        assertArrayEquals(new double[]{4, 5, 0}, row, 0);
+    }
 }
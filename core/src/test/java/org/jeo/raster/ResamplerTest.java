@@ -0,0 +1,178 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jeo.util.Dimension;
+import org.junit.Test;
+
+public class ResamplerTest {
+
+    @Test
+    public void testNearest() throws Exception {
+        DataBuffer<Integer> buf = buffer(DataType.INT, 1, 2, 3, 4);
+        DataBuffer<Integer> r = resample(Resample.NEAREST, buf, 2, 2, 4, 4);
+
+        assertArrayEquals(new double[]{1, 1, 2, 2, 1, 1, 2, 2, 3, 3, 4, 4, 3, 3, 4, 4},
+            values(r), 0);
+    }
+
+    @Test
+    public void testBilinear() throws Exception {
+        DataBuffer<Float> buf = buffer(DataType.FLOAT, 0, 10);
+        assertArrayEquals(new double[]{0, 2.5, 7.5, 10},
+            values(resample(Resample.BILINEAR, buf, 2, 1, 4, 1)), 1e-6);
+    }
+
+    @Test
+    public void testBilinearNoData() throws Exception {
+        DataBuffer<Float> buf = buffer(DataType.FLOAT, 0, -9999);
+        DataBuffer<Float> r = new Resampler(Resample.BILINEAR).nodata(NoData.create(-9999d))
+            .resample(buf, new Dimension(2, 1), new Dimension(4, 1));
+        assertArrayEquals(new double[]{0, 0, 0, -9999}, values(r), 1e-6);
+    }
+
+    @Test
+    public void testBicubic() throws Exception {
+        // constant areas stay constant
+        DataBuffer<Double> buf = buffer(DataType.DOUBLE, 5, 5, 5, 5, 5, 5, 5, 5, 5);
+        for (double v : values(resample(Resample.BICUBIC, buf, 3, 3, 7, 7))) {
+            assertEquals(5, v, 1e-9);
+        }
+
+        // overshoot is clamped to the range of the type
+        DataBuffer<Byte> bytes = buffer(DataType.BYTE, 0, 0, 255, 255);
+        DataBuffer<Byte> r = resample(Resample.BICUBIC, bytes, 4, 1, 16, 1);
+        assertEquals(0, r.getInt(5) & 0xff);
+        assertEquals(255, r.getInt(10) & 0xff);
+        for (int i = 0; i < r.size(); i++) {
+            int v = r.getInt(i) & 0xff;
+            assertTrue(i < 8 ? v < 128 : v > 128);
+        }
+    }
+
+    @Test
+    public void testAverage() throws Exception {
+        DataBuffer<Integer> buf = buffer(DataType.INT,
+            1, 3, 10, 10,
+            5, 7, 10, -1,
+            0, 0, 2, 2,
+            0, 4, 2, 2);
+
+        DataBuffer<Integer> r = new Resampler(Resample.AVERAGE).nodata(NoData.create(-1d))
+            .resample(buf, new Dimension(4, 4), new Dimension(2, 2));
+        assertArrayEquals(new double[]{4, 10, 1, 2}, values(r), 0);
+    }
+
+    @Test
+    public void testAverageUnsigned() throws Exception {
+        DataBuffer<Byte> buf = buffer(DataType.BYTE, 200, 250);
+        DataBuffer<Byte> r = resample(Resample.AVERAGE, buf, 2, 1, 1, 1);
+        assertEquals(225, r.getInt(0) & 0xff);
+    }
+
+    @Test
+    public void testMode() throws Exception {
+        DataBuffer<Short> buf = buffer(DataType.SHORT,
+            1, 2, 3, 3,
+            2, 2, 4, 5,
+            7, 7, 8, 8,
+            9, 9, 8, 9);
+        assertArrayEquals(new double[]{2, 3, 7, 8},
+            values(resample(Resample.MODE, buf, 4, 4, 2, 2)), 0);
+    }
+
+    @Test
+    public void testBands() throws Exception {
+        // two byte bands packed into shorts
+        DataBuffer<Short> buf = DataBuffer.create(2, DataType.SHORT);
+        buf.buffer().put(0, (byte) 10).put(1, (byte) 200).put(2, (byte) 30).put(3, (byte) 100);
+
+        DataBuffer<Short> r = new Resampler(Resample.AVERAGE).bands(2)
+            .resample(buf, new Dimension(2, 1), new Dimension(1, 1));
+        assertEquals(20, r.buffer().get(0) & 0xff);
+        assertEquals(150, r.buffer().get(1) & 0xff);
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        Dimension from = new Dimension(256, 256);
+        Dimension to = new Dimension(400, 300);
+
+        DataBuffer<Float> buf = DataBuffer.create(from.width() * from.height(), DataType.FLOAT);
+        for (int i = 0; i < buf.size(); i++) {
+            buf.putFloat(i, (float) Math.sin(i));
+        }
+
+        for (Resample method : Resample.values()) {
+            DataBuffer<Float> a = new Resampler(method).threads(1).resample(buf, from, to);
+            DataBuffer<Float> b = new Resampler(method).threads(4).resample(buf, from, to);
+            assertEquals(method.name(), a.buffer(), b.buffer());
+        }
+    }
+
+    @Test
+    public void testStrips() throws Exception {
+        Dimension from = new Dimension(37, 53);
+        DataBuffer<Float> buf = DataBuffer.create(from.width() * from.height(), DataType.FLOAT);
+        for (int i = 0; i < buf.size(); i++) {
+            buf.putFloat(i, (float) Math.sin(i));
+        }
+
+        for (Dimension to : new Dimension[]{new Dimension(5, 7), new Dimension(50, 71)}) {
+            for (Resample method : Resample.values()) {
+                Resampler r = new Resampler(method);
+                DataBuffer<Float> whole = r.resample(buf, from, to);
+
+                DataBuffer<Float> strips = DataBuffer.create(to.width() * to.height(), 
+                    DataType.FLOAT);
+                for (int y = 0; y < to.height(); y += 3) {
+                    int bottom = Math.min(to.height(), y + 3);
+                    int[] rows = r.rows(from, to, y, bottom);
+
+                    // copy of just the rows needed
+                    int n = (rows[1] - rows[0]) * from.width();
+                    float[] vals = new float[n];
+                    buf.get(rows[0] * from.width(), vals, 0, n);
+                    DataBuffer<Float> strip = DataBuffer.create(n, DataType.FLOAT);
+                    strip.put(0, vals, 0, n);
+
+                    r.resample(strip, rows[0], from, strips, to, y, bottom);
+                }
+                assertEquals(method + " " + to, whole.buffer(), strips.rewind().buffer());
+            }
+        }
+    }
+
+    <T> DataBuffer<T> resample(Resample method, DataBuffer<T> buf, int w, int h, int tw, int th)
+        throws Exception {
+        return new Resampler(method).resample(buf, new Dimension(w, h), new Dimension(tw, th));
+    }
+
+    DataBuffer buffer(DataType datatype, double... values) {
+        DataBuffer buf = DataBuffer.create(values.length, datatype);
+        buf.put(0, values, 0, values.length);
+        return buf;
+    }
+
+    double[] values(DataBuffer<?> buf) {
+        double[] values = new double[buf.size()];
+        buf.get(0, values, 0, values.length);
+        return values;
+    }
+}
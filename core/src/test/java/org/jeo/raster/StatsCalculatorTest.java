@@ -0,0 +1,134 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.jeo.TestData;
+import org.junit.After;
+import org.junit.Test;
+
+public class StatsCalculatorTest {
+
+    int stripPixels = StatsCalculator.STRIP_PIXELS;
+    int samplePixels = StatsCalculator.SAMPLE_PIXELS;
+
+    @After
+    public void tearDown() {
+        StatsCalculator.STRIP_PIXELS = stripPixels;
+        StatsCalculator.SAMPLE_PIXELS = samplePixels;
+    }
+
+    @Test
+    public void testAccumulate() throws Exception {
+        DataBuffer<Integer> buf = DataBuffer.create(6, DataType.INT);
+        buf.put(0, new int[]{2, 4, -1, 4, 5, 7}, 0, 6);
+
+        Stats stats = new StatsCalculator().nodata(NoData.create(-1d)).accumulate(buf).stats();
+        assertEquals(5, stats.count());
+        assertEquals(1, stats.nodata());
+        assertEquals(2, stats.min(), 0);
+        assertEquals(7, stats.max(), 0);
+        assertEquals(4.4, stats.mean(), 1e-9);
+        assertEquals(Math.sqrt(2.64), stats.stdev(), 1e-9);
+        assertEquals(0, buf.buffer().position());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        Stats stats = new StatsCalculator().accumulate(Double.NaN).stats();
+        assertEquals(0, stats.count());
+        assertEquals(1, stats.nodata());
+        assertTrue(Double.isNaN(stats.mean()));
+        assertTrue(Double.isNaN(stats.median()));
+    }
+
+    @Test
+    public void testHistogramBytes() throws Exception {
+        DataBuffer<Byte> buf = DataBuffer.create(256, DataType.BYTE);
+        for (int i = 0; i < 256; i++) {
+            buf.putInt(i, i);
+        }
+
+        Stats stats = new StatsCalculator().accumulate(buf).stats();
+        assertEquals(0, stats.min(), 0);
+        assertEquals(255, stats.max(), 0);
+
+        // one bin per value
+        Histogram h = stats.histogram();
+        assertEquals(256, h.bins());
+        assertEquals(1, h.width(), 0);
+        assertEquals(0, h.min(), 0);
+        for (int i = 0; i < 256; i++) {
+            assertEquals(1, h.count(i));
+        }
+        assertEquals(128, stats.median(), 0);
+    }
+
+    @Test
+    public void testHistogramGrows() throws Exception {
+        Random r = new Random(1);
+        StatsCalculator calc = new StatsCalculator().bins(100);
+        for (int i = 0; i < 100000; i++) {
+            calc.accumulate(500 + (r.nextDouble() - 0.5) * 1000);
+        }
+
+        Stats stats = calc.stats();
+        Histogram h = stats.histogram();
+        assertEquals(100000, h.total());
+        assertTrue(h.min() <= stats.min());
+        assertTrue(h.max() >= stats.max());
+
+        assertEquals(500, stats.mean(), 5);
+        assertEquals(250, stats.percentile(25), 5 + h.width());
+        assertEquals(900, stats.percentile(90), 5 + h.width());
+    }
+
+    @Test
+    public void testDataset() throws Exception {
+        RasterDataset dem = TestData.dem();
+
+        // several strips
+        StatsCalculator.STRIP_PIXELS = 30;
+        Stats stats = StatsCalculator.compute(dem, 0, false);
+        assertEquals(100, stats.count());
+        assertEquals(1098.0, stats.min(), 0.1);
+        assertEquals(1746.0, stats.max(), 0.1);
+        assertEquals(1355.7, stats.mean(), 0.1);
+        assertEquals(182.9, stats.stdev(), 0.1);
+
+        StatsCalculator.SAMPLE_PIXELS = 25;
+        Stats approx = StatsCalculator.compute(dem, 0, true);
+        assertEquals(25, approx.count());
+        assertEquals(1355.7, approx.mean(), 100);
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        RasterDataset dem = TestData.dem();
+
+        Stats stats = StatsCalculator.stats(dem, 0, false);
+        assertSame(stats, StatsCalculator.stats(dem, 0, false));
+        assertSame(stats, StatsCalculator.stats(dem, 0, true));
+        assertSame(stats, dem.bands().get(0).stats());
+
+        StatsCalculator.clearCache(dem);
+        assertTrue(stats != StatsCalculator.stats(dem, 0, false));
+    }
+}
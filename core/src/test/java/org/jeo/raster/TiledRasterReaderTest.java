@@ -0,0 +1,98 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.raster;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.jeo.TestData;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+public class TiledRasterReaderTest {
+
+    RasterDataset dem;
+
+    @Before
+    public void setUp() throws Exception {
+        dem = TestData.dem();
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        TiledRasterReader reader = new TiledRasterReader(dem).tileSize(3).threads(2);
+        try {
+            assertSameAs(dem.read(new RasterQuery()), reader.read(new RasterQuery()));
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadBounds() throws Exception {
+        Envelope bbox = dem.bounds();
+        Envelope half = new Envelope(bbox.getMinX(), bbox.centre().x, bbox.getMinY(), bbox.getMaxY());
+
+        TiledRasterReader reader = new TiledRasterReader(dem).tileSize(2).threads(3);
+        try {
+            RasterQuery q = new RasterQuery().bounds(half).size(5, 10);
+            assertSameAs(dem.read(q), reader.read(q));
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadLimitedMemory() throws Exception {
+        // no more than one tile in memory at a time
+        TiledRasterReader reader = new TiledRasterReader(dem).tileSize(4).threads(1).maxMemory(1);
+        try {
+            assertSameAs(dem.read(new RasterQuery()), reader.read(new RasterQuery()));
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadDataType() throws Exception {
+        TiledRasterReader reader = new TiledRasterReader(dem).tileSize(4);
+        try {
+            RasterQuery q = new RasterQuery().datatype(DataType.DOUBLE);
+            assertSameAs(dem.read(q), reader.read(q));
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    void assertSameAs(Raster expected, Raster actual) {
+        assertEquals(expected.size().width(), actual.size().width());
+        assertEquals(expected.size().height(), actual.size().height());
+        assertEquals(expected.bounds(), actual.bounds());
+        assertEquals(expected.bands().size(), actual.bands().size());
+        assertEquals(expected.data().datatype(), actual.data().datatype());
+
+        ByteBuffer e = expected.data().buffer();
+        ByteBuffer a = actual.data().buffer();
+        assertEquals(e.order(), a.order());
+        assertEquals(e, a);
+    }
+}
@@ -37,6 +37,16 @@ public class CSV extends FileVectorDriver<CSVDataset> {
 
     public static final Key<Object> Y = new Key<Object>("y", Object.class, "y");
 
+    /**
+     * Number of rows sampled to infer column types, 0 to disable inference and -1 to scan all rows.
+     */
+    public static final Key<Integer> SAMPLE = new Key<Integer>("sample", Integer.class, 1000);
+
+    /**
+     * Whether to maintain a sidecar index of record offsets and geometry envelopes.
+     */
+    public static final Key<Boolean> INDEX = new Key<Boolean>("index", Boolean.class, false);
+
     public static CSVDataset open(File file, CSVOpts csvOpts) throws IOException {
         return new CSVDataset(file, csvOpts);
     }
@@ -48,7 +58,7 @@ public class CSV extends FileVectorDriver<CSVDataset> {
 
     @Override
     public List<Key<?>> keys() {
-        return (List) Arrays.asList(FILE, DELIM, HEADER, X, Y);
+        return (List) Arrays.asList(FILE, DELIM, HEADER, X, Y, SAMPLE, INDEX);
     }
 
     @Override
@@ -20,11 +20,13 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import org.jeo.data.Cursor;
 import org.jeo.data.FileData;
+import org.jeo.geom.Envelopes;
 import org.jeo.vector.FeatureCursor;
 import org.jeo.vector.VectorQuery;
 import org.jeo.vector.VectorQueryPlan;
@@ -34,6 +36,7 @@ import org.jeo.vector.Feature;
 import org.jeo.vector.Schema;
 import org.jeo.vector.SchemaBuilder;
 import org.jeo.util.Key;
+import org.jeo.util.Pair;
 import org.jeo.util.Util;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
@@ -52,6 +55,12 @@ public class CSVDataset implements VectorDataset, FileData {
     /** the feature schema */
     Schema schema;
 
+    /** column types, indexed by column */
+    Class<?>[] types;
+
+    /** row offset/spatial index, null if not indexed */
+    CSVIndex index;
+
     /** handler for specific csv flavor */
     CSVHandler handler;
 
@@ -64,6 +73,10 @@ public class CSVDataset implements VectorDataset, FileData {
         this.opts = opts;
         handler = opts.handler();
         init();
+
+        if (opts.isIndexed()) {
+            index = CSVIndex.load(this);
+        }
     }
 
     @Override
@@ -82,27 +95,86 @@ public class CSVDataset implements VectorDataset, FileData {
     }
 
     void init() throws IOException {
+        String[] cols = null;
+
+        CsvReader r = reader();
+        try {
+            if (opts.hasHeader()) {
+                //read first row
+                r.readHeaders();
+                handler.header(r);
+                cols = r.getHeaders();
+            }
+
+            types = infer(r, cols);
+        }
+        finally {
+            r.close();
+        }
+
         SchemaBuilder sb = Schema.build(name());
         sb.field("geometry", Geometry.class);
 
-        if (opts.hasHeader()) {
-            //read first row
-            CsvReader r = reader();
-            r.readHeaders();
+        if (cols != null) {
+            for (int i = 0; i < cols.length; i++) {
+                sb.field(cols[i], types[i]);
+            }
+        }
 
-            try {
-                handler.header(r);
+        schema = sb.schema();
+    }
 
-                for (String col : r.getHeaders()) {
-                    sb.field(col, Object.class);
-                }
+    /*
+     * Infers column types from the first rows of the file, see CSVOpts#sample(int).
+     */
+    Class<?>[] infer(CsvReader r, String[] cols) throws IOException {
+        int sample = opts.getSample();
+        Class<?>[] types = new Class<?>[cols != null ? cols.length : 0];
+
+        for (int row = 0; sample != 0 && (sample < 0 || row < sample) && r.readRecord(); row++) {
+            String[] vals = r.getValues();
+            if (vals.length > types.length) {
+                types = Arrays.copyOf(types, vals.length);
             }
-            finally {
-                r.close();
+
+            for (int i = 0; i < vals.length; i++) {
+                types[i] = CSVTypes.widen(types[i], CSVTypes.infer(vals[i]));
             }
         }
-        
-        schema = sb.schema();
+
+        for (int i = 0; i < types.length; i++) {
+            if (sample == 0) {
+                types[i] = Object.class;
+            }
+            else if (types[i] == null) {
+                // no non empty values
+                types[i] = String.class;
+            }
+        }
+
+        // explicit column mappings
+        for (Pair<Object,Class<?>> m : opts.getMappings()) {
+            int i = m.first instanceof Integer ? (Integer) m.first 
+                : cols != null ? indexOf(cols, m.first.toString()) : -1;
+            if (i < 0) {
+                throw new IllegalArgumentException("No such column: " + m.first);
+            }
+            if (i >= types.length) {
+                types = Arrays.copyOf(types, i+1);
+            }
+            types[i] = m.second;
+        }
+
+        return types;
+    }
+
+    static int indexOf(String[] cols, String col) {
+        for (int i = 0; i < cols.length; i++) {
+            if (cols[i].equalsIgnoreCase(col)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Override
@@ -133,20 +205,43 @@ public class CSVDataset implements VectorDataset, FileData {
 
     @Override
     public Envelope bounds() throws IOException {
+        if (index != null) {
+            return index.bounds();
+        }
         return cursor(new VectorQuery()).bounds();
     }
 
     @Override
     public long count(VectorQuery q) throws IOException {
+        if (index != null && !q.isFiltered()) {
+            Envelope bbox = q.bounds();
+            return q.adjustCount(Envelopes.isNull(bbox) ? index.size() : index.query(bbox).length);
+        }
         return cursor(q).count();
     }
 
+    /**
+     * Whether the dataset is backed by a row offset and spatial index.
+     *
+     * @see CSVOpts#index(boolean)
+     */
+    public boolean isIndexed() {
+        return index != null;
+    }
+
     @Override
     public FeatureCursor cursor(VectorQuery q) throws IOException {
         if (q.mode() != Cursor.READ) {
             throw new IllegalArgumentException("write cursors not supported");
         }
 
+        if (index != null) {
+            VectorQueryPlan qp = new VectorQueryPlan(q);
+            int[] range = new int[2];
+            int[] rows = rows(q, qp, range);
+            return qp.apply(new CSVIndexCursor(this, index, rows, range[0], range[1]));
+        }
+
         CsvReader reader = reader();
         if (opts.hasHeader()) {
             reader.readHeaders();
@@ -155,6 +250,81 @@ public class CSVDataset implements VectorDataset, FileData {
         return new VectorQueryPlan(q).apply(new CSVCursor(reader, this));
     }
 
+    /**
+     * Splits the results of a query into a number of cursors over disjoint ranges of rows that 
+     * may be read concurrently.
+     * <p>
+     * This method requires the dataset to be indexed. Since each partition is processed 
+     * independently a query specifying an offset or limit may not also specify a filter.
+     * </p>
+     * @param q The query.
+     * @param n The maximum number of partitions.
+     *
+     * @return The list of cursors, at least one.
+     */
+    public List<FeatureCursor> partition(VectorQuery q, int n) throws IOException {
+        if (index == null) {
+            throw new IllegalStateException("partitioned reads require an indexed dataset");
+        }
+        if (q.mode() != Cursor.READ) {
+            throw new IllegalArgumentException("write cursors not supported");
+        }
+        if (q.isFiltered() && (q.offset() != null || q.limit() != null)) {
+            throw new IllegalArgumentException(
+                "offset/limit can not be combined with a filter for partitioned reads");
+        }
+
+        int[] range = new int[2];
+        int[] rows = rows(q, new VectorQueryPlan(q), range);
+
+        int size = range[1] - range[0];
+        n = Math.max(1, Math.min(n, size));
+
+        List<FeatureCursor> cursors = new ArrayList<FeatureCursor>(n);
+        for (int i = 0; i < n; i++) {
+            int from = range[0] + (int) ((long) size * i / n);
+            int to = range[0] + (int) ((long) size * (i+1) / n);
+
+            VectorQueryPlan qp = new VectorQueryPlan(q);
+            qp.bounded();
+            qp.offsetted();
+            qp.limited();
+            cursors.add(qp.apply(new CSVIndexCursor(this, index, rows, from, to)));
+        }
+        return cursors;
+    }
+
+    /*
+     * Computes the rows matching a query from the index, handling bounds and when possible 
+     * offset and limit. Returns null when rows map directly to positions.
+     */
+    int[] rows(VectorQuery q, VectorQueryPlan qp, int[] range) {
+        int[] rows = null;
+        int from = 0, to = index.size();
+
+        Envelope bbox = q.bounds();
+        if (!Envelopes.isNull(bbox)) {
+            rows = index.query(bbox);
+            to = rows.length;
+            qp.bounded();
+        }
+
+        if (!q.isFiltered()) {
+            if (q.offset() != null) {
+                from = Math.min(to, q.offset());
+                qp.offsetted();
+            }
+            if (q.limit() != null) {
+                to = Math.min(to, from + q.limit());
+                qp.limited();
+            }
+        }
+
+        range[0] = from;
+        range[1] = to;
+        return rows;
+    }
+
     public void close() {
     }
 
@@ -163,23 +333,13 @@ public class CSVDataset implements VectorDataset, FileData {
     }
 
     Feature feature(int i, CsvReader r) throws IOException {
-        List<Object> values = new ArrayList<Object>();
+        String[] vals = r.getValues();
+
+        List<Object> values = new ArrayList<Object>(vals.length + 1);
         values.add(handler.geom(r));
 
-        for (String val : r.getValues()) {
-            Object parsed = null;
-            try {
-                parsed = Integer.parseInt(val);
-            }
-            catch(NumberFormatException e1) {
-                try {
-                    parsed = Double.parseDouble(val);
-                }
-                catch(NumberFormatException e2) {
-                    parsed = val;
-                }
-            }
-            values.add(parsed);
+        for (int j = 0; j < vals.length; j++) {
+            values.add(CSVTypes.parse(vals[j], j < types.length ? types[j] : Object.class));
         }
 
         return new BasicFeature(String.valueOf(i), values, schema);
@@ -0,0 +1,427 @@
+/* Copyright 2013 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.csvreader.CsvReader;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Row offset and spatial index for a CSV file.
+ * <p>
+ * The index records the byte range of every data record along with the envelope of its geometry,
+ * allowing individual records to be read by seeking rather than parsing the file from the start.
+ * Envelopes are loaded into an in memory {@link STRtree} on first use for bounding box queries.
+ * </p>
+ * <p>
+ * The index is persisted in a sidecar file named after the CSV file with an <tt>.idx</tt>
+ * extension. The sidecar is rebuilt when the length or modification time of the CSV file no
+ * longer matches the values recorded in it.
+ * </p>
+ */
+class CSVIndex {
+
+    static Logger LOG = Logger.getLogger(CSVIndex.class.getName());
+
+    static final int MAGIC = 0x4A435849;
+    static final int VERSION = 1;
+
+    /** number of records */
+    int size;
+
+    /** record byte offsets and lengths */
+    long[] offsets;
+    int[] lengths;
+
+    /** record envelopes, minx, miny, maxx, maxy for each record, NaN for no geometry */
+    double[] envelopes;
+
+    /** spatial index, lazily created */
+    STRtree tree;
+
+    /** cached bounds */
+    Envelope bounds;
+
+    CSVIndex(int capacity) {
+        offsets = new long[capacity];
+        lengths = new int[capacity];
+        envelopes = new double[capacity * 4];
+    }
+
+    /**
+     * Loads the index for a dataset, building it if the sidecar file is missing or stale.
+     */
+    static CSVIndex load(CSVDataset csv) throws IOException {
+        File file = csv.file();
+        File idx = file(file);
+
+        if (idx.exists()) {
+            try {
+                CSVIndex index = read(idx, file);
+                if (index != null) {
+                    return index;
+                }
+            }
+            catch(IOException e) {
+                LOG.log(Level.FINE, "Error reading index " + idx.getPath() + ", rebuilding", e);
+            }
+        }
+
+        CSVIndex index = build(csv);
+        try {
+            index.write(idx, file);
+        }
+        catch(IOException e) {
+            // non fatal, index is still usable in memory
+            LOG.log(Level.FINE, "Unable to write index " + idx.getPath(), e);
+        }
+        return index;
+    }
+
+    /**
+     * The sidecar index file for a CSV file.
+     */
+    static File file(File file) {
+        return new File(file.getParentFile(), file.getName() + ".idx");
+    }
+
+    /**
+     * Builds the index by scanning the records of a CSV file.
+     */
+    static CSVIndex build(CSVDataset csv) throws IOException {
+        CSVOpts opts = csv.opts;
+        int delim = opts.getDelimiter();
+
+        CSVIndex index = new CSVIndex(1024);
+
+        InputStream in = new BufferedInputStream(new FileInputStream(csv.file()), 65536);
+        try {
+            RecordScanner scanner = new RecordScanner(in, delim);
+            boolean header = opts.hasHeader();
+
+            while (scanner.next()) {
+                if (header) {
+                    header = false;
+                    continue;
+                }
+
+                int len = (int) (scanner.end - scanner.start);
+                Geometry g = csv.handler.geom(index.parse(scanner.record, len, opts));
+                index.add(scanner.start, len, g != null ? g.getEnvelopeInternal() : null);
+            }
+        }
+        finally {
+            in.close();
+        }
+
+        return index;
+    }
+
+    /**
+     * Reads a sidecar index file, returning <tt>null</tt> if the index is stale.
+     */
+    static CSVIndex read(File idx, File file) throws IOException {
+        DataInputStream in =
+            new DataInputStream(new BufferedInputStream(new FileInputStream(idx), 65536));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a csv index file: " + idx.getPath());
+            }
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            if (in.readLong() != file.length() || in.readLong() != file.lastModified()) {
+                return null;
+            }
+
+            int n = in.readInt();
+            CSVIndex index = new CSVIndex(Math.max(n, 1));
+            for (int i = 0; i < n; i++) {
+                index.offsets[i] = in.readLong();
+                index.lengths[i] = in.readInt();
+                for (int j = 0; j < 4; j++) {
+                    index.envelopes[i*4+j] = in.readDouble();
+                }
+            }
+            index.size = n;
+            return index;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes out the index to a sidecar file.
+     */
+    void write(File idx, File file) throws IOException {
+        DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(idx), 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(file.length());
+            out.writeLong(file.lastModified());
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+                for (int j = 0; j < 4; j++) {
+                    out.writeDouble(envelopes[i*4+j]);
+                }
+            }
+            out.flush();
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Number of records in the index.
+     */
+    int size() {
+        return size;
+    }
+
+    void add(long offset, int length, Envelope e) {
+        if (size == offsets.length) {
+            int cap = size * 2;
+            offsets = Arrays.copyOf(offsets, cap);
+            lengths = Arrays.copyOf(lengths, cap);
+            envelopes = Arrays.copyOf(envelopes, cap * 4);
+        }
+
+        offsets[size] = offset;
+        lengths[size] = length;
+
+        int i = size * 4;
+        if (e != null && !e.isNull()) {
+            envelopes[i] = e.getMinX();
+            envelopes[i+1] = e.getMinY();
+            envelopes[i+2] = e.getMaxX();
+            envelopes[i+3] = e.getMaxY();
+        }
+        else {
+            Arrays.fill(envelopes, i, i+4, Double.NaN);
+        }
+
+        size++;
+    }
+
+    /**
+     * Returns the envelope of a record, or <tt>null</tt> if it has no geometry.
+     */
+    Envelope envelope(int row) {
+        int i = row * 4;
+        if (Double.isNaN(envelopes[i])) {
+            return null;
+        }
+        return new Envelope(envelopes[i], envelopes[i+2], envelopes[i+1], envelopes[i+3]);
+    }
+
+    /**
+     * Bounds of all records in the index.
+     */
+    synchronized Envelope bounds() {
+        if (bounds == null) {
+            Envelope b = new Envelope();
+            for (int i = 0; i < size; i++) {
+                int j = i * 4;
+                if (!Double.isNaN(envelopes[j])) {
+                    b.expandToInclude(envelopes[j], envelopes[j+1]);
+                    b.expandToInclude(envelopes[j+2], envelopes[j+3]);
+                }
+            }
+            bounds = b;
+        }
+        return new Envelope(bounds);
+    }
+
+    /**
+     * Returns the sorted rows whose envelope intersects the specified bounding box.
+     */
+    int[] query(Envelope bbox) {
+        List<Integer> hits = tree().query(bbox);
+
+        int[] rows = new int[hits.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = hits.get(i);
+        }
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    synchronized STRtree tree() {
+        if (tree == null) {
+            STRtree t = new STRtree();
+            for (int i = 0; i < size; i++) {
+                Envelope e = envelope(i);
+                if (e != null) {
+                    t.insert(e, i);
+                }
+            }
+            t.build();
+            tree = t;
+        }
+        return tree;
+    }
+
+    /**
+     * Reads the raw bytes of a record into the specified buffer, growing it as necessary.
+     */
+    byte[] read(RandomAccessFile raf, int row, byte[] buf) throws IOException {
+        int len = lengths[row];
+        if (len > buf.length) {
+            buf = new byte[Math.max(len, buf.length * 2)];
+        }
+        raf.seek(offsets[row]);
+        raf.readFully(buf, 0, len);
+        return buf;
+    }
+
+    /**
+     * Parses the raw bytes of a single record, returning a reader positioned on the record.
+     */
+    CsvReader parse(byte[] buf, int len, CSVOpts opts) throws IOException {
+        String rec = new String(buf, 0, len, Charset.defaultCharset());
+        CsvReader r = new CsvReader(new StringReader(rec), opts.getDelimiter());
+        if (!r.readRecord()) {
+            throw new IOException("Invalid record: " + rec);
+        }
+        return r;
+    }
+
+    /**
+     * Splits raw bytes into CSV records, honoring quoted values that contain delimiters or
+     * newlines.
+     */
+    static class RecordScanner {
+
+        static final int FIELD = 0, UNQUOTED = 1, QUOTED = 2, QUOTE = 3;
+
+        final InputStream in;
+        final int delim;
+
+        /** byte position in the stream */
+        long pos = 0;
+
+        /** current record */
+        long start, end;
+        byte[] record = new byte[1024];
+
+        /** lookahead byte */
+        int peek = -2;
+
+        RecordScanner(InputStream in, int delim) {
+            this.in = in;
+            this.delim = delim;
+        }
+
+        /**
+         * Advances to the next non empty record, returning false at the end of the stream.
+         */
+        boolean next() throws IOException {
+            while (true) {
+                start = pos;
+                int len = 0;
+                int state = FIELD;
+
+                int c;
+                while ((c = read()) != -1) {
+                    if ((c == '\n' || c == '\r') && state != QUOTED) {
+                        if (c == '\r') {
+                            // swallow \n of \r\n
+                            if ((peek = in.read()) == '\n') {
+                                peek = -2;
+                                pos++;
+                            }
+                        }
+                        break;
+                    }
+
+                    if (len == record.length) {
+                        record = Arrays.copyOf(record, len * 2);
+                    }
+                    record[len++] = (byte) c;
+
+                    switch(state) {
+                    case FIELD:
+                        if (c == '"') {
+                            state = QUOTED;
+                        }
+                        else if (c != delim && c != ' ' && c != '\t') {
+                            state = UNQUOTED;
+                        }
+                        break;
+                    case UNQUOTED:
+                        if (c == delim) {
+                            state = FIELD;
+                        }
+                        break;
+                    case QUOTED:
+                        if (c == '"') {
+                            state = QUOTE;
+                        }
+                        break;
+                    case QUOTE:
+                        state = c == '"' ? QUOTED : c == delim ? FIELD : UNQUOTED;
+                    }
+                }
+
+                end = start + len;
+                if (len > 0) {
+                    return true;
+                }
+                if (c == -1) {
+                    return false;
+                }
+            }
+        }
+
+        int read() throws IOException {
+            int c;
+            if (peek != -2) {
+                c = peek;
+                peek = -2;
+            }
+            else {
+                c = in.read();
+            }
+            if (c != -1) {
+                pos++;
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/* Copyright 2013 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.csv;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.jeo.vector.Feature;
+import org.jeo.vector.FeatureCursor;
+
+/**
+ * Cursor that reads records from a CSV file by seeking to offsets from a {@link CSVIndex}.
+ * <p>
+ * The cursor iterates the positions <tt>[from, to)</tt> of a list of rows. When no row list is
+ * specified positions map directly to rows of the file. Every cursor opens its own file handle so
+ * cursors over disjoint ranges may be consumed by different threads.
+ * </p>
+ */
+public class CSVIndexCursor extends FeatureCursor {
+
+    CSVDataset csv;
+    CSVIndex index;
+
+    int[] rows;
+    int pos, to;
+
+    RandomAccessFile raf;
+    byte[] buf = new byte[1024];
+
+    CSVIndexCursor(CSVDataset csv, CSVIndex index, int[] rows, int from, int to)
+        throws IOException {
+        this.csv = csv;
+        this.index = index;
+        this.rows = rows;
+        this.pos = from;
+        this.to = to;
+
+        raf = new RandomAccessFile(csv.file(), "r");
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return pos < to;
+    }
+
+    @Override
+    public Feature next() throws IOException {
+        if (pos >= to) {
+            return null;
+        }
+
+        int row = rows != null ? rows[pos] : pos;
+        pos++;
+
+        buf = index.read(raf, row, buf);
+        return csv.feature(row, index.parse(buf, index.lengths[row], csv.opts));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+    }
+}
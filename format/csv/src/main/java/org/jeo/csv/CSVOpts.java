@@ -27,6 +27,8 @@ public class CSVOpts {
 
     Character delim = DELIM.getDefault();
     boolean header = HEADER.getDefault();
+    int sample = SAMPLE.getDefault();
+    boolean index = INDEX.getDefault();
 
     String xcol, ycol, wktcol;
     Integer x, y, wkt;
@@ -35,7 +37,8 @@ public class CSVOpts {
 
     public static CSVOpts fromMap(Map<?, Object> map) {
         CSVOpts csvOpts = new CSVOpts();
-        csvOpts.delimiter(DELIM.get(map)).header(HEADER.get(map));
+        csvOpts.delimiter(DELIM.get(map)).header(HEADER.get(map)).sample(SAMPLE.get(map))
+            .index(INDEX.get(map));
         
         Object x = X.get(map);
         if (x instanceof Integer) {
@@ -66,6 +69,40 @@ public class CSVOpts {
         return this;
     }
 
+    public int getSample() {
+        return sample;
+    }
+
+    /**
+     * Sets the number of rows read to infer the type of each column.
+     * <p>
+     * A value of 0 disables inference, leaving columns typed as <tt>Object</tt>, and a negative
+     * value infers types from all rows. Values of rows beyond the sample that don't fit the 
+     * inferred type of their column are read as <tt>null</tt>.
+     * </p>
+     */
+    public CSVOpts sample(int sample) {
+        this.sample = sample;
+        return this;
+    }
+
+    public boolean isIndexed() {
+        return index;
+    }
+
+    /**
+     * Enables a sidecar index of record offsets and geometry envelopes.
+     * <p>
+     * The index is stored next to the CSV file and allows bounding box queries, offset/limit and 
+     * counts to be served without parsing the entire file. It is rebuilt automatically when the 
+     * file changes.
+     * </p>
+     */
+    public CSVOpts index(boolean index) {
+        this.index = index;
+        return this;
+    }
+
     public CSVOpts xy(String x, String y) {
         this.xcol = x;
         this.ycol = y;
@@ -104,6 +141,8 @@ public class CSVOpts {
         map.put(HEADER, header);
         map.put(X, x != null ? x : xcol);
         map.put(Y, y != null ? y : ycol);
+        map.put(SAMPLE, sample);
+        map.put(INDEX, index);
         return map;
     }
 
@@ -131,6 +170,10 @@ public class CSVOpts {
         return wkt;
     }
 
+    List<Pair<Object,Class<?>>> getMappings() {
+        return mappings;
+    }
+
     CSVHandler handler() {
         //sanity checks
 
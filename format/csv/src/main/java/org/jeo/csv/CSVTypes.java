@@ -0,0 +1,396 @@
+/* Copyright 2013 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.csv;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.jeo.util.Convert;
+
+/**
+ * Type inference and parsing of raw CSV values.
+ * <p>
+ * Values are classified by scanning their characters rather than by attempting a parse and
+ * catching the resulting exception. Recognized types are {@link Integer}, {@link Long},
+ * {@link Double}, {@link Boolean}, {@link Date} (ISO-8601 dates and date times) and
+ * {@link String}. Empty values are treated as null and do not contribute to a column type.
+ * </p>
+ */
+class CSVTypes {
+
+    static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /**
+     * Returns the type of a single value, or <tt>null</tt> if the value is empty.
+     */
+    static Class<?> infer(String val) {
+        if (val == null) {
+            return null;
+        }
+
+        int s = start(val), e = end(val);
+        if (s == e) {
+            return null;
+        }
+
+        int digits = integral(val, s, e);
+        if (digits > 0) {
+            if (digits > 18) {
+                return Double.class;
+            }
+            long l = toLong(val, s, e);
+            return l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE ? Integer.class : Long.class;
+        }
+
+        if (decimal(val, s, e)) {
+            return Double.class;
+        }
+
+        if (bool(val, s, e) != null) {
+            return Boolean.class;
+        }
+
+        if (date(val, s, e) != null) {
+            return Date.class;
+        }
+
+        return String.class;
+    }
+
+    /**
+     * Returns the narrowest type able to represent values of both specified types.
+     */
+    static Class<?> widen(Class<?> t1, Class<?> t2) {
+        if (t1 == null || t1 == t2) {
+            return t2;
+        }
+        if (t2 == null) {
+            return t1;
+        }
+
+        int r1 = numeric(t1), r2 = numeric(t2);
+        if (r1 > 0 && r2 > 0) {
+            return r1 > r2 ? t1 : t2;
+        }
+        return String.class;
+    }
+
+    /**
+     * Parses a value to the specified type.
+     * <p>
+     * When <tt>type</tt> is <tt>Object</tt> the type of the value is inferred, limited to numeric
+     * types and strings. Empty values are returned as <tt>null</tt>, as are values that can't be
+     * represented as the specified type, so that parsed values are always of the column type. 
+     * Such values occur beyond the rows sampled to infer the column type, see 
+     * {@link CSVOpts#sample(int)}.
+     * </p>
+     */
+    static Object parse(String val, Class<?> type) {
+        if (val == null || type == String.class) {
+            return val;
+        }
+
+        int s = start(val), e = end(val);
+        if (type == Object.class) {
+            Class<?> t = infer(val);
+            if (t == null) {
+                return val;
+            }
+            type = numeric(t) > 0 ? t : String.class;
+            if (type == String.class) {
+                return val;
+            }
+        }
+
+        if (s == e) {
+            return null;
+        }
+
+        if (type == Integer.class || type == Long.class) {
+            int digits = integral(val, s, e);
+            if (digits == 0 || digits > 18) {
+                return null;
+            }
+
+            long l = toLong(val, s, e);
+            if (type == Long.class) {
+                return l;
+            }
+            return l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE ? Integer.valueOf((int) l) : null;
+        }
+        if (type == Double.class) {
+            return decimal(val, s, e) ? Double.parseDouble(val.substring(s, e)) : null;
+        }
+        if (type == Boolean.class) {
+            return bool(val, s, e);
+        }
+        if (type == Date.class) {
+            return date(val, s, e);
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            // other numeric mapping, go through double
+            return decimal(val, s, e) ? Convert.toNumber(
+                Double.parseDouble(val.substring(s, e)), (Class) type).orElse(null) : null;
+        }
+
+        return val;
+    }
+
+    /**
+     * Parses a value as a double, returning <tt>NaN</tt> if the value is not numeric.
+     */
+    static double toDouble(String val) {
+        if (val == null) {
+            return Double.NaN;
+        }
+
+        int s = start(val), e = end(val);
+        return decimal(val, s, e) ? Double.parseDouble(val.substring(s, e)) : Double.NaN;
+    }
+
+    /*
+     * rank of numeric types, 0 for non numeric
+     */
+    static int numeric(Class<?> t) {
+        return t == Integer.class ? 1 : t == Long.class ? 2 : t == Double.class ? 3 : 0;
+    }
+
+    static int start(String val) {
+        int s = 0;
+        while (s < val.length() && val.charAt(s) <= ' ') {
+            s++;
+        }
+        return s;
+    }
+
+    static int end(String val) {
+        int e = val.length();
+        while (e > 0 && val.charAt(e-1) <= ' ') {
+            e--;
+        }
+        return e;
+    }
+
+    /*
+     * number of digits if the range is an optionally signed integer, otherwise 0
+     */
+    static int integral(String val, int s, int e) {
+        if (s >= e) {
+            return 0;
+        }
+
+        int i = s;
+        char c = val.charAt(i);
+        if (c == '-' || c == '+') {
+            i++;
+        }
+        if (i == e) {
+            return 0;
+        }
+
+        for (int j = i; j < e; j++) {
+            c = val.charAt(j);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+        }
+        return e - i;
+    }
+
+    /*
+     * converts a range already validated by integral() to a long, no more than 18 digits
+     */
+    static long toLong(String val, int s, int e) {
+        boolean neg = val.charAt(s) == '-';
+        int i = val.charAt(s) == '-' || val.charAt(s) == '+' ? s+1 : s;
+
+        long l = 0;
+        for (; i < e; i++) {
+            l = l * 10 + (val.charAt(i) - '0');
+        }
+        return neg ? -l : l;
+    }
+
+    /*
+     * determines if the range is a decimal number, with optional fraction and exponent
+     */
+    static boolean decimal(String val, int s, int e) {
+        if (s >= e) {
+            return false;
+        }
+
+        int i = s;
+        char c = val.charAt(i);
+        if (c == '-' || c == '+') {
+            i++;
+        }
+
+        int digits = 0;
+        while (i < e && isDigit(val.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < e && val.charAt(i) == '.') {
+            i++;
+            while (i < e && isDigit(val.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+
+        if (i < e && (val.charAt(i) == 'e' || val.charAt(i) == 'E')) {
+            i++;
+            if (i < e && (val.charAt(i) == '-' || val.charAt(i) == '+')) {
+                i++;
+            }
+            if (i == e) {
+                return false;
+            }
+            while (i < e && isDigit(val.charAt(i))) {
+                i++;
+            }
+        }
+
+        return i == e;
+    }
+
+    static Boolean bool(String val, int s, int e) {
+        if (e - s == 4 && val.regionMatches(true, s, "true", 0, 4)) {
+            return Boolean.TRUE;
+        }
+        if (e - s == 5 && val.regionMatches(true, s, "false", 0, 5)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /*
+     * parses yyyy-MM-dd, optionally followed by ('T'|' ')HH:mm[:ss[.SSS]] and a zone of 'Z' or
+     * +/-HH[:]mm, returning null if the range is not a date
+     */
+    static Date date(String val, int s, int e) {
+        if (e - s < 10 || val.charAt(s+4) != '-' || val.charAt(s+7) != '-') {
+            return null;
+        }
+
+        int year = digits(val, s, 4), month = digits(val, s+5, 2), day = digits(val, s+8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+
+        int hour = 0, min = 0, sec = 0, millis = 0, offset = 0;
+        int i = s + 10;
+        if (i < e) {
+            char c = val.charAt(i);
+            if ((c != 'T' && c != ' ') || e - i < 6 || val.charAt(i+3) != ':') {
+                return null;
+            }
+
+            hour = digits(val, i+1, 2);
+            min = digits(val, i+4, 2);
+            if (hour < 0 || hour > 23 || min < 0 || min > 59) {
+                return null;
+            }
+            i += 6;
+
+            if (i < e && val.charAt(i) == ':') {
+                if (e - i < 3 || (sec = digits(val, i+1, 2)) < 0 || sec > 59) {
+                    return null;
+                }
+                i += 3;
+
+                if (i < e && val.charAt(i) == '.') {
+                    i++;
+                    int f = 0, n = 0;
+                    while (i < e && isDigit(val.charAt(i))) {
+                        if (n < 3) {
+                            f = f * 10 + (val.charAt(i) - '0');
+                            n++;
+                        }
+                        i++;
+                    }
+                    if (n == 0) {
+                        return null;
+                    }
+                    for (; n < 3; n++) {
+                        f *= 10;
+                    }
+                    millis = f;
+                }
+            }
+
+            if (i < e) {
+                c = val.charAt(i);
+                if (c == 'Z' && i + 1 == e) {
+                    i++;
+                }
+                else if (c == '+' || c == '-') {
+                    int oh = digits(val, i+1, 2), om;
+                    if (e - i == 6 && val.charAt(i+3) == ':') {
+                        om = digits(val, i+4, 2);
+                    }
+                    else if (e - i == 5) {
+                        om = digits(val, i+3, 2);
+                    }
+                    else {
+                        return null;
+                    }
+                    if (oh < 0 || om < 0) {
+                        return null;
+                    }
+                    offset = (c == '-' ? -1 : 1) * (oh * 60 + om) * 60000;
+                    i = e;
+                }
+                else {
+                    return null;
+                }
+            }
+        }
+
+        Calendar cal = new GregorianCalendar(UTC);
+        cal.clear();
+        cal.set(year, month-1, day, hour, min, sec);
+        cal.set(Calendar.MILLISECOND, millis);
+        return new Date(cal.getTimeInMillis() - offset);
+    }
+
+    /*
+     * value of n digits starting at i, or -1 if any are not digits or out of range
+     */
+    static int digits(String val, int i, int n) {
+        if (i + n > val.length()) {
+            return -1;
+        }
+
+        int v = 0;
+        for (int j = i; j < i + n; j++) {
+            char c = val.charAt(j);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -17,10 +17,10 @@ package org.jeo.csv;
 import java.io.IOException;
 import java.util.List;
 
-import org.jeo.geom.GeomBuilder;
-import org.jeo.util.Convert;
+import org.jeo.geom.Geom;
 
 import com.csvreader.CsvReader;
+import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 
 /**
@@ -31,11 +31,9 @@ import com.vividsolutions.jts.geom.Geometry;
  */
 public class XYHandler extends CSVHandler {
     CSVOpts opts;
-    GeomBuilder gb;
 
     XYHandler(CSVOpts opts) {
         this.opts = opts;
-        this.gb = new GeomBuilder();
     }
 
     @Override
@@ -63,8 +61,12 @@ public class XYHandler extends CSVHandler {
 
     @Override
     public Geometry geom(CsvReader r) throws IOException {
-        Number x = Convert.toNumber(r.get(opts.getX())).get();
-        Number y = Convert.toNumber(r.get(opts.getY())).get();
-        return gb.point(x.doubleValue(), y.doubleValue()).toPoint();
+        double x = CSVTypes.toDouble(r.get(opts.getX()));
+        double y = CSVTypes.toDouble(r.get(opts.getY()));
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            throw new IOException(String.format("Invalid coordinate (%s, %s) in record %d",
+                r.get(opts.getX()), r.get(opts.getY()), r.getCurrentRecord()));
+        }
+        return Geom.factory.createPoint(new Coordinate(x, y));
     }
 }
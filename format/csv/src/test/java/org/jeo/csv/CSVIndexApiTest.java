@@ -0,0 +1,39 @@
+/* Copyright 2013 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.csv;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jeo.Tests;
+import org.jeo.vector.VectorApiTestBase;
+import org.jeo.vector.VectorDataset;
+
+public class CSVIndexApiTest extends VectorApiTestBase {
+
+    @Override
+    protected VectorDataset createVectorData() throws Exception {
+        File tmp = Tests.newTmpDir("states", "csv");
+        Tests.unzip(getClass().getResourceAsStream("states.csv.zip"), tmp);
+
+        return CSV.open(new File(tmp, "states.csv"),
+            new CSVOpts().wkt("wkt").delimiter(';').index(true));
+    }
+
+    @Override
+    public void testCRS() throws IOException {
+        // ignore for now, we don't have any mechanism for projection in csv
+    }
+}
@@ -15,13 +15,23 @@
 package org.jeo.csv;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.jeo.Tests;
 import org.jeo.data.Cursors;
+import org.jeo.vector.Feature;
+import org.jeo.vector.FeatureCursor;
+import org.jeo.vector.Schema;
 import org.jeo.vector.VectorQuery;
 import org.junit.Before;
 import org.junit.Test;
@@ -52,6 +62,144 @@ public class CSVTest {
         assertEquals(1, csv.cursor(new VectorQuery().filter("name = 'fire,cracker'")).count());
     }
 
+    @Test
+    public void testSchema() throws Exception {
+        Schema schema = csv.schema();
+        assertEquals(String.class, schema.field("name").type());
+        assertEquals(Double.class, schema.field("cost").type());
+        assertEquals(Integer.class, schema.field("lat").type());
+        assertEquals(Integer.class, schema.field("lon").type());
+
+        Feature f = csv.cursor(new VectorQuery()).first().get();
+        assertEquals(1.99, f.get("cost"));
+        assertEquals(1, f.get("lat"));
+    }
+
+    @Test
+    public void testInferTypes() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("x,y,id,big,flag,day,mixed,empty").append("\n");
+        sb.append("1,2,1,10000000000,true,2013-01-01,1,").append("\n");
+        sb.append("3.5,4,2,1,FALSE,2013-01-02T10:30:00Z,one,").append("\n");
+        sb.append("5,6,,2,false,,2,").append("\n");
+
+        csv = new CSVDataset(Tests.newTmpFile("jeo", "csv", 
+            new ByteArrayInputStream(sb.toString().getBytes())), new CSVOpts().xy("x", "y"));
+
+        Schema schema = csv.schema();
+        assertEquals(Double.class, schema.field("x").type());
+        assertEquals(Integer.class, schema.field("id").type());
+        assertEquals(Long.class, schema.field("big").type());
+        assertEquals(Boolean.class, schema.field("flag").type());
+        assertEquals(Date.class, schema.field("day").type());
+        assertEquals(String.class, schema.field("mixed").type());
+        assertEquals(String.class, schema.field("empty").type());
+
+        Feature f = csv.cursor(new VectorQuery().filter("id = 2")).first().get();
+        assertEquals(3.5, f.get("x"));
+        assertEquals(1l, f.get("big"));
+        assertEquals(false, f.get("flag"));
+        assertEquals(new Date(1357122600000l), f.get("day"));
+        assertEquals("one", f.get("mixed"));
+
+        f = csv.cursor(new VectorQuery().filter("y = 6")).first().get();
+        assertNull(f.get("id"));
+        assertNull(f.get("day"));
+    }
+
+    @Test
+    public void testValuesOutsideSample() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("x,y,id,flag").append("\n");
+        sb.append("1,1,1,true").append("\n");
+        sb.append("2,2,2,false").append("\n");
+        sb.append("3,3,3.7,maybe").append("\n");
+        sb.append("4,4,10000000000,true").append("\n");
+        sb.append("5,5,n/a,true").append("\n");
+        File file = Tests.newTmpFile("jeo", "csv", 
+            new ByteArrayInputStream(sb.toString().getBytes()));
+
+        csv = new CSVDataset(file, new CSVOpts().xy("x", "y").sample(2));
+        assertEquals(Integer.class, csv.schema().field("id").type());
+        assertEquals(Boolean.class, csv.schema().field("flag").type());
+
+        // values that don't fit the inferred type are dropped rather than breaking the schema
+        for (Feature f : csv.cursor(new VectorQuery())) {
+            Object id = f.get("id");
+            assertTrue(id == null || id instanceof Integer);
+            Object flag = f.get("flag");
+            assertTrue(flag == null || flag instanceof Boolean);
+        }
+        Feature f = csv.cursor(new VectorQuery().filter("x = 3")).first().get();
+        assertNull(f.get("id"));
+        assertNull(f.get("flag"));
+
+        // scanning all rows widens the types instead
+        csv = new CSVDataset(file, new CSVOpts().xy("x", "y").sample(-1));
+        assertEquals(String.class, csv.schema().field("id").type());
+        assertEquals(String.class, csv.schema().field("flag").type());
+
+        f = csv.cursor(new VectorQuery().filter("x = 4")).first().get();
+        assertEquals("10000000000", f.get("id"));
+    }
+
+    @Test
+    public void testNoInference() throws Exception {
+        csv = new CSVDataset(Tests.newTmpFile("jeo", "csv", csv()), 
+            new CSVOpts().xy("lon", "lat").sample(0));
+        assertEquals(Object.class, csv.schema().field("cost").type());
+
+        Feature f = csv.cursor(new VectorQuery()).first().get();
+        assertEquals(1.99, f.get("cost"));
+        assertEquals("bomb", f.get("name"));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        csv = new CSVDataset(csv.file(), new CSVOpts().xy("lon", "lat").index(true));
+        assertTrue(csv.isIndexed());
+        assertTrue(CSVIndex.file(csv.file()).exists());
+
+        assertEquals(4, csv.count(new VectorQuery()));
+        assertEquals(new Envelope(2, 8, 1, 7), csv.bounds());
+
+        Envelope bbox = new Envelope(3, 7, 2, 6);
+        assertEquals(2, csv.count(new VectorQuery().bounds(bbox)));
+        assertEquals(1, csv.count(new VectorQuery().bounds(bbox).offset(1)));
+        assertEquals(2, csv.cursor(new VectorQuery().bounds(bbox)).count());
+
+        Feature f = csv.cursor(new VectorQuery().offset(3).limit(1)).first().get();
+        assertEquals("fire,cracker", f.get("name"));
+        assertEquals("3", f.id());
+
+        assertEquals(1, csv.cursor(new VectorQuery().filter("name = 'fire,cracker'")).count());
+
+        // reopen from sidecar
+        csv = new CSVDataset(csv.file(), new CSVOpts().xy("lon", "lat").index(true));
+        assertEquals(2, csv.count(new VectorQuery().bounds(bbox)));
+    }
+
+    @Test
+    public void testPartition() throws Exception {
+        csv = new CSVDataset(csv.file(), new CSVOpts().xy("lon", "lat").index(true));
+
+        List<FeatureCursor> parts = csv.partition(new VectorQuery(), 3);
+        assertEquals(3, parts.size());
+
+        Set<String> ids = new HashSet<String>();
+        for (FeatureCursor c : parts) {
+            try {
+                for (Feature f : c) {
+                    assertTrue(ids.add(f.id()));
+                }
+            }
+            finally {
+                c.close();
+            }
+        }
+        assertEquals(4, ids.size());
+    }
+
     InputStream csv() {
         StringBuilder sb = new StringBuilder();
         
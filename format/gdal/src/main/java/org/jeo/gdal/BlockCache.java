@@ -0,0 +1,188 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.gdal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Least recently used cache of raster blocks keyed by band, data type, block column and row.
+ * <p>
+ * A cache belongs to a single dataset. Blocks are stored on the heap in the data type they were
+ * read as, clipped to the raster for the right and bottom most blocks. The cache is bounded by the
+ * number of bytes of block data it holds, plus a small fixed overhead per block. Hit, miss and
+ * eviction counts are kept to tune the cache size.
+ * </p>
+ */
+public class BlockCache {
+
+    /** estimated memory used per block on top of the block data */
+    static final int OVERHEAD = 64;
+
+    final long maxSize;
+    long size = 0;
+
+    long hits = 0;
+    long misses = 0;
+    long evictions = 0;
+
+    final LinkedHashMap<BlockKey, byte[]> blocks = 
+        new LinkedHashMap<BlockKey, byte[]>(256, 0.75f, true);
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize The maximum number of bytes the cache holds.
+     */
+    public BlockCache(long maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("cache size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Looks up a block.
+     *
+     * @return The block data or <code>null</code> if the block is not cached.
+     */
+    synchronized byte[] get(int band, int datatype, int x, int y) {
+        byte[] data = blocks.get(new BlockKey(band, datatype, x, y));
+        if (data != null) {
+            hits++;
+        }
+        else {
+            misses++;
+        }
+        return data;
+    }
+
+    /**
+     * Adds a block.
+     */
+    synchronized void put(int band, int datatype, int x, int y, byte[] data) {
+        long n = data.length + OVERHEAD;
+        if (n > maxSize) {
+            return;
+        }
+
+        byte[] old = blocks.put(new BlockKey(band, datatype, x, y), data);
+        if (old != null) {
+            size -= old.length + OVERHEAD;
+        }
+        size += n;
+
+        // evict least recently used blocks
+        Iterator<byte[]> it = blocks.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            size -= it.next().length + OVERHEAD;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes all blocks and resets the statistics.
+     */
+    public synchronized void clear() {
+        blocks.clear();
+        size = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * The maximum number of bytes held by the cache.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The estimated number of bytes currently held by the cache.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * The number of blocks currently cached.
+     */
+    public synchronized int count() {
+        return blocks.size();
+    }
+
+    /**
+     * The number of lookups that found a block.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of lookups that did not find a block.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * The number of blocks removed to keep the cache within its maximum size.
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * The ratio of hits to lookups, 0 if no lookups have been made.
+     */
+    public synchronized double hitRatio() {
+        long n = hits + misses;
+        return n > 0 ? hits / (double) n : 0;
+    }
+
+    static class BlockKey {
+        final int band, datatype, x, y;
+
+        BlockKey(int band, int datatype, int x, int y) {
+            this.band = band;
+            this.datatype = datatype;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = band;
+            result = 31 * result + datatype;
+            result = 31 * result + x;
+            result = 31 * result + y;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof BlockKey)) {
+                return false;
+            }
+            BlockKey other = (BlockKey) obj;
+            return band == other.band && datatype == other.datatype && x == other.x && y == other.y;
+        }
+    }
+}
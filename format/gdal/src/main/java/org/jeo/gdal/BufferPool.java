@@ -0,0 +1,112 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.gdal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of direct byte buffers used to receive data from GDAL.
+ * <p>
+ * Direct buffers live off heap and are only freed when collected, so allocating one per read
+ * churns native memory. Buffers are allocated with a capacity rounded up to a power of two so that
+ * reads of similar size share buffers. Released buffers are kept up to the pool size, a buffer is
+ * handed out to one caller at a time.
+ * </p>
+ */
+class BufferPool {
+
+    /** smallest buffer allocated */
+    static final int MIN_CAPACITY = 4096;
+
+    final int size;
+    final List<ByteBuffer> idle = new ArrayList<ByteBuffer>();
+
+    long allocations = 0;
+    long reuses = 0;
+
+    BufferPool(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Obtains a cleared buffer in native byte order with a limit of the specified number of bytes.
+     */
+    ByteBuffer acquire(int n) {
+        ByteBuffer buf = null;
+        synchronized (this) {
+            // smallest idle buffer that fits, buffers are compared by identity since equals
+            // compares contents
+            int found = -1;
+            for (int i = 0; i < idle.size(); i++) {
+                ByteBuffer b = idle.get(i);
+                if (b.capacity() >= n && (buf == null || b.capacity() < buf.capacity())) {
+                    buf = b;
+                    found = i;
+                }
+            }
+
+            if (buf != null) {
+                idle.remove(found);
+                reuses++;
+            }
+            else {
+                allocations++;
+            }
+        }
+
+        if (buf == null) {
+            buf = ByteBuffer.allocateDirect(capacity(n));
+        }
+
+        buf.clear();
+        buf.limit(n);
+        return buf.order(ByteOrder.nativeOrder());
+    }
+
+    static int capacity(int n) {
+        int c = Integer.highestOneBit(Math.max(n, MIN_CAPACITY));
+        return c < n ? c << 1 : c;
+    }
+
+    /**
+     * Returns a buffer to the pool, dropping the smallest buffer if the pool is full.
+     */
+    synchronized void release(ByteBuffer buf) {
+        idle.add(buf);
+        if (idle.size() > size) {
+            int smallest = 0;
+            for (int i = 1; i < idle.size(); i++) {
+                if (idle.get(i).capacity() < idle.get(smallest).capacity()) {
+                    smallest = i;
+                }
+            }
+            idle.remove(smallest);
+        }
+    }
+
+    /**
+     * The number of idle buffers.
+     */
+    synchronized int idle() {
+        return idle.size();
+    }
+
+    synchronized void clear() {
+        idle.clear();
+    }
+}
@@ -19,6 +19,7 @@ import org.gdal.gdal.Driver;
 import org.gdal.gdal.gdal;
 import org.jeo.data.FileDriver;
 import org.jeo.raster.RasterDriver;
+import org.jeo.util.Key;
 import org.jeo.util.Messages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,13 @@ public class GDAL extends FileDriver<GDALDataset> implements RasterDriver<GDALDa
 
     static final Logger LOG = LoggerFactory.getLogger(GDAL.class);
 
+    /**
+     * Maximum number of bytes of raster blocks cached in memory per dataset, defaults to 16 MB. A 
+     * value of 0 disables the block cache.
+     */
+    public static final Key<Long> BLOCK_CACHE = 
+        new Key<Long>("block_cache", Long.class, 16L * 1024 * 1024);
+
     public static void init() throws Throwable {
         if (gdal.GetDriverCount() == 0) {
             gdal.AllRegister();
@@ -94,6 +102,11 @@ public class GDAL extends FileDriver<GDALDataset> implements RasterDriver<GDALDa
         return gdalDrv != null ? Arrays.asList(gdalDrv.getShortName()) : (List) Collections.emptyList();
     }
 
+    @Override
+    public List<Key<?>> keys() {
+        return (List) Arrays.asList(FILE, BLOCK_CACHE);
+    }
+
     @Override
     public Class<GDALDataset> type() {
         return GDALDataset.class;
@@ -140,7 +153,7 @@ public class GDAL extends FileDriver<GDALDataset> implements RasterDriver<GDALDa
             throw new IOException(msg);
         }
 
-        return new GDALDataset(file, ds, this);
+        return new GDALDataset(file, ds, this, opts);
     }
 
     static final EnumSet<Capability> CAPABILITIES = EnumSet.of(Capability.REPROJECT, Capability.RESAMPLE);
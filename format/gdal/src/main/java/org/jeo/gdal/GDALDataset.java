@@ -31,7 +31,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,14 +43,52 @@ import static org.gdal.gdalconst.gdalconstConstants.*;
 
 public class GDALDataset implements RasterDataset, FileData {
 
+    /** 
+     * maximum size, relative to the target, of the intermediate read of the interpolating 
+     * methods, larger windows are decimated by gdal first
+     */
+    static final int MAX_RESAMPLE_FACTOR = 2;
+
+    /**
+     * maximum size of the strips of rows read by the area resampling methods
+     */
+    static int MAX_STRIP_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * maximum number of pixels read at once when computing the histogram of a band
+     */
+    static int STATS_STRIP_PIXELS = 1024 * 1024;
+
     Dataset dataset;
     File file;
     GDAL driver;
 
+    BlockCache blockCache;
+    BufferPool buffers = new BufferPool(8);
+
+    /** whether the main dataset handle is in use by a read */
+    boolean inUse = false;
+
+    /** idle handles opened for concurrent reads */
+    Deque<Dataset> handles = new ArrayDeque<Dataset>();
+    int maxHandles = 4;
+
+    /** statistics of bands, by band index */
+    Map<Integer, Stats> stats = new HashMap<Integer, Stats>();
+
     public GDALDataset(File file, Dataset dataset, GDAL driver) {
+        this(file, dataset, driver, null);
+    }
+
+    public GDALDataset(File file, Dataset dataset, GDAL driver, Map<?,Object> opts) {
         this.file = file;
         this.dataset = dataset;
         this.driver = driver;
+
+        Long cacheSize = GDAL.BLOCK_CACHE.get(opts);
+        if (cacheSize != null && cacheSize > 0) {
+            blockCache = new BlockCache(cacheSize);
+        }
     }
 
     @Override
@@ -79,11 +120,16 @@ public class GDALDataset implements RasterDataset, FileData {
     public Map<Key<?>, Object> driverOptions() {
         LinkedHashMap<Key<?>, Object> opts = new LinkedHashMap<Key<?>, Object>();
         opts.put(GDAL.FILE, file);
+        opts.put(GDAL.BLOCK_CACHE, blockCache != null ? blockCache.getMaxSize() : 0L);
         return opts;
     }
 
     @Override
     public CoordinateReferenceSystem crs() throws IOException {
+        return crs(dataset);
+    }
+
+    CoordinateReferenceSystem crs(Dataset dataset) {
         String proj = dataset.GetProjection();
         if (proj != null) {
             SpatialReference ref = new SpatialReference(proj);
@@ -124,32 +170,62 @@ public class GDALDataset implements RasterDataset, FileData {
 
     @Override
     public List<Band> bands() throws IOException {
+        return bands(dataset);
+    }
+
+    List<Band> bands(Dataset dataset) {
         int nbands = dataset.GetRasterCount();
 
         List<Band> bands = new ArrayList<Band>(nbands);
         for (int i = 1; i <= nbands; i++) {
-            bands.add(new GDALBand(dataset.GetRasterBand(i)));
+            bands.add(new GDALBand(this, dataset.GetRasterBand(i)));
         }
 
         return bands;
     }
 
+    /**
+     * Reads a raster.
+     * <p>
+     * Nearest neighbour reads are resampled by gdal, from an overview when one has enough 
+     * resolution. {@link Resample#AVERAGE} and {@link Resample#MODE} reads take every pixel of 
+     * the window, or of the overview, into account and are read in strips of at most 
+     * {@link #MAX_STRIP_BYTES}. Should a single row of the result cover more than that they 
+     * degrade to a nearest neighbour decimation to twice the requested size first, as do the 
+     * interpolating methods which only look at the pixels around each target pixel.
+     * </p>
+     */
     @Override
     public Raster read(RasterQuery query) throws IOException {
-        Raster raster = new Raster();
-
-        Dataset data = dataset;
-
-        // reprojection
-        raster.crs(crs());
-        if (query.crs() != null && !Proj.equal(query.crs(), crs())) {
-            String srcWkt = toWKT(crs());
-            String dstWkt = toWKT(query.crs());
+        // gdal handles are not thread safe, every concurrent read gets a handle of its own
+        Dataset handle = acquire();
+        Dataset data = handle;
+        try {
+            Raster raster = new Raster();
+
+            // reprojection
+            CoordinateReferenceSystem crs = crs(handle);
+            raster.crs(crs);
+            if (query.crs() != null && !Proj.equal(query.crs(), crs)) {
+                String srcWkt = toWKT(crs);
+                String dstWkt = toWKT(query.crs());
+
+                data = gdal.AutoCreateWarpedVRT(handle, srcWkt, dstWkt, toGDAL(query.resample()));
+                raster.crs(query.crs());
+            }
 
-            //TODO: allow query to specify interpolation method
-            data = gdal.AutoCreateWarpedVRT(dataset, srcWkt, dstWkt);
-            raster.crs(query.crs());
+            return read(query, handle, data, raster);
         }
+        finally {
+            if (data != null && data != handle) {
+                data.delete();
+            }
+            release(handle);
+        }
+    }
+
+    Raster read(RasterQuery query, Dataset handle, Dataset data, Raster raster) 
+        throws IOException {
 
         // area of raster to load
         Rect r = rect(data);            // raster space
@@ -169,14 +245,17 @@ public class GDALDataset implements RasterDataset, FileData {
         }
         raster.size(s);
 
-        // band selection
-        List<GDALBand> queryBands = bands(query.bands());
+        // band selection, the bands of the handle are only used while it is held since it is 
+        // shared or deleted once released, the raster gets a copy of their metadata
+        List<GDALBand> queryBands = bands(handle, query.bands());
         int[] bands = new int[queryBands.size()];
+        List<Band> rasterBands = new ArrayList<Band>(queryBands.size());
         for (int i = 0 ; i < queryBands.size(); i++) {
             GDALBand band = queryBands.get(i);
             bands[i] = band.index();
+            rasterBands.add(new GDALBandInfo(band));
         }
-        raster.bands((List)queryBands);
+        raster.bands(rasterBands);
 
         // figure out the buffer type if not specified
         DataType datatype = query.datatype();
@@ -191,21 +270,428 @@ public class GDALDataset implements RasterDataset, FileData {
             }
         }
 
-        ByteBuffer buffer = ByteBuffer.allocateDirect(s.width()*s.height()*datatype.size());
-        buffer.order(ByteOrder.nativeOrder());
+        long t = System.currentTimeMillis();
+
+        // pick the coarsest overview that still has the requested resolution
+        boolean packed = queryBands.size() <= Math.max(1, datatype.size());
+        int level = data == handle && packed ? overview(handle, r, s) : -1;
+
+        // gdal reads nearest neighbour, other methods resample a read at the source resolution
+        Dimension target = s;
+        Resample method = query.resample();
+        boolean resample = method != null && method != Resample.NEAREST && packed 
+            && (s.width() != r.width() || s.height() != r.height());
+        NoData nodata = queryBands.size() == 1 ? 
+            NoData.create(queryBands.get(0).nodata()) : NoData.NONE;
+
+        if (resample && (method == Resample.AVERAGE || method == Resample.MODE)) {
+            // area methods must see every covered pixel, read in strips to bound memory
+            Resampler resampler = new Resampler(method).nodata(nodata).bands(queryBands.size());
+            DataBuffer<?> result = readStrips(data, level, r, target, queryBands, bands, 
+                datatype, resampler);
+            if (result != null) {
+                if (GDAL.LOG.isDebugEnabled()) {
+                    GDAL.LOG.debug(String.format("Read %dx%d window as %dx%d (%s) from %s in %d ms",
+                        r.width(), r.height(), target.width(), target.height(), method,
+                        level >= 0 ? "overview " + level : "full resolution", 
+                        System.currentTimeMillis() - t));
+                }
+                return raster.data(result);
+            }
+            GDAL.LOG.warn(String.format("Rows of a %dx%d %s read of a %dx%d window exceed %d bytes," 
+                + " decimating to %d times the target size first", target.width(), 
+                target.height(), method, r.width(), r.height(), MAX_STRIP_BYTES, 
+                MAX_RESAMPLE_FACTOR));
+        }
 
-        if (bands.length == 1) {
-            // single band, read in same units as requested buffer
-            data.ReadRaster_Direct(r.left, r.top, r.width(), r.height(), s.width(), s.height(),
-                toGDAL(datatype), buffer, bands, 0, 0, 0);
+        if (resample) {
+            // interpolating methods only look at the pixels around each target pixel, the read 
+            // is capped at twice the target size so that small reads of large windows stay small
+            int w = r.width();
+            int h = r.height();
+            if (level >= 0) {
+                org.gdal.gdal.Band band = queryBands.get(0).band;
+                org.gdal.gdal.Band ov = band.GetOverview(level);
+                w = (int) Math.max(1, Math.round(w * ov.getXSize() / (double) band.getXSize()));
+                h = (int) Math.max(1, Math.round(h * ov.getYSize() / (double) band.getYSize()));
+            }
+            s = new Dimension((int) Math.min(w, MAX_RESAMPLE_FACTOR * (long) target.width()), 
+                (int) Math.min(h, MAX_RESAMPLE_FACTOR * (long) target.height()));
+        }
+
+        ByteBuffer buffer = allocate(s, datatype);
+
+        if (level >= 0) {
+            readOverview(level, r, s, queryBands, datatype, buffer);
+        }
+        else if (blockCache != null && data == handle && s.width() == r.width() 
+            && s.height() == r.height()) {
+            // native resolution, assemble from cached blocks
+            readBlocks(r, queryBands, datatype, buffer);
         }
         else {
-            // multi band mode, read as byte and back into buffer
-            data.ReadRaster_Direct(r.left, r.top, r.width(), r.height(), s.width(), s.height(),
-                GDT_Byte, buffer, bands, datatype.size(), 0, 1);
+            readDirect(data, r, s, bands, datatype, buffer);
         }
 
-        return raster.data(DataBuffer.create(buffer, datatype));
+        if (GDAL.LOG.isDebugEnabled()) {
+            GDAL.LOG.debug(String.format("Read %dx%d window as %dx%d from %s in %d ms", 
+                r.width(), r.height(), s.width(), s.height(), 
+                level >= 0 ? "overview " + level : "full resolution", 
+                System.currentTimeMillis() - t));
+        }
+
+        DataBuffer<?> result = DataBuffer.create(buffer, datatype);
+        if (s != target) {
+            result = new Resampler(method).nodata(nodata).bands(queryBands.size())
+                .resample(result, s, target);
+        }
+        return raster.data(result);
+    }
+
+    ByteBuffer allocate(Dimension s, DataType datatype) throws IOException {
+        long nbytes = (long) s.width() * s.height() * datatype.size();
+        if (nbytes > Integer.MAX_VALUE) {
+            throw new IOException(String.format(
+                "Reading %dx%d %s values exceeds the maximum buffer size", 
+                s.width(), s.height(), datatype));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) nbytes);
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    /**
+     * Resamples a window strip by strip, each strip being the rows of the window, at the 
+     * resolution of an overview or full resolution, covered by a number of rows of the target.
+     *
+     * @return The resampled data, or <code>null</code> if the rows covered by a single row of 
+     *   the target don't fit in {@link #MAX_STRIP_BYTES}.
+     */
+    DataBuffer<?> readStrips(Dataset data, int level, Rect r, Dimension target, 
+        List<GDALBand> queryBands, int[] bands, DataType datatype, Resampler resampler) 
+        throws IOException {
+
+        Rect win = level >= 0 ? overviewRect(level, r, queryBands.get(0).band) : r;
+        Dimension from = new Dimension(win.width(), win.height());
+
+        long rowBytes = (long) win.width() * datatype.size();
+        long rowsPerRow = (long) Math.ceil(from.height() / (double) target.height()) + 1;
+        if (rowBytes * rowsPerRow > MAX_STRIP_BYTES) {
+            return null;
+        }
+        int n = (int) Math.max(1, MAX_STRIP_BYTES / (rowBytes * rowsPerRow));
+
+        DataBuffer<?> result = DataBuffer.create(allocate(target, datatype), datatype);
+        for (int y = 0; y < target.height(); y += n) {
+            int bottom = Math.min(target.height(), y + n);
+            int[] rows = resampler.rows(from, target, y, bottom);
+
+            Rect strip = new Rect(win.left, win.top + rows[0], win.right, win.top + rows[1]);
+            Dimension size = new Dimension(strip.width(), strip.height());
+            ByteBuffer buffer = allocate(size, datatype);
+            if (level >= 0) {
+                readLevel(level, strip, size, queryBands, datatype, buffer);
+            }
+            else {
+                readDirect(data, strip, size, bands, datatype, buffer);
+            }
+
+            resampler.resample(DataBuffer.create(buffer, datatype), rows[0], from, result, target, 
+                y, bottom);
+        }
+        return result.rewind();
+    }
+
+    /**
+     * The dimensions of the overviews of the raster, from the highest to the lowest resolution.
+     * <p>
+     * Overviews are reduced resolution copies of the raster used to read at lower resolutions, 
+     * see {@link #buildOverviews(String, int...)}. The levels of the first band are reported, 
+     * formats generally have the same overviews for every band.
+     * </p>
+     */
+    public List<Dimension> overviews() {
+        List<Dimension> overviews = new ArrayList<Dimension>();
+        if (dataset.GetRasterCount() > 0) {
+            org.gdal.gdal.Band band = dataset.GetRasterBand(1);
+            for (int i = 0; i < band.GetOverviewCount(); i++) {
+                org.gdal.gdal.Band ov = band.GetOverview(i);
+                overviews.add(new Dimension(ov.getXSize(), ov.getYSize()));
+            }
+        }
+        return overviews;
+    }
+
+    /**
+     * Builds overviews for the raster.
+     * <p>
+     * Depending on the format overviews are stored in the file itself or in an external 
+     * <tt>.ovr</tt> file alongside it.
+     * </p>
+     * @param resampling The resampling method, for example <tt>NEAREST</tt> or <tt>AVERAGE</tt>.
+     * @param factors The reduction factor of each overview, for example <tt>2, 4, 8, 16</tt>. When
+     *   none are specified the resolution is halved until the raster fits within a block.
+     */
+    public void buildOverviews(String resampling, int... factors) throws IOException {
+        if (factors.length == 0) {
+            // halve the resolution until the raster fits in a block
+            Dimension size = size();
+            int blocksize = dataset.GetRasterCount() > 0 ? 
+                dataset.GetRasterBand(1).GetBlockXSize() : 256;
+            List<Integer> list = new ArrayList<Integer>();
+            for (int f = 2; Math.max(size.width(), size.height()) / (f / 2) > blocksize; f *= 2) {
+                list.add(f);
+            }
+            factors = new int[list.size()];
+            for (int i = 0; i < factors.length; i++) {
+                factors[i] = list.get(i);
+            }
+        }
+        if (factors.length == 0) {
+            // small enough as is, an empty list would remove existing overviews
+            return;
+        }
+
+        if (dataset.BuildOverviews(resampling, factors) != CE_None) {
+            throw new IOException("Error building overviews: " + gdal.GetLastErrorMsg());
+        }
+    }
+
+    /**
+     * Determines the overview to read a window at the requested size from.
+     *
+     * @return The overview index, or <tt>-1</tt> for the full resolution raster.
+     */
+    int overview(Dataset dataset, Rect r, Dimension s) {
+        if (r.width() <= 0 || r.height() <= 0 || dataset.GetRasterCount() == 0) {
+            return -1;
+        }
+
+        // reduction of the read, in the least reduced dimension
+        double reduction = Math.min(r.width() / (double) s.width(), 
+            r.height() / (double) s.height());
+        if (reduction < 2) {
+            return -1;
+        }
+
+        org.gdal.gdal.Band band = dataset.GetRasterBand(1);
+        int xsize = dataset.getRasterXSize();
+
+        int level = -1;
+        double best = 1;
+        for (int i = 0; i < band.GetOverviewCount(); i++) {
+            double f = xsize / (double) band.GetOverview(i).getXSize();
+
+            // allow for overview sizes being rounded
+            if (f <= reduction * 1.01 && f > best) {
+                best = f;
+                level = i;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Reads a window from an overview, band by band, with the same layout as 
+     * {@link #readDirect(Dataset, Rect, Dimension, int[], DataType, ByteBuffer)}.
+     */
+    void readOverview(int level, Rect r, Dimension s, List<GDALBand> bands, DataType datatype, 
+        ByteBuffer buffer) throws IOException {
+        readLevel(level, overviewRect(level, r, bands.get(0).band), s, bands, datatype, buffer);
+    }
+
+    /**
+     * Maps a window of the raster into an overview of a band.
+     */
+    Rect overviewRect(int level, Rect r, org.gdal.gdal.Band band) {
+        org.gdal.gdal.Band ov = band.GetOverview(level);
+
+        double fx = band.getXSize() / (double) ov.getXSize();
+        double fy = band.getYSize() / (double) ov.getYSize();
+        int left = (int) (r.left / fx);
+        int top = (int) (r.top / fy);
+        int right = Math.max(left + 1, Math.min(ov.getXSize(), (int) Math.ceil(r.right / fx)));
+        int bottom = Math.max(top + 1, Math.min(ov.getYSize(), (int) Math.ceil(r.bottom / fy)));
+        return new Rect(left, top, right, bottom);
+    }
+
+    /**
+     * Reads a window, in the pixel space of the overview, from an overview of each band.
+     */
+    void readLevel(int level, Rect o, Dimension s, List<GDALBand> bands, DataType datatype, 
+        ByteBuffer buffer) throws IOException {
+
+        boolean multi = bands.size() > 1;
+        int gdt = multi ? GDT_Byte : toGDAL(datatype);
+        int pixelSize = datatype.size();
+
+        ByteBuffer direct = buffers.acquire(buffer.capacity());
+        try {
+            for (int b = 0; b < bands.size(); b++) {
+                org.gdal.gdal.Band ov = bands.get(b).band.GetOverview(level);
+
+                // each band at its byte offset within the pixel
+                direct.position(b);
+                ByteBuffer dst = direct.slice();
+                int err = ov.ReadRaster_Direct(o.left, o.top, o.width(), o.height(), 
+                    s.width(), s.height(), gdt, dst, multi ? pixelSize : 0, 0);
+                if (err != CE_None) {
+                    throw new IOException(String.format("Error reading overview %d of band %d: %s",
+                        level, bands.get(b).index(), gdal.GetLastErrorMsg()));
+                }
+            }
+
+            direct.position(0);
+            buffer.put(direct);
+            buffer.flip();
+        }
+        finally {
+            buffers.release(direct);
+        }
+    }
+
+    void readDirect(Dataset data, Rect r, Dimension s, int[] bands, DataType datatype, 
+        ByteBuffer buffer) throws IOException {
+
+        ByteBuffer direct = buffers.acquire(buffer.capacity());
+        try {
+            int err;
+            if (bands.length == 1) {
+                // single band, read in same units as requested buffer
+                err = data.ReadRaster_Direct(r.left, r.top, r.width(), r.height(), s.width(), 
+                    s.height(), toGDAL(datatype), direct, bands, 0, 0, 0);
+            }
+            else {
+                // multi band mode, read as byte and back into buffer
+                err = data.ReadRaster_Direct(r.left, r.top, r.width(), r.height(), s.width(), 
+                    s.height(), GDT_Byte, direct, bands, datatype.size(), 0, 1);
+            }
+            if (err != CE_None) {
+                throw new IOException("Error reading raster: " + gdal.GetLastErrorMsg());
+            }
+
+            buffer.put(direct);
+            buffer.flip();
+        }
+        finally {
+            buffers.release(direct);
+        }
+    }
+
+    /**
+     * Reads a window at native resolution block by block, with the same layout as 
+     * {@link #readDirect(Dataset, Rect, Dimension, int[], DataType, ByteBuffer)}.
+     */
+    void readBlocks(Rect r, List<GDALBand> bands, DataType datatype, ByteBuffer buffer)
+        throws IOException {
+        if (r.width() <= 0 || r.height() <= 0) {
+            return;
+        }
+
+        // multi band reads are done as bytes, one byte per band in each pixel
+        boolean multi = bands.size() > 1;
+        int gdt = multi ? GDT_Byte : toGDAL(datatype);
+        int valueSize = multi ? 1 : datatype.size();
+        int pixelSize = datatype.size();
+
+        byte[] dst = buffer.array();
+        int w = r.width();
+
+        for (int b = 0; b < bands.size(); b++) {
+            org.gdal.gdal.Band band = bands.get(b).band;
+            int xsize = band.getXSize();
+            int ysize = band.getYSize();
+            int bw = band.GetBlockXSize();
+            int bh = band.GetBlockYSize();
+
+            for (int by = r.top / bh; by <= (r.bottom - 1) / bh; by++) {
+                for (int bx = r.left / bw; bx <= (r.right - 1) / bw; bx++) {
+                    int x0 = bx * bw;
+                    int y0 = by * bh;
+                    int bwidth = Math.min(bw, xsize - x0);
+                    byte[] block = block(band, gdt, valueSize, bx, by, 
+                        new Rect(x0, y0, x0 + bwidth, Math.min(y0 + bh, ysize)));
+
+                    // part of the block within the window
+                    int left = Math.max(r.left, x0);
+                    int right = Math.min(r.right, x0 + bwidth);
+                    int top = Math.max(r.top, y0);
+                    int bottom = Math.min(r.bottom, y0 + bh);
+
+                    for (int y = top; y < bottom; y++) {
+                        int src = ((y - y0) * bwidth + (left - x0)) * valueSize;
+                        int pix = (y - r.top) * w + (left - r.left);
+                        if (!multi) {
+                            System.arraycopy(block, src, dst, pix * pixelSize, 
+                                (right - left) * valueSize);
+                        }
+                        else {
+                            for (int x = 0, n = right - left; x < n; x++) {
+                                int i = (pix + x) * pixelSize + b;
+                                if (i < dst.length) {
+                                    dst[i] = block[src + x];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    byte[] block(org.gdal.gdal.Band band, int gdt, int valueSize, int bx, int by, Rect r)
+        throws IOException {
+        int index = band.GetBand();
+        byte[] block = blockCache.get(index, gdt, bx, by);
+        if (block != null) {
+            return block;
+        }
+
+        int n = r.width() * r.height() * valueSize;
+        ByteBuffer direct = buffers.acquire(n);
+        try {
+            int err = band.ReadRaster_Direct(r.left, r.top, r.width(), r.height(), r.width(), 
+                r.height(), gdt, direct);
+            if (err != CE_None) {
+                throw new IOException(String.format("Error reading block %d,%d of band %d: %s",
+                    bx, by, index, gdal.GetLastErrorMsg()));
+            }
+
+            block = new byte[n];
+            direct.get(block);
+        }
+        finally {
+            buffers.release(direct);
+        }
+
+        blockCache.put(index, gdt, bx, by, block);
+        return block;
+    }
+
+    /**
+     * The block cache of the dataset, <code>null</code> if block caching is disabled.
+     */
+    public BlockCache getBlockCache() {
+        return blockCache;
+    }
+
+    int toGDAL(Resample resample) {
+        if (resample == null) {
+            return GRA_NearestNeighbour;
+        }
+        switch(resample) {
+            case BILINEAR:
+                return GRA_Bilinear;
+            case BICUBIC:
+                return GRA_Cubic;
+            case AVERAGE:
+                return GRA_Average;
+            case MODE:
+                return GRA_Mode;
+            default:
+                return GRA_NearestNeighbour;
+        }
     }
 
     int toGDAL(DataType datatype) {
@@ -234,8 +720,8 @@ public class GDALDataset implements RasterDataset, FileData {
         return ref.ExportToWkt();
     }
 
-    List<GDALBand> bands(int[] bands) throws IOException {
-        List<Band> allBands = bands();
+    List<GDALBand> bands(Dataset dataset, int[] bands) {
+        List<Band> allBands = bands(dataset);
 
         if (bands == null || bands.length == 0) {
             return (List) allBands;
@@ -249,8 +735,131 @@ public class GDALDataset implements RasterDataset, FileData {
         return list;
     }
 
+    /**
+     * Obtains a handle for a read, the main dataset handle if it is free, otherwise an idle or 
+     * newly opened handle of the same file.
+     */
+    Dataset acquire() throws IOException {
+        synchronized (this) {
+            if (dataset == null) {
+                throw new IOException("Dataset is closed");
+            }
+            if (!inUse) {
+                inUse = true;
+                return dataset;
+            }
+
+            Dataset h = handles.poll();
+            if (h != null) {
+                return h;
+            }
+        }
+
+        Dataset h = gdal.Open(file.getAbsolutePath(), GA_ReadOnly);
+        if (h == null) {
+            throw new IOException(
+                "Unable to open " + file.getPath() + " for reading: " + gdal.GetLastErrorMsg());
+        }
+        return h;
+    }
+
+    /**
+     * Returns a handle obtained with {@link #acquire()}, closing it if enough handles are idle.
+     */
+    void release(Dataset h) {
+        synchronized (this) {
+            if (h == dataset) {
+                inUse = false;
+                return;
+            }
+            if (dataset != null && handles.size() < maxHandles) {
+                handles.push(h);
+                return;
+            }
+        }
+        h.delete();
+    }
+
+    /**
+     * Computes, and caches, statistics of a band.
+     * <p>
+     * The extrema, mean and standard deviation are computed natively. The counts and histogram 
+     * are computed by {@link StatsCalculator} from strips of the band read directly rather than 
+     * through the block cache, so that the blocks being read are not evicted.
+     * </p>
+     * @param index The band index (1 based).
+     */
+    Stats stats(int index) throws IOException {
+        synchronized (stats) {
+            Stats cached = stats.get(index);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long t = System.currentTimeMillis();
+
+        Stats result;
+        Dataset handle = acquire();
+        try {
+            GDALBand band = new GDALBand(this, handle.GetRasterBand(index));
+            DataType datatype = band.datatype();
+            StatsCalculator calc = new StatsCalculator().nodata(NoData.create(band.nodata()));
+
+            int w = handle.getRasterXSize();
+            int h = handle.getRasterYSize();
+            int rows = Math.max(1, STATS_STRIP_PIXELS / Math.max(1, w));
+            for (int y = 0; y < h && w > 0; y += rows) {
+                Rect strip = new Rect(0, y, w, Math.min(h, y + rows));
+                Dimension size = new Dimension(strip.width(), strip.height());
+                ByteBuffer buffer = allocate(size, datatype);
+                readDirect(handle, strip, size, new int[]{index}, datatype, buffer);
+                calc.accumulate(DataBuffer.create(buffer, datatype));
+            }
+            result = calc.stats();
+
+            if (result.count() > 0) {
+                double[] min = new double[1], max = new double[1];
+                double[] mean = new double[1], stdev = new double[1];
+                if (band.band.ComputeStatistics(false, min, max, mean, stdev) == CE_None) {
+                    result.min(min[0]).max(max[0]).mean(mean[0]).stdev(stdev[0]);
+                }
+            }
+        }
+        finally {
+            release(handle);
+        }
+
+        if (GDAL.LOG.isDebugEnabled()) {
+            GDAL.LOG.debug(String.format("Computed statistics of band %d of %s in %d ms", 
+                index, name(), System.currentTimeMillis() - t));
+        }
+
+        synchronized (stats) {
+            stats.put(index, result);
+        }
+        return result;
+    }
+
     @Override
     public void close() {
+        if (blockCache != null && GDAL.LOG.isDebugEnabled()) {
+            GDAL.LOG.debug(String.format("Block cache %s: %d hits, %d misses, %d evictions", 
+                name(), blockCache.hits(), blockCache.misses(), blockCache.evictions()));
+        }
+        buffers.clear();
+        StatsCalculator.clearCache(this);
+        synchronized (stats) {
+            stats.clear();
+        }
+
+        synchronized (this) {
+            for (Dataset h : handles) {
+                h.delete();
+            }
+            handles.clear();
+        }
+
         if (dataset != null) {
             dataset.delete();
             dataset = null;
@@ -259,9 +868,11 @@ public class GDALDataset implements RasterDataset, FileData {
 
     static class GDALBand implements Band {
 
+        GDALDataset dataset;
         org.gdal.gdal.Band band;
 
-        GDALBand(org.gdal.gdal.Band band) {
+        GDALBand(GDALDataset dataset, org.gdal.gdal.Band band) {
+            this.dataset = dataset;
             this.band = band;
         }
 
@@ -312,16 +923,55 @@ public class GDALDataset implements RasterDataset, FileData {
 
         @Override
         public Stats stats() throws IOException {
-            Stats stats = new Stats();
+            return dataset.stats(index());
+        }
+    }
+
+    /**
+     * Metadata of a band copied from a handle, for rasters that outlive the handle they were 
+     * read with.
+     */
+    static class GDALBandInfo implements Band {
+
+        GDALDataset dataset;
+        int index;
+        String name;
+        Color color;
+        DataType datatype;
+        Double nodata;
+
+        GDALBandInfo(GDALBand band) {
+            dataset = band.dataset;
+            index = band.index();
+            name = band.name();
+            color = band.color();
+            datatype = band.datatype();
+            nodata = band.nodata();
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Color color() {
+            return color;
+        }
 
-            double[] arr = new double[2];
-            band.ComputeRasterMinMax(arr);
-            stats.min(arr[0]).max(arr[1]);
+        @Override
+        public DataType datatype() {
+            return datatype;
+        }
 
-            band.ComputeBandStats(arr);
-            stats.mean(arr[0]).stdev(arr[1]);
+        @Override
+        public Double nodata() {
+            return nodata;
+        }
 
-            return stats;
+        @Override
+        public Stats stats() throws IOException {
+            return dataset.stats(index);
         }
     }
 }
@@ -0,0 +1,200 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.ogr;
+
+import static org.jeo.ogr.OGR.LOG;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Vector;
+
+import org.gdal.ogr.DataSource;
+import org.gdal.ogr.Layer;
+import org.jeo.util.Pair;
+
+/**
+ * Pool of open OGR data source and layer handles for a single layer.
+ * <p>
+ * Opening a data source means opening files and parsing headers and indexes, which dominates
+ * the cost of small queries. Released handles are kept idle up to the pool size and handed out
+ * again, handles idle for longer than the idle timeout are closed.
+ * </p>
+ * <p>
+ * OGR handles are not thread safe, so a handle is only ever used by the one caller that acquired
+ * it. The pool does not limit the number of handles in use, when no idle handle is available a
+ * new one is opened.
+ * </p>
+ */
+class LayerPool implements Closeable {
+
+    final OGRWorkspace workspace;
+    final String layer;
+    final int size;
+    final long idleTimeout;
+
+    /** idle handles, most recently released first */
+    final Deque<Entry> idle = new ArrayDeque<Entry>();
+    boolean closed = false;
+
+    long hits = 0;
+    long opens = 0;
+
+    LayerPool(OGRWorkspace workspace, String layer, int size, long idleTimeout) {
+        this.workspace = workspace;
+        this.layer = layer;
+        this.size = size;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Obtains a handle, reusing an idle one when available.
+     */
+    Pair<Layer,DataSource> acquire() throws IOException {
+        List<Entry> expired;
+        Entry e;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Layer pool is closed");
+            }
+            expired = expire(System.currentTimeMillis());
+            e = idle.poll();
+            if (e != null) {
+                hits++;
+            }
+            else {
+                opens++;
+            }
+        }
+
+        destroy(expired);
+        return e != null ? e.data : open();
+    }
+
+    /**
+     * Returns a handle to the pool, closing it if the pool is full.
+     */
+    void release(Pair<Layer,DataSource> data) {
+        try {
+            // clear any state left behind by the last user
+            Layer l = data.first;
+            l.SetSpatialFilter(null);
+            l.SetAttributeFilter(null);
+            l.SetIgnoredFields(new Vector<String>());
+            l.ResetReading();
+        }
+        catch(Exception e) {
+            LOG.debug("Error resetting layer " + layer, e);
+            destroy(data);
+            return;
+        }
+
+        List<Entry> expired;
+        synchronized (this) {
+            if (!closed && size > 0) {
+                idle.push(new Entry(data, System.currentTimeMillis()));
+                expired = expire(System.currentTimeMillis());
+                while (idle.size() > size) {
+                    expired.add(idle.removeLast());
+                }
+            }
+            else {
+                expired = new ArrayList<Entry>();
+                expired.add(new Entry(data, 0));
+            }
+        }
+        destroy(expired);
+    }
+
+    /**
+     * Removes handles idle for longer than the timeout, must be called while holding the lock.
+     */
+    List<Entry> expire(long now) {
+        List<Entry> expired = new ArrayList<Entry>();
+        if (idleTimeout > 0) {
+            Iterator<Entry> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                Entry e = it.next();
+                if (now - e.released < idleTimeout) {
+                    break;
+                }
+                it.remove();
+                expired.add(e);
+            }
+        }
+        return expired;
+    }
+
+    Pair<Layer,DataSource> open() throws IOException {
+        DataSource ds = workspace.open();
+        Layer l = ds.GetLayerByName(layer);
+        if (l == null) {
+            ds.delete();
+            throw new IOException("No such layer " + layer + " in " + workspace.file());
+        }
+        return Pair.of(l, ds);
+    }
+
+    void destroy(List<Entry> entries) {
+        for (Entry e : entries) {
+            destroy(e.data);
+        }
+    }
+
+    void destroy(Pair<Layer,DataSource> data) {
+        // layer is owned by the data source
+        data.first.delete();
+        data.second.delete();
+    }
+
+    /**
+     * The number of idle handles.
+     */
+    synchronized int idle() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        List<Entry> entries;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            entries = new ArrayList<Entry>(idle);
+            idle.clear();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Layer pool %s: %d opens, %d reuses", layer, opens, hits));
+        }
+        destroy(entries);
+    }
+
+    static class Entry {
+        final Pair<Layer,DataSource> data;
+        final long released;
+
+        Entry(Pair<Layer,DataSource> data, long released) {
+            this.data = data;
+            this.released = released;
+        }
+    }
+}
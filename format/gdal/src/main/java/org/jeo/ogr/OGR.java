@@ -48,6 +48,19 @@ public class OGR extends FileVectorDriver<OGRWorkspace> implements Disposable {
 
     public static final Key<String> DRIVER = new Key<String>("driver", String.class);
 
+    /**
+     * Maximum number of idle handles kept open for reuse per layer, defaults to 4. A value of 0 
+     * disables pooling.
+     */
+    public static final Key<Integer> POOL_SIZE = new Key<Integer>("pool_size", Integer.class, 4);
+
+    /**
+     * Milliseconds after which an idle handle is closed, defaults to 60 seconds. A value of 0 
+     * keeps idle handles open until the workspace is closed.
+     */
+    public static final Key<Long> POOL_IDLE_TIMEOUT = 
+        new Key<Long>("pool_idle_timeout", Long.class, 60000L);
+
     static final Logger LOG = LoggerFactory.getLogger(OGR.class);
 
     public static void init() throws Throwable {
@@ -110,7 +123,7 @@ public class OGR extends FileVectorDriver<OGRWorkspace> implements Disposable {
 
     @Override
     public List<Key<?>> keys() {
-        return (List) Arrays.asList(FILE, DRIVER);
+        return (List) Arrays.asList(FILE, DRIVER, POOL_SIZE, POOL_IDLE_TIMEOUT);
     }
 
     @Override
@@ -169,7 +182,7 @@ public class OGR extends FileVectorDriver<OGRWorkspace> implements Disposable {
         // was driver explicitly specified
         if (DRIVER.in(opts)) {
             Driver drv = ogr.GetDriverByName(DRIVER.get(opts));
-            return new OGRWorkspace(file, new OGR(drv));
+            return new OGRWorkspace(file, new OGR(drv), opts);
         }
 
         DataSource ds = ogr.OpenShared(file.getAbsolutePath());
@@ -178,7 +191,7 @@ public class OGR extends FileVectorDriver<OGRWorkspace> implements Disposable {
         }
 
         try {
-            return new OGRWorkspace(file, new OGR(ds.GetDriver()));
+            return new OGRWorkspace(file, new OGR(ds.GetDriver()), opts);
         }
         finally {
             ds.delete();
@@ -14,6 +14,8 @@
  */
 package org.jeo.ogr;
 
+import static org.jeo.ogr.OGRDataset.LOG;
+
 import java.io.IOException;
 
 import org.gdal.ogr.DataSource;
@@ -35,6 +37,9 @@ public class OGRCursor extends FeatureCursor {
     Feature curr;
     boolean complete;
 
+    /** number of features read from the layer */
+    long read = 0;
+
     public OGRCursor(Layer layer, DataSource dataSource, OGRDataset dataset) throws IOException {
         this.layer = layer;
         this.dataSource = dataSource;
@@ -61,6 +66,7 @@ public class OGRCursor extends FeatureCursor {
             return false;
         }
 
+        read++;
         curr = new OGRFeature(next, schema);
         return true;
     }
@@ -77,6 +83,13 @@ public class OGRCursor extends FeatureCursor {
 
     @Override
     public void close() throws IOException {
-        dataset.close(Pair.of(layer,dataSource));
+        if (layer != null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Read %d features from %s", read, dataset.name()));
+            }
+            dataset.close(Pair.of(layer,dataSource));
+            layer = null;
+            dataSource = null;
+        }
     }
 }
@@ -17,7 +17,10 @@ package org.jeo.ogr;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
 
 import org.gdal.ogr.DataSource;
 import org.gdal.ogr.FeatureDefn;
@@ -26,7 +29,11 @@ import org.gdal.ogr.Layer;
 import org.gdal.osr.SpatialReference;
 import org.jeo.data.Driver;
 import org.jeo.data.FileData;
+import org.jeo.filter.Filter;
+import org.jeo.filter.Filters;
+import org.jeo.vector.Feature;
 import org.jeo.vector.FeatureCursor;
+import org.jeo.vector.Field;
 import org.jeo.vector.VectorQuery;
 import org.jeo.vector.VectorQueryPlan;
 import org.jeo.vector.VectorDataset;
@@ -295,9 +302,10 @@ public class OGRDataset implements VectorDataset, FileData {
                 return q.adjustCount(l.GetFeatureCount());
             }
 
-            //TODO: convert attribute filter to ogr sql
-            return cursor(q).count();
-
+            Pair<String,Filter<Feature>> where = encodeFilter(q, l);
+            if (where.second == null) {
+                return q.adjustCount(l.GetFeatureCount());
+            }
         }
         catch(Exception e) {
             throw new IOException("Error calculating count", e);
@@ -305,32 +313,119 @@ public class OGRDataset implements VectorDataset, FileData {
         finally {
             close(data);
         }
+
+        return cursor(q).count();
     }
 
     @Override
     public FeatureCursor cursor(VectorQuery q) throws IOException {
         Pair<Layer,DataSource> data = open();
+        try {
+            Layer l = data.first;
+
+            VectorQueryPlan qp = new VectorQueryPlan(q);
+            if (!Envelopes.isNull(q.bounds())) {
+                Envelope bb = q.bounds();
+                l.SetSpatialFilterRect(bb.getMinX(), bb.getMinY(), bb.getMaxX(), bb.getMaxY());
+                qp.bounded();
+            }
+
+            Filter<Feature> residual = null;
+            if (q.isFiltered()) {
+                residual = encodeFilter(q, l).second;
+                qp.filtered();
+            }
+
+            ignoreFields(q, residual, l);
+
+            FeatureCursor cursor = new OGRCursor(l, data.second, this);
+            if (residual != null) {
+                cursor = cursor.filter(residual);
+            }
+            return qp.apply(cursor);
+        }
+        catch(IOException e) {
+            close(data);
+            throw e;
+        }
+        catch(RuntimeException e) {
+            close(data);
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the query filter as the attribute filter of the layer, as much as can be encoded.
+     *
+     * @return The where clause set, <code>null</code> if none, and the residual filter that must 
+     * be evaluated in java.
+     */
+    Pair<String,Filter<Feature>> encodeFilter(VectorQuery q, Layer l) throws IOException {
+        Pair<String,Filter<Feature>> where = new OGRFilterEncoder(schema()).encode(q.filter());
+        if (where.first == null) {
+            return where;
+        }
 
-        Layer l = data.first;
+        LOG.debug(where.first);
+        int err;
+        try {
+            err = l.SetAttributeFilter(where.first);
+        }
+        catch(RuntimeException e) {
+            LOG.debug("Error setting attribute filter", e);
+            err = -1;
+        }
 
-        VectorQueryPlan qp = new VectorQueryPlan(q);
-        if (!Envelopes.isNull(q.bounds())) {
-            Envelope bb = q.bounds();
-            l.SetSpatialFilterRect(bb.getMinX(), bb.getMinY(), bb.getMaxX(), bb.getMaxY());
-            qp.bounded();
+        if (err != OGRERR_NONE) {
+            // fall back to evaluating everything in java
+            LOG.debug("Unable to set attribute filter, error " + err);
+            l.SetAttributeFilter(null);
+            return Pair.of(null, q.filter());
         }
+        return where;
+    }
 
-        return qp.apply(new OGRCursor(l, data.second, this));
+    /**
+     * Has the layer skip reading fields not selected by the query, or needed by the residual 
+     * filter.
+     */
+    void ignoreFields(VectorQuery q, Filter<Feature> residual, Layer l) throws IOException {
+        if (q.fields().isEmpty()) {
+            return;
+        }
+
+        Set<String> needed = new HashSet<String>(q.fields());
+        if (residual != null) {
+            needed.addAll(Filters.properties(residual));
+        }
+
+        Vector<String> ignored = new Vector<String>();
+        for (Field fld : schema()) {
+            if (needed.contains(fld.name())) {
+                continue;
+            }
+            if (fld.isGeometry()) {
+                // the spatial filter needs the geometry
+                if (Envelopes.isNull(q.bounds())) {
+                    ignored.add("OGR_GEOMETRY");
+                }
+            }
+            else {
+                ignored.add(fld.name());
+            }
+        }
+
+        if (!ignored.isEmpty() && l.SetIgnoredFields(ignored) != OGRERR_NONE) {
+            LOG.debug("Unable to set ignored fields " + ignored);
+        }
     }
 
     Pair<Layer,DataSource> open() throws IOException {
-        DataSource ds = workspace.open();
-        return Pair.of(ds.GetLayer(0), ds);
+        return workspace.pool(name).acquire();
     }
 
     void close(Pair<Layer,DataSource> data) {
-        data.first.delete();
-        data.second.delete();
+        workspace.pool(name).release(data);
     }
 
     @Override
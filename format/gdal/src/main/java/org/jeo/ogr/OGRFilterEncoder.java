@@ -0,0 +1,416 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.ogr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jeo.filter.All;
+import org.jeo.filter.Comparison;
+import org.jeo.filter.Expression;
+import org.jeo.filter.Filter;
+import org.jeo.filter.FilterVisitor;
+import org.jeo.filter.Function;
+import org.jeo.filter.Id;
+import org.jeo.filter.In;
+import org.jeo.filter.Like;
+import org.jeo.filter.Literal;
+import org.jeo.filter.Logic;
+import org.jeo.filter.Math;
+import org.jeo.filter.Mixed;
+import org.jeo.filter.None;
+import org.jeo.filter.Null;
+import org.jeo.filter.Property;
+import org.jeo.filter.Self;
+import org.jeo.filter.Spatial;
+import org.jeo.filter.TypeOf;
+import org.jeo.util.Pair;
+import org.jeo.vector.Feature;
+import org.jeo.vector.Field;
+import org.jeo.vector.Schema;
+
+/**
+ * Transforms a filter object into an OGR SQL where clause, as accepted by
+ * <tt>OGR_L_SetAttributeFilter</tt>.
+ * <p>
+ * Only comparisons, <tt>IN</tt>, <tt>LIKE</tt> and null checks of attributes against literals,
+ * combined with logical operators, and feature id filters are encoded. Comparisons are only encoded
+ * when the literal has the same kind of type as the attribute, since OGR does not convert values
+ * the way {@link Comparison#test(Object)} does. When the filter is a conjunction each part is
+ * encoded separately and the parts that can't be encoded are returned as a residual filter to be
+ * evaluated in Java, see {@link #encode(Filter)}.
+ * </p>
+ * <p>
+ * OGR matches <tt>LIKE</tt> patterns case insensitively and treats <tt>_</tt> as a wildcard, so
+ * encoded <tt>LIKE</tt> filters are also returned in the residual filter. The where clause then
+ * only narrows down the features read. Negated <tt>LIKE</tt> filters are not encoded since they
+ * would exclude too many features.
+ * </p>
+ * <p>
+ * OGR SQL comparisons against a null attribute are unknown rather than false, which would exclude
+ * features that {@link Comparison} and {@link In} match, for instance <tt>x &lt;&gt; 1</tt> when
+ * <tt>x</tt> is null. Such comparisons are encoded with explicit null checks so that each of them
+ * is either true or false and the where clause matches the same features.
+ * </p>
+ */
+public class OGRFilterEncoder extends FilterVisitor {
+
+    final Schema schema;
+
+    /** whether the last encoded filter matches exactly the same features */
+    boolean exact;
+
+    /** number of enclosing NOT operators */
+    int negations;
+
+    public OGRFilterEncoder(Schema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Encodes a filter.
+     *
+     * @return A pair of the where clause, <code>null</code> if no part of the filter could be
+     * encoded, and the residual filter, <code>null</code> if the where clause is exact.
+     */
+    public Pair<String, Filter<Feature>> encode(Filter<Feature> filter) {
+        List<Filter<Feature>> parts = new ArrayList<Filter<Feature>>();
+        flatten(filter, parts);
+
+        List<String> encoded = new ArrayList<String>();
+        List<Filter<Feature>> residual = new ArrayList<Filter<Feature>>();
+
+        for (Filter<Feature> part : parts) {
+            try {
+                encoded.add(encodeFully(part));
+                if (!exact) {
+                    residual.add(part);
+                }
+            }
+            catch(UnsupportedOperationException e) {
+                residual.add(part);
+            }
+        }
+
+        String where = null;
+        if (encoded.size() == 1) {
+            where = encoded.get(0);
+        }
+        else if (!encoded.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (String e : encoded) {
+                sb.append("(").append(e).append(") AND ");
+            }
+            where = sb.substring(0, sb.length() - 5);
+        }
+
+        Filter<Feature> rest = residual.isEmpty() ? null : residual.size() == 1 ?
+            residual.get(0) : new Logic<Feature>(Logic.Type.AND, residual);
+        return Pair.of(where, rest);
+    }
+
+    void flatten(Filter<Feature> filter, List<Filter<Feature>> parts) {
+        if (filter instanceof Logic && ((Logic<Feature>) filter).type() == Logic.Type.AND) {
+            for (Filter<Feature> part : ((Logic<Feature>) filter).parts()) {
+                flatten(part, parts);
+            }
+        }
+        else {
+            parts.add(filter);
+        }
+    }
+
+    /**
+     * Encodes a filter, throwing {@link UnsupportedOperationException} if any part of it can
+     * not be encoded.
+     */
+    public String encodeFully(Filter<?> filter) {
+        exact = true;
+        negations = 0;
+
+        StringBuilder sb = new StringBuilder();
+        filter.accept(this, sb);
+        return sb.toString();
+    }
+
+    protected Object abort(Object obj, String reason) {
+        throw new UnsupportedOperationException(
+            String.format("Unable to encode %s as ogr sql, %s", obj, reason));
+    }
+
+    @Override
+    public Object visit(All<?> all, Object obj) {
+        return sb(obj).append("1 = 1");
+    }
+
+    @Override
+    public Object visit(None<?> none, Object obj) {
+        return sb(obj).append("1 = 0");
+    }
+
+    @Override
+    public Object visit(Id<?> id, Object obj) {
+        StringBuilder sb = sb(obj).append("FID IN (");
+        for (Expression e : id.ids()) {
+            Object val = e.evaluate(null);
+            try {
+                sb.append(Long.parseLong(String.valueOf(val))).append(", ");
+            }
+            catch(NumberFormatException ex) {
+                return abort(id, "invalid feature id: " + val);
+            }
+        }
+        sb.setLength(sb.length() - 2);
+        return sb.append(")");
+    }
+
+    @Override
+    public Object visit(Logic<?> logic, Object obj) {
+        StringBuilder sb = sb(obj);
+        switch(logic.type()) {
+        case AND:
+        case OR:
+            String op = " " + logic.type().name() + " ";
+            for (Filter<?> f : logic.parts()) {
+                sb.append("(");
+                f.accept(this, sb);
+                sb.append(")").append(op);
+            }
+            sb.setLength(sb.length() - op.length());
+            return sb;
+        case NOT:
+            sb.append("NOT (");
+            negations++;
+            logic.parts().get(0).accept(this, sb);
+            negations--;
+            return sb.append(")");
+        default:
+            return abort(logic, "unsupported logic operator");
+        }
+    }
+
+    @Override
+    public Object visit(Comparison<?> compare, Object obj) {
+        Comparison.Type type = compare.type();
+
+        Property prop;
+        Literal lit;
+        if (compare.left() instanceof Property && compare.right() instanceof Literal) {
+            prop = (Property) compare.left();
+            lit = (Literal) compare.right();
+        }
+        else if (compare.left() instanceof Literal && compare.right() instanceof Property) {
+            prop = (Property) compare.right();
+            lit = (Literal) compare.left();
+            type = flip(type);
+        }
+        else {
+            return abort(compare, "only comparisons of a property and a literal are supported");
+        }
+
+        Field fld = field(prop);
+        Object val = lit.evaluate(null);
+        if (val == null) {
+            return abort(compare, "null comparison");
+        }
+
+        String op;
+        switch(type) {
+        case EQUAL:
+            op = " = "; break;
+        case NOT_EQUAL:
+            op = " <> "; break;
+        case LESS:
+            op = " < "; break;
+        case LESS_OR_EQUAL:
+            op = " <= "; break;
+        case GREATER:
+            op = " > "; break;
+        case GREATER_OR_EQUAL:
+            op = " >= "; break;
+        default:
+            return abort(compare, "unsupported comparison");
+        }
+
+        StringBuilder sb = sb(obj);
+        if (type == Comparison.Type.NOT_EQUAL) {
+            // null is not equal to anything
+            sb.append("(");
+            name(fld, sb).append(op);
+            value(val, fld, sb).append(" OR ");
+            return name(fld, sb).append(" IS NULL)");
+        }
+        if (negations > 0) {
+            // null compares false, which must stay false once negated
+            sb.append("(");
+            name(fld, sb).append(op);
+            value(val, fld, sb).append(" AND ");
+            return name(fld, sb).append(" IS NOT NULL)");
+        }
+        name(fld, sb).append(op);
+        return value(val, fld, sb);
+    }
+
+    Comparison.Type flip(Comparison.Type type) {
+        switch(type) {
+        case LESS:
+            return Comparison.Type.GREATER;
+        case LESS_OR_EQUAL:
+            return Comparison.Type.GREATER_OR_EQUAL;
+        case GREATER:
+            return Comparison.Type.LESS;
+        case GREATER_OR_EQUAL:
+            return Comparison.Type.LESS_OR_EQUAL;
+        default:
+            return type;
+        }
+    }
+
+    @Override
+    public Object visit(Like<?> like, Object obj) {
+        Field fld = field(like.property());
+        if (!CharSequence.class.isAssignableFrom(fld.type())) {
+            return abort(like, "not a string attribute");
+        }
+
+        Object match = like.match().evaluate(null);
+        if (match == null) {
+            return abort(like, "no pattern");
+        }
+
+        // ogr matches a superset, which can be rechecked in java unless negated
+        if (like.isNegated() || negations > 0) {
+            return abort(like, "negated like not supported");
+        }
+        exact = false;
+
+        StringBuilder sb = sb(obj);
+        name(fld, sb).append(" LIKE ");
+        return str(match.toString(), sb);
+    }
+
+    @Override
+    public Object visit(In<?> in, Object obj) {
+        Field fld = field(in.property());
+
+        // null is in nothing, see visit(Comparison, Object)
+        boolean guard = in.isNegated() || negations > 0;
+
+        StringBuilder sb = sb(obj);
+        if (guard) {
+            sb.append("(");
+        }
+        name(fld, sb).append(in.isNegated() ? " NOT IN (" : " IN (");
+        for (Expression e : in.values()) {
+            Object val = e instanceof Literal ? e.evaluate(null) : null;
+            if (val == null) {
+                return abort(in, "only non null literal values supported");
+            }
+            value(val, fld, sb).append(", ");
+        }
+        sb.setLength(sb.length() - 2);
+        sb.append(")");
+
+        if (guard) {
+            sb.append(in.isNegated() ? " OR " : " AND ");
+            name(fld, sb).append(in.isNegated() ? " IS NULL)" : " IS NOT NULL)");
+        }
+        return sb;
+    }
+
+    @Override
+    public Object visit(Null<?> isNull, Object obj) {
+        Field fld = field(isNull.property());
+
+        StringBuilder sb = sb(obj);
+        return name(fld, sb).append(isNull.isNegated() ? " IS NOT NULL" : " IS NULL");
+    }
+
+    Field field(Property prop) {
+        Field fld = schema.field(prop.property());
+        if (fld == null) {
+            abort(prop, "no such attribute");
+        }
+        if (fld.isGeometry()) {
+            abort(prop, "geometry attribute not supported");
+        }
+        return fld;
+    }
+
+    StringBuilder name(Field fld, StringBuilder sb) {
+        return sb.append('"').append(fld.name().replace("\"", "\"\"")).append('"');
+    }
+
+    StringBuilder value(Object val, Field fld, StringBuilder sb) {
+        Class<?> type = fld.type();
+        if (val instanceof Number && Number.class.isAssignableFrom(type)) {
+            return sb.append(val);
+        }
+        if (val instanceof CharSequence && CharSequence.class.isAssignableFrom(type)) {
+            return str(val.toString(), sb);
+        }
+        abort(val, String.format("value of type %s does not match attribute %s of type %s",
+            val.getClass().getSimpleName(), fld.name(), type.getSimpleName()));
+        return sb;
+    }
+
+    StringBuilder str(String s, StringBuilder sb) {
+        return sb.append('\'').append(s.replace("'", "''")).append('\'');
+    }
+
+    StringBuilder sb(Object obj) {
+        return (StringBuilder) obj;
+    }
+
+    @Override
+    public Object visit(Spatial<?> spatial, Object obj) {
+        return abort(spatial, "spatial filters not supported");
+    }
+
+    @Override
+    public Object visit(Self self, Object obj) {
+        return abort(self, "expression not supported");
+    }
+
+    @Override
+    public Object visit(Function function, Object obj) {
+        return abort(function, "functions not supported");
+    }
+
+    @Override
+    public Object visit(Mixed mixed, Object obj) {
+        return abort(mixed, "mixed expressions not supported");
+    }
+
+    @Override
+    public Object visit(Math math, Object obj) {
+        return abort(math, "math expressions not supported");
+    }
+
+    @Override
+    public Object visit(TypeOf<?> inst, Object obj) {
+        return abort(inst, "type filters not supported");
+    }
+
+    @Override
+    public Object visit(Expression expr, Object obj) {
+        return abort(expr, "expression not supported");
+    }
+
+    @Override
+    public Object visit(Filter<?> filter, Object obj) {
+        return abort(filter, "filter not supported");
+    }
+}
@@ -17,6 +17,7 @@ package org.jeo.ogr;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,9 +38,19 @@ public class OGRWorkspace implements Workspace, FileData {
     File file;
     OGR driver;
 
+    int poolSize;
+    long poolIdleTimeout;
+    final Map<String,LayerPool> pools = new HashMap<String, LayerPool>();
+
     public OGRWorkspace(File file, OGR driver) {
+        this(file, driver, null);
+    }
+
+    public OGRWorkspace(File file, OGR driver, Map<?,Object> opts) {
         this.file = file;
         this.driver = driver;
+        this.poolSize = OGR.POOL_SIZE.get(opts);
+        this.poolIdleTimeout = OGR.POOL_IDLE_TIMEOUT.get(opts);
     }
 
     @Override
@@ -52,6 +63,8 @@ public class OGRWorkspace implements Workspace, FileData {
         LinkedHashMap<Key<?>, Object> opts = new LinkedHashMap<Key<?>, Object>();
         opts.put(OGR.FILE, file);
         opts.put(OGR.DRIVER, driver.name());
+        opts.put(OGR.POOL_SIZE, poolSize);
+        opts.put(OGR.POOL_IDLE_TIMEOUT, poolIdleTimeout);
         return opts;
     }
 
@@ -129,7 +142,27 @@ public class OGRWorkspace implements Workspace, FileData {
         return data;
     }
 
+    /**
+     * The pool of open handles for the named layer, shared by all datasets for the layer.
+     */
+    synchronized LayerPool pool(String layer) {
+        LayerPool pool = pools.get(layer);
+        if (pool == null) {
+            pool = new LayerPool(this, layer, poolSize, poolIdleTimeout);
+            pools.put(layer, pool);
+        }
+        return pool;
+    }
+
     @Override
     public void close() {
+        List<LayerPool> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<LayerPool>(pools.values());
+            pools.clear();
+        }
+        for (LayerPool pool : toClose) {
+            pool.close();
+        }
     }
 }
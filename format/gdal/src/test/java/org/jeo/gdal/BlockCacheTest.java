@@ -0,0 +1,95 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.gdal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class BlockCacheTest {
+
+    @Test
+    public void testGetPut() {
+        BlockCache cache = new BlockCache(1024);
+        assertNull(cache.get(1, 1, 0, 0));
+
+        byte[] block = new byte[100];
+        cache.put(1, 1, 0, 0, block);
+        assertSame(block, cache.get(1, 1, 0, 0));
+
+        // different band and data type
+        assertNull(cache.get(2, 1, 0, 0));
+        assertNull(cache.get(1, 6, 0, 0));
+
+        assertEquals(1, cache.hits());
+        assertEquals(3, cache.misses());
+        assertEquals(100 + BlockCache.OVERHEAD, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        BlockCache cache = new BlockCache(3 * (100 + BlockCache.OVERHEAD));
+        cache.put(1, 1, 0, 0, new byte[100]);
+        cache.put(1, 1, 1, 0, new byte[100]);
+        cache.put(1, 1, 2, 0, new byte[100]);
+
+        // touch the first block so the second is least recently used
+        assertNotNull(cache.get(1, 1, 0, 0));
+        cache.put(1, 1, 3, 0, new byte[100]);
+
+        assertEquals(3, cache.count());
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get(1, 1, 1, 0));
+        assertNotNull(cache.get(1, 1, 0, 0));
+
+        // too big to cache
+        cache.put(1, 1, 4, 0, new byte[1000]);
+        assertNull(cache.get(1, 1, 4, 0));
+        assertEquals(3, cache.count());
+    }
+
+    @Test
+    public void testBufferPool() {
+        BufferPool pool = new BufferPool(2);
+
+        ByteBuffer b1 = pool.acquire(5000);
+        assertEquals(5000, b1.limit());
+        assertEquals(8192, b1.capacity());
+        pool.release(b1);
+
+        // reused, even for a smaller read
+        ByteBuffer b2 = pool.acquire(100);
+        assertSame(b1, b2);
+        assertEquals(100, b2.limit());
+        assertEquals(0, b2.position());
+
+        ByteBuffer b3 = pool.acquire(100);
+        ByteBuffer b4 = pool.acquire(100000);
+        pool.release(b2);
+        pool.release(b3);
+        pool.release(b4);
+
+        // smallest dropped
+        assertEquals(2, pool.idle());
+        assertEquals(3, pool.allocations);
+        assertEquals(1, pool.reuses);
+        assertSame(b4, pool.acquire(50000));
+    }
+}
@@ -21,16 +21,36 @@ import org.gdal.gdalconst.gdalconst;
 import org.gdal.osr.SpatialReference;
 import org.jeo.Tests;
 import org.jeo.proj.Proj;
+import org.jeo.raster.DataBuffer;
+import org.jeo.raster.NoData;
+import org.jeo.raster.Raster;
+import org.jeo.raster.RasterQuery;
+import org.jeo.raster.Resample;
+import org.jeo.raster.Resampler;
+import org.jeo.raster.Stats;
+import org.jeo.raster.StatsCalculator;
+import org.jeo.raster.TiledRasterReader;
+import org.jeo.util.Dimension;
+import org.jeo.util.Rect;
 import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Envelope;
 
 import static junit.framework.Assert.assertNotNull;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class GDALTest {
@@ -64,6 +84,215 @@ public class GDALTest {
         assertNotNull(ds);
     }
 
+    @Test
+    public void testReadBlockCache() throws Exception {
+        GDALDataset cached = new GDAL().open(data, null);
+        GDALDataset uncached = new GDAL().open(data, 
+            (Map) Collections.singletonMap(GDAL.BLOCK_CACHE, 0L));
+        try {
+            assertNull(uncached.getBlockCache());
+
+            Envelope bbox = cached.bounds();
+            Envelope half = new Envelope(bbox.getMinX(), bbox.centre().x, 
+                bbox.getMinY(), bbox.centre().y);
+
+            // read at the native resolution of the window, blocks are only used for those
+            Rect r = cached.rect().map(half, bbox);
+            RasterQuery q = new RasterQuery().bounds(half).size(r.width(), r.height());
+
+            for (int i = 0; i < 2; i++) {
+                assertEquals(buffer(uncached.read(q)), buffer(cached.read(q)));
+            }
+            assertTrue(cached.getBlockCache().hits() > 0);
+        }
+        finally {
+            cached.close();
+            uncached.close();
+        }
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        try {
+            Stats expected = StatsCalculator.compute(ds, 0, false);
+            long reads = ds.getBlockCache().hits() + ds.getBlockCache().misses();
+
+            Stats stats = ds.bands().get(0).stats();
+            assertEquals(expected.min(), stats.min(), 1e-9);
+            assertEquals(expected.max(), stats.max(), 1e-9);
+            assertEquals(expected.mean(), stats.mean(), 1e-6);
+            assertEquals(expected.stdev(), stats.stdev(), 1e-6);
+            assertEquals(expected.count(), stats.count());
+            assertArrayEquals(expected.histogram().counts(), stats.histogram().counts());
+
+            // read past the block cache, and cached
+            assertEquals(reads, ds.getBlockCache().hits() + ds.getBlockCache().misses());
+            assertTrue(stats == ds.bands().get(0).stats());
+        }
+        finally {
+            ds.close();
+        }
+    }
+
+    @Test
+    public void testOverviews() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        try {
+            Dimension size = ds.size();
+            int before = ds.overviews().size();
+
+            ds.buildOverviews("NEAREST", 2, 4);
+            List<Dimension> overviews = ds.overviews();
+            assertEquals(before + 2, overviews.size());
+            assertTrue(overviews.get(0).width() < size.width());
+
+            // a quarter of the resolution reads from an overview
+            Dimension s = new Dimension(size.width() / 4, size.height() / 4);
+            assertTrue(ds.overview(ds.dataset, ds.rect(), s) >= 0);
+
+            Raster raster = ds.read(new RasterQuery().size(s));
+            assertEquals(s.width(), raster.size().width());
+            assertEquals(s.height(), raster.size().height());
+            assertEquals(s.width() * s.height() * raster.data().datatype().size(),
+                raster.data().buffer().remaining());
+        }
+        finally {
+            ds.close();
+        }
+    }
+
+    @Test
+    public void testReadResample() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        try {
+            Dimension size = ds.size();
+            Dimension s = new Dimension(size.width() * 2 + 1, size.height() / 3);
+
+            for (Resample method : Resample.values()) {
+                Raster raster = ds.read(new RasterQuery().size(s).resample(method));
+                assertEquals(s.width(), raster.size().width());
+                assertEquals(s.width() * s.height() * raster.data().datatype().size(),
+                    raster.data().buffer().remaining());
+            }
+        }
+        finally {
+            ds.close();
+        }
+    }
+
+    @Test
+    public void testReadResampleThumbnail() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        try {
+            Dimension s = new Dimension(4, 3);
+            for (Resample method : Resample.values()) {
+                Raster raster = ds.read(new RasterQuery().size(s).resample(method));
+                assertEquals(s.width() * s.height() * raster.data().datatype().size(),
+                    raster.data().buffer().remaining());
+            }
+        }
+        finally {
+            ds.close();
+        }
+    }
+
+    @Test
+    public void testReadAreaStrips() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        int max = GDALDataset.MAX_STRIP_BYTES;
+        try {
+            Dimension size = ds.size();
+            Dimension s = new Dimension(size.width() / 7, size.height() / 5);
+            Raster full = ds.read(new RasterQuery());
+
+            // several strips, each target pixel still takes every covered pixel into account
+            GDALDataset.MAX_STRIP_BYTES = size.width() * 64 * full.data().datatype().size();
+            for (Resample method : new Resample[]{Resample.AVERAGE, Resample.MODE}) {
+                Raster raster = ds.read(new RasterQuery().size(s).resample(method));
+                DataBuffer<?> expected = new Resampler(method)
+                    .nodata(NoData.create(ds.bands().get(0).nodata()))
+                    .resample(full.data(), size, s);
+                assertEquals(method.name(), expected.buffer(), raster.data().buffer());
+            }
+        }
+        finally {
+            GDALDataset.MAX_STRIP_BYTES = max;
+            ds.close();
+        }
+    }
+
+    @Test
+    public void testReadAreaDecimated() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        int max = GDALDataset.MAX_STRIP_BYTES;
+        try {
+            // single rows too large for a strip, decimated by gdal before averaging
+            GDALDataset.MAX_STRIP_BYTES = 1;
+            Dimension s = new Dimension(ds.size().width() / 7, ds.size().height() / 5);
+            Raster raster = ds.read(new RasterQuery().size(s).resample(Resample.AVERAGE));
+            assertEquals(s.width() * s.height() * raster.data().datatype().size(),
+                raster.data().buffer().remaining());
+        }
+        finally {
+            GDALDataset.MAX_STRIP_BYTES = max;
+            ds.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTooLarge() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        try {
+            ds.read(new RasterQuery().size(100000, 100000));
+        }
+        finally {
+            ds.close();
+        }
+    }
+
+    @Test
+    public void testReadBandsOutliveHandle() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        try {
+            // force the read onto an extra handle that is deleted once released
+            ds.inUse = true;
+            ds.maxHandles = 0;
+            Raster raster = ds.read(new RasterQuery());
+            ds.inUse = false;
+
+            assertEquals(0, ds.handles.size());
+            assertTrue(raster.bands().get(0) instanceof GDALDataset.GDALBandInfo);
+            assertEquals(ds.bands().get(0).name(), raster.bands().get(0).name());
+            assertEquals(ds.bands().get(0).nodata(), raster.bands().get(0).nodata());
+        }
+        finally {
+            ds.close();
+        }
+    }
+
+    @Test
+    public void testReadTiled() throws Exception {
+        GDALDataset ds = new GDAL().open(data, null);
+        TiledRasterReader reader = new TiledRasterReader(ds).tileSize(64).threads(4);
+        try {
+            Dimension size = ds.size();
+            RasterQuery q = new RasterQuery().size(size.width() / 2, size.height() / 2);
+
+            // concurrent reads use handles of their own
+            assertEquals(buffer(ds.read(q)), buffer(reader.read(q)));
+            assertTrue(ds.handles.size() <= ds.maxHandles);
+        }
+        finally {
+            reader.close();
+            ds.close();
+        }
+    }
+
+    ByteBuffer buffer(Raster raster) {
+        return raster.data().buffer();
+    }
+
     @Test
     public void testReadRaster() throws Exception {
         ByteBuffer buf = ByteBuffer.allocateDirect(10000);
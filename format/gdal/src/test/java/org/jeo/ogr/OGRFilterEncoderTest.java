@@ -0,0 +1,124 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.ogr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.jeo.filter.Filter;
+import org.jeo.filter.cql.CQL;
+import org.jeo.util.Pair;
+import org.jeo.vector.Feature;
+import org.jeo.vector.Schema;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.MultiPolygon;
+
+public class OGRFilterEncoderTest {
+
+    OGRFilterEncoder encoder;
+
+    @Before
+    public void setUp() {
+        Schema schema = Schema.build("states").field("geometry", MultiPolygon.class)
+            .field("STATE_NAME", String.class).field("PERSONS", Double.class)
+            .field("it's", Integer.class).schema();
+        encoder = new OGRFilterEncoder(schema);
+    }
+
+    @Test
+    public void testCompare() throws Exception {
+        assertEncoded("\"STATE_NAME\" = 'Texas'", "STATE_NAME = 'Texas'");
+        assertEncoded("(\"PERSONS\" <> 1 OR \"PERSONS\" IS NULL)", "PERSONS <> 1");
+        assertEncoded("\"PERSONS\" >= 1.5", "PERSONS >= 1.5");
+
+        // literal on the left
+        assertEncoded("\"PERSONS\" > 1", "1 < PERSONS");
+
+        // quoting
+        assertEncoded("\"STATE_NAME\" = 'Rhode''s Island'", "STATE_NAME = 'Rhode''s Island'");
+    }
+
+    @Test
+    public void testLogic() throws Exception {
+        assertEncoded("(\"PERSONS\" > 1) OR (\"STATE_NAME\" = 'Texas')",
+            "PERSONS > 1 OR STATE_NAME = 'Texas'");
+        assertEncoded("NOT ((\"PERSONS\" > 1 AND \"PERSONS\" IS NOT NULL))", "NOT (PERSONS > 1)");
+    }
+
+    @Test
+    public void testInAndNull() throws Exception {
+        assertEncoded("\"STATE_NAME\" IN ('Texas', 'Utah')", "STATE_NAME IN ('Texas', 'Utah')");
+        assertEncoded("(\"PERSONS\" NOT IN (1, 2) OR \"PERSONS\" IS NULL)", 
+            "PERSONS NOT IN (1, 2)");
+        assertEncoded("\"PERSONS\" IS NULL", "PERSONS IS NULL");
+        assertEncoded("\"PERSONS\" IS NOT NULL", "PERSONS IS NOT NULL");
+    }
+
+    @Test
+    public void testNullsMatchJava() throws Exception {
+        // null attributes are not equal to, and not in, anything
+        assertEncoded("NOT ((\"PERSONS\" <> 1 OR \"PERSONS\" IS NULL))", "NOT (PERSONS <> 1)");
+        assertEncoded("NOT ((\"PERSONS\" IN (1, 2) AND \"PERSONS\" IS NOT NULL))", 
+            "NOT (PERSONS IN (1, 2))");
+        assertEncoded("NOT ((\"PERSONS\" NOT IN (1, 2) OR \"PERSONS\" IS NULL))", 
+            "NOT (PERSONS NOT IN (1, 2))");
+        assertEncoded("NOT (((\"PERSONS\" = 1 AND \"PERSONS\" IS NOT NULL)) "
+            + "OR ((\"STATE_NAME\" = 'Texas' AND \"STATE_NAME\" IS NOT NULL)))", 
+            "NOT (PERSONS = 1 OR STATE_NAME = 'Texas')");
+
+        Pair<String, Filter<Feature>> p = encoder.encode(CQL.parse("PERSONS <> 1"));
+        assertNull(p.second);
+    }
+
+    @Test
+    public void testLike() throws Exception {
+        // also evaluated in java
+        Filter<Feature> f = CQL.parse("STATE_NAME LIKE 'New%'");
+        Pair<String, Filter<Feature>> p = encoder.encode(f);
+        assertEquals("\"STATE_NAME\" LIKE 'New%'", p.first);
+        assertEquals(f, p.second);
+
+        // ogr would exclude too much
+        p = encoder.encode(CQL.parse("NOT (STATE_NAME LIKE 'New%')"));
+        assertNull(p.first);
+    }
+
+    @Test
+    public void testResidual() throws Exception {
+        Pair<String, Filter<Feature>> p = 
+            encoder.encode(CQL.parse("PERSONS * 2 > 10 AND PERSONS > 1 AND STATE_NAME = 'Texas'"));
+        assertEquals("(\"PERSONS\" > 1) AND (\"STATE_NAME\" = 'Texas')", p.first);
+        assertEquals(CQL.parse("PERSONS * 2 > 10"), p.second);
+
+        // type mismatch left to java
+        p = encoder.encode(CQL.parse("STATE_NAME = 1"));
+        assertNull(p.first);
+        assertEquals(CQL.parse("STATE_NAME = 1"), p.second);
+
+        p = encoder.encode(CQL.parse("PERSONS > 1"));
+        assertNull(p.second);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupported() throws Exception {
+        encoder.encodeFully(CQL.parse("INTERSECTS(geometry, POINT(1 2))"));
+    }
+
+    void assertEncoded(String sql, String cql) throws Exception {
+        assertEquals(sql, encoder.encodeFully(CQL.parse(cql)));
+    }
+}
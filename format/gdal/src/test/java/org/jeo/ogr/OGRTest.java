@@ -17,9 +17,17 @@ package org.jeo.ogr;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 
+import org.apache.commons.io.FileUtils;
 import org.jeo.Tests;
 import org.jeo.data.Drivers;
+import org.jeo.filter.Filter;
+import org.jeo.filter.cql.CQL;
+import org.jeo.vector.Feature;
+import org.jeo.vector.FeatureCursor;
+import org.jeo.vector.VectorQuery;
 import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -57,4 +65,101 @@ public class OGRTest {
     public void testDriverOpen() throws Exception {
         assertTrue(OGRDataset.class.isInstance(Drivers.open(data)));
     }
+
+    @Test
+    public void testPool() throws Exception {
+        OGRWorkspace ws = OGR.open(data);
+        try {
+            OGRDataset states = ws.get("states");
+            LayerPool pool = ws.pool("states");
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(49, states.count(new VectorQuery()));
+                assertNotNull(states.schema());
+            }
+            assertEquals(1, pool.opens);
+            assertEquals(1, pool.idle());
+
+            // concurrent cursors get handles of their own
+            FeatureCursor c1 = states.cursor(new VectorQuery());
+            FeatureCursor c2 = states.cursor(new VectorQuery());
+            assertTrue(c1.hasNext());
+            assertTrue(c2.hasNext());
+            assertEquals(c1.next().get("STATE_NAME"), c2.next().get("STATE_NAME"));
+            c1.close();
+            c2.close();
+
+            assertTrue(pool.opens > 1);
+            assertTrue(pool.idle() <= ws.poolSize);
+        }
+        finally {
+            ws.close();
+        }
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        OGRWorkspace ws = OGR.open(data);
+        try {
+            OGRDataset states = ws.get("states");
+
+            assertEquals(1, states.count(new VectorQuery().filter("STATE_ABBR = 'TX'")));
+            assertEquals(4, states.count(new VectorQuery().filter("STATE_NAME LIKE 'New%'")));
+            assertEquals(0, states.count(new VectorQuery().filter("STATE_NAME LIKE 'new%'")));
+
+            FeatureCursor c = states.cursor(new VectorQuery()
+                .filter("STATE_ABBR = 'TX' AND PERSONS * 2 > 0").fields("STATE_NAME"));
+            try {
+                assertTrue(c.hasNext());
+                Feature f = c.next();
+                assertEquals("Texas", f.get("STATE_NAME"));
+                assertNull(f.get("STATE_ABBR"));
+                assertFalse(c.hasNext());
+            }
+            finally {
+                c.close();
+            }
+        }
+        finally {
+            ws.close();
+        }
+    }
+
+    @Test
+    public void testFilterNulls() throws Exception {
+        File json = new File(data.getParentFile(), "nulls.json");
+        FileUtils.writeStringToFile(json, "{\"type\": \"FeatureCollection\", \"features\": ["
+            + feature(1, "1") + ", " + feature(2, "2") + ", " + feature(3, "null") + "]}");
+
+        OGRWorkspace ws = OGR.open(json);
+        try {
+            OGRDataset nulls = ws.get(0);
+            for (String cql : new String[]{"n <> 1", "NOT (n > 1)", "n NOT IN (1)", 
+                "NOT (n IN (1))", "NOT (n <> 1)", "NOT (n = 1 OR n = 2)"}) {
+                Filter<Feature> filter = CQL.parse(cql);
+
+                Set<Object> expected = new HashSet<Object>();
+                for (Feature f : nulls.cursor(new VectorQuery())) {
+                    if (filter.test(f)) {
+                        expected.add(f.get("id"));
+                    }
+                }
+
+                Set<Object> actual = new HashSet<Object>();
+                for (Feature f : nulls.cursor(new VectorQuery().filter(filter))) {
+                    actual.add(f.get("id"));
+                }
+                assertEquals(cql, expected, actual);
+                assertEquals(cql, expected.size(), nulls.count(new VectorQuery().filter(filter)));
+            }
+        }
+        finally {
+            ws.close();
+        }
+    }
+
+    String feature(int id, String n) {
+        return String.format("{\"type\": \"Feature\", \"geometry\": {\"type\": \"Point\", "
+            + "\"coordinates\": [0, 0]}, \"properties\": {\"id\": %d, \"n\": %s}}", id, n);
+    }
 }
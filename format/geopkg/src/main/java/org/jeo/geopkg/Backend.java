@@ -70,6 +70,17 @@ public abstract class Backend implements Closeable {
         return true;
     }
 
+    /**
+     * Return true if the backend can create spatial indexes. This requires the
+     * backend to provide the ST_MinX, ST_MaxX, ST_MinY, ST_MaxY and ST_IsEmpty
+     * functions used by the spatial index triggers.
+     *
+     * @return
+     */
+    protected boolean canCreateSpatialIndex() {
+        return false;
+    }
+
     /**
      * The implementation should support closing any non-Closeable object passed
      * in and does not need to check for nulls. Use {@see #closeSafe} instead
@@ -268,7 +279,8 @@ public abstract class Backend implements Closeable {
         private final LinkedList<Object> opened = new LinkedList<Object>();
 
         protected final <T> T open(T o) {
-            opened.add(o);
+            // closed in reverse order so statements are closed before their connection
+            opened.push(o);
             return o;
         }
 
@@ -287,12 +299,24 @@ public abstract class Backend implements Closeable {
         protected abstract void addBatch(String sql) throws IOException;
 
         /**
-         * Execute any batch SQL added via {@see #addBatch}. An implementation
+         * Execute any batch SQL added via {@see #addBatch} or
+         * {@see #addBatchPrepared}. An implementation
          * may do nothing here if already executed.
          * @throws IOException
          */
         protected abstract void executeBatch() throws IOException;
 
+        /**
+         * Add a statement using placeholders to the current batch. Must use
+         * {@see #executeBatch} to execute. Consecutive calls with the same SQL
+         * should reuse a single prepared statement, a call with different SQL
+         * may execute the pending batch.
+         * @param sql the SQL with placeholders
+         * @param args the arguments
+         * @throws IOException
+         */
+        protected abstract void addBatchPrepared(String sql, Object... args) throws IOException;
+
         /**
          * Execute a query using placeholders.
          * @param sql the SQL with placeholders
@@ -377,12 +401,12 @@ public abstract class Backend implements Closeable {
 
         @Override
         public final void close() {
-            closeSafe(session);
             try {
                 closeInternal();
             } catch (Exception ex) {
                 LOG.warn("Error closing Results", ex);
             }
+            closeSafe(session);
         }
 
         protected abstract Object getObject(int idx, Class clazz) throws IOException;
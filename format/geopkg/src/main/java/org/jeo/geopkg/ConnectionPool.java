@@ -0,0 +1,210 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.geopkg;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.jeo.sql.StatementCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of SQLite connections for a single GeoPackage file.
+ * <p>
+ * New connections are configured with the pragmas from {@link GeoPkgOpts} and have the spatial
+ * index functions registered once, rather than for every session. Released connections are kept
+ * idle up to the pool size and handed out again, every session still gets a connection of its
+ * own so with <tt>journal_mode=WAL</tt> readers run concurrently with each other and with a
+ * writer. The pool does not limit the number of connections in use.
+ * </p>
+ * <p>
+ * Each connection has a {@link StatementCache} that lives as long as the connection, so repeated
+ * queries reuse their prepared statements across sessions.
+ * </p>
+ */
+class ConnectionPool implements Closeable {
+
+    static Logger LOG = LoggerFactory.getLogger(GeoPackage.class);
+
+    final DataSource db;
+    final List<String> pragmas;
+    final int size;
+    final int statementCacheSize;
+
+    final Deque<Connection> idle = new ArrayDeque<Connection>();
+    final Map<Connection, StatementCache> caches = new IdentityHashMap<Connection, StatementCache>();
+    boolean closed = false;
+
+    ConnectionPool(DataSource db, GeoPkgOpts opts) {
+        this.db = db;
+        this.pragmas = pragmas(opts);
+        this.size = opts.getPoolSize();
+        this.statementCacheSize = opts.getStatementCacheSize();
+    }
+
+    static List<String> pragmas(GeoPkgOpts opts) {
+        List<String> pragmas = new ArrayList<String>();
+        if (opts.getJournalMode() != null) {
+            pragmas.add(pragma("journal_mode", opts.getJournalMode()));
+        }
+        if (opts.getSynchronous() != null) {
+            pragmas.add(pragma("synchronous", opts.getSynchronous()));
+        }
+        if (opts.getCacheSize() != null) {
+            pragmas.add(pragma("cache_size", opts.getCacheSize()));
+        }
+        if (opts.getMmapSize() != null) {
+            pragmas.add(pragma("mmap_size", opts.getMmapSize()));
+        }
+        if (opts.getTempStore() != null) {
+            pragmas.add(pragma("temp_store", opts.getTempStore()));
+        }
+        return pragmas;
+    }
+
+    static String pragma(String name, Object value) {
+        // values are inlined so only allow plain keywords and numbers
+        if (!value.toString().matches("-?\\w+")) {
+            throw new IllegalArgumentException(
+                String.format("Illegal value for pragma %s: %s", name, value));
+        }
+        return String.format("PRAGMA %s = %s", name, value);
+    }
+
+    /**
+     * Obtains a connection, reusing an idle one when available.
+     */
+    Connection acquire() throws SQLException {
+        Connection cx = null;
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            cx = idle.poll();
+        }
+        return cx != null ? cx : create();
+    }
+
+    /**
+     * The statement cache for a connection obtained from the pool, <code>null</code> if statement
+     * caching is disabled.
+     */
+    synchronized StatementCache cache(Connection cx) {
+        return caches.get(cx);
+    }
+
+    /**
+     * Returns a connection to the pool, closing it if the pool is full.
+     */
+    void release(Connection cx) throws SQLException {
+        if (cx.isClosed()) {
+            destroy(cx);
+            return;
+        }
+
+        try {
+            // roll back anything the session left behind
+            if (!cx.getAutoCommit()) {
+                cx.rollback();
+                cx.setAutoCommit(true);
+            }
+        }
+        catch(SQLException e) {
+            destroy(cx);
+            throw e;
+        }
+
+        synchronized (this) {
+            if (!closed && idle.size() < size) {
+                idle.push(cx);
+                return;
+            }
+        }
+        destroy(cx);
+    }
+
+    void destroy(Connection cx) throws SQLException {
+        StatementCache cache;
+        synchronized (this) {
+            cache = caches.remove(cx);
+        }
+        if (cache != null) {
+            cache.close();
+        }
+        cx.close();
+    }
+
+    Connection create() throws SQLException {
+        Connection cx = db.getConnection();
+        try {
+            if (!pragmas.isEmpty()) {
+                Statement st = cx.createStatement();
+                try {
+                    for (String pragma : pragmas) {
+                        LOG.debug(pragma);
+                        st.execute(pragma);
+                    }
+                }
+                finally {
+                    st.close();
+                }
+            }
+
+            // required by spatial index triggers
+            SpatialFunctions.register(cx);
+
+            if (statementCacheSize > 0) {
+                synchronized (this) {
+                    caches.put(cx, new StatementCache(cx, statementCacheSize));
+                }
+            }
+        }
+        catch(SQLException e) {
+            cx.close();
+            throw e;
+        }
+        return cx;
+    }
+
+    @Override
+    public void close() {
+        List<Connection> cxs;
+        synchronized (this) {
+            closed = true;
+            cxs = new ArrayList<Connection>(idle);
+            idle.clear();
+        }
+
+        for (Connection cx : cxs) {
+            try {
+                destroy(cx);
+            }
+            catch(SQLException e) {
+                LOG.warn("Error closing connection", e);
+            }
+        }
+    }
+}
@@ -33,6 +33,8 @@ public class FeatureEntry extends Entry {
     
     Schema schema;
     PrimaryKey primaryKey;
+    Boolean spatialIndex;
+    String insertSql;
 
     public FeatureEntry() {
         setDataType(DataType.Feature);
@@ -76,6 +78,7 @@ public class FeatureEntry extends Entry {
 
     void setSchema(Schema schema) {
         this.schema = schema;
+        this.insertSql = null;
     }
 
     PrimaryKey getPrimaryKey() {
@@ -86,6 +89,22 @@ public class FeatureEntry extends Entry {
         this.primaryKey = primaryKey;
     }
 
+    Boolean hasSpatialIndex() {
+        return spatialIndex;
+    }
+
+    void setSpatialIndex(Boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    String getInsertSql() {
+        return insertSql;
+    }
+
+    void setInsertSql(String insertSql) {
+        this.insertSql = insertSql;
+    }
+
     void init(FeatureEntry e) {
         super.init(e);
         setGeometryColumn(e.getGeometryColumn());
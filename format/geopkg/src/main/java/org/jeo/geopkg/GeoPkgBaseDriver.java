@@ -44,6 +44,56 @@ public abstract class GeoPkgBaseDriver extends FileVectorDriver<GeoPkgWorkspace>
      */
     public static final Key<Password> PASSWD = new Key<Password>("passwd", Password.class);
 
+    /**
+     * Whether to create a spatial index for new feature tables, defaults to true.
+     */
+    public static final Key<Boolean> SPATIAL_INDEX =
+        new Key<Boolean>("spatial_index", Boolean.class, true);
+
+    /**
+     * SQLite journal mode, for example <tt>WAL</tt>, defaults to the mode of the database.
+     */
+    public static final Key<String> JOURNAL_MODE = new Key<String>("journal_mode", String.class);
+
+    /**
+     * SQLite synchronous setting, for example <tt>NORMAL</tt>, defaults to the SQLite default.
+     */
+    public static final Key<String> SYNCHRONOUS = new Key<String>("synchronous", String.class);
+
+    /**
+     * SQLite page cache size, in pages or negative kibibytes, defaults to the SQLite default.
+     */
+    public static final Key<Integer> CACHE_SIZE = new Key<Integer>("cache_size", Integer.class);
+
+    /**
+     * Maximum number of bytes of the database to memory map, defaults to the SQLite default.
+     */
+    public static final Key<Long> MMAP_SIZE = new Key<Long>("mmap_size", Long.class);
+
+    /**
+     * SQLite temporary storage, for example <tt>MEMORY</tt>, defaults to the SQLite default.
+     */
+    public static final Key<String> TEMP_STORE = new Key<String>("temp_store", String.class);
+
+    /**
+     * Maximum number of idle connections kept open for reuse, defaults to 4.
+     */
+    public static final Key<Integer> POOL_SIZE = new Key<Integer>("pool_size", Integer.class, 4);
+
+    /**
+     * Maximum number of bytes of tile data cached in memory, defaults to 16 MB. A value of 0
+     * disables the tile cache.
+     */
+    public static final Key<Long> TILE_CACHE =
+        new Key<Long>("tile_cache", Long.class, 16L * 1024 * 1024);
+
+    /**
+     * Maximum number of prepared statements cached per connection, defaults to 32. A value of 0
+     * disables the statement cache.
+     */
+    public static final Key<Integer> STATEMENT_CACHE =
+        new Key<Integer>("statement_cache", Integer.class, 32);
+
     @Override
     public final GeoPkgWorkspace open(File file, Map<?, Object> opts) throws IOException {
         GeoPkgOpts gpkgOpts = GeoPkgOpts.fromMap(opts);
@@ -60,7 +110,8 @@ public abstract class GeoPkgBaseDriver extends FileVectorDriver<GeoPkgWorkspace>
 
     @Override
     public final List<Key<?>> keys() {
-        return (List) Arrays.asList(FILE, USER, PASSWD);
+        return (List) Arrays.asList(FILE, USER, PASSWD, SPATIAL_INDEX, JOURNAL_MODE,
+            SYNCHRONOUS, CACHE_SIZE, MMAP_SIZE, TEMP_STORE, POOL_SIZE, TILE_CACHE, STATEMENT_CACHE);
     }
 
     @Override
@@ -26,6 +26,9 @@ import org.jeo.geopkg.Backend.Session;
 
 public class GeoPkgFeatureAppendCursor extends FeatureCursor {
 
+    /** number of inserts batched before executing */
+    static final int BATCH_SIZE = 1000;
+
     final Session session;
     final FeatureEntry entry;
     final GeoPkgWorkspace ws;
@@ -34,6 +37,7 @@ public class GeoPkgFeatureAppendCursor extends FeatureCursor {
     final boolean transaction;
 
     Feature next;
+    int batched = 0;
 
     GeoPkgFeatureAppendCursor(Session session, FeatureEntry entry, GeoPkgWorkspace ws,
                               Schema schema, boolean usingTransaction) throws IOException {
@@ -61,15 +65,26 @@ public class GeoPkgFeatureAppendCursor extends FeatureCursor {
 
     @Override
     protected void doWrite() throws IOException {
-        ws.insert(entry, next, session);
+        ws.insert(entry, next, session, true);
+        if (++batched == BATCH_SIZE) {
+            session.executeBatch();
+            batched = 0;
+        }
     }
 
     @Override
     public void close() throws IOException {
-        // if not using an 'outer' Transaction, commit and close
-        if (!transaction) {
-            session.endTransaction(true);
-            session.close();
+        // execute any pending inserts so they are part of the 'outer' Transaction as well
+        boolean complete = false;
+        try {
+            session.executeBatch();
+            complete = true;
+        } finally {
+            // if not using an 'outer' Transaction, commit and close
+            if (!transaction) {
+                session.endTransaction(complete);
+                session.close();
+            }
         }
     }
 }
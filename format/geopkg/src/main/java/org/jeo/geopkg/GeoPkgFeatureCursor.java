@@ -27,6 +27,7 @@ import org.jeo.geopkg.geom.GeoPkgGeomReader;
 import org.jeo.sql.PrimaryKey;
 import org.jeo.sql.PrimaryKeyColumn;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import org.jeo.geopkg.Backend.Session;
 import org.jeo.geopkg.Backend.Results;
@@ -51,12 +52,31 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
     // reusable buffer for generating fid
     final StringBuilder buf = new StringBuilder();
 
+    // bounding box rows are tested against, and the index of the geometry column
+    final Envelope bbox;
+    final int geomColumn;
+    // geometry blob and geometry of the current row when read to test the bounding box
+    byte[] geomBytes;
+    Geometry geom;
+
     Boolean next;
     Feature feature;
 
     GeoPkgFeatureCursor(Session session, Results results, Mode mode, FeatureEntry entry, GeoPkgWorkspace workspace,
             Schema schema, PrimaryKey primaryKey, boolean usingTransaction, List<String> fields)
         throws IOException {
+        this(session, results, mode, entry, workspace, schema, primaryKey, usingTransaction, fields,
+            null);
+    }
+
+    /**
+     * Creates the cursor, skipping rows whose geometry does not intersect <tt>bbox</tt> when
+     * specified. Rows are tested with the envelope from the geometry blob header so geometries
+     * of rejected rows are never decoded.
+     */
+    GeoPkgFeatureCursor(Session session, Results results, Mode mode, FeatureEntry entry, GeoPkgWorkspace workspace,
+            Schema schema, PrimaryKey primaryKey, boolean usingTransaction, List<String> fields,
+            Envelope bbox) throws IOException {
         super(mode);
 
         this.session = session;
@@ -80,6 +100,13 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
         }
         this.fields = this.schema.getFields();
 
+        geomColumn = entry.getGeometryColumn() != null
+            ? this.schema.indexOf(entry.getGeometryColumn()) : -1;
+        if (bbox != null && geomColumn < 0) {
+            throw new IllegalArgumentException("Bounding box requires the geometry column");
+        }
+        this.bbox = bbox;
+
         values = new ArrayList<Object>(schema.getFields().size());
 
         pkColumns = new ArrayList<Integer>(primaryKey.getColumns().size());
@@ -100,6 +127,11 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
         if (next == null) {
             try {
                 next = results.next();
+                if (bbox != null) {
+                    while (next && !intersects()) {
+                        next = results.next();
+                    }
+                }
             } catch (Exception e) {
                 throw new IOException(e);
             }
@@ -108,6 +140,22 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
         return next;
     }
 
+    boolean intersects() throws IOException {
+        geom = null;
+        geomBytes = results.getBytes(geomColumn);
+        if (geomBytes == null) {
+            return false;
+        }
+
+        Envelope e = geomReader.envelope(geomBytes);
+        if (e == null) {
+            // no envelope in header, decode and keep the geometry for the feature
+            geom = geomReader.read(geomBytes);
+            e = geom.getEnvelopeInternal();
+        }
+        return e.intersects(bbox);
+    }
+
     @Override
     public Feature next() throws IOException {
         try {
@@ -117,7 +165,11 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
 
                     for (int i = 0; i < fields.size(); i++) {
                         Class type = fields.get(i).type();
-                        if (Geometry.class.isAssignableFrom(type)) {
+                        if (i == geomColumn && bbox != null) {
+                            // already read when testing the bounding box
+                            values.add(geom != null ? geom : geomReader.read(geomBytes));
+                        }
+                        else if (Geometry.class.isAssignableFrom(type)) {
                             byte[] bytes = results.getBytes(i);
                             values.add(bytes != null ? geomReader.read(bytes) : null);
                         }
@@ -27,9 +27,24 @@ public class GeoPkgOpts {
     File file;
     String user;
     Password passwd;
+    boolean spatialIndex = SPATIAL_INDEX.getDefault();
+
+    String journalMode;
+    String synchronous;
+    Integer cacheSize;
+    Long mmapSize;
+    String tempStore;
+    int poolSize = POOL_SIZE.getDefault();
+    long tileCacheSize = TILE_CACHE.getDefault();
+    int statementCacheSize = STATEMENT_CACHE.getDefault();
 
     public static GeoPkgOpts fromMap(Map<?,Object> map) {
-        return new GeoPkgOpts(FILE.get(map)).user(USER.get(map)).passwd(PASSWD.get(map));
+        return new GeoPkgOpts(FILE.get(map)).user(USER.get(map)).passwd(PASSWD.get(map))
+            .spatialIndex(SPATIAL_INDEX.get(map)).journalMode(JOURNAL_MODE.get(map))
+            .synchronous(SYNCHRONOUS.get(map)).cacheSize(CACHE_SIZE.get(map))
+            .mmapSize(MMAP_SIZE.get(map)).tempStore(TEMP_STORE.get(map))
+            .poolSize(POOL_SIZE.get(map)).tileCacheSize(TILE_CACHE.get(map))
+            .statementCacheSize(STATEMENT_CACHE.get(map));
     }
 
     public GeoPkgOpts(File file) {
@@ -46,6 +61,51 @@ public class GeoPkgOpts {
         return this;
     }
 
+    public GeoPkgOpts spatialIndex(boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+        return this;
+    }
+
+    public GeoPkgOpts journalMode(String journalMode) {
+        this.journalMode = journalMode;
+        return this;
+    }
+
+    public GeoPkgOpts synchronous(String synchronous) {
+        this.synchronous = synchronous;
+        return this;
+    }
+
+    public GeoPkgOpts cacheSize(Integer cacheSize) {
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    public GeoPkgOpts mmapSize(Long mmapSize) {
+        this.mmapSize = mmapSize;
+        return this;
+    }
+
+    public GeoPkgOpts tempStore(String tempStore) {
+        this.tempStore = tempStore;
+        return this;
+    }
+
+    public GeoPkgOpts poolSize(int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public GeoPkgOpts tileCacheSize(long tileCacheSize) {
+        this.tileCacheSize = tileCacheSize;
+        return this;
+    }
+
+    public GeoPkgOpts statementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
     public File getFile() {
         return file;
     }
@@ -58,6 +118,42 @@ public class GeoPkgOpts {
         return passwd;
     }
 
+    public boolean isSpatialIndex() {
+        return spatialIndex;
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public Integer getCacheSize() {
+        return cacheSize;
+    }
+
+    public Long getMmapSize() {
+        return mmapSize;
+    }
+
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getTileCacheSize() {
+        return tileCacheSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
     public Map<Key<?>,Object> toMap() {
         Map<Key<?>,Object> map = new LinkedHashMap<Key<?>, Object>();
         map.put(FILE, file);
@@ -67,6 +163,25 @@ public class GeoPkgOpts {
         if (passwd != null) {
             map.put(PASSWD, passwd);
         }
+        map.put(SPATIAL_INDEX, spatialIndex);
+        if (journalMode != null) {
+            map.put(JOURNAL_MODE, journalMode);
+        }
+        if (synchronous != null) {
+            map.put(SYNCHRONOUS, synchronous);
+        }
+        if (cacheSize != null) {
+            map.put(CACHE_SIZE, cacheSize);
+        }
+        if (mmapSize != null) {
+            map.put(MMAP_SIZE, mmapSize);
+        }
+        if (tempStore != null) {
+            map.put(TEMP_STORE, tempStore);
+        }
+        map.put(POOL_SIZE, poolSize);
+        map.put(TILE_CACHE, tileCacheSize);
+        map.put(STATEMENT_CACHE, statementCacheSize);
         return map;
     }
 }
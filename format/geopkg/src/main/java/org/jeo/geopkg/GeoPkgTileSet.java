@@ -34,16 +34,7 @@ public class GeoPkgTileSet extends GeoPkgDataset<TileEntry> implements TileDatas
 
     @Override
     public Tile read(long z, long x, long y) throws IOException {
-        Cursor<Tile> c = geopkg.read(entry, (int)z, (int)z, (int)x, (int)x, (int)y, (int)y);
-        try {
-            if (c.hasNext()) {
-                return c.next();
-            }
-            return null;
-        }
-        finally {
-            c.close();
-        }
+        return geopkg.read(entry, (int)z, (int)x, (int)y);
     }
 
     @Override
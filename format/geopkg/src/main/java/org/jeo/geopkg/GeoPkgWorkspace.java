@@ -21,11 +21,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.jeo.data.Cursor;
+import org.jeo.data.Cursors;
 import org.jeo.data.Dataset;
 import org.jeo.data.FileData;
 import org.jeo.data.Handle;
@@ -45,6 +47,7 @@ import org.jeo.filter.Filters;
 import org.jeo.geom.Envelopes;
 import org.jeo.geom.Geom;
 import org.jeo.geopkg.Entry.DataType;
+import org.jeo.geopkg.geom.GeoPkgGeomReader;
 import org.jeo.proj.Proj;
 import org.jeo.sql.PrimaryKey;
 import org.jeo.sql.PrimaryKeyColumn;
@@ -86,11 +89,27 @@ public class GeoPkgWorkspace implements Workspace, FileData {
     /** name of tile matrix set table */
     static final String TILE_MATRIX_SET = "gpkg_tile_matrix_set";
 
+    /** name of extensions table */
+    static final String EXTENSIONS = "gpkg_extensions";
+
+    /** name of the spatial index extension */
+    static final String SPATIAL_INDEX = "gpkg_rtree_index";
+
+    /** suffixes of the spatial index triggers */
+    static final String[] SPATIAL_INDEX_TRIGGERS =
+        {"insert", "update1", "update2", "update3", "update4", "delete"};
+
     Backend backend;
 
     /** creation options */
     GeoPkgOpts opts;
 
+    /** maximum number of tiles in a range read through the tile cache */
+    static final int MAX_CACHED_RANGE = 1024;
+
+    /** tile data cache, null when disabled */
+    TileCache tileCache;
+
     /**
      * Creates a GeoPackage from an existing file.
      *  
@@ -101,6 +120,9 @@ public class GeoPkgWorkspace implements Workspace, FileData {
     public GeoPkgWorkspace(Backend backend, GeoPkgOpts opts) throws IOException {
         this.backend = backend;
         this.opts = opts;
+        if (opts.getTileCacheSize() > 0) {
+            tileCache = new TileCache(opts.getTileCacheSize());
+        }
 
         init();
     }
@@ -113,7 +135,8 @@ public class GeoPkgWorkspace implements Workspace, FileData {
                 GEOMETRY_COLUMNS + ".sql",
                 GEOPACKAGE_CONTENTS + ".sql",
                 TILE_MATRIX +".sql",
-                TILE_MATRIX_SET + ".sql"
+                TILE_MATRIX_SET + ".sql",
+                EXTENSIONS + ".sql"
             );
         }
     }
@@ -214,7 +237,7 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         Session session = backend.session();
         // if filter refers to properties not in the schema, defer to CQL filter
         final List<Object> args = missingProperties(entry, q, session) ?
-                Collections.EMPTY_LIST : encodeQuery(sql, q, qp, primaryKey(entry, session));
+                Collections.EMPTY_LIST : encodeQuery(sql, q, qp, entry, primaryKey(entry, session));
 
         if (q.isFiltered() && !qp.isFiltered()) {
             return cursor(entry, q).count();
@@ -234,6 +257,36 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         return count;
     }
 
+    /**
+     * Computes the bounds of the geometries of a feature entry.
+     * <p>
+     * Unlike {@link FeatureEntry#getBounds()}, the extent recorded in the contents table, this
+     * method scans the feature table. Envelopes are read from the geometry blob headers so
+     * geometries are only decoded for blobs written without an envelope.
+     * </p>
+     */
+    public Envelope bounds(FeatureEntry entry) throws IOException {
+        Envelope bounds = new Envelope();
+        if (entry.getGeometryColumn() == null) {
+            return bounds;
+        }
+
+        GeoPkgGeomReader reader = new GeoPkgGeomReader();
+        Results rs = backend.queryPrepared(new SQL("SELECT ").name(entry.getGeometryColumn())
+            .add(" FROM ").name(entry.getTableName()).add(" WHERE ")
+            .name(entry.getGeometryColumn()).add(" IS NOT NULL").toString());
+        try {
+            while (rs.next()) {
+                byte[] blob = rs.getBytes(0);
+                Envelope e = reader.envelope(blob);
+                bounds.expandToInclude(e != null ? e : reader.read(blob).getEnvelopeInternal());
+            }
+        } finally {
+            rs.close();
+        }
+        return bounds;
+    }
+
     public FeatureCursor cursor(FeatureEntry entry, VectorQuery q) throws IOException {
         // session to use for read queries. db seems to lock things up when
         // using our transaction session for reads
@@ -283,7 +336,7 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         // we cannot do a native query (until we filter them out)
         boolean missingProperties = missingProperties(entry, q, session);
         List<Object> args =  missingProperties ?
-            Collections.EMPTY_LIST : encodeQuery(sqlb, q, qp, pk);
+            Collections.EMPTY_LIST : encodeQuery(sqlb, q, qp, entry, pk);
         // if no missing properties, tell the query plan we can do the fields
         if (!missingProperties) {
             qp.fields();
@@ -295,26 +348,37 @@ public class GeoPkgWorkspace implements Workspace, FileData {
             session.close();
         }
 
+        // the cursor tests rows against the bounding box using the geometry blob header
+        Envelope bbox = null;
+        if (!Envelopes.isNull(q.bounds()) && selectsGeometry(entry, queryFields)) {
+            bbox = q.bounds();
+            qp.bounded();
+        }
+
         // if session != transaction, tell the cursor not to close the session
         FeatureCursor c = new GeoPkgFeatureCursor(transaction, rs, q.mode(), entry, this,
-            schema, pk, usingTransaction, queryFields);
-
-        if (!Envelopes.isNull(q.bounds())) {
-            c = c.intersect(q.bounds(), true);
-        }
+            schema, pk, usingTransaction, queryFields, bbox);
 
         return qp.apply(c);
     }
 
-    List<Object> encodeQuery(SQL sql, VectorQuery q, VectorQueryPlan qp, PrimaryKey pk) {
+    boolean selectsGeometry(FeatureEntry entry, List<String> fields) {
+        return entry.getGeometryColumn() != null
+            && (fields.isEmpty() || fields.contains(entry.getGeometryColumn()));
+    }
+
+    List<Object> encodeQuery(SQL sql, VectorQuery q, VectorQueryPlan qp, FeatureEntry entry,
+        PrimaryKey pk) throws IOException {
         GeoPkgFilterSQLEncoder sqlfe = new GeoPkgFilterSQLEncoder();
         sqlfe.setPrimaryKey(pk);
         sqlfe.setDbTypes(backend.dbTypes);
 
+        List<Object> args = new ArrayList<Object>();
+
+        String where = null;
         if (!Filters.isTrueOrNull(q.filter())) {
             try {
-                String where = sqlfe.encode(q.filter(), null);
-                sql.add(" WHERE ").add(where);
+                where = sqlfe.encode(q.filter(), null);
                 qp.filtered();
             }
             catch(Exception e) {
@@ -322,11 +386,33 @@ public class GeoPkgWorkspace implements Workspace, FileData {
             }
         }
 
-        if (q.limit() != null) {
+        // narrow down rows with the spatial index, features are still intersected with the
+        // bounding box by the cursor since index entries are only approximate
+        Envelope bbox = q.bounds();
+        if (!Envelopes.isNull(bbox) && hasSpatialIndex(entry)) {
+            String id = pk != null ? pk.getColumns().get(0).getName() : "rowid";
+            sql.add(" WHERE ").name(id).add(" IN (SELECT id FROM ").name(spatialIndexName(entry))
+               .add(" WHERE minx <= ? AND maxx >= ? AND miny <= ? AND maxy >= ?)");
+            args.addAll(Arrays.asList(
+                (Object) bbox.getMaxX(), bbox.getMinX(), bbox.getMaxY(), bbox.getMinY()));
+
+            if (where != null) {
+                sql.add(" AND (").add(where).add(")");
+            }
+        }
+        else if (where != null) {
+            sql.add(" WHERE ").add(where);
+        }
+
+        // rows are tested against the bounding box, and any filter that could not be encoded,
+        // after the query so limit and offset can only be applied in sql without them
+        boolean paged = Envelopes.isNull(bbox)
+            && (where != null || Filters.isTrueOrNull(q.filter()));
+        if (paged && q.limit() != null) {
             sql.add(" LIMIT ").add(q.limit());
             qp.limited();
         }
-        if (q.offset() != null) {
+        if (paged && q.offset() != null) {
             //sqlite doesn't understand offset without limit
             if (q.limit() == null) {
                 sql.add(" LIMIT -1");
@@ -335,41 +421,133 @@ public class GeoPkgWorkspace implements Workspace, FileData {
             qp.offsetted();
         }
 
-        List<Object> args = new ArrayList<Object>(sqlfe.getArgs().size());
         for (Pair<Object, Integer> p : sqlfe.getArgs()) {
             args.add(p.first);
         }
         return args;
     }
 
-    Session insert(final FeatureEntry entry, final Feature feature, Session session) throws IOException {
-        if (session == null) {
-            session = backend.session();
+    /**
+     * Bulk inserts features into a feature entry.
+     * <p>
+     * Features are added to the session batch with a single reused prepared statement and
+     * committed every <tt>commitInterval</tt> features, rather than executing and committing a
+     * statement per feature. When <tt>deferIndex</tt> is set and the entry has a spatial index the
+     * index is dropped for the duration of the load and rebuilt once at the end, which avoids
+     * maintaining the rtree through triggers row by row. Batches committed before a failure are
+     * not rolled back.
+     * </p>
+     * @param entry The feature entry to insert into.
+     * @param features The features to insert.
+     * @param commitInterval The number of features to insert per transaction.
+     * @param deferIndex Whether to rebuild the spatial index after the load.
+     *
+     * @return The number of features inserted.
+     */
+    public long insert(FeatureEntry entry, Iterable<? extends Feature> features, int commitInterval,
+        boolean deferIndex) throws IOException {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("commit interval must be positive");
         }
-        Feature f = Features.retype(feature, schema(entry, session));
 
-        SQL sqlb = new SQL("INSERT INTO ").name(entry.getTableName()).add(" (");
-        List<Object> objs = new ArrayList<Object>();
+        boolean reindex = deferIndex && hasSpatialIndex(entry);
+        long count = 0;
 
-        for (Field fld : f.schema()) {
-            Object o = f.get(fld.name());
-            if (o != null) {
-                sqlb.name(fld.name()).add(", ");
-                objs.add(o);
+        Throwable failure = null;
+        Session session = backend.transaction();
+        try {
+            boolean complete = false;
+            try {
+                if (reindex) {
+                    dropSpatialIndex(entry, session);
+                }
+                for (Feature f : features) {
+                    insert(entry, f, session, true);
+                    if (++count % commitInterval == 0) {
+                        session.executeBatch();
+                        session.endTransaction(true);
+                    }
+                }
+                session.executeBatch();
+                complete = true;
+            } finally {
+                session.endTransaction(complete);
             }
+        } catch(Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            session.close();
+            if (reindex) {
+                // the drop may have been rolled back, force a check of the database
+                entry.setSpatialIndex(null);
+                try {
+                    createSpatialIndex(entry);
+                } catch(IOException e) {
+                    // don't mask the failure of the insert
+                    if (failure == null) {
+                        throw e;
+                    }
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return count;
+    }
+
+    Session insert(final FeatureEntry entry, final Feature feature, Session session) throws IOException {
+        return insert(entry, feature, session, false);
+    }
+
+    /**
+     * Inserts a feature, adding the statement to the session batch rather than executing it when
+     * <tt>batch</tt> is set.
+     */
+    Session insert(final FeatureEntry entry, final Feature feature, Session session, boolean batch)
+        throws IOException {
+        if (session == null) {
+            session = backend.session();
         }
+        Schema schema = schema(entry, session);
+        Feature f = Features.retype(feature, schema);
 
-        sqlb.trim(2).add(") VALUES (");
-        for(Object obj : objs) {
-            sqlb.add("?,");
+        // null values are bound rather than left out, keeping the statement the same for every 
+        // feature so that batches reuse a single prepared statement
+        List<Object> objs = new ArrayList<Object>(schema.size());
+        for (Field fld : schema) {
+            objs.add(f.get(fld.name()));
         }
-        sqlb.trim(1).add(")");
 
-        session.executePrepared(sqlb.toString(), objs.toArray());
+        String sql = insertSql(entry, schema);
+        if (batch) {
+            session.addBatchPrepared(sql, objs.toArray());
+        }
+        else {
+            session.executePrepared(sql, objs.toArray());
+        }
 
         return session;
     }
 
+    /**
+     * The statement inserting a feature into an entry, over all columns of the schema, built 
+     * once per entry.
+     */
+    String insertSql(FeatureEntry entry, Schema schema) {
+        if (entry.getInsertSql() == null) {
+            SQL sqlb = new SQL("INSERT INTO ").name(entry.getTableName()).add(" (");
+            for (Field fld : schema) {
+                sqlb.name(fld.name()).add(", ");
+            }
+            sqlb.trim(2).add(") VALUES (");
+            for (int i = 0; i < schema.size(); i++) {
+                sqlb.add("?,");
+            }
+            entry.setInsertSql(sqlb.trim(1).add(")").toString());
+        }
+        return entry.getInsertSql();
+    }
+
     Session update(final FeatureEntry entry, final Feature feature, Session session) throws IOException {
         SQL sqlb = new SQL("UPDATE ").name(entry.getTableName()).add(" SET ");
         List<Object> objs = new ArrayList<Object>();
@@ -469,6 +647,10 @@ public class GeoPkgWorkspace implements Workspace, FileData {
                 createFeatureTable(schema, e, session);
                 addGeometryColumnsEntry(schema, e, session);
                 addGeopackageContentsEntry(e, session);
+                if (opts.isSpatialIndex() && backend.canCreateSpatialIndex()
+                    && e.getGeometryColumn() != null) {
+                    createSpatialIndex(e, findPrimaryKeyColumnName(schema), session);
+                }
                 complete = true;
             } finally {
                 session.endTransaction(complete);
@@ -561,6 +743,157 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         );
     }
 
+    /**
+     * Determines if a feature entry has a spatial index.
+     */
+    public boolean hasSpatialIndex(FeatureEntry entry) throws IOException {
+        if (entry.hasSpatialIndex() == null) {
+            boolean exists = false;
+            if (entry.getGeometryColumn() != null) {
+                Results rs = backend.queryPrepared(
+                    "SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?",
+                    spatialIndexName(entry));
+                try {
+                    exists = rs.next();
+                } finally {
+                    rs.close();
+                }
+            }
+            entry.setSpatialIndex(exists);
+        }
+        return entry.hasSpatialIndex();
+    }
+
+    /**
+     * Creates and populates the spatial index for a feature entry.
+     * <p>
+     * The index is an rtree virtual table named <tt>rtree_&lt;table>_&lt;column></tt> kept up to
+     * date by triggers on the feature table, as defined by the GeoPackage spatial index extension.
+     * This method does nothing if the entry already has a spatial index.
+     * </p>
+     */
+    public void createSpatialIndex(FeatureEntry entry) throws IOException {
+        if (!backend.canCreateSpatialIndex()) {
+            throw new UnsupportedOperationException("Backend does not support spatial indexes");
+        }
+        if (entry.getGeometryColumn() == null) {
+            throw new IllegalArgumentException("Entry has no geometry column");
+        }
+        if (hasSpatialIndex(entry)) {
+            return;
+        }
+
+        Session session = backend.transaction();
+        try {
+            boolean complete = false;
+            try {
+                String pk = primaryKeyCol(entry, session).getName();
+                createSpatialIndex(entry, pk, session);
+
+                // populate from existing rows
+                session.execute(new SQL("INSERT OR REPLACE INTO ").name(spatialIndexName(entry))
+                    .add(" SELECT ").name(pk).add(", ").add(envelopeFunctions(entry, null))
+                    .add(" FROM ").name(entry.getTableName()).add(" WHERE ")
+                    .add(notEmpty(entry, null)).toString());
+                complete = true;
+            } finally {
+                session.endTransaction(complete);
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    void createSpatialIndex(FeatureEntry entry, String pk, Session session) throws IOException {
+        String table = entry.getTableName();
+        String column = entry.getGeometryColumn();
+        String rtree = spatialIndexName(entry);
+
+        session.executePrepared(format("INSERT INTO %s VALUES (?,?,?,?,?)", EXTENSIONS),
+            table, column, SPATIAL_INDEX, "GeoPackage 1.0 Specification Annex L", "write-only");
+
+        session.execute(new SQL("CREATE VIRTUAL TABLE ").name(rtree)
+            .add(" USING rtree(id, minx, maxx, miny, maxy)").toString());
+
+        SQL insert = new SQL("INSERT OR REPLACE INTO ").name(rtree).add(" VALUES (NEW.").name(pk)
+            .add(", ").add(envelopeFunctions(entry, "NEW")).add(");");
+        SQL delete = new SQL("DELETE FROM ").name(rtree).add(" WHERE id = OLD.").name(pk)
+            .add(";");
+
+        // triggers as defined by the spatial index extension
+        session.execute(trigger(rtree, "insert", "INSERT ON", table, null)
+            .add(" WHEN (").add(notEmpty(entry, "NEW")).add(")")
+            .add(" BEGIN ").add(insert.toString()).add(" END").toString());
+        session.execute(trigger(rtree, "update1", "UPDATE OF", table, column)
+            .add(" WHEN OLD.").name(pk).add(" = NEW.").name(pk)
+            .add(" AND (").add(notEmpty(entry, "NEW")).add(")")
+            .add(" BEGIN ").add(insert.toString()).add(" END").toString());
+        session.execute(trigger(rtree, "update2", "UPDATE OF", table, column)
+            .add(" WHEN OLD.").name(pk).add(" = NEW.").name(pk)
+            .add(" AND NOT (").add(notEmpty(entry, "NEW")).add(")")
+            .add(" BEGIN ").add(delete.toString()).add(" END").toString());
+        session.execute(trigger(rtree, "update3", "UPDATE ON", table, null)
+            .add(" WHEN OLD.").name(pk).add(" != NEW.").name(pk)
+            .add(" AND (").add(notEmpty(entry, "NEW")).add(")")
+            .add(" BEGIN ").add(delete.toString()).add(" ").add(insert.toString()).add(" END")
+            .toString());
+        session.execute(trigger(rtree, "update4", "UPDATE ON", table, null)
+            .add(" WHEN OLD.").name(pk).add(" != NEW.").name(pk)
+            .add(" AND NOT (").add(notEmpty(entry, "NEW")).add(")")
+            .add(" BEGIN DELETE FROM ").name(rtree).add(" WHERE id IN (OLD.").name(pk)
+            .add(", NEW.").name(pk).add("); END").toString());
+        session.execute(trigger(rtree, "delete", "DELETE ON", table, null)
+            .add(" WHEN OLD.").name(column).add(" NOT NULL")
+            .add(" BEGIN ").add(delete.toString()).add(" END").toString());
+
+        entry.setSpatialIndex(true);
+    }
+
+    void dropSpatialIndex(FeatureEntry entry, Session session) throws IOException {
+        String rtree = spatialIndexName(entry);
+        for (String trigger : SPATIAL_INDEX_TRIGGERS) {
+            session.execute(new SQL("DROP TRIGGER IF EXISTS ").name(rtree + "_" + trigger)
+                .toString());
+        }
+        session.execute(new SQL("DROP TABLE IF EXISTS ").name(rtree).toString());
+        session.executePrepared(format(
+            "DELETE FROM %s WHERE table_name = ? AND column_name = ? AND extension_name = ?",
+            EXTENSIONS), entry.getTableName(), entry.getGeometryColumn(), SPATIAL_INDEX);
+
+        entry.setSpatialIndex(false);
+    }
+
+    SQL trigger(String rtree, String name, String event, String table, String column) {
+        SQL sql = new SQL("CREATE TRIGGER ").name(rtree + "_" + name).add(" AFTER ");
+        if (column != null) {
+            // UPDATE OF <column> ON <table>
+            sql.add(event).add(" ").name(column).add(" ON ");
+        }
+        else {
+            sql.add(event).add(" ");
+        }
+        return sql.name(table);
+    }
+
+    String envelopeFunctions(FeatureEntry entry, String prefix) {
+        String g = geometryRef(entry, prefix);
+        return format("ST_MinX(%s), ST_MaxX(%s), ST_MinY(%s), ST_MaxY(%s)", g, g, g, g);
+    }
+
+    String notEmpty(FeatureEntry entry, String prefix) {
+        String g = geometryRef(entry, prefix);
+        return format("%s NOT NULL AND NOT ST_IsEmpty(%s)", g, g);
+    }
+
+    String geometryRef(FeatureEntry entry, String prefix) {
+        String g = new SQL().name(entry.getGeometryColumn()).toString();
+        return prefix != null ? prefix + "." + g : g;
+    }
+
+    static String spatialIndexName(FeatureEntry entry) {
+        return "rtree_" + entry.getTableName() + "_" + entry.getGeometryColumn();
+    }
+
     String findPrimaryKeyColumnName(Schema schema) {
         String[] names = new String[]{"fid", "gid", "oid"};
         for (String name : names) {
@@ -707,47 +1040,158 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         return read(entry, null, null, null, null, null, null);
     }
 
-    public Cursor<Tile> read(TileEntry entry, Integer lowZoom, Integer highZoom, 
-        Integer lowCol, Integer highCol, Integer lowRow, Integer highRow) throws IOException  {
-
-        final List<String> q = new ArrayList<String>();
-        if (lowZoom != null && lowZoom > -1) {
-            q.add("zoom_level >= " + lowZoom);
+    /**
+     * Reads a single tile, returning <code>null</code> if the tile does not exist.
+     * <p>
+     * The tile is served from the tile cache when possible.
+     * </p>
+     */
+    public Tile read(TileEntry entry, int z, int x, int y) throws IOException {
+        String table = entry.getTableName();
+        if (tileCache != null) {
+            byte[] data = tileCache.get(table, z, x, y);
+            if (data != null) {
+                return data != TileCache.MISSING ? new Tile(z, x, y).data(data) : null;
+            }
         }
-        if (highZoom != null && highZoom > -1) {
-            q.add("zoom_level <= " + lowZoom);
+
+        byte[] data = null;
+        Results rs = backend.queryPrepared(new SQL("SELECT tile_data FROM ").name(table)
+            .add(" WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?").toString(), z, x, y);
+        try {
+            if (rs.next()) {
+                data = rs.getBytes(0);
+            }
+        } finally {
+            rs.close();
         }
-        if (lowCol != null && lowCol > -1) {
-            q.add("tile_column >= " + lowCol);
+
+        if (tileCache != null) {
+            tileCache.put(table, z, x, y, data);
         }
-        if (highCol != null && highCol > -1) {
-            q.add("tile_column <= " + highCol);
+        return data != null ? new Tile(z, x, y).data(data) : null;
+    }
+
+    /**
+     * Reads a range of tiles, a <code>null</code> or negative value leaves that end of the range
+     * open.
+     * <p>
+     * Ranges that are bounded on all sides and cover at most {@link #MAX_CACHED_RANGE} tiles go
+     * through the tile cache. Such a range is served entirely from the cache when every tile in it
+     * is cached, otherwise the whole range is read with a single query and cached, including the
+     * tiles that do not exist. Other ranges are streamed from the database.
+     * </p>
+     */
+    public Cursor<Tile> read(TileEntry entry, Integer lowZoom, Integer highZoom, 
+        Integer lowCol, Integer highCol, Integer lowRow, Integer highRow) throws IOException  {
+
+        lowZoom = bound(lowZoom);
+        highZoom = bound(highZoom);
+        lowCol = bound(lowCol);
+        highCol = bound(highCol);
+        lowRow = bound(lowRow);
+        highRow = bound(highRow);
+
+        SQL sql = new SQL("SELECT zoom_level,tile_column,tile_row,tile_data FROM ")
+            .name(entry.getTableName());
+        List<Object> args = new ArrayList<Object>();
+
+        range(sql, "zoom_level", lowZoom, highZoom, args);
+        range(sql, "tile_column", lowCol, highCol, args);
+        range(sql, "tile_row", lowRow, highRow, args);
+
+        if (tileCache != null && lowZoom != null && highZoom != null && lowCol != null
+            && highCol != null && lowRow != null && highRow != null) {
+            long n = (highZoom - lowZoom + 1L) * (highCol - lowCol + 1L) * (highRow - lowRow + 1L);
+            if (n > 0 && n <= MAX_CACHED_RANGE) {
+                return Cursors.create(readCached(entry, sql, args,
+                    lowZoom, highZoom, lowCol, highCol, lowRow, highRow));
+            }
         }
-        if (lowRow != null && lowRow > -1) {
-            q.add("tile_row >= " + lowRow);
+
+        return new TileCursor(backend.queryPrepared(sql.toString(), args.toArray()));
+    }
+
+    List<Tile> readCached(TileEntry entry, SQL sql, List<Object> args, int z1, int z2, int x1,
+        int x2, int y1, int y2) throws IOException {
+        String table = entry.getTableName();
+
+        // all tiles in the cache?
+        List<Tile> tiles = new ArrayList<Tile>();
+        O: for (int z = z1; z <= z2; z++) {
+            for (int x = x1; x <= x2; x++) {
+                for (int y = y1; y <= y2; y++) {
+                    byte[] data = tileCache.get(table, z, x, y);
+                    if (data == null) {
+                        tiles = null;
+                        break O;
+                    }
+                    if (data != TileCache.MISSING) {
+                        tiles.add(new Tile(z, x, y).data(data));
+                    }
+                }
+            }
         }
-        if (highRow != null && highRow > -1) {
-            q.add("tile_row <= " + highRow);
+        if (tiles != null) {
+            return tiles;
         }
 
-        SQL sql = new SQL("SELECT zoom_level,tile_column,tile_row,tile_data FROM")
-            .name(entry.getTableName());
+        // read the whole range at once
+        tiles = new ArrayList<Tile>();
+        Cursor<Tile> c = new TileCursor(backend.queryPrepared(sql.toString(), args.toArray()));
+        try {
+            for (Tile t : c) {
+                tiles.add(t);
+            }
+        } finally {
+            c.close();
+        }
 
-        if (!q.isEmpty()) {
-            sql.add(" WHERE ");
-            for (String s : q) {
-                sql.add(s).add(" AND ");
+        // remember missing tiles first so they are evicted before the tiles that exist
+        Set<Long> found = new HashSet<Long>();
+        for (Tile t : tiles) {
+            found.add(tileId(t.z(), t.x(), t.y()));
+        }
+        for (int z = z1; z <= z2; z++) {
+            for (int x = x1; x <= x2; x++) {
+                for (int y = y1; y <= y2; y++) {
+                    if (!found.contains(tileId(z, x, y))) {
+                        tileCache.put(table, z, x, y, null);
+                    }
+                }
             }
-            sql.trim(5);
         }
+        for (Tile t : tiles) {
+            tileCache.put(table, t.z(), t.x(), t.y(), t.data());
+        }
+        return tiles;
+    }
 
-        try {
-            return new TileCursor(backend.query(sql.toString()));
+    Integer bound(Integer i) {
+        return i != null && i > -1 ? i : null;
+    }
+
+    void range(SQL sql, String col, Integer low, Integer high, List<Object> args) {
+        if (low != null) {
+            sql.add(args.isEmpty() ? " WHERE " : " AND ").add(col).add(" >= ?");
+            args.add(low);
         }
-        catch(Exception e) {
-            throw new IOException(e);
+        if (high != null) {
+            sql.add(args.isEmpty() ? " WHERE " : " AND ").add(col).add(" <= ?");
+            args.add(high);
         }
-        
+    }
+
+    long tileId(int z, int x, int y) {
+        // zoom levels fit in a byte, rows and columns of such a level in 28 bits
+        return ((long) z << 56) | ((long) x << 28) | y;
+    }
+
+    /**
+     * The cache of tile data, <code>null</code> if tile caching is disabled.
+     */
+    public TileCache getTileCache() {
+        return tileCache;
     }
 
     TileEntry createTileEntry(Results rs) throws IOException {
@@ -14,6 +14,7 @@
  */
 package org.jeo.geopkg;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -23,6 +24,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import com.vividsolutions.jts.geom.Geometry;
 import org.jeo.geopkg.geom.GeoPkgGeomWriter;
+import org.jeo.sql.StatementCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,9 +39,11 @@ import org.sqlite.SQLiteDataSource;
 class JDBCBackend extends Backend {
 
     final DataSource db;
+    final ConnectionPool pool;
 
     JDBCBackend(GeoPkgOpts opts) {
         db = createDataSource(opts);
+        pool = new ConnectionPool(db, opts);
     }
 
     DataSource createDataSource(GeoPkgOpts opts) {
@@ -48,6 +52,11 @@ class JDBCBackend extends Backend {
         return dataSource;
     }
 
+    @Override
+    protected boolean canCreateSpatialIndex() {
+        return true;
+    }
+
     @Override
     protected JDBCSession session() throws IOException {
         return new JDBCSession();
@@ -93,17 +102,36 @@ class JDBCBackend extends Backend {
     }
 
     public void close() throws IOException {
-        // nothing to do
+        pool.close();
     }
 
     class JDBCSession extends Backend.Session {
 
         final Connection connection;
+        final StatementCache cache;
         Statement statement;
 
+        // pending batch of prepared statements, see addBatchPrepared
+        PreparedStatement batch;
+        String batchSql;
+
+        // reused across statements to avoid allocating a writer per geometry
+        final GeoPkgGeomWriter writer = new GeoPkgGeomWriter();
+
         JDBCSession() throws IOException {
             try {
-                connection = open(db.getConnection());
+                connection = pool.acquire();
+                cache = pool.cache(connection);
+                open(new Closeable() {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            pool.release(connection);
+                        } catch (SQLException ex) {
+                            throw new IOException(ex);
+                        }
+                    }
+                });
             } catch (SQLException ex) {
                 throw new IOException(ex);
             }
@@ -139,36 +167,68 @@ class JDBCBackend extends Backend {
         PreparedStatement prepare(String sql, Object[] args) throws IOException {
             log(sql, args);
             try {
-                GeoPkgGeomWriter writer = new GeoPkgGeomWriter();
-                PreparedStatement ps = open(connection.prepareStatement(sql));
-                for (int i = 0; i < args.length; i++) {
-                    Object arg = args[i];
-                    if (arg instanceof Geometry) {
-                        arg = writer.write((Geometry) arg);
-                    }
-                    ps.setObject(i + 1, arg);
-                }
+                PreparedStatement ps = open(cache != null ? 
+                    cache.prepare(sql) : connection.prepareStatement(sql));
+                bind(ps, args);
                 return ps;
             } catch (SQLException ex) {
                 throw new IOException(ex);
             }
         }
 
+        void bind(PreparedStatement ps, Object[] args) throws SQLException, IOException {
+            for (int i = 0; i < args.length; i++) {
+                Object arg = args[i];
+                if (arg instanceof Geometry) {
+                    arg = writer.write((Geometry) arg);
+                }
+                ps.setObject(i + 1, arg);
+            }
+        }
+
+        @Override
+        protected void addBatchPrepared(String sql, Object... args) throws IOException {
+            log(sql, args);
+            try {
+                if (batch != null && !sql.equals(batchSql)) {
+                    executePreparedBatch();
+                    closeSafe(batch);
+                    batch = null;
+                }
+                if (batch == null) {
+                    batch = open(connection.prepareStatement(sql));
+                    batchSql = sql;
+                }
+                bind(batch, args);
+                batch.addBatch();
+            } catch (SQLException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        void executePreparedBatch() throws SQLException {
+            if (batch != null) {
+                batch.executeBatch();
+            }
+        }
+
         @Override
         protected void executePrepared(String sql, Object[] args) throws IOException {
+            PreparedStatement ps = prepare(sql, args);
             try {
-                prepare(sql, args).execute();
+                ps.execute();
             } catch (SQLException ex) {
                 throw new IOException(ex);
             } finally {
-                closeSafe(statement);
+                closeSafe(ps);
             }
         }
 
         @Override
         protected Results queryPrepared(String sql, Object... args) throws IOException {
             try {
-                return new JDBCResults(prepare(sql, args).executeQuery());
+                PreparedStatement ps = prepare(sql, args);
+                return new JDBCResults(ps, ps.executeQuery());
             } catch (SQLException ex) {
                 throw new IOException(ex);
             }
@@ -179,7 +239,7 @@ class JDBCBackend extends Backend {
             log(sql);
             try {
                 statement = open(connection.createStatement());
-                return new JDBCResults(statement.executeQuery(sql));
+                return new JDBCResults(statement, statement.executeQuery(sql));
             } catch (SQLException ex) {
                 throw new IOException(ex);
             }
@@ -188,7 +248,10 @@ class JDBCBackend extends Backend {
         @Override
         protected void executeBatch() throws IOException {
             try {
-                statement.executeBatch();
+                if (statement != null) {
+                    statement.executeBatch();
+                }
+                executePreparedBatch();
             } catch (SQLException ex) {
                 throw new IOException(ex);
             }
@@ -240,9 +303,11 @@ class JDBCBackend extends Backend {
 
     // note column indices are zero-based
     class JDBCResults extends Backend.Results {
+        final Statement statement;
         final ResultSet results;
 
-        JDBCResults(ResultSet results) {
+        JDBCResults(Statement statement, ResultSet results) {
+            this.statement = statement;
             this.results = results;
         }
 
@@ -322,8 +387,9 @@ class JDBCBackend extends Backend {
 
         @Override
         protected void closeInternal() throws Exception {
-            closeSafe(results.getStatement());
+            // close through the statement handed out, a cached statement is returned to the cache
             closeSafe(results);
+            closeSafe(statement);
         }
     }
 }
@@ -0,0 +1,138 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.geopkg;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.jeo.geopkg.geom.GeoPkgGeomReader;
+import org.sqlite.Function;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * The SQL functions required by the GeoPackage spatial index extension triggers.
+ * <p>
+ * Registers <tt>ST_MinX</tt>, <tt>ST_MaxX</tt>, <tt>ST_MinY</tt>, <tt>ST_MaxY</tt> and
+ * <tt>ST_IsEmpty</tt> on a connection. Each function takes a GeoPackage geometry blob. The
+ * envelope is read from the blob header when present and the envelope of the last blob is
+ * remembered since the triggers call every function on the same value in turn.
+ * </p>
+ */
+class SpatialFunctions {
+
+    GeoPkgGeomReader reader = new GeoPkgGeomReader();
+
+    byte[] last;
+    Envelope envelope;
+
+    static void register(Connection cx) throws SQLException {
+        SpatialFunctions f = new SpatialFunctions();
+
+        Function.create(cx, "ST_MinX", new EnvelopeFunction(f) {
+            @Override
+            double value(Envelope e) {
+                return e.getMinX();
+            }
+        });
+        Function.create(cx, "ST_MaxX", new EnvelopeFunction(f) {
+            @Override
+            double value(Envelope e) {
+                return e.getMaxX();
+            }
+        });
+        Function.create(cx, "ST_MinY", new EnvelopeFunction(f) {
+            @Override
+            double value(Envelope e) {
+                return e.getMinY();
+            }
+        });
+        Function.create(cx, "ST_MaxY", new EnvelopeFunction(f) {
+            @Override
+            double value(Envelope e) {
+                return e.getMaxY();
+            }
+        });
+        Function.create(cx, "ST_IsEmpty", new IsEmpty(f));
+    }
+
+    static abstract class EnvelopeFunction extends Function {
+        final SpatialFunctions f;
+
+        EnvelopeFunction(SpatialFunctions f) {
+            this.f = f;
+        }
+
+        @Override
+        protected void xFunc() throws SQLException {
+            Envelope e = f.envelope(value_blob(0));
+            if (e == null) {
+                result();
+            }
+            else {
+                result(value(e));
+            }
+        }
+
+        abstract double value(Envelope e);
+    }
+
+    static class IsEmpty extends Function {
+        final SpatialFunctions f;
+
+        IsEmpty(SpatialFunctions f) {
+            this.f = f;
+        }
+
+        @Override
+        protected void xFunc() throws SQLException {
+            byte[] blob = value_blob(0);
+            if (blob == null) {
+                result();
+            }
+            else {
+                result(f.envelope(blob) == null ? 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * Envelope of a geometry blob, or <tt>null</tt> if the geometry is empty.
+     */
+    synchronized Envelope envelope(byte[] blob) throws SQLException {
+        if (blob == null) {
+            return null;
+        }
+        if (!Arrays.equals(blob, last)) {
+            try {
+                // use the header envelope when present, only decoding the geometry otherwise
+                Envelope e = reader.envelope(blob);
+                if (e == null) {
+                    Geometry g = reader.read(blob);
+                    e = g == null || g.isEmpty() ? null : g.getEnvelopeInternal();
+                }
+                envelope = e == null || e.isNull() ? null : e;
+                last = blob;
+            }
+            catch(IOException e) {
+                throw new SQLException("Invalid geometry", e);
+            }
+        }
+        return envelope;
+    }
+}
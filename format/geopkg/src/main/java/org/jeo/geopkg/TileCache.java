@@ -0,0 +1,200 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.geopkg;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of tile data keyed by tile table, zoom level, column and row.
+ * <p>
+ * The cache is bounded by the number of bytes of tile data it holds, plus a small fixed overhead
+ * per tile. Tiles known not to exist are cached as well so that repeated reads of a sparse
+ * pyramid do not go back to the database. Hit and miss counts are kept to tune the cache size.
+ * </p>
+ */
+public class TileCache {
+
+    /** marker for tiles known not to exist */
+    static final byte[] MISSING = new byte[0];
+
+    /** estimated memory used per tile on top of the tile data */
+    static final int OVERHEAD = 64;
+
+    final long maxSize;
+    long size = 0;
+
+    long hits = 0;
+    long misses = 0;
+
+    final LinkedHashMap<TileKey, byte[]> tiles = new LinkedHashMap<TileKey, byte[]>(256, 0.75f, true);
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize The maximum number of bytes the cache holds.
+     */
+    public TileCache(long maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("cache size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Looks up a tile.
+     *
+     * @return The tile data, {@link #MISSING} if the tile is known not to exist or
+     * <code>null</code> if the tile is not cached.
+     */
+    synchronized byte[] get(String table, int z, int x, int y) {
+        byte[] data = tiles.get(new TileKey(table, z, x, y));
+        if (data != null) {
+            hits++;
+        }
+        else {
+            misses++;
+        }
+        return data;
+    }
+
+    /**
+     * Adds a tile, a <code>null</code> value marks the tile as not existing.
+     */
+    synchronized void put(String table, int z, int x, int y, byte[] data) {
+        if (data == null) {
+            data = MISSING;
+        }
+
+        long n = data.length + OVERHEAD;
+        if (n > maxSize) {
+            return;
+        }
+
+        byte[] old = tiles.put(new TileKey(table, z, x, y), data);
+        if (old != null) {
+            size -= old.length + OVERHEAD;
+        }
+        size += n;
+
+        // evict least recently used tiles
+        Iterator<byte[]> it = tiles.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            size -= it.next().length + OVERHEAD;
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes all tiles of a tile table.
+     */
+    public synchronized void invalidate(String table) {
+        Iterator<Map.Entry<TileKey, byte[]>> it = tiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<TileKey, byte[]> e = it.next();
+            if (e.getKey().table.equals(table)) {
+                size -= e.getValue().length + OVERHEAD;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all tiles and resets the statistics.
+     */
+    public synchronized void clear() {
+        tiles.clear();
+        size = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * The maximum number of bytes held by the cache.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The estimated number of bytes currently held by the cache.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * The number of tiles currently cached.
+     */
+    public synchronized int count() {
+        return tiles.size();
+    }
+
+    /**
+     * The number of lookups that found a tile.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of lookups that did not find a tile.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * The ratio of hits to lookups, 0 if no lookups have been made.
+     */
+    public synchronized double hitRatio() {
+        long n = hits + misses;
+        return n > 0 ? hits / (double) n : 0;
+    }
+
+    static class TileKey {
+        final String table;
+        final int z, x, y;
+
+        TileKey(String table, int z, int x, int y) {
+            this.table = table;
+            this.z = z;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = table.hashCode();
+            result = 31 * result + z;
+            result = 31 * result + x;
+            result = 31 * result + y;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TileKey)) {
+                return false;
+            }
+            TileKey other = (TileKey) obj;
+            return z == other.z && x == other.x && y == other.y && table.equals(other.table);
+        }
+    }
+}
@@ -31,6 +31,11 @@ class Flags {
         b |= ((ver << 4) & 0xf0);
     }
 
+    // empty geometry flag of the final spec, overlaps the low bit of the version
+    boolean isEmpty() {
+        return (b & 0x10) != 0;
+    }
+
     EnvelopeType getEnvelopeIndicator() {
         return EnvelopeType.valueOf((byte) ((b & 0x0e) >> 1));
     }
@@ -16,14 +16,18 @@ package org.jeo.geopkg.geom;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ByteArrayInStream;
 import com.vividsolutions.jts.io.ByteOrderDataInStream;
+import com.vividsolutions.jts.io.ByteOrderValues;
 import com.vividsolutions.jts.io.InStream;
 import com.vividsolutions.jts.io.InputStreamInStream;
 import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBConstants;
 import com.vividsolutions.jts.io.WKBReader;
 
 public class GeoPkgGeomReader {
@@ -36,6 +40,69 @@ public class GeoPkgGeomReader {
         return read(new InputStreamInStream(in));
     }
     
+    /**
+     * Reads the envelope of a geometry blob without parsing the geometry.
+     * <p>
+     * The envelope is taken from the blob header when present. For points, which are usually
+     * written without a header envelope, the coordinate is read directly from the WKB. In any
+     * other case this method returns <code>null</code> and the caller must fall back to
+     * {@link #read(byte[])}. Empty geometries result in an empty envelope, one for which
+     * {@link Envelope#isNull()} is true.
+     * </p>
+     * @param bytes The geometry blob.
+     *
+     * @return The envelope, or <code>null</code> if it can't be determined from the header.
+     */
+    public Envelope envelope(byte[] bytes) {
+        if (bytes.length < 8) {
+            return null;
+        }
+
+        Flags flags = new Flags(bytes[3]);
+        if (flags.isEmpty()) {
+            return new Envelope();
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        buf.order(order(flags.getEndianess()));
+
+        EnvelopeType type = flags.getEnvelopeIndicator();
+        if (type == null) {
+            return null;
+        }
+        if (type != EnvelopeType.NONE) {
+            if (bytes.length < 8 + type.length) {
+                return null;
+            }
+            return new Envelope(buf.getDouble(8), buf.getDouble(16), buf.getDouble(24),
+                buf.getDouble(32));
+        }
+
+        // no envelope, handle points: byte order, type, x, y
+        if (bytes.length < 8 + 5 + 16) {
+            return null;
+        }
+        buf.order(order(bytes[8] == 0 ? ByteOrderValues.BIG_ENDIAN : ByteOrderValues.LITTLE_ENDIAN));
+
+        // mask out ewkb flags, iso types encode dimension in the thousands
+        int wkbType = buf.getInt(9) & 0xffff;
+        if (wkbType % 1000 != WKBConstants.wkbPoint) {
+            return null;
+        }
+
+        double x = buf.getDouble(13);
+        double y = buf.getDouble(21);
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return new Envelope();
+        }
+        return new Envelope(x, x, y, y);
+    }
+
+    ByteOrder order(int endianess) {
+        return endianess == ByteOrderValues.LITTLE_ENDIAN
+            ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    }
+
     Geometry read(InStream input) throws IOException {
         // read the header
         Header h = readHeader(input);
@@ -26,10 +26,21 @@ import com.vividsolutions.jts.io.OutStream;
 import com.vividsolutions.jts.io.OutputStreamOutStream;
 import com.vividsolutions.jts.io.WKBWriter;
 
+/**
+ * Encodes geometries as GeoPackage geometry blobs.
+ * <p>
+ * Instances reuse internal buffers across calls and should be reused when encoding many
+ * geometries, they are not thread safe.
+ * </p>
+ */
 public class GeoPkgGeomWriter {
 
+    final ByteArrayOutputStream bout = new ByteArrayOutputStream(256);
+    final byte[] buf = new byte[8];
+    WKBWriter wkbWriter;
+
     public byte[] write(Geometry g) throws IOException {
-        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        bout.reset();
         write(g, bout);
         return  bout.toByteArray();
     }
@@ -55,7 +66,6 @@ public class GeoPkgGeomWriter {
         h.setSrid(g.getSRID());
         
         //write out magic + flags + srid + envelope
-        byte[] buf = new byte[8];
         //byte[] buf = new byte[4 + 4 + flags.getEnvelopeIndicator().length];
         buf[0] = 0x47;
         buf[1] = 0x50;
@@ -84,6 +94,9 @@ public class GeoPkgGeomWriter {
         
         //out.write(buf, buf.length);
 
-        new WKBWriter(2, order).write(g, out);
+        if (wkbWriter == null) {
+            wkbWriter = new WKBWriter(2, order);
+        }
+        wkbWriter.write(g, out);
     }
 }
@@ -20,9 +20,14 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.jeo.data.Cursor;
@@ -203,6 +208,10 @@ public class GeoPkgFeatureTest extends GeoPkgTestSupport {
             c.close();
         }
 
+        assertTrue(geopkg.hasSpatialIndex(entry));
+        assertEquals(1, geopkg.count(entry, new VectorQuery().bounds(new Envelope(0, 2, 1, 3))));
+        assertEquals(0, geopkg.count(entry, new VectorQuery().bounds(new Envelope(2, 3, 2, 3))));
+
         //test re-loading the entry
         entry = geopkg.feature("widgets");
         assertNotNull(entry);
@@ -218,6 +227,212 @@ public class GeoPkgFeatureTest extends GeoPkgTestSupport {
         }
     }
     
+    @Test
+    public void testSpatialIndex() throws Exception {
+        FeatureEntry entry = geopkg.feature("states");
+        assertFalse(geopkg.hasSpatialIndex(entry));
+
+        Envelope bbox = new Envelope(-106, -104, 36, 38);
+        VectorQuery q = new VectorQuery().bounds(bbox);
+        Set<Object> expected = names(geopkg.cursor(entry, q));
+        assertEquals(3, expected.size());
+
+        geopkg.createSpatialIndex(entry);
+        assertTrue(geopkg.hasSpatialIndex(entry));
+        assertTrue(geopkg.hasSpatialIndex(geopkg.feature("states")));
+        assertEquals(49, rtreeCount());
+
+        assertEquals(expected, names(geopkg.cursor(entry, q)));
+        assertEquals(3, geopkg.count(entry, q));
+        assertEquals(1, geopkg.count(entry, new VectorQuery().bounds(bbox)
+            .filter("STATE_NAME = 'Colorado'")));
+
+        // index maintained by triggers
+        VectorDataset states = (VectorDataset) geopkg.get("states");
+        Cursor<Feature> c = states.cursor(new VectorQuery().filter("STATE_NAME = 'Texas'").update());
+        assertTrue(c.hasNext());
+        Feature f = c.next();
+        f.put(f.schema().geometry().name(), Geom.point(0, 0).buffer(1));
+        c.write().close();
+        assertEquals(1, geopkg.count(entry, new VectorQuery().bounds(new Envelope(-1, 1, -1, 1))));
+
+        c = states.cursor(new VectorQuery().filter("STATE_NAME = 'Texas'").update());
+        assertTrue(c.hasNext());
+        c.next();
+        c.remove().close();
+        assertEquals(48, rtreeCount());
+        assertEquals(0, geopkg.count(entry, new VectorQuery().bounds(new Envelope(-1, 1, -1, 1))));
+    }
+
+    @Test
+    public void testBulkInsert() throws Exception {
+        Schema schema = new SchemaBuilder("widgets").field("geometry", Point.class)
+            .field("name", String.class).schema();
+
+        FeatureEntry entry = new FeatureEntry();
+        entry.setSrid(4326);
+        entry.setBounds(new Envelope(-180, 180, -90, 90));
+        geopkg.create(entry, schema);
+        assertTrue(geopkg.hasSpatialIndex(entry));
+
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < 2500; i++) {
+            features.add(Features.create(null, schema, Geom.point(i % 100, i / 100), "w" + i));
+        }
+
+        assertEquals(2500, geopkg.insert(entry, features, 1000, true));
+        assertEquals(2500, geopkg.count(entry, new VectorQuery()));
+
+        // index rebuilt after the load
+        assertTrue(geopkg.hasSpatialIndex(entry));
+        assertTrue(geopkg.hasSpatialIndex(geopkg.feature("widgets")));
+        assertEquals(4, geopkg.count(entry, new VectorQuery().bounds(new Envelope(0, 1, 0, 1))));
+
+        // and maintained by triggers again
+        assertEquals(1, geopkg.insert(entry, features.subList(0, 1), 1000, false));
+        assertEquals(5, geopkg.count(entry, new VectorQuery().bounds(new Envelope(0, 1, 0, 1))));
+
+        Backend.Results rs = geopkg.rawQuery("SELECT count(*) FROM rtree_widgets_geometry");
+        try {
+            assertTrue(rs.next());
+            assertEquals(2501, rs.getLong(0));
+        } finally {
+            rs.close();
+        }
+    }
+
+    @Test
+    public void testBulkInsertNulls() throws Exception {
+        Schema schema = new SchemaBuilder("widgets").field("geometry", Point.class)
+            .field("name", String.class).field("size", Integer.class).schema();
+
+        FeatureEntry entry = new FeatureEntry();
+        entry.setSrid(4326);
+        entry.setBounds(new Envelope(-180, 180, -90, 90));
+        geopkg.create(entry, schema);
+
+        // null patterns vary from one feature to the next
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < 10; i++) {
+            features.add(Features.create(null, schema, i % 3 == 0 ? null : Geom.point(i, i), 
+                i % 2 == 0 ? null : "w" + i, i % 5 == 0 ? null : i));
+        }
+        assertEquals(10, geopkg.insert(entry, features, 100, false));
+
+        // a single statement over all columns
+        String sql = entry.getInsertSql();
+        assertNotNull(sql);
+        assertTrue(sql.contains("\"name\"") && sql.contains("\"size\""));
+
+        assertEquals(10, geopkg.count(entry, new VectorQuery()));
+        assertEquals(5, geopkg.count(entry, new VectorQuery().filter("name IS NULL")));
+        assertEquals(2, geopkg.count(entry, new VectorQuery().filter("size IS NULL")));
+        assertEquals(1, geopkg.count(entry, new VectorQuery().filter("name = 'w7' AND size = 7")));
+    }
+
+    @Test
+    public void testBulkInsertFailure() throws Exception {
+        Schema schema = new SchemaBuilder("widgets").field("geometry", Point.class)
+            .field("name", String.class).schema();
+
+        FeatureEntry entry = new FeatureEntry();
+        entry.setSrid(4326);
+        entry.setBounds(new Envelope(-180, 180, -90, 90));
+        geopkg.create(entry, schema);
+
+        final List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < 10; i++) {
+            features.add(Features.create(null, schema, Geom.point(i, i), "w" + i));
+        }
+        Iterable<Feature> failing = new Iterable<Feature>() {
+            @Override
+            public Iterator<Feature> iterator() {
+                final Iterator<Feature> it = features.iterator();
+                return new Iterator<Feature>() {
+                    int i = 0;
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+                    @Override
+                    public Feature next() {
+                        if (i++ == 5) {
+                            throw new IllegalStateException("boom");
+                        }
+                        return it.next();
+                    }
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+
+        try {
+            geopkg.insert(entry, failing, 2, true);
+            fail();
+        }
+        catch(IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+
+        // index rebuilt over the committed batches
+        assertTrue(geopkg.hasSpatialIndex(entry));
+        assertEquals(4, geopkg.count(entry, new VectorQuery()));
+        assertEquals(4, geopkg.count(entry, new VectorQuery().bounds(new Envelope(0, 9, 0, 9))));
+    }
+
+    @Test
+    public void testBounds() throws Exception {
+        FeatureEntry entry = geopkg.feature("states");
+
+        Envelope expected = new Envelope();
+        for (Feature f : geopkg.cursor(entry, new VectorQuery())) {
+            expected.expandToInclude(f.geometry().getEnvelopeInternal());
+        }
+        assertEquals(expected, geopkg.bounds(entry));
+    }
+
+    @Test
+    public void testReadBoundsWithLimit() throws Exception {
+        FeatureEntry entry = geopkg.feature("states");
+        Envelope bbox = new Envelope(-106, -104, 36, 38);
+
+        Set<Object> all = names(geopkg.cursor(entry, new VectorQuery().bounds(bbox)));
+        assertEquals(3, all.size());
+
+        Set<Object> some = names(geopkg.cursor(entry, new VectorQuery().bounds(bbox).limit(2)));
+        assertEquals(2, some.size());
+        assertTrue(all.containsAll(some));
+
+        some = names(geopkg.cursor(entry, new VectorQuery().bounds(bbox).offset(2)));
+        assertEquals(1, some.size());
+        assertTrue(all.containsAll(some));
+    }
+
+    Set<Object> names(Cursor<Feature> c) throws IOException {
+        Set<Object> names = new HashSet<Object>();
+        try {
+            for (Feature f : c) {
+                names.add(f.get("STATE_NAME"));
+            }
+        } finally {
+            c.close();
+        }
+        return names;
+    }
+
+    long rtreeCount() throws IOException {
+        Backend.Results rs = geopkg.rawQuery("SELECT count(*) FROM rtree_states_the_geom");
+        try {
+            assertTrue(rs.next());
+            return rs.getLong(0);
+        } finally {
+            rs.close();
+        }
+    }
+
     private void assertCleanState(VectorDataset states) throws IOException {
         assertEquals(1, states.count(new VectorQuery().filter("STATE_ABBR = 'TX'")));
         assertEquals(49, states.count(new VectorQuery()));
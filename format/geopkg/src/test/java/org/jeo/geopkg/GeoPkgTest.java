@@ -18,6 +18,7 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.Connection;
 
 import org.jeo.data.Cursor;
 import org.jeo.vector.VectorQuery;
@@ -25,6 +26,7 @@ import org.jeo.vector.VectorDataset;
 import org.jeo.vector.Feature;
 import org.jeo.vector.Schema;
 import org.jeo.geom.Geom;
+import org.jeo.sql.StatementCache;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -67,6 +69,101 @@ public class GeoPkgTest extends GeoPkgTestSupport {
         assertEquals(2, widgets.count(new VectorQuery()));
     }
 
+    @Test
+    public void testPragmas() throws Exception {
+        Schema schema = Schema.build("widgets").field("geometry", Point.class, "epsg:4326")
+            .field("name", String.class).schema();
+
+        File file = newFile("wal.gpkg");
+        GeoPkgWorkspace gpkg = new GeoPackage().open(file, new GeoPkgOpts(file)
+            .journalMode("WAL").synchronous("NORMAL").cacheSize(-8192).tempStore("MEMORY")
+            .toMap());
+        try {
+            assertEquals("wal", pragma(gpkg, "journal_mode"));
+            assertEquals("1", pragma(gpkg, "synchronous"));
+            assertEquals("-8192", pragma(gpkg, "cache_size"));
+            assertEquals("2", pragma(gpkg, "temp_store"));
+
+            VectorDataset widgets = gpkg.create(schema);
+
+            // a writer can commit while a reader is open
+            Cursor<Feature> r = widgets.cursor(new VectorQuery());
+            try {
+                assertFalse(r.hasNext());
+
+                Cursor<Feature> c = widgets.cursor(new VectorQuery().append());
+                Feature f = c.next();
+                f.put(Geom.point(0, 0));
+                f.put("name", "zero");
+                c.write().close();
+            }
+            finally {
+                r.close();
+            }
+
+            assertEquals(1, widgets.count(new VectorQuery()));
+        }
+        finally {
+            gpkg.close();
+        }
+    }
+
+    @Test
+    public void testStatementCache() throws Exception {
+        Schema schema = Schema.build("widgets").field("geometry", Point.class, "epsg:4326")
+            .field("name", String.class).schema();
+
+        File file = newFile("cache.gpkg");
+        GeoPkgWorkspace gpkg = new GeoPackage().open(file, new GeoPkgOpts(file).poolSize(1)
+            .statementCacheSize(4).toMap());
+        try {
+            VectorDataset widgets = gpkg.create(schema);
+
+            Cursor<Feature> c = widgets.cursor(new VectorQuery().append());
+            for (int i = 0; i < 10; i++) {
+                Feature f = c.next();
+                f.put(Geom.point(i, i));
+                f.put("name", "widget " + i);
+                c.write();
+            }
+            c.close();
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals(1, widgets.count(new VectorQuery().filter("name = 'widget " + i + "'")));
+            }
+
+            ConnectionPool pool = ((JDBCBackend) gpkg.backend).pool;
+            Connection cx = pool.acquire();
+            try {
+                StatementCache cache = pool.cache(cx);
+                assertTrue(cache.size() <= 4);
+                assertTrue(cache.hits() >= 4);
+            }
+            finally {
+                pool.release(cx);
+            }
+        }
+        finally {
+            gpkg.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPragma() throws Exception {
+        File file = newFile("bad.gpkg");
+        new GeoPackage().open(file, new GeoPkgOpts(file).journalMode("WAL; DROP TABLE x").toMap());
+    }
+
+    String pragma(GeoPkgWorkspace gpkg, String name) throws IOException {
+        Backend.Results rs = gpkg.rawQuery("PRAGMA " + name);
+        try {
+            assertTrue(rs.next());
+            return rs.getString(0);
+        } finally {
+            rs.close();
+        }
+    }
+
     File newFile(String name) throws IOException {
         File f = new File(new File("target"), name);
         if (f.exists()) {
@@ -15,6 +15,7 @@
 package org.jeo.geopkg;
 
 import static org.jeo.Tests.unzip;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -22,7 +23,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.jeo.data.Cursor;
@@ -70,4 +73,89 @@ public class GeoPkgTileTest extends GeoPkgTestSupport {
         assertNull(r.next());
     }
 
+    @Test
+    public void testReadCached() throws Exception {
+        TileEntry entry = geopkg.tile("tiles");
+        TileCache cache = geopkg.getTileCache();
+        assertNotNull(cache);
+
+        Cursor<Tile> r = geopkg.read(entry);
+        assertTrue(r.hasNext());
+        Tile t = r.next();
+        r.close();
+
+        Tile read = geopkg.read(entry, t.z(), t.x(), t.y());
+        assertNotNull(read);
+        assertArrayEquals(t.data(), read.data());
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+
+        read = geopkg.read(entry, t.z(), t.x(), t.y());
+        assertArrayEquals(t.data(), read.data());
+        assertEquals(1, cache.hits());
+
+        // missing tiles are cached too
+        assertNull(geopkg.read(entry, 20, 0, 0));
+        assertNull(geopkg.read(entry, 20, 0, 0));
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testReadRangeCached() throws Exception {
+        TileEntry entry = geopkg.tile("tiles");
+        TileCache cache = geopkg.getTileCache();
+
+        Set<String> all = tiles(geopkg.read(entry));
+        Set<String> range = tiles(geopkg.read(entry, 0, 1, 0, 1, 0, 1));
+        assertFalse(range.isEmpty());
+        for (String t : range) {
+            assertTrue(all.contains(t));
+        }
+
+        long misses = cache.misses();
+        assertEquals(range, tiles(geopkg.read(entry, 0, 1, 0, 1, 0, 1)));
+        assertEquals(misses, cache.misses());
+        assertEquals(8, cache.count());
+
+        // single tile reads within the range are hits
+        long hits = cache.hits();
+        geopkg.read(entry, 1, 1, 1);
+        assertEquals(hits + 1, cache.hits());
+    }
+
+    @Test
+    public void testCacheEviction() throws Exception {
+        TileCache cache = new TileCache(3 * (100 + TileCache.OVERHEAD));
+        cache.put("t", 0, 0, 0, new byte[100]);
+        cache.put("t", 0, 0, 1, new byte[100]);
+        cache.put("t", 0, 0, 2, new byte[100]);
+        assertEquals(3, cache.count());
+
+        // touch the first tile so the second is evicted
+        assertNotNull(cache.get("t", 0, 0, 0));
+        cache.put("t", 0, 0, 3, new byte[100]);
+        assertEquals(3, cache.count());
+        assertNull(cache.get("t", 0, 0, 1));
+        assertNotNull(cache.get("t", 0, 0, 0));
+        assertTrue(cache.size() <= cache.getMaxSize());
+        assertEquals(2 / 3d, cache.hitRatio(), 0.01);
+
+        cache.invalidate("t");
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.size());
+    }
+
+    Set<String> tiles(Cursor<Tile> c) throws Exception {
+        Set<String> tiles = new HashSet<String>();
+        try {
+            for (Tile t : c) {
+                tiles.add(t.z() + "/" + t.x() + "/" + t.y() + "/" + t.data().length);
+            }
+        } finally {
+            c.close();
+        }
+        return tiles;
+    }
+
 }
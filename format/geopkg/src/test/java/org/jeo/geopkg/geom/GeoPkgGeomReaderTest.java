@@ -0,0 +1,71 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.geopkg.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jeo.geom.Geom;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+public class GeoPkgGeomReaderTest {
+
+    GeoPkgGeomReader reader = new GeoPkgGeomReader();
+    GeoPkgGeomWriter writer = new GeoPkgGeomWriter();
+
+    @Test
+    public void testEnvelopeFromHeader() throws Exception {
+        Geometry g = Geom.point(1, 2).buffer(3);
+        byte[] blob = writer.write(g);
+
+        Envelope e = reader.envelope(blob);
+        assertNotNull(e);
+        assertEquals(g.getEnvelopeInternal(), e);
+        assertEquals(g, reader.read(blob));
+    }
+
+    @Test
+    public void testEnvelopePoint() throws Exception {
+        byte[] blob = writer.write(Geom.point(1, 2));
+        assertEquals(new Envelope(1, 1, 2, 2), reader.envelope(blob));
+
+        // no envelope in header and not a point, wkb type is big endian at offset 9
+        blob[12] = 2;
+        assertNull(reader.envelope(blob));
+    }
+
+    @Test
+    public void testEnvelopeEmpty() throws Exception {
+        byte[] blob = writer.write(Geom.point(1, 2));
+        blob[3] |= 0x10;
+        assertTrue(reader.envelope(blob).isNull());
+    }
+
+    @Test
+    public void testWriterReuse() throws Exception {
+        Geometry g1 = Geom.point(1, 2).buffer(3);
+        Geometry g2 = Geom.point(4, 5);
+
+        byte[] b1 = writer.write(g1);
+        byte[] b2 = writer.write(g2);
+        assertEquals(g1, reader.read(b1));
+        assertEquals(g2, reader.read(b2));
+    }
+}
@@ -14,16 +14,30 @@
  */
 package org.jeo.mongo;
 
+import static org.jeo.mongo.MongoWorkspace.LOG;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.jeo.data.Cursor;
 import org.jeo.vector.Feature;
+import org.jeo.vector.FeatureCursor;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
-import org.jeo.vector.FeatureCursor;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
 
+/**
+ * Cursor over a mongo collection.
+ * <p>
+ * In append mode written features are buffered and inserted in batches of
+ * {@link MongoOpts#getBatchSize()}, the remaining features being inserted when the cursor is
+ * closed. A failed batch is reported with the range of features in it, when batches are not
+ * ordered the rest of the failed batch is still inserted.
+ * </p>
+ */
 public class MongoCursor extends FeatureCursor {
 
     DBCursor dbCursor;
@@ -32,11 +46,34 @@ public class MongoCursor extends FeatureCursor {
 
     Feature next;
 
+    WriteConcern writeConcern;
+    int batchSize;
+    List<DBObject> batch;
+
+    /** number of features written, and batches inserted */
+    long written = 0;
+    int batches = 0;
+    long time = 0;
+
     MongoCursor(Mode mode, DBCursor dbCursor, MongoDataset dataset) {
         super(mode);
         this.dbCursor = dbCursor;
         this.dataset = dataset;
         this.mapper = dataset.mapper();
+
+        if (mode == APPEND || mode == UPDATE) {
+            MongoOpts opts = dataset.mongo.mopts;
+            writeConcern = opts.getWriteConcern() != null ? 
+                WriteConcern.valueOf(opts.getWriteConcern()) : dataset.getCollection().getWriteConcern();
+
+            if (mode == APPEND) {
+                batchSize = Math.max(1, opts.getBatchSize() != null ? opts.getBatchSize() : 1);
+                if (opts.getOrdered() != null && !opts.getOrdered()) {
+                    writeConcern = writeConcern.continueOnErrorForInsert(true);
+                }
+                batch = new ArrayList<DBObject>(batchSize);
+            }
+        }
     }
 
     @Override
@@ -56,24 +93,63 @@ public class MongoCursor extends FeatureCursor {
 
     @Override
     protected void doWrite() throws IOException {
-        //TODO: check write result
+        DBObject obj = mapper.object(next, dataset);
         if (getMode() == APPEND) {
-            DBObject obj = mapper.object(next, dataset);
-            dataset.getCollection().insert(obj);
+            batch.add(obj);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
         }
         else {
-            DBObject obj = mapper.object(next, dataset);
-            dataset.getCollection().update(new BasicDBObject("_id", obj.get("_id")), obj);
+            try {
+                dataset.getCollection().update(
+                    new BasicDBObject("_id", obj.get("_id")), obj, false, false, writeConcern);
+            }
+            catch(MongoException e) {
+                throw new IOException("Error updating feature " + obj.get("_id"), e);
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long t = System.currentTimeMillis();
+        try {
+            dataset.getCollection().insert(batch, writeConcern);
+        }
+        catch(MongoException e) {
+            throw new IOException(String.format(
+                "Error inserting batch %d (features %d to %d), %d features inserted previously", 
+                batches, written, written + batch.size() - 1, written), e);
+        }
+        finally {
+            time += System.currentTimeMillis() - t;
+            written += batch.size();
+            batches++;
+            batch.clear();
         }
     }
 
     @Override
     public void close() throws IOException {
-        if (dbCursor != null) {
-            dbCursor.close();
-            dbCursor = null;
+        try {
+            if (batch != null) {
+                flush();
+                if (LOG.isDebugEnabled() && written > 0) {
+                    LOG.debug(String.format("Inserted %d features in %d batches in %d ms", 
+                        written, batches, time));
+                }
+                batch = null;
+            }
+        }
+        finally {
+            if (dbCursor != null) {
+                dbCursor.close();
+                dbCursor = null;
+            }
         }
     }
-
-    
 }
@@ -39,6 +39,25 @@ public class MongoDB implements VectorDriver<MongoWorkspace> {
     
     public static final Key<Password> PASSWD = new Key<Password>("passwd", Password.class);
 
+    /**
+     * Number of features inserted at once when appending, defaults to 1. Larger values buffer
+     * features and send them in batches, the last partial batch is sent when the cursor is closed.
+     */
+    public static final Key<Integer> BATCH_SIZE = new Key<Integer>("batch_size", Integer.class, 1);
+
+    /**
+     * Whether a batch stops at the first failed insert, defaults to true. When false the rest of
+     * the batch is still inserted and the failure reported afterward.
+     */
+    public static final Key<Boolean> ORDERED = new Key<Boolean>("ordered", Boolean.class, true);
+
+    /**
+     * Write concern for inserts and updates, by name, for example <tt>SAFE</tt> or 
+     * <tt>JOURNAL_SAFE</tt>. Defaults to the write concern of the collection.
+     */
+    public static final Key<String> WRITE_CONCERN = 
+        new Key<String>("write_concern", String.class);
+
     public static MongoWorkspace open(MongoOpts opts) throws IOException {
         return new MongoWorkspace(opts);
     }
@@ -65,7 +84,7 @@ public class MongoDB implements VectorDriver<MongoWorkspace> {
 
     @Override
     public List<Key<?>> keys() {
-        return (List) Arrays.asList(DB, HOST, PORT, USER, PASSWD);
+        return (List) Arrays.asList(DB, HOST, PORT, USER, PASSWD, BATCH_SIZE, ORDERED, WRITE_CONCERN);
     }
 
     @Override
@@ -14,23 +14,33 @@
  */
 package org.jeo.mongo;
 
+import static org.jeo.mongo.MongoWorkspace.LOG;
+
 import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.jeo.data.Cursor.Mode;
 import org.jeo.data.Driver;
+import org.jeo.data.Sort;
+import org.jeo.vector.Feature;
 import org.jeo.vector.FeatureCursor;
 import org.jeo.vector.VectorQuery;
 import org.jeo.vector.VectorQueryPlan;
 import org.jeo.vector.VectorDataset;
 import org.jeo.vector.Schema;
 import org.jeo.vector.SchemaBuilder;
+import org.jeo.filter.Filter;
 import org.jeo.filter.Filters;
 import org.jeo.geom.Envelopes;
 import org.jeo.proj.Proj;
 import org.jeo.util.Key;
+import org.jeo.util.Pair;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
@@ -114,16 +124,13 @@ public class MongoDataset implements VectorDataset {
 
         VectorQueryPlan qp = new VectorQueryPlan(q);
 
-        if (!Filters.isTrueOrNull(q.filter())) {
-            // TODO: transform natively to filter 
+        DBObject query = encodeQuery(q, qp);
+        if (!qp.isFiltered()) {
             // we can't optimize
-            return qp.apply(cursor(q)).count();
+            return cursor(q).count();
         }
 
-        long count = 
-            q.bounds() != null ? dbcol.count(encodeBboxQuery(q.bounds())) : dbcol.count();
-
-        return q.adjustCount(count);
+        return q.adjustCount(dbcol.count(query));
     }
 
     @Override
@@ -134,24 +141,131 @@ public class MongoDataset implements VectorDataset {
 
         VectorQueryPlan qp = new VectorQueryPlan(q);
 
-        //TODO: sorting
-        DBCursor dbCursor = !Envelopes.isNull(q.bounds()) ?
-            dbcol.find(encodeBboxQuery(q.bounds())) : dbcol.find();
+        DBObject query = encodeQuery(q, qp);
+        Filter<Feature> residual = null;
+        if (!qp.isFiltered() && mapping() != null) {
+            // evaluate whatever could not be encoded client side
+            Pair<DBObject, Filter<Feature>> encoded = new MongoFilterEncoder(mapping()).encode(q.filter());
+            query = and(query, encoded.first);
+            residual = encoded.second;
+        }
+
+        DBObject keys = q.mode() == Mode.READ ? encodeFields(q, residual) : null;
+        DBCursor dbCursor = keys != null ? dbcol.find(query, keys) : dbcol.find(query);
+
+        DBObject sort = encodeSort(q);
+        if (sort != null) {
+            dbCursor.sort(sort);
+            qp.sorted();
+        }
+
+        FeatureCursor cursor = new MongoCursor(q.mode(), dbCursor, this);
+        if (residual != null) {
+            cursor = cursor.filter(residual);
+            qp.filtered();
+        }
+
+        // paging must follow any client side filtering
+        if (qp.isFiltered() && residual == null) {
+            Integer offset = q.offset();
+            if (offset != null) {
+                dbCursor.skip(offset);
+                qp.offsetted();
+            }
+
+            Integer limit = q.limit();
+            if (limit != null) {
+                dbCursor.limit(limit);
+                qp.limited();
+            }
+        }
+
+        return qp.apply(cursor);
+    }
+
+    /**
+     * The mapping used to translate properties to document paths, <code>null</code> if the mapper
+     * is not a {@link DefaultMapper} in which case filters, sorting and fields are handled client 
+     * side.
+     */
+    Mapping mapping() {
+        MongoMapper mapper = mapper();
+        return mapper instanceof DefaultMapper ? ((DefaultMapper) mapper).mapping : null;
+    }
+
+    /**
+     * Encodes the bounds and filter of a query, marking the plan as filtered if the filter was 
+     * fully encoded.
+     */
+    DBObject encodeQuery(VectorQuery q, VectorQueryPlan qp) {
+        DBObject query = !Envelopes.isNull(q.bounds()) ? 
+            encodeBboxQuery(q.bounds()) : new BasicDBObject();
         qp.bounded();
 
-        Integer offset = q.offset();
-        if (offset != null) {
-            dbCursor.skip(offset);
-            qp.offsetted();
+        Filter<Feature> filter = q.filter();
+        if (Filters.isTrueOrNull(filter)) {
+            qp.filtered();
+        }
+        else if (mapping() != null) {
+            try {
+                query = and(query, new MongoFilterEncoder(mapping()).encodeFully(filter));
+                qp.filtered();
+            }
+            catch(UnsupportedOperationException e) {
+                LOG.debug("Unable to natively encode filter", e);
+            }
+        }
+        return query;
+    }
+
+    DBObject and(DBObject q1, DBObject q2) {
+        if (q1.keySet().isEmpty()) {
+            return q2;
+        }
+        if (q2.keySet().isEmpty()) {
+            return q1;
+        }
+
+        BasicDBList and = new BasicDBList();
+        and.add(q1);
+        and.add(q2);
+        return new BasicDBObject("$and", and);
+    }
+
+    DBObject encodeFields(VectorQuery q, Filter<Feature> residual) {
+        Mapping mapping = mapping();
+        if (q.fields().isEmpty() || mapping == null) {
+            return null;
         }
 
-        Integer limit = q.limit();
-        if (limit != null) {
-            dbCursor.limit(limit);
-            qp.limited();
+        MongoFilterEncoder encoder = new MongoFilterEncoder(mapping);
+
+        // include properties needed to evaluate the residual filter
+        Set<String> fields = new LinkedHashSet<String>(q.fields());
+        if (residual != null) {
+            fields.addAll(Filters.properties(residual));
+        }
+
+        BasicDBObject keys = new BasicDBObject();
+        for (String fld : fields) {
+            keys.put(encoder.path(fld), 1);
+        }
+        return keys;
+    }
+
+    DBObject encodeSort(VectorQuery q) {
+        Mapping mapping = mapping();
+        if (q.sort().isEmpty() || mapping == null) {
+            return null;
         }
 
-        return qp.apply(new MongoCursor(q.mode(), dbCursor, this));
+        MongoFilterEncoder encoder = new MongoFilterEncoder(mapping);
+
+        BasicDBObject sort = new BasicDBObject();
+        for (Sort s : q.sort()) {
+            sort.put(encoder.path(s.getProperty()), s.isAscending() ? 1 : -1);
+        }
+        return sort;
     }
 
     DBObject encodeBboxQuery(Envelope bbox) {
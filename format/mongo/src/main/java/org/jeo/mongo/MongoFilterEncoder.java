@@ -0,0 +1,348 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.mongo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.bson.types.ObjectId;
+import org.jeo.filter.All;
+import org.jeo.filter.Comparison;
+import org.jeo.filter.Expression;
+import org.jeo.filter.Filter;
+import org.jeo.filter.FilterVisitor;
+import org.jeo.filter.Function;
+import org.jeo.filter.Id;
+import org.jeo.filter.In;
+import org.jeo.filter.Like;
+import org.jeo.filter.Literal;
+import org.jeo.filter.Logic;
+import org.jeo.filter.Math;
+import org.jeo.filter.Mixed;
+import org.jeo.filter.None;
+import org.jeo.filter.Null;
+import org.jeo.filter.Property;
+import org.jeo.filter.Self;
+import org.jeo.filter.Spatial;
+import org.jeo.filter.TypeOf;
+import org.jeo.util.Pair;
+import org.jeo.vector.Feature;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Transforms a filter object into a mongo query document.
+ * <p>
+ * Feature properties are resolved to document paths with the {@link Mapping} of a
+ * {@link DefaultMapper}. Filters that can't be expressed as a query, such as those containing
+ * functions or math expressions, are not encoded. When the filter is a conjunction each part is
+ * encoded separately and the parts that can't be encoded are returned as a residual filter to be
+ * evaluated client side, see {@link #encode(Filter)}.
+ * </p>
+ * <p>
+ * Comparisons are evaluated by mongo, which unlike {@link Comparison#test(Object)} does not
+ * convert values of different types before comparing them.
+ * </p>
+ */
+public class MongoFilterEncoder extends FilterVisitor {
+
+    final Mapping mapping;
+
+    public MongoFilterEncoder(Mapping mapping) {
+        this.mapping = mapping;
+    }
+
+    /**
+     * Encodes a filter.
+     *
+     * @return A pair of the query document and the residual filter that could not be encoded,
+     * <code>null</code> if the entire filter was encoded.
+     */
+    public Pair<DBObject, Filter<Feature>> encode(Filter<Feature> filter) {
+        if (filter instanceof Logic && ((Logic<Feature>) filter).type() == Logic.Type.AND) {
+            BasicDBList encoded = new BasicDBList();
+            List<Filter<Feature>> residual = new ArrayList<Filter<Feature>>();
+
+            for (Filter<Feature> part : ((Logic<Feature>) filter).parts()) {
+                Pair<DBObject, Filter<Feature>> p = encode(part);
+                if (!p.first.keySet().isEmpty()) {
+                    encoded.add(p.first);
+                }
+                if (p.second != null) {
+                    residual.add(p.second);
+                }
+            }
+
+            DBObject query = encoded.isEmpty() ? new BasicDBObject() :
+                encoded.size() == 1 ? (DBObject) encoded.get(0) : new BasicDBObject("$and", encoded);
+
+            Filter<Feature> rest = residual.isEmpty() ? null : residual.size() == 1 ?
+                residual.get(0) : new Logic<Feature>(Logic.Type.AND, residual);
+            return Pair.of(query, rest);
+        }
+
+        try {
+            return Pair.of(encodeFully(filter), null);
+        }
+        catch(UnsupportedOperationException e) {
+            return Pair.of((DBObject) new BasicDBObject(), filter);
+        }
+    }
+
+    /**
+     * Encodes a filter, throwing {@link UnsupportedOperationException} if any part of it can
+     * not be encoded.
+     */
+    public DBObject encodeFully(Filter<?> filter) {
+        return (DBObject) filter.accept(this, null);
+    }
+
+    /**
+     * The document path of a feature property.
+     */
+    public String path(String property) {
+        Path g = mapping.getGeometryPath(property);
+        if (g != null) {
+            return g.join();
+        }
+        return mapping.getPropertyPath().append(property).join();
+    }
+
+    protected Object abort(Object obj, String reason) {
+        throw new UnsupportedOperationException(
+            String.format("Unable to encode %s as mongo query, %s", obj, reason));
+    }
+
+    @Override
+    public Object visit(All<?> all, Object obj) {
+        return new BasicDBObject();
+    }
+
+    @Override
+    public Object visit(None<?> none, Object obj) {
+        // every document has an id
+        return new BasicDBObject("_id", new BasicDBObject("$exists", false));
+    }
+
+    @Override
+    public Object visit(Id<?> id, Object obj) {
+        BasicDBList ids = new BasicDBList();
+        for (Expression e : id.ids()) {
+            Object val = e.evaluate(null);
+            if (val == null || !ObjectId.isValid(val.toString())) {
+                return abort(id, "invalid object id: " + val);
+            }
+            ids.add(new ObjectId(val.toString()));
+        }
+        return new BasicDBObject("_id", new BasicDBObject("$in", ids));
+    }
+
+    @Override
+    public Object visit(Logic<?> logic, Object obj) {
+        BasicDBList parts = new BasicDBList();
+        for (Filter<?> f : logic.parts()) {
+            parts.add(f.accept(this, obj));
+        }
+
+        switch(logic.type()) {
+        case AND:
+            return new BasicDBObject("$and", parts);
+        case OR:
+            return new BasicDBObject("$or", parts);
+        case NOT:
+            return new BasicDBObject("$nor", parts);
+        default:
+            return abort(logic, "unsupported logic operator");
+        }
+    }
+
+    @Override
+    public Object visit(Comparison<?> compare, Object obj) {
+        Comparison.Type type = compare.type();
+
+        Property prop;
+        Literal lit;
+        if (compare.left() instanceof Property && compare.right() instanceof Literal) {
+            prop = (Property) compare.left();
+            lit = (Literal) compare.right();
+        }
+        else if (compare.left() instanceof Literal && compare.right() instanceof Property) {
+            prop = (Property) compare.right();
+            lit = (Literal) compare.left();
+            type = flip(type);
+        }
+        else {
+            return abort(compare, "only comparisons of a property and a literal are supported");
+        }
+
+        Object val = value(lit);
+        String path = path(prop.property());
+        switch(type) {
+        case EQUAL:
+            return new BasicDBObject(path, val);
+        case NOT_EQUAL:
+            return new BasicDBObject(path, new BasicDBObject("$ne", val));
+        case LESS:
+            return new BasicDBObject(path, new BasicDBObject("$lt", val));
+        case LESS_OR_EQUAL:
+            return new BasicDBObject(path, new BasicDBObject("$lte", val));
+        case GREATER:
+            return new BasicDBObject(path, new BasicDBObject("$gt", val));
+        case GREATER_OR_EQUAL:
+            return new BasicDBObject(path, new BasicDBObject("$gte", val));
+        default:
+            return abort(compare, "unsupported comparison");
+        }
+    }
+
+    Comparison.Type flip(Comparison.Type type) {
+        switch(type) {
+        case LESS:
+            return Comparison.Type.GREATER;
+        case LESS_OR_EQUAL:
+            return Comparison.Type.GREATER_OR_EQUAL;
+        case GREATER:
+            return Comparison.Type.LESS;
+        case GREATER_OR_EQUAL:
+            return Comparison.Type.LESS_OR_EQUAL;
+        default:
+            return type;
+        }
+    }
+
+    Object value(Literal lit) {
+        Object val = lit.evaluate(null);
+        if (val instanceof Geometry) {
+            abort(lit, "geometry literal not supported in comparison");
+        }
+        return val;
+    }
+
+    @Override
+    public Object visit(Like<?> like, Object obj) {
+        Object match = like.match().evaluate(null);
+        if (match == null) {
+            return abort(like, "no pattern");
+        }
+
+        // same translation as Like itself, the match must be for the entire value
+        Pattern p = Pattern.compile("^" + match.toString().replace("%", ".*") + "$");
+
+        String path = path(like.property().property());
+        return like.isNegated() ? new BasicDBObject(path, new BasicDBObject("$not", p)) :
+            new BasicDBObject(path, p);
+    }
+
+    @Override
+    public Object visit(In<?> in, Object obj) {
+        BasicDBList vals = new BasicDBList();
+        for (Expression e : in.values()) {
+            if (!(e instanceof Literal)) {
+                return abort(in, "only literal values supported");
+            }
+            vals.add(value((Literal) e));
+        }
+
+        String path = path(in.property().property());
+        return new BasicDBObject(path, new BasicDBObject(in.isNegated() ? "$nin" : "$in", vals));
+    }
+
+    @Override
+    public Object visit(Null<?> isNull, Object obj) {
+        // null matches documents without the property too, just like evaluating the property
+        String path = path(isNull.property().property());
+        return isNull.isNegated() ? new BasicDBObject(path, new BasicDBObject("$ne", null)) :
+            new BasicDBObject(path, null);
+    }
+
+    @Override
+    public Object visit(Spatial<?> spatial, Object obj) {
+        Property prop;
+        Object val;
+        if (spatial.left() instanceof Property && spatial.right() instanceof Literal) {
+            prop = (Property) spatial.left();
+            val = ((Literal) spatial.right()).evaluate(null);
+        }
+        else if (spatial.left() instanceof Literal && spatial.right() instanceof Property
+            && spatial.type() == Spatial.Type.INTERSECTS) {
+            prop = (Property) spatial.right();
+            val = ((Literal) spatial.left()).evaluate(null);
+        }
+        else {
+            return abort(spatial, "only property and literal operands supported");
+        }
+
+        if (!(val instanceof Geometry)) {
+            return abort(spatial, "literal is not a geometry");
+        }
+        if (mapping.getGeometryPath(prop.property()) == null) {
+            return abort(spatial, prop.property() + " is not a geometry path");
+        }
+
+        String op = null;
+        switch(spatial.type()) {
+        case INTERSECTS:
+            op = "$geoIntersects";
+            break;
+        case WITHIN:
+            op = "$geoWithin";
+            break;
+        default:
+            return abort(spatial, "unsupported spatial operator");
+        }
+
+        return new BasicDBObject(path(prop.property()),
+            new BasicDBObject(op, new BasicDBObject("$geometry", GeoJSON.toObject((Geometry) val))));
+    }
+
+    @Override
+    public Object visit(Self self, Object obj) {
+        return abort(self, "expression not supported");
+    }
+
+    @Override
+    public Object visit(Function function, Object obj) {
+        return abort(function, "functions not supported");
+    }
+
+    @Override
+    public Object visit(Mixed mixed, Object obj) {
+        return abort(mixed, "mixed expressions not supported");
+    }
+
+    @Override
+    public Object visit(Math math, Object obj) {
+        return abort(math, "math expressions not supported");
+    }
+
+    @Override
+    public Object visit(TypeOf<?> inst, Object obj) {
+        return abort(inst, "type filters not supported");
+    }
+
+    @Override
+    public Object visit(Expression expr, Object obj) {
+        return abort(expr, "expression not supported");
+    }
+
+    @Override
+    public Object visit(Filter<?> filter, Object obj) {
+        return abort(filter, "filter not supported");
+    }
+}
@@ -26,6 +26,7 @@ import org.jeo.util.Password;
 import com.mongodb.DB;
 import com.mongodb.Mongo;
 import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
 
 public class MongoOpts {
     String db; 
@@ -33,13 +34,19 @@ public class MongoOpts {
     Integer port = PORT.getDefault();
     String user = USER.getDefault();
     Password passwd;
+    Integer batchSize = BATCH_SIZE.getDefault();
+    Boolean ordered = ORDERED.getDefault();
+    String writeConcern;
 
     public static MongoOpts fromMap(Map<?,Object> map) {
         MongoOpts mopts = new MongoOpts(DB.get(map));
         mopts.host(HOST.get(map))
              .port(PORT.get(map))
              .user(USER.get(map))
-             .passwd(PASSWD.get(map));
+             .passwd(PASSWD.get(map))
+             .batchSize(BATCH_SIZE.get(map))
+             .ordered(ORDERED.get(map))
+             .writeConcern(WRITE_CONCERN.get(map));
         return mopts;
     }
 
@@ -67,6 +74,24 @@ public class MongoOpts {
         return this;
     }
     
+    public MongoOpts batchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public MongoOpts ordered(Boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    public MongoOpts writeConcern(String writeConcern) {
+        if (writeConcern != null && WriteConcern.valueOf(writeConcern) == null) {
+            throw new IllegalArgumentException("Unknown write concern: " + writeConcern);
+        }
+        this.writeConcern = writeConcern;
+        return this;
+    }
+
     public String getDb() {
         return db;
     }
@@ -87,6 +112,18 @@ public class MongoOpts {
         return passwd;
     }
 
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public Boolean getOrdered() {
+        return ordered;
+    }
+
+    public String getWriteConcern() {
+        return writeConcern;
+    }
+
     public Map<Key<?>,Object> toMap() {
         Map<Key<?>,Object> map = new LinkedHashMap<Key<?>, Object>();
         map.put(DB, db);
@@ -96,6 +133,11 @@ public class MongoOpts {
         if (passwd != null) {
             map.put(PASSWD, passwd);
         }
+        map.put(BATCH_SIZE, batchSize);
+        map.put(ORDERED, ordered);
+        if (writeConcern != null) {
+            map.put(WRITE_CONCERN, writeConcern);
+        }
         return map;
     }
 
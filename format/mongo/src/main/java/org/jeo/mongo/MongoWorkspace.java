@@ -25,6 +25,8 @@ import org.jeo.data.Handle;
 import org.jeo.data.Workspace;
 import org.jeo.vector.Schema;
 import org.jeo.util.Key;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
@@ -32,6 +34,8 @@ import com.mongodb.DBCollection;
 
 public class MongoWorkspace implements Workspace {
 
+    static Logger LOG = LoggerFactory.getLogger(MongoDB.class);
+
     MongoOpts mopts;
     DB db;
     MongoMapper mapper;
@@ -43,6 +47,7 @@ public class MongoWorkspace implements Workspace {
 
     MongoWorkspace(DB db) {
         this.db = db;
+        this.mopts = new MongoOpts(db.getName());
         this.mapper = new DefaultMapper();
     }
 
@@ -52,15 +52,15 @@ public class Path {
     }
 
     public Path prepend(String part) {
-        Path p = new Path(parts);
-        p.parts.add(0, part);
-        return p;
+        List<String> list = new ArrayList<String>(parts);
+        list.add(0, part);
+        return new Path(list);
     }
 
     public Path append(String part) {
-        Path p = new Path(parts);
-        p.parts.addAll(new Path(part).getParts());
-        return p;
+        List<String> list = new ArrayList<String>(parts);
+        list.addAll(new Path(part).getParts());
+        return new Path(list);
     }
 
     public String join() {
@@ -0,0 +1,111 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.jeo.filter.Filter;
+import org.jeo.filter.cql.CQL;
+import org.jeo.util.Pair;
+import org.jeo.vector.Feature;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+
+public class MongoFilterEncoderTest {
+
+    MongoFilterEncoder encoder;
+
+    @Before
+    public void setUp() {
+        encoder = new MongoFilterEncoder(new Mapping().geometry("geometry").properties("properties"));
+    }
+
+    @Test
+    public void testCompare() throws Exception {
+        assertEncoded("{ 'properties.name' : 'foo'}", "name = 'foo'");
+        assertEncoded("{ 'properties.count' : { '$ne' : 1}}", "count <> 1");
+        assertEncoded("{ 'properties.count' : { '$lt' : 1}}", "count < 1");
+        assertEncoded("{ 'properties.count' : { '$gte' : 1}}", "count >= 1");
+
+        // literal on the left
+        assertEncoded("{ 'properties.count' : { '$gt' : 1}}", "1 < count");
+    }
+
+    @Test
+    public void testLogic() throws Exception {
+        assertEncoded("{ '$or' : [ { 'properties.a' : 1} , { 'properties.b' : 2}]}", "a = 1 OR b = 2");
+        assertEncoded("{ '$and' : [ { 'properties.a' : 1} , { 'properties.b' : 2}]}", "a = 1 AND b = 2");
+        assertEncoded("{ '$nor' : [ { 'properties.a' : 1}]}", "NOT (a = 1)");
+    }
+
+    @Test
+    public void testInAndNull() throws Exception {
+        assertEncoded("{ 'properties.a' : { '$in' : [ 'x' , 'y']}}", "a IN ('x', 'y')");
+        assertEncoded("{ 'properties.a' : { '$nin' : [ 1 , 2]}}", "a NOT IN (1, 2)");
+        assertEncoded("{ 'properties.a' :  null }", "a IS NULL");
+        assertEncoded("{ 'properties.a' : { '$ne' :  null }}", "a IS NOT NULL");
+    }
+
+    @Test
+    public void testLike() throws Exception {
+        DBObject q = encode("name LIKE 'foo%'");
+        Pattern p = (Pattern) q.get("properties.name");
+        assertEquals("^foo.*$", p.pattern());
+        assertTrue(p.matcher("foobar").matches());
+    }
+
+    @Test
+    public void testSpatial() throws Exception {
+        DBObject q = encode("INTERSECTS(geometry, POINT(1 2))");
+        DBObject op = (DBObject) ((DBObject) q.get("geometry")).get("$geoIntersects");
+        assertEquals("Point", ((DBObject) op.get("$geometry")).get("type"));
+    }
+
+    @Test
+    public void testResidual() throws Exception {
+        Filter<Feature> f = CQL.parse("a * 2 > 10 AND b = 1 AND c = 2");
+        Pair<DBObject, Filter<Feature>> p = encoder.encode(f);
+
+        assertEquals(JSON.parse("{ '$and' : [ { 'properties.b' : 1} , { 'properties.c' : 2}]}"), p.first);
+        assertEquals(CQL.parse("a * 2 > 10"), p.second);
+
+        p = encoder.encode(CQL.parse("a * 2 > 10 OR b = 1"));
+        assertTrue(p.first.keySet().isEmpty());
+        assertEquals(CQL.parse("a * 2 > 10 OR b = 1"), p.second);
+
+        p = encoder.encode(CQL.parse("b = 1"));
+        assertNull(p.second);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupported() throws Exception {
+        encode("a * 2 > 10");
+    }
+
+    DBObject encode(String cql) throws Exception {
+        return encoder.encodeFully(CQL.parse(cql));
+    }
+
+    void assertEncoded(String json, String cql) throws Exception {
+        assertEquals(JSON.parse(json), encode(cql));
+    }
+}
@@ -17,8 +17,12 @@ package org.jeo.mongo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.jeo.data.Cursor;
@@ -156,6 +160,53 @@ public class MongoTest {
         assertTrue(names.isEmpty());
     }
 
+    @Test
+    public void testCountFilter() throws Exception {
+        MongoDataset states = mongo.get("states");
+        assertEquals(2, states.count(new VectorQuery().filter("STATE_ABBR IN ('NY', 'TX')")));
+        assertEquals(1, states.count(
+            new VectorQuery().filter("STATE_ABBR = 'NY' AND SAMP_POP > 1000")));
+    }
+
+    @Test
+    public void testReadFilterSortPage() throws Exception {
+        MongoDataset states = mongo.get("states");
+
+        List<String> all = new ArrayList<String>();
+        for (Feature f : states.cursor(new VectorQuery().filter("P_MALE > 0.49"))) {
+            all.add((String) f.get("STATE_NAME"));
+        }
+        Collections.sort(all);
+        assertTrue(all.size() > 4);
+
+        List<String> page = new ArrayList<String>();
+        for (Feature f : states.cursor(new VectorQuery().filter("P_MALE > 0.49")
+            .sort("STATE_NAME").offset(1).limit(3).fields("STATE_NAME"))) {
+            page.add((String) f.get("STATE_NAME"));
+            assertNull(f.get("STATE_ABBR"));
+        }
+        assertEquals(all.subList(1, 4), page);
+    }
+
+    @Test
+    public void testReadResidualFilter() throws Exception {
+        MongoDataset states = mongo.get("states");
+
+        // the math expression is evaluated client side, the rest natively
+        VectorQuery q = new VectorQuery().filter("SAMP_POP * 2 > 1000000 AND P_MALE > 0.49");
+
+        int count = 0;
+        for (Feature f : states.cursor(q)) {
+            assertTrue(((Number) f.get("SAMP_POP")).intValue() * 2 > 1000000);
+            assertTrue(((Number) f.get("P_MALE")).doubleValue() > 0.49);
+            count++;
+        }
+        assertTrue(count > 0);
+        assertEquals(count, states.count(q));
+
+        assertEquals(Math.min(2, count), Iterables.size(states.cursor(q.limit(2))));
+    }
+
     @Test
     public void testAppend() throws Exception {
         MongoDataset states = mongo.get("states");
@@ -179,6 +230,28 @@ public class MongoTest {
         assertEquals("Nowhere", f.get("STATE_NAME"));
     }
 
+    @Test
+    public void testBulkAppend() throws Exception {
+        mongo.mopts.batchSize(4).ordered(false).writeConcern("SAFE");
+
+        MongoDataset states = mongo.get("states");
+        Cursor<Feature> c = states.cursor(new VectorQuery().append());
+
+        for (int i = 0; i < 10; i++) {
+            Feature f = c.next();
+            f.put(new GeomBuilder().point(i, 0).toPoint().buffer(0.1));
+            f.put("STATE_NAME", "Bulk " + i);
+            c.write();
+        }
+
+        // last partial batch is pending until close
+        assertEquals(57, states.count(new VectorQuery()));
+        c.close();
+
+        assertEquals(59, states.count(new VectorQuery()));
+        assertEquals(10, states.count(new VectorQuery().filter("STATE_NAME LIKE 'Bulk%'")));
+    }
+
     @Test
     public void testUpdate() throws Exception {
         MongoDataset states = mongo.get("states");
@@ -59,6 +59,20 @@ public class PostGIS implements VectorDriver<PostGISWorkspace>{
      */
     public static final Key<Password> PASSWD = new Key<Password>("passwd", Password.class);
 
+    /**
+     * Number of rows fetched at a time when reading features, defaults to 1000. A value of 0
+     * reads the entire result into memory at once.
+     */
+    public static final Key<Integer> FETCH_SIZE =
+        new Key<Integer>("fetch_size", Integer.class, 1000);
+
+    /**
+     * Maximum number of prepared statements cached while writing features through a cursor,
+     * defaults to 32. A value of 0 disables the statement cache.
+     */
+    public static final Key<Integer> STATEMENT_CACHE =
+        new Key<Integer>("statement_cache", Integer.class, 32);
+
     public static PostGISWorkspace open(PostGISOpts opts) throws IOException {
         return new PostGISWorkspace(opts);
     }
@@ -85,7 +99,7 @@ public class PostGIS implements VectorDriver<PostGISWorkspace>{
 
     @Override
     public List<Key<? extends Object>> keys() {
-        return (List) Arrays.asList(DB, SCHEMA, HOST, PORT, USER, PASSWD);
+        return (List) Arrays.asList(DB, SCHEMA, HOST, PORT, USER, PASSWD, FETCH_SIZE, STATEMENT_CACHE);
     }
 
     @Override
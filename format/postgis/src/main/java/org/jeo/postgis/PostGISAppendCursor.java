@@ -19,6 +19,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 
 import org.jeo.data.Cursor;
+import org.jeo.sql.StatementCache;
 import org.jeo.vector.BasicFeature;
 import org.jeo.vector.Feature;
 import org.jeo.vector.FeatureCursor;
@@ -27,6 +28,7 @@ public class PostGISAppendCursor extends FeatureCursor {
 
     PostGISDataset dataset;
     Connection cx;
+    StatementCache cache;
 
     Feature next;
 
@@ -34,6 +36,7 @@ public class PostGISAppendCursor extends FeatureCursor {
         super(Cursor.APPEND);
         this.dataset = dataset;
         this.cx = cx;
+        this.cache = dataset.pg.statementCache(cx);
     }
 
     @Override
@@ -48,11 +51,15 @@ public class PostGISAppendCursor extends FeatureCursor {
 
     @Override
     protected void doWrite() throws IOException {
-        dataset.doInsert(next, cx);
+        dataset.doInsert(next, cx, cache);
     }
 
     @Override
     public void close() throws IOException {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+        }
         if (cx != null) {
             try {
                 cx.close();
@@ -0,0 +1,352 @@
+/* Copyright 2013 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.postgis;
+
+import static org.jeo.postgis.PostGISWorkspace.LOG;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.jeo.sql.PrimaryKey;
+import org.jeo.sql.PrimaryKeyColumn;
+import org.jeo.sql.SQL;
+import org.jeo.util.Util;
+import org.jeo.vector.Feature;
+import org.jeo.vector.Field;
+import org.jeo.vector.Schema;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.WKBWriter;
+
+/**
+ * Bulk loads features into a table with the PostgreSQL <tt>COPY</tt> command.
+ * <p>
+ * Features are sent in batches, each batch as a single <tt>COPY ... FROM STDIN</tt> in the text
+ * format, with geometries encoded as hex EWKB. Each batch is committed on its own so a failure
+ * only rolls back the batch it occurs in, and is reported with the range of features in it.
+ * </p>
+ * <p>
+ * Primary key columns backed by a sequence, either as a column default or an owned sequence, are
+ * populated from the sequence. Other integral keys are generated from the maximum existing value
+ * while the table is locked against concurrent writers, and character keys are generated UUIDs.
+ * </p>
+ */
+class PostGISCopy {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    final PostGISDataset dataset;
+    final Schema schema;
+    final int batchSize;
+
+    /** fields copied, in order */
+    final List<Field> fields = new ArrayList<Field>();
+    /** srid of each copied field, null for non geometry fields and unknown srids */
+    final List<Integer> srids = new ArrayList<Integer>();
+    /** key columns whose values are generated for each feature */
+    final List<PrimaryKeyColumn> keys = new ArrayList<PrimaryKeyColumn>();
+
+    final String copy;
+
+    final WKBWriter wkbWriter = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN, true);
+    final WKBWriter wkbWriter3D = new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN, true);
+    final StringBuilder buf = new StringBuilder();
+
+    PostGISCopy(PostGISDataset dataset, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+
+        this.dataset = dataset;
+        this.schema = dataset.schema();
+        this.batchSize = batchSize;
+
+        PrimaryKey pkey = dataset.getTable().primaryKey();
+
+        SQL sql = new SQL("COPY ").name(dataset.table.schema(), dataset.table.name()).add(" (");
+        for (Field fld : schema) {
+            PrimaryKeyColumn pkcol = pkey.column(fld.name());
+            if (pkcol != null) {
+                if (pkcol.isAutoIncrement()) {
+                    // column default draws from the sequence
+                    continue;
+                }
+                keys.add(pkcol);
+            }
+
+            fields.add(fld);
+            srids.add(fld.isGeometry() ? srid(fld) : null);
+            sql.name(fld.name()).add(",");
+        }
+        copy = sql.trim(1).add(") FROM STDIN").toString();
+    }
+
+    Integer srid(Field fld) {
+        return fld.property("srid", Integer.class);
+    }
+
+    /**
+     * Loads the features returning the number of features loaded.
+     */
+    long load(Iterable<? extends Feature> features) throws IOException {
+        Connection cx = null;
+        try {
+            cx = dataset.pg.getDataSource().getConnection();
+            cx.setAutoCommit(false);
+
+            CopyManager copier = ((PGConnection) cx).getCopyAPI();
+
+            long count = 0;
+            int batch = 0;
+            List<Feature> buffer = new ArrayList<Feature>(batchSize);
+            for (Feature f : features) {
+                buffer.add(f);
+                if (buffer.size() == batchSize) {
+                    count += load(buffer, batch++, count, copier, cx);
+                    buffer.clear();
+                }
+            }
+            if (!buffer.isEmpty()) {
+                count += load(buffer, batch, count, copier, cx);
+            }
+            return count;
+        }
+        catch(SQLException e) {
+            throw new IOException(e);
+        }
+        finally {
+            if (cx != null) {
+                try {
+                    cx.setAutoCommit(true);
+                    cx.close();
+                }
+                catch(SQLException e) {
+                    LOG.debug("Error closing connection", e);
+                }
+            }
+        }
+    }
+
+    long load(List<Feature> batch, int i, long offset, CopyManager copier, Connection cx)
+        throws IOException {
+        try {
+            List<List<Object>> ids = new ArrayList<List<Object>>(keys.size());
+            for (PrimaryKeyColumn key : keys) {
+                ids.add(generate(key, batch.size(), cx));
+            }
+
+            ByteArrayInputStream data = encode(batch, ids);
+
+            LOG.debug(copy);
+            long n = copier.copyIn(copy, data);
+            cx.commit();
+            return n;
+        }
+        catch(Exception e) {
+            try {
+                cx.rollback();
+            }
+            catch(SQLException e2) {
+                LOG.debug("Error rolling back batch", e2);
+            }
+            throw new IOException(String.format(
+                "Error loading batch %d (features %d to %d), %d features loaded previously",
+                i, offset, offset + batch.size() - 1, offset), e);
+        }
+    }
+
+    ByteArrayInputStream encode(List<Feature> batch, List<List<Object>> ids) throws IOException {
+        buf.setLength(0);
+        for (int i = 0; i < batch.size(); i++) {
+            Feature f = batch.get(i);
+
+            int k = 0;
+            for (int j = 0; j < fields.size(); j++) {
+                Field fld = fields.get(j);
+
+                Object value;
+                if (k < keys.size() && keys.get(k).getName().equals(fld.name())) {
+                    value = ids.get(k++).get(i);
+                }
+                else {
+                    value = f.get(fld.name());
+                }
+
+                if (j > 0) {
+                    buf.append('\t');
+                }
+                value(value, srids.get(j));
+            }
+            buf.append('\n');
+        }
+        return new ByteArrayInputStream(buf.toString().getBytes(UTF8));
+    }
+
+    void value(Object value, Integer srid) {
+        if (value == null) {
+            buf.append("\\N");
+        }
+        else if (value instanceof Geometry) {
+            Geometry g = (Geometry) value;
+
+            // write out ewkb with the column srid, keeping z values
+            int orig = g.getSRID();
+            g.setSRID(srid != null ? srid : orig);
+            try {
+                buf.append(WKBWriter.toHex((hasZ(g) ? wkbWriter3D : wkbWriter).write(g)));
+            }
+            finally {
+                g.setSRID(orig);
+            }
+        }
+        else if (value instanceof byte[]) {
+            // bytea hex format, backslash escaped for copy
+            buf.append("\\\\x").append(WKBWriter.toHex((byte[]) value));
+        }
+        else if (value instanceof Date && !(value instanceof java.sql.Date
+            || value instanceof java.sql.Time || value instanceof Timestamp)) {
+            buf.append(new Timestamp(((Date) value).getTime()));
+        }
+        else {
+            escape(value.toString());
+        }
+    }
+
+    /**
+     * Whether any coordinate of a geometry has a z value.
+     */
+    static boolean hasZ(Geometry g) {
+        final boolean[] z = new boolean[]{false};
+        g.apply(new CoordinateSequenceFilter() {
+            @Override
+            public void filter(CoordinateSequence seq, int i) {
+                if (seq.getDimension() > 2
+                    && !Double.isNaN(seq.getOrdinate(i, CoordinateSequence.Z))) {
+                    z[0] = true;
+                }
+            }
+
+            @Override
+            public boolean isDone() {
+                return z[0];
+            }
+
+            @Override
+            public boolean isGeometryChanged() {
+                return false;
+            }
+        });
+        return z[0];
+    }
+
+    void escape(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch(c) {
+            case '\\':
+                buf.append("\\\\");
+                break;
+            case '\t':
+                buf.append("\\t");
+                break;
+            case '\n':
+                buf.append("\\n");
+                break;
+            case '\r':
+                buf.append("\\r");
+                break;
+            default:
+                buf.append(c);
+            }
+        }
+    }
+
+    /**
+     * Generates key values for a batch.
+     */
+    List<Object> generate(PrimaryKeyColumn key, int n, Connection cx) throws SQLException {
+        List<Object> ids = new ArrayList<Object>(n);
+        Class<?> type = key.getField().type();
+
+        if (key.getSequence() != null) {
+            String sql = "SELECT nextval(?::regclass) FROM generate_series(1, ?)";
+            LOG.debug(String.format("%s; 1=%s, 2=%d", sql, key.getSequence(), n));
+
+            PreparedStatement ps = cx.prepareStatement(sql);
+            try {
+                ps.setString(1, key.getSequence());
+                ps.setInt(2, n);
+
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+                rs.close();
+            }
+            finally {
+                ps.close();
+            }
+        }
+        else if (CharSequence.class.isAssignableFrom(type)) {
+            for (int i = 0; i < n; i++) {
+                ids.add(Util.uuid());
+            }
+        }
+        else if (Number.class.isAssignableFrom(type)) {
+            // lock out other writers until the batch is committed
+            String table = new SQL().name(dataset.table.schema(), dataset.table.name()).toString();
+            String sql = new SQL("SELECT coalesce(max(").name(key.getName()).add("), 0) FROM ")
+                .add(table).toString();
+
+            Statement st = cx.createStatement();
+            try {
+                st.execute("LOCK TABLE " + table + " IN SHARE ROW EXCLUSIVE MODE");
+
+                LOG.debug(sql);
+                ResultSet rs = st.executeQuery(sql);
+                rs.next();
+                long max = rs.getLong(1);
+                rs.close();
+
+                for (int i = 1; i <= n; i++) {
+                    ids.add(max + i);
+                }
+            }
+            finally {
+                st.close();
+            }
+        }
+        else {
+            throw new IllegalArgumentException(String.format(
+                "Unable to generate value for %s.%s", schema.getName(), key.getName()));
+        }
+        return ids;
+    }
+}
@@ -14,21 +14,25 @@
  */
 package org.jeo.postgis;
 
+import static org.jeo.postgis.PostGISWorkspace.LOG;
+
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.jeo.data.Cursor;
 import org.jeo.vector.BasicFeature;
 import org.jeo.vector.DiffFeature;
 import org.jeo.vector.Feature;
-import org.jeo.sql.PrimaryKey;
+import org.jeo.vector.Schema;
 import org.jeo.sql.PrimaryKeyColumn;
+import org.jeo.sql.StatementCache;
 
 import com.vividsolutions.jts.io.WKBReader;
 import org.jeo.vector.FeatureCursor;
@@ -41,6 +45,27 @@ public class PostGISCursor extends FeatureCursor {
     Boolean hasNext;
     Feature next;
 
+    // resolved from the result set metadata on the first row
+    Schema schema;
+    // index in the schema of each result column, and whether it is a geometry
+    int[] columns;
+    boolean[] geometry;
+    // index in the schema of each primary key column, -1 if not selected
+    int[] pkColumns;
+
+    // reused across rows, BasicFeature copies values out
+    final WKBReader wkbReader = new WKBReader();
+    List<Object> values;
+    final StringBuilder fid = new StringBuilder();
+
+    // reported when the cursor is closed to compare encodings
+    final long started = System.nanoTime();
+    long rows = 0;
+    long geomBytes = 0;
+
+    // statements for writing back updates, created on the first write
+    StatementCache cache;
+
     PostGISCursor(ResultSet rs, Connection cx, Mode mode, PostGISDataset dataset) {
         super(mode);
         this.rs = rs;
@@ -64,29 +89,39 @@ public class PostGISCursor extends FeatureCursor {
     public Feature next() throws IOException {
         if (hasNext != null && hasNext.booleanValue()) {
             try {
-                Map<String,Object> map = new LinkedHashMap<String, Object>();
-                ResultSetMetaData md = rs.getMetaData();
-                for (int i = 0; i < md.getColumnCount(); i++) {
-                    Object obj = rs.getObject(i+1);
-                    String col = md.getColumnName(i+1);
-
-                    if (dataset.schema().field(col).isGeometry()) {
-                        obj = new WKBReader().read(rs.getBytes(i+1));
-                    }
+                if (columns == null) {
+                    init();
+                }
 
-                    map.put(col, obj);
+                for (int i = 0; i < values.size(); i++) {
+                    values.set(i, null);
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    Object obj;
+                    if (geometry[i]) {
+                        byte[] wkb = rs.getBytes(i+1);
+                        obj = null;
+                        if (wkb != null) {
+                            obj = wkbReader.read(wkb);
+                            geomBytes += wkb.length;
+                        }
+                    }
+                    else {
+                        obj = rs.getObject(i+1);
+                    }
+                    values.set(columns[i], obj);
                 }
 
-                PrimaryKey key = dataset.getTable().primaryKey();
-                StringBuilder sb = new StringBuilder();
-                for (PrimaryKeyColumn pkcol : key.getColumns()) {
-                    sb.append(map.get(pkcol.getName())).append(".");
+                fid.setLength(0);
+                for (int i = 0; i < pkColumns.length; i++) {
+                    fid.append(pkColumns[i] >= 0 ? values.get(pkColumns[i]) : null).append(".");
                 }
-                if (!key.getColumns().isEmpty()) {
-                    sb.setLength(sb.length()-1);
+                if (pkColumns.length > 0) {
+                    fid.setLength(fid.length()-1);
                 }
 
-                next = new BasicFeature(sb.toString(), map, dataset.schema());
+                rows++;
+                next = new BasicFeature(fid.toString(), values, schema);
                 return next = mode == Cursor.UPDATE ? new DiffFeature(next) : next;
             }
             catch(Exception e) {
@@ -100,14 +135,46 @@ public class PostGISCursor extends FeatureCursor {
         return null;
     }
 
+    void init() throws SQLException {
+        schema = dataset.schema();
+
+        ResultSetMetaData md = rs.getMetaData();
+        columns = new int[md.getColumnCount()];
+        geometry = new boolean[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String col = md.getColumnName(i+1);
+            columns[i] = schema.indexOf(col);
+            if (columns[i] < 0) {
+                throw new IllegalStateException("No such field: " + col);
+            }
+            geometry[i] = schema.field(col).isGeometry();
+        }
+
+        List<PrimaryKeyColumn> pk = dataset.getTable().primaryKey().getColumns();
+        pkColumns = new int[pk.size()];
+        for (int i = 0; i < pkColumns.length; i++) {
+            pkColumns[i] = schema.indexOf(pk.get(i).getName());
+        }
+
+        values = new ArrayList<Object>(Collections.nCopies(schema.size(), null));
+    }
+
     @Override
     protected void doWrite() throws IOException {
-        dataset.doUpdate(next, ((DiffFeature) next).changed(), cx);
+        if (cache == null) {
+            cache = dataset.pg.statementCache(cx);
+        }
+        dataset.doUpdate(next, ((DiffFeature) next).changed(), cx, cache);
     }
 
     @Override
     public void close() throws IOException {
         if (rs != null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Read %d rows, %d bytes of geometry in %d ms", rows,
+                    geomBytes, (System.nanoTime() - started) / 1000000));
+            }
+
             Statement st = null;
             try {
                 st = rs.getStatement();
@@ -117,16 +184,36 @@ public class PostGISCursor extends FeatureCursor {
                 rs.close();
             } catch (SQLException e) {}
 
+            if (cache != null) {
+                cache.close();
+                cache = null;
+            }
+
             if (st != null) {
                 try {
                     st.close();
                 } catch (SQLException e) {}
             }
             if (cx != null) {
+                try {
+                    // end the transaction used to stream results, committing any updates
+                    if (!cx.getAutoCommit()) {
+                        try {
+                            cx.commit();
+                        }
+                        finally {
+                            cx.setAutoCommit(true);
+                        }
+                    }
+                } catch (SQLException e) {
+                    LOG.debug("Error ending transaction", e);
+                }
+
                 try {
                     cx.close();
                 } catch (SQLException e) {}
             }
+            rs = null;
         }
     }
 
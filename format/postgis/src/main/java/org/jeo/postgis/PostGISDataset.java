@@ -46,6 +46,7 @@ import org.jeo.sql.FilterSQLEncoder;
 import org.jeo.sql.PrimaryKey;
 import org.jeo.sql.PrimaryKeyColumn;
 import org.jeo.sql.SQL;
+import org.jeo.sql.StatementCache;
 import org.jeo.sql.Table;
 import org.jeo.util.Key;
 import org.jeo.util.Pair;
@@ -54,9 +55,7 @@ import org.osgeo.proj4j.CoordinateReferenceSystem;
 
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.geom.Polygon;
 import com.vividsolutions.jts.io.WKBReader;
-import com.vividsolutions.jts.io.WKTWriter;
 import java.util.Set;
 
 public class PostGISDataset implements VectorDataset {
@@ -179,10 +178,20 @@ public class PostGISDataset implements VectorDataset {
     
             SQL sql = new SQL("SELECT ");
             
+            // simplify server side to cut down on the amount of geometry data transferred, but
+            // never geometries that may be written back
+            Double simplify = q.mode() != Cursor.UPDATE ? q.simplify() : null;
+            if (simplify != null && simplify > 0) {
+                qp.simplified();
+            }
+            else {
+                simplify = null;
+            }
+
             if (q.fields().isEmpty()) {
                 //grab all from the schema
                 for (Field f : schema()) {
-                    encodeFieldForSelect(f, sql);
+                    encodeFieldForSelect(f, simplify, sql);
                     sql.add(", ");
                 }
                 sql.trim(2);
@@ -198,7 +207,7 @@ public class PostGISDataset implements VectorDataset {
                         throw new IllegalArgumentException("No such field: " + prop);
                     }
     
-                    encodeFieldForSelect(f, sql);
+                    encodeFieldForSelect(f, simplify, sql);
                     sql.add(", ");
     
                     geom = geom || f.isGeometry();
@@ -207,7 +216,7 @@ public class PostGISDataset implements VectorDataset {
     
                 
                 if (!geom && schema.geometry() != null) {
-                    encodeFieldForSelect(schema.geometry(), sql.add(", "));
+                    encodeFieldForSelect(schema.geometry(), simplify, sql.add(", "));
                 }
             }
     
@@ -222,7 +231,17 @@ public class PostGISDataset implements VectorDataset {
             pg.logQuery(sql, args);
 
             try {
+                // the driver only streams results, rather than reading them all into memory, for
+                // a statement with a fetch size within a transaction
+                Integer fetchSize = pg.opts.fetchSize();
+                if (fetchSize != null && fetchSize > 0) {
+                    cx.setAutoCommit(false);
+                }
+
                 PreparedStatement st = pg.prepareStatement(sql, args, cx);
+                if (fetchSize != null && fetchSize > 0) {
+                    st.setFetchSize(fetchSize);
+                }
                 return qp.apply(new PostGISCursor(st.executeQuery(), cx, q.mode(), this));
             }
             catch(SQLException e) {
@@ -238,11 +257,17 @@ public class PostGISDataset implements VectorDataset {
     public void close() {
     }
 
-    void encodeFieldForSelect(Field f, SQL sql) {
+    void encodeFieldForSelect(Field f, Double simplify, SQL sql) {
         if (f.isGeometry()) {
             //TODO: force 2d
             //TODO: base64 encode
-            sql.add("ST_AsBinary(").name(f.name()).add(") as ").name(f.name());
+            if (simplify != null) {
+                sql.add("ST_AsBinary(ST_Simplify(").name(f.name()).add("::geometry, ").add(simplify)
+                   .add(")) as ").name(f.name());
+            }
+            else {
+                sql.add("ST_AsBinary(").name(f.name()).add(") as ").name(f.name());
+            }
         }
         else {
             sql.name(f.name());
@@ -258,16 +283,16 @@ public class PostGISDataset implements VectorDataset {
             String geom = schema.geometry().name();
             Integer srid = schema.geometry().property("srid", Integer.class);
             
-            Polygon poly = Envelopes.toPolygon(q.bounds());
-
-            sql.add(" WHERE ").name(geom).add(" && ST_GeomFromText(?, ?)");
+            // bind the box corners directly rather than encoding a polygon
+            Envelope bbox = q.bounds();
+            sql.add(" WHERE ").name(geom).add(" && ST_MakeEnvelope(?, ?, ?, ?, ?)");
                //.add(" AND ST_Intersects(").name(geom).add(", ST_GeomFromText(?, ?))");
 
-            String wkt = poly.toText();
-            args.add(new Pair(wkt, Types.VARCHAR));
-            args.add(new Pair(srid, Types.INTEGER));
-            //values.add(new Pair(wkt, Types.VARCHAR));
-            //values.add(new Pair(srid ,Types.INTEGER));
+            args.add(new Pair(bbox.getMinX(), Types.DOUBLE));
+            args.add(new Pair(bbox.getMinY(), Types.DOUBLE));
+            args.add(new Pair(bbox.getMaxX(), Types.DOUBLE));
+            args.add(new Pair(bbox.getMaxY(), Types.DOUBLE));
+            args.add(new Pair(srid != null ? srid : 0, Types.INTEGER));
         }
 
         Filter<Feature> filter = q.filter();
@@ -303,7 +328,25 @@ public class PostGISDataset implements VectorDataset {
 
     }
 
-    void doUpdate(final Feature f, final Map<String,Object> changed, Connection cx) throws IOException {
+    /**
+     * Bulk loads features into the table with the <tt>COPY</tt> command.
+     * <p>
+     * Features are sent and committed in batches of <tt>batchSize</tt>, a failed batch is rolled
+     * back and reported along with the number of features already loaded. Primary key values are
+     * generated as they are with {@link #cursor(VectorQuery)} appends, any values set on the
+     * features themselves are ignored.
+     * </p>
+     * @param features The features to load.
+     * @param batchSize The number of features per batch.
+     *
+     * @return The number of features loaded.
+     */
+    public long load(Iterable<? extends Feature> features, int batchSize) throws IOException {
+        return new PostGISCopy(this, batchSize).load(features);
+    }
+
+    void doUpdate(final Feature f, final Map<String,Object> changed, Connection cx, 
+        final StatementCache cache) throws IOException {
         pg.run(new DbOP<Boolean>() {
             @Override
             protected Boolean doRun(Connection cx) throws Exception {
@@ -332,7 +375,7 @@ public class PostGISDataset implements VectorDataset {
 
                 pg.logQuery(sql, values);
 
-                PreparedStatement ps = open(cx.prepareStatement(sql.toString()));
+                PreparedStatement ps = open(prepare(sql.toString(), cx, cache));
                 for (int i = 0; i < values.size(); i++) {
                     Pair<Object,Integer> p = values.get(i);
                     ps.setObject(i+1, p.first, p.second);
@@ -343,7 +386,7 @@ public class PostGISDataset implements VectorDataset {
         }, cx);
     }
     
-    void doInsert(final Feature f, Connection cx) throws IOException {
+    void doInsert(final Feature f, Connection cx, final StatementCache cache) throws IOException {
         pg.run(new DbOP<Boolean>() {
             @Override
             protected Boolean doRun(Connection cx) throws Exception {
@@ -364,7 +407,7 @@ public class PostGISDataset implements VectorDataset {
                         }
 
                         if (pkcol.getSequence() != null) {
-                            throw new IllegalArgumentException("TODO: implement");
+                            value = seqval(pkcol, cx);
                         }
                         else {
                             //generate one
@@ -378,12 +421,12 @@ public class PostGISDataset implements VectorDataset {
                     cols.name(fld.name()).add(",");
 
                     if (value instanceof Geometry) {
-                        value = new WKTWriter().write((Geometry) value);
-                        values.add(new Pair(value, Types.VARCHAR));
-
                         Integer srid = fld.property("srid", Integer.class);
-                        srid = srid != null ? srid : -1;
-                        vals.add("st_geomfromtext(?,").add(srid).add("),");
+                        srid = srid != null ? srid : 0;
+
+                        value = PostGISFilterEncoder.ewkb((Geometry) value, srid);
+                        values.add(new Pair(value, Types.BINARY));
+                        vals.add("ST_GeomFromEWKB(?),");
                     }
                     else {
                         Integer sqlType = fld.property("sqlType", Integer.class);
@@ -396,7 +439,7 @@ public class PostGISDataset implements VectorDataset {
 
                 pg.logQuery(cols, values);
 
-                PreparedStatement ps = cx.prepareStatement(cols.toString());
+                PreparedStatement ps = open(prepare(cols.toString(), cx, cache));
                 for (int i = 0; i < values.size(); i++) {
                     Pair<Object,Integer> p = values.get(i);
                     Object obj = p.first;
@@ -414,6 +457,24 @@ public class PostGISDataset implements VectorDataset {
         }, cx);
     }
 
+    PreparedStatement prepare(String sql, Connection cx, StatementCache cache) throws SQLException {
+        return cache != null ? cache.prepare(sql) : cx.prepareStatement(sql);
+    }
+
+    Long seqval(final PrimaryKeyColumn pkcol, Connection cx) throws IOException {
+        return pg.run(new DbOP<Long>() {
+            @Override
+            protected Long doRun(Connection cx) throws Exception {
+                PreparedStatement ps = open(cx.prepareStatement("SELECT nextval(?::regclass)"));
+                ps.setString(1, pkcol.getSequence());
+
+                ResultSet rs = open(ps.executeQuery());
+                rs.next();
+                return rs.getLong(1);
+            }
+        }, cx);
+    }
+
     <T> T nextval(final PrimaryKeyColumn pkcol, Class<T> type, Connection cx) throws IOException {
         if (CharSequence.class.isAssignableFrom(type)) {
             return type.cast(Util.uuid());
@@ -14,21 +14,59 @@
  */
 package org.jeo.postgis;
 
+import java.sql.Types;
+
 import org.jeo.vector.Field;
 import org.jeo.sql.FilterSQLEncoder;
+import org.jeo.util.Pair;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKBWriter;
 
+/**
+ * Encodes filters as PostGIS SQL.
+ * <p>
+ * Geometry literals are sent as EWKB rather than WKT. When prepared the literal is bound as a
+ * <tt>bytea</tt> parameter, avoiding the cost of formatting and parsing text for large geometries.
+ * </p>
+ */
 public class PostGISFilterEncoder extends FilterSQLEncoder {
 
     PostGISDataset dataset;
 
     public PostGISFilterEncoder(PostGISDataset dataset) {
+        this.dataset = dataset;
         setPrimaryKey(dataset.getTable().primaryKey());
         setDbTypes(dataset.pg.getDbTypes());
         setSchema(dataset.schema());
     }
 
+    @Override
+    protected void encode(Geometry geo, Object obj) {
+        byte[] ewkb = ewkb(geo, srid(geo, obj));
+        if (prepared) {
+            sql.add("ST_GeomFromEWKB(?)");
+            args.add(new Pair<Object,Integer>(ewkb, Types.BINARY));
+        }
+        else {
+            sql.add("ST_GeomFromEWKB(decode(").str(WKBWriter.toHex(ewkb)).add(", 'hex'))");
+        }
+    }
+
+    /**
+     * Encodes a geometry as EWKB with the specified srid.
+     */
+    static byte[] ewkb(Geometry geo, int srid) {
+        int orig = geo.getSRID();
+        geo.setSRID(srid);
+        try {
+            return new WKBWriter(2, true).write(geo);
+        }
+        finally {
+            geo.setSRID(orig);
+        }
+    }
+
     @Override
     protected int srid(Geometry geo, Object obj) {
         if (geo.getSRID() == 0 && obj instanceof Field) {
@@ -41,6 +41,8 @@ public class PostGISOpts {
     String user = USER.getDefault();
     String schema;
     Password passwd;
+    Integer fetchSize = FETCH_SIZE.getDefault();
+    Integer statementCache = STATEMENT_CACHE.getDefault();
 
     public static PostGISOpts fromMap(Map<?,Object> map) {
         PostGISOpts pgopts = new PostGISOpts(DB.get(map));
@@ -60,6 +62,12 @@ public class PostGISOpts {
         if (PASSWD.in(map)) {
             pgopts.passwd(PASSWD.get(map));
         }
+        if (FETCH_SIZE.in(map)) {
+            pgopts.fetchSize(FETCH_SIZE.get(map));
+        }
+        if (STATEMENT_CACHE.in(map)) {
+            pgopts.statementCache(STATEMENT_CACHE.get(map));
+        }
 
         return pgopts;
     }
@@ -93,6 +101,16 @@ public class PostGISOpts {
         return this;
     }
 
+    public PostGISOpts fetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public PostGISOpts statementCache(Integer statementCache) {
+        this.statementCache = statementCache;
+        return this;
+    }
+
     public String db() {
         return db;
     }
@@ -117,6 +135,14 @@ public class PostGISOpts {
         return passwd;
     }
 
+    public Integer fetchSize() {
+        return fetchSize;
+    }
+
+    public Integer statementCache() {
+        return statementCache;
+    }
+
     public Map<Key<?>,Object> toMap() {
         Map<Key<?>, Object> map = new LinkedHashMap<Key<?>, Object>();
         map.put(DB, db);
@@ -129,6 +155,8 @@ public class PostGISOpts {
         if (passwd != null) {
             map.put(PASSWD, passwd);
         }
+        map.put(FETCH_SIZE, fetchSize);
+        map.put(STATEMENT_CACHE, statementCache);
         return map;
     }
 }
@@ -42,6 +42,7 @@ import org.jeo.proj.Proj;
 import org.jeo.sql.DbOP;
 import org.jeo.sql.PrimaryKeyColumn;
 import org.jeo.sql.SQL;
+import org.jeo.sql.StatementCache;
 import org.jeo.sql.Table;
 import org.jeo.util.Key;
 import org.jeo.util.Pair;
@@ -518,6 +519,15 @@ public class PostGISWorkspace implements Workspace {
         }
     }
 
+    /**
+     * Creates a statement cache for a connection, <code>null</code> if statement caching is
+     * disabled.
+     */
+    StatementCache statementCache(Connection cx) {
+        Integer size = opts.statementCache();
+        return size != null && size > 0 ? new StatementCache(cx, size) : null;
+    }
+
     PreparedStatement prepareStatement(SQL sql, List<Pair<Object,Integer>> values, Connection cx) 
             throws SQLException {
 
@@ -24,6 +24,8 @@ import static org.junit.Assert.fail;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -31,9 +33,11 @@ import org.jeo.TestData;
 import org.jeo.data.Cursor;
 import org.jeo.data.Dataset;
 import org.jeo.data.Handle;
+import org.jeo.filter.FilterBuilder;
 import org.jeo.vector.VectorQuery;
 import org.jeo.vector.VectorDataset;
 import org.jeo.vector.Feature;
+import org.jeo.vector.Features;
 import org.jeo.vector.Schema;
 import org.jeo.vector.SchemaBuilder;
 import org.jeo.geom.GeomBuilder;
@@ -205,12 +209,70 @@ public class PostGISTest {
         c.close();
     }
 
+    @Test
+    public void testCursorStreaming() throws Exception {
+        PostGISWorkspace ws = new PostGISWorkspace(new PostGISOpts(PostGISTests.OPTS.db())
+            .host(PostGISTests.OPTS.host()).port(PostGISTests.OPTS.port())
+            .user(PostGISTests.OPTS.user()).passwd(PostGISTests.OPTS.passwd()).fetchSize(5));
+        try {
+            VectorDataset states = ws.get("states");
+            assertEquals(49, states.cursor(new VectorQuery()).count());
+
+            // updates made while streaming are committed on close
+            Cursor<Feature> c = states.cursor(new VectorQuery().update());
+            while (c.hasNext()) {
+                Feature f = c.next();
+                f.put("STATE_ABBR", f.get("STATE_ABBR").toString().toLowerCase());
+                c.write();
+            }
+            c.close();
+
+            for (Feature f : pg.get("states").cursor(new VectorQuery())) {
+                String abbr = f.get("STATE_ABBR").toString();
+                assertEquals(abbr, abbr.toLowerCase());
+            }
+        }
+        finally {
+            ws.close();
+        }
+    }
+
     @Test
     public void testCursorFilter() throws Exception {
         VectorDataset states = pg.get("states");
         assertEquals(1, states.cursor(new VectorQuery().filter("STATE_NAME = 'Texas'")).count());
     }
 
+    @Test
+    public void testCursorSimplify() throws Exception {
+        VectorDataset states = pg.get("states");
+
+        int full = 0;
+        for (Feature f : states.cursor(new VectorQuery().filter("STATE_ABBR = 'TX'"))) {
+            full += f.geometry().getNumPoints();
+        }
+
+        int simple = 0;
+        for (Feature f : states.cursor(new VectorQuery().filter("STATE_ABBR = 'TX'").simplify(0.5))) {
+            simple += f.geometry().getNumPoints();
+        }
+
+        assertTrue(simple > 0);
+        assertTrue(simple < full);
+    }
+
+    @Test
+    public void testCursorSpatialFilter() throws Exception {
+        VectorDataset states = pg.get("states");
+
+        Geometry g = new GeomBuilder().point(-100, 40).point().buffer(1).get();
+        Cursor<Feature> c = states.cursor(new VectorQuery().filter(
+            new FilterBuilder().property(states.schema().geometry().name()).literal(g).intersects().filter()));
+        assertTrue(c.hasNext());
+        assertEquals("KS", c.next().get("STATE_ABBR"));
+        c.close();
+    }
+
     @Test
     public void testCursorUpdate() throws Exception {
         VectorDataset states = pg.get("states");
@@ -298,4 +360,29 @@ public class PostGISTest {
         assertEquals(1.99, c.next().get("cost"));
     }
 
+    @Test
+    public void testLoad() throws Exception {
+        Schema widgets = new SchemaBuilder("widgets").field("shape", Polygon.class)
+            .field("name", String.class).field("cost", Double.class).schema();
+
+        PostGISDataset data = pg.create(widgets);
+
+        GeomBuilder gb = new GeomBuilder();
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < 100; i++) {
+            features.add(Features.create(null, widgets, 
+                gb.point(i,i).point().buffer(1).get(), "widget\t" + i, i + 0.99));
+        }
+
+        assertEquals(100, data.load(features, 30));
+        assertEquals(100, data.count(new VectorQuery()));
+
+        Cursor<Feature> c = data.cursor(new VectorQuery().filter("cost = 42.99"));
+        assertTrue(c.hasNext());
+
+        Feature f = c.next();
+        assertEquals("widget\t42", f.get("name"));
+        assertTrue(f.geometry().getCentroid().equalsExact(gb.point(42,42).get(), 1e-6));
+        c.close();
+    }
 }
@@ -14,25 +14,55 @@
  */
 package org.jeo.protobuf;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
 import org.jeo.protobuf.Geom.Array;
 
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 
+/**
+ * Read only coordinate sequence backed by the ordinates of an {@link Array} message, or by the
+ * packed ordinates of an encoded message.
+ * <p>
+ * When created from encoded bytes the sequence is a little endian view over the packed ordinate
+ * field, ordinates are decoded on access and never copied.
+ * </p>
+ */
 public class PBCoordinateSequence extends PackedCoordinateSequence {
 
     Array array;
+    DoubleBuffer ords;
+    int size;
     Envelope bounds;
 
     public PBCoordinateSequence(Array array) {
         this.array = array;
         this.dimension = array.getDim();
+        this.size = array.getOrdCount() / dimension;
+    }
+
+    /**
+     * Creates a sequence over packed ordinates.
+     *
+     * @param buf The encoded bytes.
+     * @param off Offset of the first ordinate in <tt>buf</tt>.
+     * @param n Number of ordinates.
+     * @param dim Dimension of the sequence.
+     */
+    public PBCoordinateSequence(byte[] buf, int off, int n, int dim) {
+        this.ords = ByteBuffer.wrap(buf, off, n * 8).slice()
+            .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        this.dimension = dim;
+        this.size = n / dim;
     }
 
     @Override
     public int size() {
-        return array.getOrdCount() / array.getDim();
+        return size;
     }
 
     @Override
@@ -43,13 +73,13 @@ public class PBCoordinateSequence extends PackedCoordinateSequence {
 
     @Override
     public double getOrdinate(int index, int ordinate) {
-        return array.getOrd(index * dimension + ordinate);
+        return ord(index * dimension + ordinate);
     }
 
     @Override
     protected Coordinate getCoordinateInternal(int index) {
         int i = index * dimension;
-        return new Coordinate(array.getOrd(i), array.getOrd(i+1));
+        return new Coordinate(ord(i), ord(i+1));
     }
 
     @Override
@@ -62,6 +92,10 @@ public class PBCoordinateSequence extends PackedCoordinateSequence {
         throw new UnsupportedOperationException();
     }
 
+    double ord(int i) {
+        return ords != null ? ords.get(i) : array.getOrd(i);
+    }
+
     Envelope bounds() {
         if (bounds == null) {
             double x1 = java.lang.Double.MAX_VALUE;
@@ -69,9 +103,9 @@ public class PBCoordinateSequence extends PackedCoordinateSequence {
             double y1 = java.lang.Double.MAX_VALUE;
             double y2 = -java.lang.Double.MAX_VALUE;
 
-            for (int i = 0; i < array.getOrdCount(); i += dimension) {
-                double x = array.getOrd(i);
-                double y = array.getOrd(i+1);
+            for (int i = 0; i < size * dimension; i += dimension) {
+                double x = ord(i);
+                double y = ord(i+1);
 
                 x1 = Math.min(x, x1);
                 y1 = Math.min(y, y1);
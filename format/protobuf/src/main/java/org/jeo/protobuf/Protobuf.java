@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.jeo.data.FileDriver;
+import org.jeo.util.Key;
 import org.jeo.util.Messages;
 import org.jeo.vector.VectorDriver;
 import org.jeo.vector.Schema;
@@ -33,11 +34,26 @@ import org.jeo.vector.Schema;
  * Protobuf.open(new File("states.pbf"));
  * </code></pre>
  * </p>
+ * <p>
+ * New datasets are written as indexed container files, see {@link ProtobufContainerWriter}. Plain
+ * protobuf streams written by {@link ProtobufWriter} can still be read.
+ * </p>
  * 
  * @author Justin Deoliveira, OpenGeo
  */
 public class Protobuf extends FileDriver<ProtobufDataset> implements VectorDriver<ProtobufDataset> {
 
+    /**
+     * Number of features per block of a container file.
+     */
+    public static final Key<Integer> BLOCK_SIZE =
+        new Key<Integer>("block", Integer.class, ProtobufContainerWriter.DEFAULT_BLOCK_SIZE);
+
+    /**
+     * Whether to deflate the blocks of a container file.
+     */
+    public static final Key<Boolean> COMPRESS = new Key<Boolean>("compress", Boolean.class, true);
+
     public static ProtobufDataset open(File file) throws IOException {
         return new ProtobufDataset(file);
     }
@@ -52,6 +68,11 @@ public class Protobuf extends FileDriver<ProtobufDataset> implements VectorDrive
         return Arrays.asList("pb", "pbf");
     }
 
+    @Override
+    public List<Key<?>> keys() {
+        return (List) Arrays.asList(FILE, BLOCK_SIZE, COMPRESS);
+    }
+
     @Override
     public Class<ProtobufDataset> type() {
         return ProtobufDataset.class;
@@ -74,6 +95,6 @@ public class Protobuf extends FileDriver<ProtobufDataset> implements VectorDrive
 
     @Override
     public ProtobufDataset create(Map<?, Object> opts, Schema schema) throws IOException {
-        return new ProtobufDataset(FILE.get(opts), schema);
+        return new ProtobufDataset(FILE.get(opts), schema, opts);
     }
 }
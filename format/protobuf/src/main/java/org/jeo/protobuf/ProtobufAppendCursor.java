@@ -25,6 +25,7 @@ import org.jeo.vector.Schema;
 
 public class ProtobufAppendCursor extends FeatureCursor {
 
+    ProtobufDataset data;
     ProtobufWriter pbw;
 
     Schema schema;
@@ -33,6 +34,7 @@ public class ProtobufAppendCursor extends FeatureCursor {
     public ProtobufAppendCursor(ProtobufDataset data) throws IOException {
         super(Mode.APPEND);
 
+        this.data = data;
         pbw = data.writer();
         schema = data.schema();
 
@@ -65,6 +67,7 @@ public class ProtobufAppendCursor extends FeatureCursor {
     public void close() throws IOException {
         if (pbw != null) {
             pbw.close();
+            data.reload();
         }
         pbw = null;
     }
@@ -0,0 +1,220 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.protobuf;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.jeo.protobuf.Feat.Block;
+import org.jeo.protobuf.Feat.Index;
+import org.jeo.protobuf.Feat.Index.Compression;
+import org.jeo.vector.Schema;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Indexed protocol buffer container file.
+ * <p>
+ * A container file wraps the messages of the plain protocol buffer stream with a header, blocks
+ * of features and a footer index. The layout of the file is:
+ * <pre>
+ * magic (int), version (int)
+ * schema (delimited Schema message)
+ * block*  (delimited Feature messages, optionally deflated)
+ * index   (Index message)
+ * index offset (long), magic (int)
+ * </pre>
+ * The index records the offset, size, feature count and bounds of every block along with the
+ * total count and bounds of the file. It is read from the end of the file so that metadata
+ * is available without scanning features, and so that blocks outside of a bounding box query
+ * can be skipped.
+ * </p>
+ */
+class ProtobufContainer {
+
+    /** "JEOP" */
+    static final int MAGIC = 0x4A454F50;
+    static final int VERSION = 1;
+
+    /** index offset and magic */
+    static final int TRAILER = 12;
+
+    File file;
+    Schema schema;
+    Index index;
+
+    /** id of the first feature of each block */
+    long[] starts;
+
+    /**
+     * Determines if a file is a container file, as opposed to a plain protocol buffer stream.
+     */
+    static boolean is(File file) throws IOException {
+        if (!file.exists() || file.length() < 8 + TRAILER) {
+            return false;
+        }
+
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            return in.readInt() == MAGIC;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Opens a container file reading the schema and index.
+     */
+    static ProtobufContainer open(File file) throws IOException {
+        ProtobufContainer c = new ProtobufContainer();
+        c.file = file;
+
+        ProtobufReader reader =
+            new ProtobufReader(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            DataInputStream in = new DataInputStream(reader.in);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a protobuf container file: " + file.getPath());
+            }
+            int version = in.readInt();
+            if (version > VERSION) {
+                throw new IOException("Unsupported protobuf container version: " + version);
+            }
+            c.schema = reader.schema();
+        }
+        finally {
+            reader.close();
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long end = raf.length() - TRAILER;
+            raf.seek(end);
+            long offset = raf.readLong();
+            if (raf.readInt() != MAGIC || offset < 8 || offset > end) {
+                throw new IOException("Invalid protobuf container index: " + file.getPath());
+            }
+
+            byte[] buf = new byte[(int) (end - offset)];
+            raf.seek(offset);
+            raf.readFully(buf);
+            c.index = Index.parseFrom(buf);
+        }
+        finally {
+            raf.close();
+        }
+
+        c.starts = new long[c.index.getBlockCount()];
+        long n = 0;
+        for (int i = 0; i < c.starts.length; i++) {
+            c.starts[i] = n;
+            n += c.index.getBlock(i).getCount();
+        }
+
+        return c;
+    }
+
+    Schema schema() {
+        return schema;
+    }
+
+    /**
+     * Total number of features in the file.
+     */
+    long count() {
+        return index.getCount();
+    }
+
+    /**
+     * Bounds of all features in the file.
+     */
+    Envelope bounds() {
+        return index.hasBounds() ? ProtobufReader.decode(index.getBounds()) : new Envelope();
+    }
+
+    /**
+     * Number of blocks in the file.
+     */
+    int size() {
+        return index.getBlockCount();
+    }
+
+    /**
+     * Returns the blocks whose bounds intersect the specified bounding box.
+     */
+    int[] query(Envelope bbox) {
+        List<Integer> hits = new ArrayList<Integer>();
+        for (int i = 0; i < index.getBlockCount(); i++) {
+            Block b = index.getBlock(i);
+            if (b.hasBounds() && ProtobufReader.decode(b.getBounds()).intersects(bbox)) {
+                hits.add(i);
+            }
+        }
+
+        int[] blocks = new int[hits.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = hits.get(i);
+        }
+        return blocks;
+    }
+
+    /**
+     * Reads a block returning a reader positioned at the first feature of the block.
+     */
+    ProtobufReader read(RandomAccessFile raf, int i, Inflater inflater) throws IOException {
+        Block b = index.getBlock(i);
+
+        byte[] buf = new byte[b.getLength()];
+        raf.seek(b.getOffset());
+        raf.readFully(buf);
+
+        if (index.getCompression() == Compression.DEFLATE) {
+            byte[] raw = new byte[b.getSize()];
+            inflater.reset();
+            inflater.setInput(buf);
+            try {
+                int n = 0;
+                while (n < raw.length && !inflater.finished()) {
+                    int m = inflater.inflate(raw, n, raw.length - n);
+                    if (m == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    n += m;
+                }
+                if (n != raw.length) {
+                    throw new IOException("Truncated block " + i + " in " + file.getPath());
+                }
+            }
+            catch(DataFormatException e) {
+                throw new IOException("Corrupt block " + i + " in " + file.getPath(), e);
+            }
+            buf = raw;
+        }
+
+        ProtobufReader reader = new ProtobufReader(new ByteArrayInputStream(buf));
+        reader.id = (int) starts[i];
+        return reader;
+    }
+}
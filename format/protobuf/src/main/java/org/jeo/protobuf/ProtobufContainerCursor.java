@@ -0,0 +1,125 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.protobuf;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.Inflater;
+
+import org.jeo.vector.Feature;
+import org.jeo.vector.FeatureCursor;
+
+/**
+ * Cursor that reads features from the blocks of a {@link ProtobufContainer}.
+ * <p>
+ * The cursor reads the specified blocks in order, skipping <tt>offset</tt> features from the
+ * start and stopping after <tt>limit</tt> features when set to a non negative value.
+ * </p>
+ */
+public class ProtobufContainerCursor extends FeatureCursor {
+
+    ProtobufContainer container;
+    int[] blocks;
+    int b = 0;
+
+    long offset;
+    long limit;
+
+    RandomAccessFile raf;
+    Inflater inflater;
+
+    ProtobufReader reader;
+    int remaining = 0;
+
+    Feature next;
+
+    ProtobufContainerCursor(ProtobufContainer container, int[] blocks, long offset, long limit)
+        throws IOException {
+        this.container = container;
+        this.blocks = blocks;
+        this.offset = offset;
+        this.limit = limit;
+
+        raf = new RandomAccessFile(container.file, "r");
+        inflater = new Inflater();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (next == null) {
+            next = read();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Feature next() throws IOException {
+        try {
+            return next != null ? next : read();
+        }
+        finally {
+            next = null;
+        }
+    }
+
+    Feature read() throws IOException {
+        if (limit == 0) {
+            return null;
+        }
+
+        while (remaining == 0 || offset > 0) {
+            if (remaining == 0) {
+                if (b == blocks.length) {
+                    return null;
+                }
+
+                int i = blocks[b++];
+                int n = container.index.getBlock(i).getCount();
+                if (offset >= n) {
+                    // skip the whole block without reading it
+                    offset -= n;
+                    continue;
+                }
+
+                reader = container.read(raf, i, inflater);
+                remaining = n;
+            }
+
+            if (offset > 0) {
+                reader.feature(container.schema());
+                remaining--;
+                offset--;
+            }
+        }
+
+        remaining--;
+        if (limit > 0) {
+            limit--;
+        }
+        return reader.feature(container.schema());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+}
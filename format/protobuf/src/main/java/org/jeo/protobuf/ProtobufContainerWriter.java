@@ -0,0 +1,201 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.jeo.protobuf.Feat.Block;
+import org.jeo.protobuf.Feat.Index;
+import org.jeo.protobuf.Feat.Index.Compression;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Writes out an indexed protocol buffer container file.
+ * <p>
+ * Features are buffered into blocks of a fixed number of features, each block optionally
+ * compressed with deflate. The index of blocks is written out when the writer is closed. See
+ * {@link ProtobufContainer} for a description of the file layout.
+ * </p>
+ */
+public class ProtobufContainerWriter extends ProtobufWriter {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    DataOutputStream data;
+    long pos = 0;
+
+    int blockSize;
+    Compression compression;
+    Deflater deflater;
+
+    ByteArrayOutputStream block = new ByteArrayOutputStream(8192);
+    ByteArrayOutputStream buf = new ByteArrayOutputStream(8192);
+    int blockCount = 0;
+    Envelope blockBounds = new Envelope();
+
+    Index.Builder index = Index.newBuilder();
+    Envelope bounds = new Envelope();
+    long count = 0;
+
+    boolean started = false;
+
+    public ProtobufContainerWriter(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE, true);
+    }
+
+    /**
+     * Creates a new writer.
+     *
+     * @param out The stream to write to.
+     * @param blockSize The number of features per block.
+     * @param compress Whether to deflate blocks.
+     */
+    public ProtobufContainerWriter(OutputStream out, int blockSize, boolean compress) {
+        super(out);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("block size must be positive");
+        }
+
+        this.data = new DataOutputStream(out);
+        this.blockSize = blockSize;
+        this.compression = compress ? Compression.DEFLATE : Compression.NONE;
+        if (compress) {
+            deflater = new Deflater();
+        }
+    }
+
+    @Override
+    public ProtobufWriter schema(org.jeo.vector.Schema schema) throws IOException {
+        if (started) {
+            throw new IllegalStateException("schema already written");
+        }
+
+        data.writeInt(ProtobufContainer.MAGIC);
+        data.writeInt(ProtobufContainer.VERSION);
+        pos += 8;
+
+        buf.reset();
+        encode(schema).writeDelimitedTo(buf);
+        write(buf);
+
+        started = true;
+        return this;
+    }
+
+    @Override
+    public ProtobufWriter feature(org.jeo.vector.Feature f) throws IOException {
+        if (!started) {
+            throw new IllegalStateException("schema must be written before features");
+        }
+
+        encode(f).build().writeDelimitedTo(block);
+        blockCount++;
+
+        Geometry g = f.geometry();
+        if (g != null) {
+            blockBounds.expandToInclude(g.getEnvelopeInternal());
+        }
+
+        if (blockCount == blockSize) {
+            flushBlock();
+        }
+        return this;
+    }
+
+    void flushBlock() throws IOException {
+        if (blockCount == 0) {
+            return;
+        }
+
+        Block.Builder b = Block.newBuilder()
+            .setOffset(pos).setSize(block.size()).setCount(blockCount);
+        if (!blockBounds.isNull()) {
+            b.setBounds(encode(blockBounds));
+            bounds.expandToInclude(blockBounds);
+        }
+
+        if (compression == Compression.DEFLATE) {
+            buf.reset();
+            deflater.reset();
+            deflater.setInput(block.toByteArray());
+            deflater.finish();
+
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                buf.write(chunk, 0, n);
+            }
+            b.setLength(buf.size());
+            write(buf);
+        }
+        else {
+            b.setLength(block.size());
+            write(block);
+        }
+
+        index.addBlock(b.build());
+        count += blockCount;
+
+        block.reset();
+        blockCount = 0;
+        blockBounds = new Envelope();
+    }
+
+    void write(ByteArrayOutputStream bytes) throws IOException {
+        bytes.writeTo(data);
+        pos += bytes.size();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (started) {
+                flushBlock();
+
+                index.setCompression(compression).setCount(count);
+                if (!bounds.isNull()) {
+                    index.setBounds(encode(bounds));
+                }
+
+                long offset = pos;
+                index.build().writeTo(data);
+                data.writeLong(offset);
+                data.writeInt(ProtobufContainer.MAGIC);
+            }
+            data.flush();
+        }
+        catch(IOException e) {
+            LOG.warn("Error writing protobuf container", e);
+        }
+
+        try {
+            data.close();
+        }
+        catch(IOException e) {
+            LOG.debug("Error closing protobuf writer", e);
+        }
+        finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Map;
 import org.jeo.data.Driver;
 import org.jeo.data.FileData;
 import org.jeo.data.Cursor.Mode;
+import org.jeo.geom.Envelopes;
 import org.jeo.vector.FeatureCursor;
 import org.jeo.vector.VectorQuery;
 import org.jeo.vector.VectorQueryPlan;
@@ -41,14 +42,40 @@ public class ProtobufDataset implements VectorDataset, FileData {
     File file;
     Schema schema;
 
+    /** index of a container file, null for a plain protobuf stream */
+    ProtobufContainer container;
+
+    int blockSize = ProtobufContainerWriter.DEFAULT_BLOCK_SIZE;
+    boolean compress = true;
+
     public ProtobufDataset(File file) throws IOException {
         this.file = file;
-        this.schema = readSchema();
+        if (ProtobufContainer.is(file)) {
+            container = ProtobufContainer.open(file);
+            schema = container.schema();
+        }
+        else {
+            schema = readSchema();
+        }
     }
 
     public ProtobufDataset(File file, Schema schema) throws IOException {
+        this(file, schema, Collections.<Key<?>,Object>emptyMap());
+    }
+
+    public ProtobufDataset(File file, Schema schema, Map<?,Object> opts) throws IOException {
         this.file = file;
         this.schema = schema;
+        this.blockSize = Protobuf.BLOCK_SIZE.get(opts);
+        this.compress = Protobuf.COMPRESS.get(opts);
+    }
+
+    /**
+     * Whether the dataset is backed by an indexed container file, rather than a plain protobuf
+     * stream.
+     */
+    public boolean isIndexed() {
+        return container != null;
     }
 
     @Override
@@ -103,12 +130,18 @@ public class ProtobufDataset implements VectorDataset, FileData {
 
     @Override
     public Envelope bounds() throws IOException {
+        if (container != null) {
+            return container.bounds();
+        }
         return cursor(new VectorQuery()).bounds();
     }
 
     @Override
     public long count(VectorQuery q) throws IOException {
-      return cursor(q).count();
+        if (container != null && !q.isFiltered() && Envelopes.isNull(q.bounds())) {
+            return q.adjustCount(container.count());
+        }
+        return cursor(q).count();
     }
 
     @Override
@@ -123,19 +156,63 @@ public class ProtobufDataset implements VectorDataset, FileData {
             return new ProtobufAppendCursor(this);
         }
 
+        if (container != null) {
+            return containerCursor(q);
+        }
+
         return new VectorQueryPlan(q).apply(new ProtobufCursor(this));
     }
 
+    FeatureCursor containerCursor(VectorQuery q) throws IOException {
+        VectorQueryPlan qp = new VectorQueryPlan(q);
+
+        int[] blocks;
+        long offset = 0, limit = -1;
+
+        Envelope bbox = q.bounds();
+        if (!Envelopes.isNull(bbox)) {
+            // block bounds only narrow the search, features are still filtered by the plan
+            blocks = container.query(bbox);
+        }
+        else {
+            blocks = new int[container.size()];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = i;
+            }
+
+            if (!q.isFiltered()) {
+                if (q.offset() != null) {
+                    offset = q.offset();
+                    qp.offsetted();
+                }
+                if (q.limit() != null) {
+                    limit = q.limit();
+                    qp.limited();
+                }
+            }
+        }
+
+        return qp.apply(new ProtobufContainerCursor(container, blocks, offset, limit));
+    }
+
     @Override
     public void close() {
     }
 
+    /**
+     * Reloads the container index after the file has been written.
+     */
+    void reload() throws IOException {
+        container = ProtobufContainer.is(file) ? ProtobufContainer.open(file) : null;
+    }
+
     ProtobufReader reader() throws IOException {
         return new ProtobufReader(new BufferedInputStream(new FileInputStream(file)));
     }
 
     ProtobufWriter writer() throws IOException {
-        return new ProtobufWriter(new BufferedOutputStream(new FileOutputStream(file)));
+        return new ProtobufContainerWriter(
+            new BufferedOutputStream(new FileOutputStream(file)), blockSize, compress);
     }
 
     boolean fileIsEmpty() {
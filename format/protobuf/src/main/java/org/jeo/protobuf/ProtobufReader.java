@@ -14,9 +14,11 @@
  * limitations under the License.
  */package org.jeo.protobuf;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.jeo.protobuf.Feat.Field.Type;
@@ -24,11 +26,10 @@ import org.jeo.vector.BasicFeature;
 import org.jeo.vector.SchemaBuilder;
 import org.jeo.geom.Geom;
 import org.jeo.proj.Proj;
-import org.jeo.protobuf.Feat.Feature;
 import org.jeo.protobuf.Feat.Field;
 import org.jeo.protobuf.Feat.Schema;
-import org.jeo.protobuf.Feat.Value;
 import org.jeo.protobuf.Geom.Array;
+import org.jeo.protobuf.Geom.Bounds;
 import org.jeo.protobuf.Geom.Geometry;
 import org.jeo.protobuf.Geom.LineString;
 import org.jeo.protobuf.Geom.MultiLineString;
@@ -38,9 +39,15 @@ import org.jeo.protobuf.Geom.Point;
 import org.jeo.protobuf.Geom.Polygon;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
+import com.google.protobuf.CodedInputStream;
 import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
+
+import static com.google.protobuf.WireFormat.WIRETYPE_FIXED64;
+import static com.google.protobuf.WireFormat.WIRETYPE_LENGTH_DELIMITED;
+import static com.google.protobuf.WireFormat.WIRETYPE_VARINT;
 
 /**
  * Reads a protocol buffer stream.
@@ -49,9 +56,52 @@ public class ProtobufReader {
 
     static GeometryFactory gf = new GeometryFactory();
 
+    /*
+     * wire tags, (field number << 3) | wire type, kept as constant expressions for use as case 
+     * labels since WireFormat.makeTag() is not public
+     */
+    static final int VALUE = Feat.Feature.VALUE_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int LAST = Feat.Feature.LAST_FIELD_NUMBER << 3 | WIRETYPE_VARINT;
+
+    static final int INT_VAL = Feat.Value.INTVAL_FIELD_NUMBER << 3 | WIRETYPE_VARINT;
+    static final int DOUBLE_VAL = Feat.Value.DOUBLEVAL_FIELD_NUMBER << 3 | WIRETYPE_FIXED64;
+    static final int STR_VAL = Feat.Value.STRVAL_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int BYTES_VAL = 
+        Feat.Value.BYTESVAL_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int GEOM = Feat.Value.GEOM_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+
+    static final int POINT = Geometry.POINT_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int LINESTRING = 
+        Geometry.LINESTRING_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int POLYGON = Geometry.POLYGON_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int MULTIPOINT = 
+        Geometry.MULTIPOINT_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int MULTILINESTRING = 
+        Geometry.MULTILINESTRING_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int MULTIPOLYGON = 
+        Geometry.MULTIPOLYGON_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int COLLECTION = 
+        Geometry.COLLECTION_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+
+    static final int X = Point.X_FIELD_NUMBER << 3 | WIRETYPE_FIXED64;
+    static final int Y = Point.Y_FIELD_NUMBER << 3 | WIRETYPE_FIXED64;
+    static final int COORDS = LineString.COORDS_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int RING = Polygon.RING_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int HOLE = Polygon.HOLES_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int POINT_MEMBER = 
+        MultiPoint.MEMBERS_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int LINE_MEMBER = 
+        MultiLineString.MEMBERS_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+    static final int POLYGON_MEMBER = 
+        MultiPolygon.MEMBERS_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+
+    static final int DIM = Array.DIM_FIELD_NUMBER << 3 | WIRETYPE_VARINT;
+    static final int ORD = Array.ORD_FIELD_NUMBER << 3 | WIRETYPE_FIXED64;
+    static final int PACKED_ORD = Array.ORD_FIELD_NUMBER << 3 | WIRETYPE_LENGTH_DELIMITED;
+
     int id = 0;
     InputStream in;
-    Feature.Builder last;
+    boolean last;
     End end;
 
     public static com.vividsolutions.jts.geom.Point decode(Point p) {
@@ -115,6 +165,11 @@ public class ProtobufReader {
         throw new IllegalArgumentException("Not supported: " + g);
     }
 
+    public static com.vividsolutions.jts.geom.Envelope decode(Bounds b) {
+        return new com.vividsolutions.jts.geom.Envelope(
+            b.getWest(), b.getEast(), b.getSouth(), b.getNorth());
+    }
+
     public ProtobufReader(InputStream in) {
         this.in = in;
         end = new End() {
@@ -137,7 +192,7 @@ public class ProtobufReader {
         end = new End() {
             @Override
             public boolean isEnd() throws IOException {
-                return last != null && last.getLast();
+                return last;
             }
         };
         return this;
@@ -211,40 +266,254 @@ public class ProtobufReader {
         return decode(mp);
     }
 
+    /**
+     * Reads the next feature from the stream.
+     * <p>
+     * The feature message is decoded directly from its encoded bytes rather than through the
+     * generated message classes. Coordinate sequences of geometries are views over the packed
+     * ordinates in the encoded bytes, see {@link PBCoordinateSequence}.
+     * </p>
+     */
     public org.jeo.vector.Feature feature(org.jeo.vector.Schema schema) throws IOException {
         if (eoi()) {
             return null;
         }
 
-        Feature.Builder b = Feature.newBuilder();
-        b.mergeDelimitedFrom(in);
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
 
-        List<Object> vals = new ArrayList<Object>();
+        byte[] buf = new byte[CodedInputStream.readRawVarint32(first, in)];
+        for (int n = 0; n < buf.length;) {
+            int m = in.read(buf, n, buf.length - n);
+            if (m == -1) {
+                throw new EOFException("Truncated feature");
+            }
+            n += m;
+        }
 
-        for (int i = 0; i < b.getValueCount(); i++) {
-            Value val = b.getValue(i);
-            if (val.hasIntVal()) {
-                vals.add(val.getIntVal());
+        CodedInputStream cin = CodedInputStream.newInstance(buf);
+        List<Object> vals = new ArrayList<Object>(schema.size());
+        last = false;
+
+        int tag;
+        while ((tag = cin.readTag()) != 0) {
+            switch(tag) {
+            case VALUE:
+                int limit = push(cin);
+                vals.add(value(cin, buf));
+                cin.popLimit(limit);
+                break;
+            case LAST:
+                last = cin.readBool();
+                break;
+            default:
+                cin.skipField(tag);
             }
-            else if (val.hasDoubleVal()) {
-                vals.add(val.getDoubleVal());
+        }
+
+        return new BasicFeature(String.valueOf(id++), vals, schema);
+    }
+
+    Object value(CodedInputStream cin, byte[] buf) throws IOException {
+        Object val = null;
+
+        int tag;
+        while ((tag = cin.readTag()) != 0) {
+            switch(tag) {
+            case INT_VAL:
+                val = cin.readInt32();
+                break;
+            case DOUBLE_VAL:
+                val = cin.readDouble();
+                break;
+            case STR_VAL:
+                val = cin.readString();
+                break;
+            case BYTES_VAL:
+                val = cin.readBytes().toByteArray();
+                break;
+            case GEOM:
+                int limit = push(cin);
+                val = geometry(cin, buf);
+                cin.popLimit(limit);
+                break;
+            default:
+                cin.skipField(tag);
             }
-            else if (val.hasStrVal()) {
-                vals.add(val.getStrVal());
+        }
+
+        return val;
+    }
+
+    com.vividsolutions.jts.geom.Geometry geometry(CodedInputStream cin, byte[] buf)
+        throws IOException {
+        com.vividsolutions.jts.geom.Geometry g = null;
+
+        int tag;
+        while ((tag = cin.readTag()) != 0) {
+            if (tag == COLLECTION) {
+                throw new IllegalArgumentException("Not supported: geometry collection");
             }
-            else if (val.hasBytesVal()) {
-                vals.add(val.getBytesVal().toByteArray());
+            if (tag < POINT || tag > MULTIPOLYGON || (tag & 0x7) != WIRETYPE_LENGTH_DELIMITED) {
+                cin.skipField(tag);
+                continue;
             }
-            else if (val.hasGeom()) {
-                vals.add(decode(val.getGeom()));
+
+            int limit = push(cin);
+            switch(tag) {
+            case POINT:
+                g = point(cin);
+                break;
+            case LINESTRING:
+                g = gf.createLineString(member(cin, buf, COORDS));
+                break;
+            case POLYGON:
+                g = polygon(cin, buf);
+                break;
+            case MULTIPOINT:
+                g = gf.createMultiPoint(member(cin, buf, POINT_MEMBER));
+                break;
+            case MULTILINESTRING:
+                List<com.vividsolutions.jts.geom.LineString> lines =
+                    new ArrayList<com.vividsolutions.jts.geom.LineString>();
+                while ((tag = cin.readTag()) != 0) {
+                    if (tag == LINE_MEMBER) {
+                        lines.add(gf.createLineString(array(cin, buf)));
+                    }
+                    else {
+                        cin.skipField(tag);
+                    }
+                }
+                g = gf.createMultiLineString(GeometryFactory.toLineStringArray(lines));
+                break;
+            case MULTIPOLYGON:
+                List<com.vividsolutions.jts.geom.Polygon> polys =
+                    new ArrayList<com.vividsolutions.jts.geom.Polygon>();
+                while ((tag = cin.readTag()) != 0) {
+                    if (tag == POLYGON_MEMBER) {
+                        int l = push(cin);
+                        polys.add(polygon(cin, buf));
+                        cin.popLimit(l);
+                    }
+                    else {
+                        cin.skipField(tag);
+                    }
+                }
+                g = gf.createMultiPolygon(GeometryFactory.toPolygonArray(polys));
+                break;
+            }
+            cin.popLimit(limit);
+        }
+
+        return g;
+    }
+
+    com.vividsolutions.jts.geom.Point point(CodedInputStream cin) throws IOException {
+        double x = 0, y = 0;
+
+        int tag;
+        while ((tag = cin.readTag()) != 0) {
+            switch(tag) {
+            case X:
+                x = cin.readDouble();
+                break;
+            case Y:
+                y = cin.readDouble();
+                break;
+            default:
+                cin.skipField(tag);
+            }
+        }
+        return Geom.point(x, y);
+    }
+
+    com.vividsolutions.jts.geom.Polygon polygon(CodedInputStream cin, byte[] buf)
+        throws IOException {
+        LinearRing shell = null;
+        List<LinearRing> holes = new ArrayList<LinearRing>();
+
+        int tag;
+        while ((tag = cin.readTag()) != 0) {
+            switch(tag) {
+            case RING:
+                shell = new LinearRing(array(cin, buf), gf);
+                break;
+            case HOLE:
+                holes.add(new LinearRing(array(cin, buf), gf));
+                break;
+            default:
+                cin.skipField(tag);
+            }
+        }
+        return gf.createPolygon(shell, GeometryFactory.toLinearRingArray(holes));
+    }
+
+    /*
+     * reads the single array member of a message, ie LineString.coords or MultiPoint.members
+     */
+    CoordinateSequence member(CodedInputStream cin, byte[] buf, int member) 
+        throws IOException {
+        CoordinateSequence cs = null;
+
+        int tag;
+        while ((tag = cin.readTag()) != 0) {
+            if (tag == member) {
+                cs = array(cin, buf);
             }
             else {
-                vals.add(null);
+                cin.skipField(tag);
             }
         }
+        return cs;
+    }
 
-        last = b;
-        return new BasicFeature(String.valueOf(id++), vals, schema);
+    /*
+     * reads a length delimited Array message, wrapping packed ordinates in place
+     */
+    CoordinateSequence array(CodedInputStream cin, byte[] buf) throws IOException {
+        int limit = push(cin);
+
+        int dim = 2, off = -1, n = 0;
+        double[] ords = null;
+
+        int tag;
+        while ((tag = cin.readTag()) != 0) {
+            switch(tag) {
+            case DIM:
+                dim = cin.readInt32();
+                break;
+            case PACKED_ORD:
+                int len = cin.readRawVarint32();
+                off = cin.getTotalBytesRead();
+                n = len / 8;
+                cin.skipRawBytes(len);
+                break;
+            case ORD:
+                // unpacked ordinates
+                if (ords == null) {
+                    ords = new double[16];
+                }
+                else if (n == ords.length) {
+                    ords = Arrays.copyOf(ords, n * 2);
+                }
+                ords[n++] = cin.readDouble();
+                break;
+            default:
+                cin.skipField(tag);
+            }
+        }
+        cin.popLimit(limit);
+
+        if (ords != null) {
+            return new PackedCoordinateSequence.Double(Arrays.copyOf(ords, n), dim);
+        }
+        return new PBCoordinateSequence(buf, off < 0 ? 0 : off, n, dim);
+    }
+
+    static int push(CodedInputStream cin) throws IOException {
+        return cin.pushLimit(cin.readRawVarint32());
     }
 
     public org.jeo.vector.Schema schema() throws IOException {
@@ -26,6 +26,7 @@ import org.jeo.protobuf.Feat.Field;
 import org.jeo.protobuf.Feat.Schema;
 import org.jeo.protobuf.Feat.Value;
 import org.jeo.protobuf.Geom.Array;
+import org.jeo.protobuf.Geom.Bounds;
 import org.jeo.protobuf.Geom.Geometry;
 import org.jeo.protobuf.Geom.Geometry.Type;
 import org.jeo.protobuf.Geom.LineString;
@@ -39,6 +40,7 @@ import org.osgeo.proj4j.CoordinateReferenceSystem;
 import com.google.protobuf.ByteString;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -136,6 +138,11 @@ public class ProtobufWriter implements Disposable {
         return b.build();
     }
 
+    public static Bounds encode(Envelope e) {
+        return Bounds.newBuilder().setWest(e.getMinX()).setSouth(e.getMinY())
+            .setEast(e.getMaxX()).setNorth(e.getMaxY()).build();
+    }
+
     static Array array(CoordinateSequence seq) {
         Array.Builder b = Array.newBuilder();
 
@@ -212,8 +219,12 @@ public class ProtobufWriter implements Disposable {
             last.build().writeDelimitedTo(out);
         }
 
+        last = encode(f);
+        return this;
+    }
+
+    Feature.Builder encode(org.jeo.vector.Feature f) throws IOException {
         Feature.Builder b = Feature.newBuilder();
-        last = b;
 
         for (Map.Entry<String,Object> e : f.map().entrySet()) {
             if (e.getKey() == null || e.getValue() == null) {
@@ -241,10 +252,15 @@ public class ProtobufWriter implements Disposable {
             b.addValue(vb.build());
         }
 
-        return this;
+        return b;
     }
 
     public ProtobufWriter schema(org.jeo.vector.Schema schema) throws IOException {
+        encode(schema).writeDelimitedTo(out);
+        return this;
+    }
+
+    Schema encode(org.jeo.vector.Schema schema) {
         Schema.Builder b = Schema.newBuilder();
         b.setName(schema.getName());
 
@@ -289,8 +305,7 @@ public class ProtobufWriter implements Disposable {
             b.addField(fb.build());
         }
 
-        b.build().writeDelimitedTo(out);
-        return this;
+        return b.build();
     }
 
     public void close() {
@@ -0,0 +1,56 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.protobuf;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jeo.Tests;
+import org.jeo.data.Cursor;
+import org.jeo.vector.Feature;
+import org.jeo.vector.FeatureCursor;
+import org.jeo.vector.Features;
+import org.jeo.vector.VectorApiTestBase;
+import org.jeo.vector.VectorDataset;
+import org.jeo.vector.VectorQuery;
+
+public class ProtobufContainerApiTest extends VectorApiTestBase {
+
+    @Override
+    protected VectorDataset createVectorData() throws Exception {
+        File dir = Tests.newTmpDir("states", "pbf");
+        File f = Tests.gunzip(getClass().getResourceAsStream("states.pbf.gz"), dir, "states.pbf");
+        ProtobufDataset states = new ProtobufDataset(f);
+
+        // small blocks so that bounding box queries span multiple blocks
+        Map<Object,Object> opts = new LinkedHashMap<Object, Object>();
+        opts.put(Protobuf.FILE, new File(dir, "states_indexed.pbf"));
+        opts.put(Protobuf.BLOCK_SIZE, 8);
+
+        ProtobufDataset data = new Protobuf().create((Map) opts, states.schema());
+        Cursor<Feature> c = data.cursor(new VectorQuery().append());
+
+        FeatureCursor it = states.cursor(new VectorQuery());
+        for (Feature g : it) {
+            Features.copy(g, c.next());
+            c.write();
+        }
+        it.close();
+        c.close();
+
+        return data;
+    }
+}
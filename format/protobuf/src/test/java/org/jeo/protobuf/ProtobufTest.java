@@ -18,16 +18,25 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.jeo.Tests;
 import org.jeo.geom.Geom;
 import org.jeo.vector.BasicFeature;
 import org.jeo.vector.Feature;
+import org.jeo.vector.FeatureCursor;
+import org.jeo.vector.Schema;
+import org.jeo.vector.VectorQuery;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.MultiLineString;
 import com.vividsolutions.jts.geom.MultiPoint;
@@ -119,6 +128,95 @@ public class ProtobufTest {
         assertEquals(1.99, f2.get("cost"));
     }
 
+    @Test
+    public void testFeatureGeometries() throws Exception {
+        Geometry[] geoms = new Geometry[]{
+            Geom.point(1, 2),
+            Geom.lineString(1,2,3,4,5,6),
+            Geom.build().points(2,2,4,2,4,4,2,4).ring().points(0,0,10,0,10,10,0,10,0,0).toPolygon(),
+            Geom.build().points(1,2,3,4,5,6).toMultiPoint(),
+            Geom.build().points(1,2,3,4).lineString().points(7,8,9,10).lineString()
+                .toMultiLineString(),
+            Geom.build().point(0,0).point().buffer(10).point(100,100).point().buffer(10)
+                .toMultiPolygon()
+        };
+
+        ProtobufWriter w = writer();
+        for (Geometry g : geoms) {
+            Map<String,Object> map = new LinkedHashMap<String, Object>();
+            map.put("geometry", g);
+            map.put("type", g.getGeometryType());
+            w.feature(new BasicFeature(null, map));
+        }
+        w.close();
+
+        ProtobufReader r = reader().setReadUntilLastFeature();
+        Schema schema = new BasicFeature(null, Arrays.asList((Object)geoms[0], "")).schema();
+        for (Geometry g : geoms) {
+            Feature f = r.feature(schema);
+            assertTrue(g.equalsExact(f.geometry()));
+            assertEquals(g.getEnvelopeInternal(), f.geometry().getEnvelopeInternal());
+            assertEquals(g.getGeometryType(), f.get(1));
+        }
+        assertNull(r.feature(schema));
+    }
+
+    @Test
+    public void testContainer() throws Exception {
+        Schema schema = Schema.build("widgets").field("geometry", Point.class)
+            .field("id", Integer.class).field("name", String.class).schema();
+
+        File file = Tests.newTmpFile();
+        ProtobufWriter w = new ProtobufContainerWriter(new FileOutputStream(file), 10, true);
+        w.schema(schema);
+        for (int i = 0; i < 100; i++) {
+            w.feature(new BasicFeature(null, Arrays.asList(
+                (Object) Geom.point(i, i), i, "widget" + i), schema));
+        }
+        w.close();
+
+        ProtobufDataset data = new ProtobufDataset(file);
+        assertTrue(data.isIndexed());
+        assertEquals("widgets", data.schema().getName());
+        assertEquals(100, data.count(new VectorQuery()));
+        assertEquals(new Envelope(0, 99, 0, 99), data.bounds());
+
+        ProtobufContainer c = ProtobufContainer.open(file);
+        assertEquals(10, c.size());
+        assertArrayEquals(new int[]{2, 3}, c.query(new Envelope(25, 35, 25, 35)));
+
+        assertEquals(11, data.count(new VectorQuery().bounds(new Envelope(25, 35, 25, 35))));
+        assertEquals(5, data.count(new VectorQuery().offset(95)));
+
+        FeatureCursor cursor = data.cursor(new VectorQuery().offset(42).limit(3));
+        for (int i = 42; i < 45; i++) {
+            Feature f = cursor.next();
+            assertEquals(i, f.get("id"));
+            assertEquals("widget" + i, f.get("name"));
+            assertEquals(String.valueOf(i), f.id());
+        }
+        assertFalse(cursor.hasNext());
+        cursor.close();
+    }
+
+    @Test
+    public void testContainerUncompressed() throws Exception {
+        Schema schema = Schema.build("widgets").field("geometry", Point.class).schema();
+
+        File file = Tests.newTmpFile();
+        ProtobufWriter w = new ProtobufContainerWriter(new FileOutputStream(file), 3, false);
+        w.schema(schema);
+        for (int i = 0; i < 7; i++) {
+            w.feature(new BasicFeature(null, Arrays.asList((Object) Geom.point(i, -i)), schema));
+        }
+        w.close();
+
+        ProtobufDataset data = new ProtobufDataset(file);
+        assertEquals(3, ProtobufContainer.open(file).size());
+        assertEquals(7, data.cursor(new VectorQuery()).count());
+        assertEquals(new Envelope(0, 6, -6, 0), data.cursor(new VectorQuery()).bounds());
+    }
+
     ProtobufWriter writer() {
         return new ProtobufWriter(out);
     }
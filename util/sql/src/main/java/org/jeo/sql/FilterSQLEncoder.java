@@ -54,6 +54,10 @@ import org.jeo.filter.Null;
  * statement are stored in {@link #getArgs()}. When <code>false</code> the encoder will encode 
  * literals directly. 
  * </p>
+ * <p>
+ * In prepared mode all literals are emitted as parameters, so filters that differ only in their
+ * values encode to the same sql and can share a cached statement, see {@link StatementCache}.
+ * </p>
  * 
  * @author Justin Deoliveira, OpenGeo
  */
@@ -316,7 +320,15 @@ public class FilterSQLEncoder extends FilterVisitor {
     public Object visit(Like like, Object obj) {
         like.property().accept(this, obj);
         sql.add(" LIKE ");
-        sql.str((String) like.match().evaluate(null));
+
+        String match = (String) like.match().evaluate(null);
+        if (prepared) {
+            sql.add("?");
+            args.add(new Pair<Object, Integer>(match, Types.VARCHAR));
+        }
+        else {
+            sql.str(match);
+        }
         return obj;
     }
 
@@ -326,6 +338,15 @@ public class FilterSQLEncoder extends FilterVisitor {
         sql.add(" IN ");
         sql.add('(');
         List<Expression> vals = in.values();
+        if (prepared) {
+            Field fld = field(in.property(), null);
+            for (Expression e : vals) {
+                e.accept(this, fld);
+                sql.add(',');
+            }
+            sql.trim(1).add(')');
+            return obj;
+        }
         for (int i = 0; i < vals.size(); i++) {
             Object evaluate = vals.get(i).evaluate(null);
             if (evaluate instanceof String) {
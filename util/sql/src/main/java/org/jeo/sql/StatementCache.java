@@ -0,0 +1,282 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.sql;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least recently used cache of prepared statements for a single connection, keyed by SQL.
+ * <p>
+ * Statements that differ only in parameter values share the same SQL, so reusing the prepared
+ * statement saves parsing and planning the query again, both in the driver and on the server.
+ * Statements obtained from {@link #prepare(String)} are used and closed as usual, closing one
+ * returns it to the cache rather than closing the underlying statement. A statement is handed out
+ * to one caller at a time, preparing the same SQL while it is in use prepares an uncached
+ * statement.
+ * </p>
+ * <p>
+ * The cache is not thread safe, it is meant to be used along with the connection it wraps.
+ * </p>
+ */
+public class StatementCache implements Closeable {
+
+    static Logger LOG = LoggerFactory.getLogger(StatementCache.class);
+
+    final Connection cx;
+    final int maxSize;
+
+    final LinkedHashMap<String, Entry> statements = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    boolean closed = false;
+
+    long hits = 0;
+    long misses = 0;
+    long evictions = 0;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param cx The connection to prepare statements with.
+     * @param maxSize The maximum number of statements cached.
+     */
+    public StatementCache(Connection cx, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("cache size must be positive");
+        }
+        this.cx = cx;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The connection statements are prepared with.
+     */
+    public Connection getConnection() {
+        return cx;
+    }
+
+    /**
+     * Obtains a prepared statement for the specified sql, reusing a cached one when available.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement cache is closed");
+        }
+
+        Entry e = statements.get(sql);
+        if (e != null) {
+            if (!e.inUse) {
+                hits++;
+                return e.checkout();
+            }
+
+            // already handed out, fall back to a statement of its own
+            misses++;
+            return cx.prepareStatement(sql);
+        }
+
+        misses++;
+        e = new Entry(sql, cx.prepareStatement(sql));
+        statements.put(sql, e);
+        evict();
+
+        return e.checkout();
+    }
+
+    void evict() {
+        Iterator<Entry> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            Entry e = it.next();
+            if (e.inUse) {
+                // closed when released
+                continue;
+            }
+
+            it.remove();
+            evictions++;
+            close(e.ps);
+        }
+    }
+
+    void release(Entry e) throws SQLException {
+        e.inUse = false;
+        if (closed || statements.get(e.sql) != e) {
+            e.ps.close();
+            return;
+        }
+
+        try {
+            e.ps.clearParameters();
+        }
+        catch(SQLException ex) {
+            statements.remove(e.sql);
+            close(e.ps);
+            throw ex;
+        }
+        evict();
+    }
+
+    /**
+     * The maximum number of statements cached.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The number of statements currently cached.
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * The number of prepares served from the cache.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of prepares that required a new statement.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * The number of statements closed to keep the cache within its maximum size.
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * The ratio of hits to prepares, 0 if nothing has been prepared.
+     */
+    public double hitRatio() {
+        long n = hits + misses;
+        return n > 0 ? hits / (double) n : 0;
+    }
+
+    /**
+     * Closes all cached statements not in use, statements in use are closed when released. The
+     * connection is not closed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Statement cache: %d hits, %d misses, %d evictions",
+                hits, misses, evictions));
+        }
+
+        List<Entry> entries = new ArrayList<Entry>(statements.values());
+        statements.clear();
+        for (Entry e : entries) {
+            if (!e.inUse) {
+                close(e.ps);
+            }
+        }
+    }
+
+    void close(PreparedStatement ps) {
+        try {
+            ps.close();
+        }
+        catch(SQLException e) {
+            LOG.debug("Error closing statement", e);
+        }
+    }
+
+    class Entry {
+        final String sql;
+        final PreparedStatement ps;
+        boolean inUse;
+
+        Entry(String sql, PreparedStatement ps) {
+            this.sql = sql;
+            this.ps = ps;
+        }
+
+        PreparedStatement checkout() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new Handle(this));
+        }
+    }
+
+    /**
+     * Handle to a checked out statement, closing it returns the statement to the cache.
+     */
+    class Handle implements InvocationHandler {
+        Entry entry;
+
+        Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (entry != null) {
+                    Entry e = entry;
+                    entry = null;
+                    release(e);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return entry == null;
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "cached: " + (entry != null ? entry.ps.toString() : "closed");
+            }
+
+            if (entry == null) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                return method.invoke(entry.ps, args);
+            }
+            catch(InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -85,12 +85,18 @@ public class FilterSQLEncoderTest {
     @Test
     public void testIn() throws Exception {
         Filter f = Filter.build().property("x").literal("six").literal(6).in().filter();
+        assertEncoded(f, "\"x\" IN (?,?)", "six", 6);
+
+        sqle.setPrepared(false);
         assertEquals("\"x\" IN ('six',6)", sqle.encode(f, null));
     }
     
     @Test
     public void testLike() throws Exception {
         Filter f = Filter.build().property("x").literal("foo%bar").like().filter();
+        assertEncoded(f, "\"x\" LIKE ?", "foo%bar");
+
+        sqle.setPrepared(false);
         assertEquals("\"x\" LIKE 'foo%bar'", sqle.encode(f, null));
     }
 
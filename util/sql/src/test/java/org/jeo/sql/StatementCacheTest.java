@@ -0,0 +1,169 @@
+/* Copyright 2014 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jeo.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StatementCacheTest {
+
+    Connection cx;
+    StatementCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        cx = DriverManager.getConnection("jdbc:sqlite::memory:");
+
+        Statement st = cx.createStatement();
+        st.execute("CREATE TABLE widgets (id INTEGER, name TEXT)");
+        for (int i = 0; i < 10; i++) {
+            st.execute(String.format("INSERT INTO widgets VALUES (%d, 'widget %d')", i, i));
+        }
+        st.close();
+
+        cache = new StatementCache(cx, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+        cx.close();
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals("widget " + i, name(i));
+        }
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.misses());
+        assertEquals(4, cache.hits());
+        assertEquals(0.8, cache.hitRatio(), 0.0);
+    }
+
+    @Test
+    public void testClosedHandle() throws Exception {
+        PreparedStatement ps = cache.prepare("SELECT name FROM widgets WHERE id = ?");
+        ps.close();
+        assertTrue(ps.isClosed());
+
+        try {
+            ps.setInt(1, 1);
+            fail();
+        }
+        catch(SQLException e) {
+        }
+
+        // closing again is a no-op
+        ps.close();
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testInUse() throws Exception {
+        String sql = "SELECT name FROM widgets WHERE id = ?";
+
+        PreparedStatement ps1 = cache.prepare(sql);
+        PreparedStatement ps2 = cache.prepare(sql);
+
+        ps1.setInt(1, 1);
+        ps2.setInt(1, 2);
+
+        ResultSet rs1 = ps1.executeQuery();
+        ResultSet rs2 = ps2.executeQuery();
+        assertTrue(rs1.next());
+        assertTrue(rs2.next());
+        assertEquals("widget 1", rs1.getString(1));
+        assertEquals("widget 2", rs2.getString(1));
+
+        rs1.close();
+        rs2.close();
+        ps1.close();
+        ps2.close();
+
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        cache.prepare("SELECT 1").close();
+        cache.prepare("SELECT 2").close();
+        cache.prepare("SELECT 1").close();
+        cache.prepare("SELECT 3").close();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+
+        // SELECT 2 was least recently used
+        cache.prepare("SELECT 1").close();
+        cache.prepare("SELECT 3").close();
+        assertEquals(3, cache.hits());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        PreparedStatement ps = cache.prepare("SELECT 1");
+        cache.close();
+
+        // statements in use remain usable until released
+        ResultSet rs = ps.executeQuery();
+        assertTrue(rs.next());
+        rs.close();
+        ps.close();
+
+        assertEquals(0, cache.size());
+        try {
+            cache.prepare("SELECT 1");
+            fail();
+        }
+        catch(SQLException e) {
+        }
+        assertFalse(cx.isClosed());
+    }
+
+    String name(int id) throws SQLException {
+        PreparedStatement ps = cache.prepare("SELECT name FROM widgets WHERE id = ?");
+        try {
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            try {
+                return rs.next() ? rs.getString(1) : null;
+            }
+            finally {
+                rs.close();
+            }
+        }
+        finally {
+            ps.close();
+        }
+    }
+}